@@ -1,11 +1,13 @@
 package org.example.courseworkManager;
 
+import javafx.concurrent.Task;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.apache.commons.math3.stat.correlation.PearsonsCorrelation;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * AnalysisPane is a VBox that provides tools to:
@@ -18,6 +20,10 @@ public class AnalysisPane extends VBox {
     private final ComboBox<String> column1ComboBox;
     private final ComboBox<String> column2ComboBox;
     private final TextArea resultArea;
+    // Columns the text in resultArea was computed from
+    private List<String> resultColumns = List.of();
+    // Analysis still running in the background, if any
+    private Task<String> running;
 
     public AnalysisPane(DataModel dataModel) {
         this.dataModel = dataModel;
@@ -49,15 +55,25 @@ public class AnalysisPane extends VBox {
 
 
         // Update columns when data changes using DataModel listener
-        dataModel.addListener(() -> {
-            updateColumns();
-            resultArea.clear();
+        dataModel.addListener(event -> {
+            if (event.getType() == DataChangeEvent.Type.SCHEMA_CHANGED) {
+                updateColumns();
+                clearResult();
+            } else if (resultColumns.stream().anyMatch(event::affectsColumn)) {
+                // Row changes keep the selected columns; only a stale result is cleared
+                clearResult();
+            }
         });
 
         // Initial column update
         updateColumns();
     }
 
+    private void clearResult() {
+        resultArea.clear();
+        resultColumns = List.of();
+    }
+
     /**
      * Updates both dropdowns with current column names from the dataset.
      */
@@ -85,41 +101,44 @@ public class AnalysisPane extends VBox {
             return;
         }
 
-        List<Double> values1 = new ArrayList<>();
-        List<Double> values2 = new ArrayList<>();
+        runAnalysis(snapshot -> correlation(snapshot, col1, col2), List.of(col1, col2),
+                this::calculateCorrelation);
+    }
 
-        // Extract and validate numeric values from both columns
-        for (Map<String, Object> row : dataModel.getData()) {
-            Object val1 = row.get(col1);
-            Object val2 = row.get(col2);
+    private static String correlation(DataSnapshot snapshot, String col1, String col2) {
+        Column column1 = snapshot.getTable().column(col1);
+        Column column2 = snapshot.getTable().column(col2);
+        double[] array1 = new double[snapshot.rowCount()];
+        double[] array2 = new double[snapshot.rowCount()];
+        int count = 0;
 
-            if (val1 instanceof Number && val2 instanceof Number) {
-                values1.add(((Number) val1).doubleValue());
-                values2.add(((Number) val2).doubleValue());
+        // Extract and validate numeric values from both columns
+        if (column1 != null && column2 != null) {
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                if (column1.isNumber(row) && column2.isNumber(row)) {
+                    array1[count] = column1.getDouble(row);
+                    array2[count] = column2.getDouble(row);
+                    count++;
+                }
             }
         }
 
-        if (values1.isEmpty() || values2.isEmpty()) {
-            showError("Selected columns must contain numeric data for correlation analysis.");
-            return;
+        if (count == 0) {
+            throw new IllegalArgumentException("Selected columns must contain numeric data for correlation analysis.");
         }
 
-        // Convert to primitive arrays for library function
-        double[] array1 = values1.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] array2 = values2.stream().mapToDouble(Double::doubleValue).toArray();
-
         // Calculate Pearson correlation
         PearsonsCorrelation correlation = new PearsonsCorrelation();
-        double correlationValue = correlation.correlation(array1, array2);
+        double correlationValue = correlation.correlation(Arrays.copyOf(array1, count), Arrays.copyOf(array2, count));
 
-        resultArea.setText(String.format("Correlation Analysis Results:\n\n" +
+        return String.format("Correlation Analysis Results:\n\n" +
                         "Columns: %s and %s\n" +
                         "Pearson's Correlation Coefficient: %.4f\n\n" +
                         "Interpretation:\n" +
                         "- Values close to 1 indicate strong positive correlation\n" +
                         "- Values close to -1 indicate strong negative correlation\n" +
                         "- Values close to 0 indicate weak or no correlation",
-                col1, col2, correlationValue));
+                col1, col2, correlationValue);
     }
 
     /**
@@ -129,31 +148,30 @@ public class AnalysisPane extends VBox {
      * - Unique values count for non-numeric
      */
     private void generateSummary() {
+        runAnalysis(AnalysisPane::summary, List.copyOf(dataModel.getColumnNames()), this::generateSummary);
+    }
+
+    private static String summary(DataSnapshot snapshot) {
         StringBuilder summary = new StringBuilder();
 
-        for (String column : dataModel.getColumnNames()) {
+        for (String column : snapshot.getColumnNames()) {
             summary.append("Column: ").append(column).append("\n");
 
-            List<Object> values = new ArrayList<>();
-            int nullCount = 0;
-
-            for (Map<String, Object> row : dataModel.getData()) {
-                Object value = row.get(column);
-                if (value == null) {
-                    nullCount++;
-                } else {
-                    values.add(value);
-                }
+            Column values = snapshot.getTable().column(column);
+            if (values == null) {
+                summary.append("\n");
+                continue;
             }
+            int nullCount = values.nullCount();
+            int valueCount = values.size() - nullCount;
 
-            summary.append("Total values: ").append(values.size()).append("\n");
+            summary.append("Total values: ").append(valueCount).append("\n");
             summary.append("Null values: ").append(nullCount).append("\n");
 
-            if (!values.isEmpty()) {
-                Object firstValue = values.get(0);
+            if (valueCount > 0) {
+                Object firstValue = values.get(firstNonNull(values));
                 if (firstValue instanceof Number) {
-                    DescriptiveStatistics stats = new DescriptiveStatistics();
-                    values.forEach(v -> stats.addValue(((Number) v).doubleValue()));
+                    DescriptiveStatistics stats = new DescriptiveStatistics(snapshot.numericValues(column));
 
                     summary.append(String.format("Mean: %.2f\n", stats.getMean()));
                     summary.append(String.format("Median: %.2f\n", stats.getPercentile(50)));
@@ -162,15 +180,90 @@ public class AnalysisPane extends VBox {
                     summary.append(String.format("Max: %.2f\n", stats.getMax()));
                 } else {
                     // For non-numeric columns, show unique values count
-                    long uniqueValues = values.stream().distinct().count();
-                    summary.append("Unique values: ").append(uniqueValues).append("\n");
+                    summary.append("Unique values: ").append(countUnique(values)).append("\n");
                 }
             }
 
             summary.append("\n");
         }
 
-        resultArea.setText(summary.toString());
+        return summary.toString();
+    }
+
+    /**
+     * Runs an analysis on a snapshot in a background thread so that large datasets
+     * do not freeze the UI. If the data changed while it ran, it is run again on
+     * the new data instead of showing an outdated result.
+     */
+    private void runAnalysis(Function<DataSnapshot, String> analysis, List<String> columns, Runnable rerun) {
+        if (running != null) {
+            running.cancel();
+        }
+        DataSnapshot snapshot = dataModel.snapshot();
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                try {
+                    return analysis.apply(snapshot);
+                } finally {
+                    snapshot.release();
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            running = null;
+            if (snapshot.getVersion() != dataModel.getVersion()) {
+                rerun.run();
+                return;
+            }
+            resultArea.setText(task.getValue());
+            resultColumns = columns;
+        });
+        task.setOnFailed(e -> {
+            running = null;
+            clearResult();
+            showError(task.getException().getMessage());
+        });
+        running = task;
+        clearResult();
+        resultArea.setText("Calculating...");
+
+        Thread thread = new Thread(task, "analysis");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static int firstNonNull(Column values) {
+        int row = 0;
+        while (values.isNull(row)) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Counts distinct non-null values. Dictionary columns only need to mark
+     * which codes occur; other columns fall back to hashing the values.
+     */
+    private static long countUnique(Column values) {
+        if (values instanceof DictionaryColumn) {
+            DictionaryColumn codes = (DictionaryColumn) values;
+            Bitmap seen = new Bitmap(codes.getDictionary().size());
+            for (int row = 0; row < codes.size(); row++) {
+                int code = codes.getCode(row);
+                if (code >= 0) {
+                    seen.set(code);
+                }
+            }
+            return seen.cardinality();
+        }
+        Set<Object> unique = new HashSet<>();
+        for (int row = 0; row < values.size(); row++) {
+            if (!values.isNull(row)) {
+                unique.add(values.get(row));
+            }
+        }
+        return unique.size();
     }
 
     /**
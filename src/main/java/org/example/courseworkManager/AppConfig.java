@@ -1,10 +1,11 @@
 package org.example.courseworkManager;
 
+import java.nio.file.Paths;
 import java.util.prefs.Preferences;
 
 /**
  * AppConfig is a singleton utility class that handles application preferences,
- * such as remembering the last opened directory and preferred chart type.
+ * such as remembering the last opened directory, preferred chart type and storage mode.
  */
 public class AppConfig {
     private static AppConfig instance;     // Singleton instance
@@ -45,4 +46,35 @@ public class AppConfig {
     public String getPreferredChartType() {
         return preferences.get("preferredChartType", "SCATTER_PLOT");
     }
-}
\ No newline at end of file
+
+    // Enables keeping imported column data in memory-mapped scratch files instead of the heap.
+    public void setDiskBacked(boolean diskBacked) {
+        preferences.putBoolean("diskBacked", diskBacked);
+    }
+
+    //Retrieves whether disk-backed mode is on, defaulting to off.
+    public boolean isDiskBacked() {
+        return preferences.getBoolean("diskBacked", false);
+    }
+
+    // Stores the directory where disk-backed mode places its scratch files.
+    public void setScratchDirectory(String path) {
+        preferences.put("scratchDirectory", path);
+    }
+
+    //Retrieves the scratch directory, defaulting to a folder in the system temp directory.
+    public String getScratchDirectory() {
+        return preferences.get("scratchDirectory",
+                Paths.get(System.getProperty("java.io.tmpdir"), "data-science-manager").toString());
+    }
+
+    // Stores how many megabytes of undo history are kept in memory before spilling to disk.
+    public void setHistoryBudgetMegabytes(int megabytes) {
+        preferences.putInt("historyBudgetMegabytes", megabytes);
+    }
+
+    //Retrieves the undo history memory budget in megabytes, defaulting to 256.
+    public int getHistoryBudgetMegabytes() {
+        return preferences.getInt("historyBudgetMegabytes", 256);
+    }
+}
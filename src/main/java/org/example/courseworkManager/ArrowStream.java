@@ -0,0 +1,1090 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Reads and writes the Apache Arrow IPC streaming format, to exchange datasets
+ * with pandas, Polars and other Arrow tools without going through text.
+ * Doubles, longs, date-times (as nanosecond timestamps) and dictionary codes
+ * have the same layout in Arrow buffers as in the columns. They are written out
+ * in one pass, and when a stream holds a single record batch (as written here)
+ * they are mapped like a saved dataset (see DsmFile) instead of being read.
+ * Streams of several batches, and types held differently (32-bit dates, narrower
+ * integers, floats, plain strings), are copied into columns.
+ * Nested types and compressed bodies are not supported. Time zones are read as UTC.
+ * Arrow IPC files (.arrow, .feather) hold a stream after their magic bytes, so
+ * they can be read too.
+ */
+public final class ArrowStream {
+    // Each message starts with this marker, then the length of its metadata
+    private static final int CONTINUATION = -1;
+    private static final byte[] FILE_MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int METADATA_V5 = 4;
+
+    // Message header kinds
+    private static final int SCHEMA = 1;
+    private static final int DICTIONARY_BATCH = 2;
+    private static final int RECORD_BATCH = 3;
+
+    // Arrow types
+    private static final int NULL_TYPE = 1;
+    private static final int INT_TYPE = 2;
+    private static final int FLOAT_TYPE = 3;
+    private static final int UTF8_TYPE = 5;
+    private static final int BOOL_TYPE = 6;
+    private static final int DATE_TYPE = 8;
+    private static final int TIMESTAMP_TYPE = 10;
+    private static final int LARGE_UTF8_TYPE = 20;
+
+    private static final int SINGLE_PRECISION = 1;
+    private static final int DOUBLE_PRECISION = 2;
+    private static final int DAY_UNIT = 0;
+    private static final int MILLISECOND_UNIT = 1;
+    private static final int NANOSECOND_UNIT = 3;
+    private static final long[] NANOS_PER_UNIT = {1_000_000_000L, 1_000_000L, 1_000L, 1L};
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private ArrowStream() {
+    }
+
+    /**
+     * Writes the given columns of the table as one record batch.
+     */
+    public static void write(ColumnTable table, List<String> columns, File file,
+                             ProgressMonitor monitor) throws IOException {
+        write(table, columns, file, monitor, Integer.MAX_VALUE);
+    }
+
+    // The batch size is a parameter so that tests can write streams of several batches
+    static void write(ColumnTable table, List<String> columns, File file, ProgressMonitor monitor,
+                      int batchRows) throws IOException {
+        int rows = table.rowCount();
+        List<Column> values = new ArrayList<>(columns.size());
+        for (String name : columns) {
+            Column column = table.column(name);
+            if (column == null) {
+                // Columns the table does not have are written as empty
+                column = new ObjectColumn(rows);
+                for (int row = 0; row < rows; row++) {
+                    column.append(null);
+                }
+            }
+            values.add(column);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BlockWriter out = new BlockWriter(channel, 0, monitor);
+            List<FieldWriter> fields = new ArrayList<>(values.size());
+            List<FlatBuffers.Table> schema = new ArrayList<>(values.size());
+            long totalBytes = 0;
+            for (int c = 0; c < values.size(); c++) {
+                FieldWriter field = new FieldWriter(values.get(c), c);
+                fields.add(field);
+                schema.add(field.schema(columns.get(c)));
+                totalBytes += field.bytesPerRow() * rows;
+            }
+            monitor.setTotalBytes(totalBytes);
+            writeMessage(out, SCHEMA, new FlatBuffers.Table().addShort(0, 0).addTables(1, schema),
+                    List.of(), monitor);
+
+            // Dictionaries come before the record batches that refer to them
+            for (FieldWriter field : fields) {
+                if (field.dictionary != null) {
+                    List<Buffer> buffers = utf8Buffers(field.dictionary, 0, field.dictionary.length);
+                    FlatBuffers.Table batch = recordBatch(field.dictionary.length,
+                            new long[]{field.dictionary.length, 0}, buffers);
+                    writeMessage(out, DICTIONARY_BATCH, new FlatBuffers.Table().addLong(0, field.id)
+                            .addTable(1, batch), buffers, monitor);
+                }
+            }
+
+            int start = 0;
+            do {
+                int end = (int) Math.min(rows, (long) start + batchRows);
+                long[] nodes = new long[2 * fields.size()];
+                List<Buffer> buffers = new ArrayList<>();
+                for (int c = 0; c < fields.size(); c++) {
+                    FieldWriter field = fields.get(c);
+                    nodes[2 * c] = end - start;
+                    nodes[2 * c + 1] = field.nullCount(start, end);
+                    buffers.addAll(field.buffers(start, end));
+                }
+                writeMessage(out, RECORD_BATCH, recordBatch(end - start, nodes, buffers), buffers, monitor);
+                monitor.addRows(end - start);
+                start = end;
+            } while (start < rows);
+
+            // End of stream
+            out.putInt(CONTINUATION);
+            out.putInt(0);
+            out.flush();
+        }
+    }
+
+    // One buffer of a message body, copied out of a column as the body is written
+    private static final class Buffer {
+        private final long length;
+        private final BufferWriter writer;
+
+        Buffer(long length, BufferWriter writer) {
+            this.length = length;
+            this.writer = writer;
+        }
+    }
+
+    private interface BufferWriter {
+        void write(BlockWriter out) throws IOException;
+    }
+
+    private static FlatBuffers.Table recordBatch(long length, long[] nodes, List<Buffer> buffers) {
+        long[] positions = new long[2 * buffers.size()];
+        long offset = 0;
+        for (int i = 0; i < buffers.size(); i++) {
+            positions[2 * i] = offset;
+            positions[2 * i + 1] = buffers.get(i).length;
+            offset += padded(buffers.get(i).length);
+        }
+        return new FlatBuffers.Table().addLong(0, length).addStructs(1, nodes).addStructs(2, positions);
+    }
+
+    // Writes the framed metadata, then each body buffer padded to a multiple of 8 bytes
+    private static void writeMessage(BlockWriter out, int headerType, FlatBuffers.Table header,
+                                     List<Buffer> body, ProgressMonitor monitor) throws IOException {
+        long bodyLength = 0;
+        for (Buffer buffer : body) {
+            bodyLength += padded(buffer.length);
+        }
+        byte[] metadata = FlatBuffers.finish(new FlatBuffers.Table().addShort(0, METADATA_V5)
+                .addByte(1, headerType).addTable(2, header).addLong(3, bodyLength));
+        out.putInt(CONTINUATION);
+        out.putInt((int) padded(metadata.length));
+        out.put(metadata, 0, metadata.length);
+        out.align();
+        for (Buffer buffer : body) {
+            monitor.checkCancelled();
+            long start = out.position();
+            buffer.writer.write(out);
+            if (out.position() - start != buffer.length) {
+                throw new IllegalStateException("Wrote " + (out.position() - start) + " bytes for a buffer of "
+                        + buffer.length);
+            }
+            out.align();
+        }
+    }
+
+    private static long padded(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    /**
+     * How one column is written: its Arrow type and the buffers of a range of rows.
+     */
+    private static final class FieldWriter {
+        private final Column column;
+        private final int id;
+        private final int typeType;
+        private final FlatBuffers.Table type;
+        // Bytes per value in the values buffer; 0 for bits and strings
+        private final int width;
+        // UTF-8 dictionary entries or string values
+        private byte[][] dictionary;
+        private byte[][] strings;
+
+        FieldWriter(Column column, int id) {
+            this.column = column;
+            this.id = id;
+            if (column instanceof DoubleColumn) {
+                typeType = FLOAT_TYPE;
+                type = new FlatBuffers.Table().addShort(0, DOUBLE_PRECISION);
+                width = 8;
+            } else if (column instanceof TemporalColumn) {
+                if (column.getType() == LocalDateTime.class) {
+                    // Nanoseconds since the epoch, as the column holds them
+                    typeType = TIMESTAMP_TYPE;
+                    type = new FlatBuffers.Table().addShort(0, NANOSECOND_UNIT);
+                    width = 8;
+                } else {
+                    typeType = DATE_TYPE;
+                    type = new FlatBuffers.Table().addShort(0, DAY_UNIT);
+                    width = 4;
+                }
+            } else if (column instanceof LongColumn) {
+                typeType = INT_TYPE;
+                Class<?> boxType = column.getType();
+                width = boxType == Byte.class ? 1 : boxType == Short.class ? 2 : boxType == Integer.class ? 4 : 8;
+                type = new FlatBuffers.Table().addInt(0, 8 * width).addBool(1, true);
+            } else if (column instanceof BooleanColumn) {
+                typeType = BOOL_TYPE;
+                type = new FlatBuffers.Table();
+                width = 0;
+            } else if (column instanceof DictionaryColumn) {
+                // Codes of entries added after this point are never in the column being written
+                StringDictionary values = ((DictionaryColumn) column).getDictionary();
+                dictionary = new byte[values.size()][];
+                for (int code = 0; code < dictionary.length; code++) {
+                    dictionary[code] = values.decode(code).getBytes(StandardCharsets.UTF_8);
+                }
+                typeType = utf8Type(dictionary);
+                type = new FlatBuffers.Table();
+                width = 4;
+            } else {
+                // Any other values are written as their text
+                strings = new byte[column.size()][];
+                for (int row = 0; row < strings.length; row++) {
+                    Object value = column.get(row);
+                    strings[row] = value != null ? value.toString().getBytes(StandardCharsets.UTF_8) : null;
+                }
+                typeType = utf8Type(strings);
+                type = new FlatBuffers.Table();
+                width = 0;
+            }
+        }
+
+        FlatBuffers.Table schema(String name) {
+            FlatBuffers.Table field = new FlatBuffers.Table().addString(0, name).addBool(1, true)
+                    .addByte(2, typeType).addTable(3, type).addTables(5, List.of());
+            if (dictionary != null) {
+                field.addTable(4, new FlatBuffers.Table().addLong(0, id)
+                        .addTable(1, new FlatBuffers.Table().addInt(0, 32).addBool(1, true)));
+            }
+            return field;
+        }
+
+        // Rough size, for progress
+        long bytesPerRow() {
+            return Math.max(width, 1);
+        }
+
+        long nullCount(int start, int end) {
+            if (column.nullCount() == 0) {
+                return 0;
+            }
+            long count = 0;
+            for (int row = start; row < end; row++) {
+                if (column.isNull(row)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        List<Buffer> buffers(int start, int end) {
+            if (strings != null) {
+                return utf8Buffers(strings, start, end);
+            }
+            List<Buffer> buffers = new ArrayList<>(2);
+            buffers.add(nullCount(start, end) == 0 ? new Buffer(0, out -> {
+            }) : bits(start, end, row -> !column.isNull(row)));
+            if (column instanceof BooleanColumn) {
+                BooleanColumn values = (BooleanColumn) column;
+                buffers.add(bits(start, end, row -> !values.isNull(row) && values.getBoolean(row)));
+            } else if (column instanceof DoubleColumn) {
+                buffers.add(new Buffer(8L * (end - start), out -> {
+                    for (int row = start; row < end; row++) {
+                        out.putDouble(column.getDouble(row));
+                    }
+                }));
+            } else if (column instanceof LongColumn) {
+                LongColumn values = (LongColumn) column;
+                buffers.add(new Buffer((long) width * (end - start), out -> {
+                    for (int row = start; row < end; row++) {
+                        long value = values.getLong(row);
+                        switch (width) {
+                            case 1:
+                                out.putByte((byte) value);
+                                break;
+                            case 2:
+                                out.putShort((short) value);
+                                break;
+                            case 4:
+                                out.putInt((int) value);
+                                break;
+                            default:
+                                out.putLong(value);
+                        }
+                    }
+                }));
+            } else {
+                DictionaryColumn codes = (DictionaryColumn) column;
+                buffers.add(new Buffer(4L * (end - start), out -> {
+                    for (int row = start; row < end; row++) {
+                        out.putInt(codes.getCode(row));
+                    }
+                }));
+            }
+            return buffers;
+        }
+    }
+
+    // Bit-packed rows start to end, least significant bit first, in whole words
+    private static Buffer bits(int start, int end, IntPredicate bit) {
+        return new Buffer(8L * ((end - start + 63) >>> 6), out -> {
+            for (int first = start; first < end; first += 64) {
+                long word = 0;
+                for (int row = first; row < Math.min(end, first + 64); row++) {
+                    if (bit.test(row)) {
+                        word |= 1L << (row - first);
+                    }
+                }
+                out.putLong(word);
+            }
+        });
+    }
+
+    // Offsets past 2 GB need 64-bit offsets
+    private static int utf8Type(byte[][] values) {
+        long total = 0;
+        for (byte[] value : values) {
+            total += value != null ? value.length : 0;
+        }
+        return total > Integer.MAX_VALUE ? LARGE_UTF8_TYPE : UTF8_TYPE;
+    }
+
+    // Validity, offsets and data of UTF-8 values start to end
+    private static List<Buffer> utf8Buffers(byte[][] values, int start, int end) {
+        long total = 0;
+        boolean nulls = false;
+        for (int i = start; i < end; i++) {
+            total += values[i] != null ? values[i].length : 0;
+            nulls |= values[i] == null;
+        }
+        boolean large = utf8Type(values) == LARGE_UTF8_TYPE;
+        long dataLength = total;
+        List<Buffer> buffers = new ArrayList<>(3);
+        buffers.add(nulls ? bits(start, end, i -> values[i] != null) : new Buffer(0, out -> {
+        }));
+        buffers.add(new Buffer((large ? 8L : 4L) * (end - start + 1), out -> {
+            long offset = 0;
+            for (int i = start; i <= end; i++) {
+                if (large) {
+                    out.putLong(offset);
+                } else {
+                    out.putInt((int) offset);
+                }
+                if (i < end && values[i] != null) {
+                    offset += values[i].length;
+                }
+            }
+        }));
+        buffers.add(new Buffer(dataLength, out -> {
+            for (int i = start; i < end; i++) {
+                if (values[i] != null) {
+                    out.put(values[i], 0, values[i].length);
+                }
+            }
+        }));
+        return buffers;
+    }
+
+    /**
+     * Opens an Arrow stream or file. A single record batch is mapped where the
+     * columns share Arrow's layout, so that it opens in about the same time
+     * whatever the row count; mapped columns are copied (in the given storage,
+     * or on the heap if null) the first time they are changed.
+     */
+    public static ColumnTable read(File file, MappedStorage storage) throws IOException {
+        return read(file, storage, ProgressMonitor.NONE, Integer.MAX_VALUE);
+    }
+
+    public static ColumnTable read(File file, MappedStorage storage, ProgressMonitor monitor) throws IOException {
+        return read(file, storage, monitor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads only the first rows, from the batches that hold them, so that they
+     * can be shown while the whole stream is read.
+     */
+    public static ColumnTable readPreview(File file, int maxRows) throws IOException {
+        return read(file, null, ProgressMonitor.NONE, maxRows);
+    }
+
+    private static ColumnTable read(File file, MappedStorage storage, ProgressMonitor monitor,
+                                    int maxRows) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Stream stream = new Stream(channel);
+            try {
+                stream.readMessages(maxRows);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt Arrow stream: bad message metadata", e);
+            }
+            int rows = (int) Math.min(stream.rows, maxRows);
+            long totalBytes = 0;
+            for (Batch batch : stream.batches) {
+                totalBytes += batch.bodyLength;
+            }
+            monitor.setTotalBytes(totalBytes);
+
+            List<String> names = new ArrayList<>(stream.fields.size());
+            List<Column> columns = new ArrayList<>(stream.fields.size());
+            for (int f = 0; f < stream.fields.size(); f++) {
+                monitor.checkCancelled();
+                Field field = stream.fields.get(f);
+                names.add(field.name);
+                Column column = stream.batches.size() == 1 ? mapColumn(stream, f, rows, storage) : null;
+                columns.add(column != null ? column : copyColumn(stream, f, rows, storage));
+                long bytes = 0;
+                for (Batch batch : stream.batches) {
+                    for (int k = 0; k < field.bufferCount(); k++) {
+                        bytes += padded(batch.length(f, k));
+                    }
+                }
+                monitor.addBytes(bytes);
+            }
+            monitor.addRows(rows);
+            return ColumnTable.fromColumns(names, columns, storage);
+        }
+    }
+
+    // A column of the schema
+    private static final class Field {
+        private final String name;
+        private final int typeType;
+        private final FlatBuffers.Reader type;
+        // Set for dictionary-encoded strings, whose indices are integers of the given width
+        private final long dictionaryId;
+        private final int indexBits;
+        private final boolean indexSigned;
+
+        Field(FlatBuffers.Reader field, int index) throws IOException {
+            String fieldName = field.getString(0);
+            name = fieldName != null ? fieldName : "column " + (index + 1);
+            typeType = field.getByte(2, 0);
+            type = field.getTable(3);
+            FlatBuffers.Reader encoding = field.getTable(4);
+            if (encoding != null) {
+                dictionaryId = encoding.getLong(0, 0);
+                // Indices are 32-bit signed integers unless stated otherwise
+                FlatBuffers.Reader indexType = encoding.getTable(1);
+                indexBits = indexType != null ? indexType.getInt(0, 0) : 32;
+                indexSigned = indexType == null || indexType.getBool(1);
+                if (typeType != UTF8_TYPE && typeType != LARGE_UTF8_TYPE) {
+                    throw unsupported();
+                }
+            } else {
+                dictionaryId = -1;
+                indexBits = 0;
+                indexSigned = false;
+            }
+            if (field.getVectorLength(5) > 0 || (type == null && typeType != NULL_TYPE)) {
+                throw unsupported();
+            }
+            switch (typeType) {
+                case INT_TYPE:
+                    checkIntWidth(type.getInt(0, 0));
+                    break;
+                case FLOAT_TYPE:
+                    int precision = type.getShort(0, 0);
+                    if (precision != SINGLE_PRECISION && precision != DOUBLE_PRECISION) {
+                        throw unsupported();
+                    }
+                    break;
+                case TIMESTAMP_TYPE:
+                    int unit = type.getShort(0, 0);
+                    if (unit < 0 || unit > NANOSECOND_UNIT) {
+                        throw unsupported();
+                    }
+                    break;
+                case NULL_TYPE:
+                case UTF8_TYPE:
+                case LARGE_UTF8_TYPE:
+                case BOOL_TYPE:
+                case DATE_TYPE:
+                    break;
+                default:
+                    throw unsupported();
+            }
+            if (encoding != null) {
+                checkIntWidth(indexBits);
+            }
+        }
+
+        // The values of a dictionary, a plain string column
+        Field(String name, int typeType) {
+            this.name = name;
+            this.typeType = typeType;
+            type = null;
+            dictionaryId = -1;
+            indexBits = 0;
+            indexSigned = false;
+        }
+
+        private void checkIntWidth(int bits) throws IOException {
+            if (bits != 8 && bits != 16 && bits != 32 && bits != 64) {
+                throw unsupported();
+            }
+        }
+
+        private IOException unsupported() {
+            return new IOException("Unsupported Arrow type in column " + name);
+        }
+
+        boolean isDictionary() {
+            return dictionaryId >= 0;
+        }
+
+        int bufferCount() {
+            if (isDictionary()) {
+                return 2;
+            }
+            switch (typeType) {
+                case NULL_TYPE:
+                    return 0;
+                case UTF8_TYPE:
+                case LARGE_UTF8_TYPE:
+                    return 3;
+                default:
+                    return 2;
+            }
+        }
+    }
+
+    // Where a record batch's nodes and buffers are in the file
+    private static final class Batch {
+        private final long rows;
+        private final long bodyLength;
+        private final long[] nullCounts;
+        private final long[] positions;
+        private final long[] lengths;
+        // Index of each field's first buffer
+        private final int[] firstBuffer;
+
+        Batch(FlatBuffers.Reader header, long body, long bodyLength, List<Field> fields) throws IOException {
+            this.bodyLength = bodyLength;
+            if (header.getTable(3) != null) {
+                throw new IOException("Compressed Arrow record batches are not supported");
+            }
+            rows = header.getLong(0, 0);
+            if (header.getVectorLength(1) != fields.size()) {
+                throw new IOException("Corrupt Arrow stream: expected " + fields.size() + " field nodes");
+            }
+            nullCounts = new long[fields.size()];
+            firstBuffer = new int[fields.size()];
+            int bufferCount = 0;
+            for (int f = 0; f < fields.size(); f++) {
+                if (header.getStructLong(1, f, 0) != rows) {
+                    throw new IOException("Corrupt Arrow stream: column " + fields.get(f).name
+                            + " has a different length from its batch");
+                }
+                nullCounts[f] = header.getStructLong(1, f, 1);
+                firstBuffer[f] = bufferCount;
+                bufferCount += fields.get(f).bufferCount();
+            }
+            if (header.getVectorLength(2) != bufferCount) {
+                throw new IOException("Corrupt Arrow stream: expected " + bufferCount + " buffers");
+            }
+            positions = new long[bufferCount];
+            lengths = new long[bufferCount];
+            for (int i = 0; i < bufferCount; i++) {
+                long offset = header.getStructLong(2, i, 0);
+                lengths[i] = header.getStructLong(2, i, 1);
+                if (offset < 0 || lengths[i] < 0 || offset + lengths[i] > bodyLength) {
+                    throw new IOException("Corrupt Arrow stream: buffer outside its message body");
+                }
+                positions[i] = body + offset;
+            }
+        }
+
+        long position(int field, int buffer) {
+            return positions[firstBuffer[field] + buffer];
+        }
+
+        long length(int field, int buffer) {
+            return lengths[firstBuffer[field] + buffer];
+        }
+    }
+
+    /**
+     * The decoded entries of a dictionary. Arrow allows repeated and null entries,
+     * which StringDictionary does not, so their indices are translated.
+     */
+    private static final class Dictionary {
+        private final StringDictionary values = new StringDictionary();
+        private int[] codes = new int[16];
+        private int size;
+        // Whether every index is its own code, so that indices can be mapped as codes
+        private boolean identity = true;
+
+        void add(String value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            int code = value != null ? values.encode(value) : -1;
+            identity &= code == size;
+            codes[size++] = code;
+        }
+
+        int code(long index) throws IOException {
+            if (index < 0 || index >= size) {
+                throw new IOException("Corrupt Arrow stream: dictionary index " + index + " out of range");
+            }
+            return codes[(int) index];
+        }
+    }
+
+    // The messages of a stream, read up to the batches holding the wanted rows
+    private static final class Stream {
+        private final FileChannel channel;
+        private final List<Batch> batches = new ArrayList<>();
+        private final Map<Long, Dictionary> dictionaries = new HashMap<>();
+        private List<Field> fields;
+        private long rows;
+
+        Stream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void readMessages(int maxRows) throws IOException {
+            long size = channel.size();
+            long position = 0;
+            // An IPC file starts with "ARROW1" padded to 8 bytes, then holds a stream
+            if (size >= 8 && Arrays.equals(read(position, FILE_MAGIC.length).array(), FILE_MAGIC)) {
+                position = 8;
+            }
+            while (position + 4 <= size && rows < maxRows) {
+                int length = read(position, 4).getInt();
+                position += 4;
+                // Streams from before the marker was introduced start with the length
+                if (length == CONTINUATION && position + 4 <= size) {
+                    length = read(position, 4).getInt();
+                    position += 4;
+                }
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || position + length > size) {
+                    throw new IOException("Corrupt Arrow stream: bad message length " + length);
+                }
+                FlatBuffers.Reader message = FlatBuffers.Reader.root(read(position, length));
+                position += length;
+                long bodyLength = message.getLong(3, 0);
+                if (bodyLength < 0 || position + bodyLength > size) {
+                    throw new IOException("Corrupt Arrow stream: the data is truncated");
+                }
+                int headerType = message.getByte(1, 0);
+                FlatBuffers.Reader header = message.getTable(2);
+                if (header == null) {
+                    throw new IOException("Corrupt Arrow stream: a message has no header");
+                }
+                if (headerType == SCHEMA) {
+                    readSchema(header);
+                } else if (headerType == DICTIONARY_BATCH) {
+                    readDictionary(header, position, bodyLength);
+                } else if (headerType == RECORD_BATCH) {
+                    Batch batch = new Batch(header, position, bodyLength, schema());
+                    batches.add(batch);
+                    rows += batch.rows;
+                } else {
+                    throw new IOException("Unsupported Arrow message type: " + headerType);
+                }
+                position += bodyLength;
+            }
+            schema();
+            if (rows > Integer.MAX_VALUE && maxRows == Integer.MAX_VALUE) {
+                throw new IOException("Too many rows to load: " + rows);
+            }
+        }
+
+        private List<Field> schema() throws IOException {
+            if (fields == null) {
+                throw new IOException("Not an Arrow stream: it does not start with a schema");
+            }
+            return fields;
+        }
+
+        private void readSchema(FlatBuffers.Reader schema) throws IOException {
+            if (schema.getShort(0, 0) != 0) {
+                throw new IOException("Big-endian Arrow streams are not supported");
+            }
+            int count = schema.getVectorLength(1);
+            fields = new ArrayList<>(count);
+            Set<String> names = new HashSet<>();
+            for (int f = 0; f < count; f++) {
+                Field field = new Field(schema.getTable(1, f), f);
+                if (!names.add(field.name)) {
+                    throw new IOException("The stream has duplicate column names: " + field.name);
+                }
+                fields.add(field);
+            }
+        }
+
+        private void readDictionary(FlatBuffers.Reader header, long body, long bodyLength) throws IOException {
+            long id = header.getLong(0, 0);
+            Field field = null;
+            for (Field candidate : schema()) {
+                if (candidate.dictionaryId == id) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new IOException("Corrupt Arrow stream: no column uses dictionary " + id);
+            }
+            boolean delta = header.getBool(2);
+            if (!delta && dictionaries.containsKey(id) && !batches.isEmpty()) {
+                throw new IOException("Arrow streams that replace a dictionary are not supported");
+            }
+            Dictionary dictionary = delta ? dictionaries.computeIfAbsent(id, key -> new Dictionary())
+                    : new Dictionary();
+            dictionaries.put(id, dictionary);
+
+            FlatBuffers.Reader data = header.getTable(1);
+            if (data == null) {
+                throw new IOException("Corrupt Arrow stream: dictionary " + id + " has no data");
+            }
+            // The entries are a batch of one string column
+            Field values = new Field(field.name, field.typeType);
+            Batch batch = new Batch(data, body, bodyLength, List.of(values));
+            Strings strings = new Strings(this, batch, 0, values.typeType == LARGE_UTF8_TYPE);
+            for (int i = 0; i < batch.rows; i++) {
+                dictionary.add(strings.get(i));
+            }
+        }
+
+        ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, position + bytes.position()) < 0) {
+                    throw new IOException("Corrupt Arrow stream: the data is truncated");
+                }
+            }
+            return bytes.flip();
+        }
+
+        // A buffer of a batch, mapped little-endian
+        ByteBuffer map(Batch batch, int field, int buffer) throws IOException {
+            long length = batch.length(field, buffer);
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Arrow buffers over 2 GB are only supported for single-batch numbers");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, batch.position(field, buffer), length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Reads UTF-8 values out of a batch's offsets and data buffers
+    private static final class Strings {
+        private final ByteBuffer validity;
+        private final ByteBuffer offsets;
+        private final ByteBuffer data;
+        private final boolean large;
+
+        Strings(Stream stream, Batch batch, int field, boolean large) throws IOException {
+            validity = batch.nullCounts[field] > 0 ? stream.map(batch, field, 0) : null;
+            offsets = stream.map(batch, field, 1);
+            data = stream.map(batch, field, 2);
+            this.large = large;
+        }
+
+        String get(int i) {
+            if (validity != null && !bit(validity, i)) {
+                return null;
+            }
+            long start = large ? offsets.getLong(8 * i) : offsets.getInt(4 * i);
+            long end = large ? offsets.getLong(8 * i + 8) : offsets.getInt(4 * i + 4);
+            byte[] bytes = new byte[(int) (end - start)];
+            data.get((int) start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean bit(ByteBuffer bits, int index) {
+        return (bits.get(index >>> 3) & (1 << (index & 7))) != 0;
+    }
+
+    // Mapped zero-copy column for a single batch, or null if the layout differs from the column's
+    private static Column mapColumn(Stream stream, int f, int rows, MappedStorage storage) throws IOException {
+        Field field = stream.fields.get(f);
+        Batch batch = stream.batches.get(0);
+        int shift;
+        if (field.isDictionary()) {
+            Dictionary dictionary = stream.dictionaries.get(field.dictionaryId);
+            if (field.indexBits != 32 || !field.indexSigned || dictionary == null || !dictionary.identity) {
+                return null;
+            }
+            shift = 2;
+        } else if ((field.typeType == INT_TYPE && field.type.getInt(0, 0) == 64 && field.type.getBool(1))
+                || (field.typeType == FLOAT_TYPE && field.type.getShort(0, 0) == DOUBLE_PRECISION)
+                || (field.typeType == TIMESTAMP_TYPE && field.type.getShort(0, 0) == NANOSECOND_UNIT)) {
+            shift = 3;
+        } else {
+            return null;
+        }
+        if (batch.length(f, 1) < (long) rows << shift) {
+            throw new IOException("Corrupt Arrow stream: column " + field.name + " is truncated");
+        }
+        Bitmap validity = readValidity(stream, f, rows);
+        MappedBuffer values = MappedBuffer.mapReadOnly(stream.channel, batch.position(f, 1), rows, shift);
+
+        // The columns expect a placeholder in empty cells, which Arrow leaves undefined
+        if (field.isDictionary()) {
+            return nullsHold(validity, rows, row -> values.getInt(row) == -1)
+                    ? new MappedDictionaryColumn(storage, stream.dictionaries.get(field.dictionaryId).values,
+                    values, validity, rows) : null;
+        } else if (field.typeType == FLOAT_TYPE) {
+            return nullsHold(validity, rows, row -> Double.isNaN(values.getDouble(row)))
+                    ? new MappedDoubleColumn(storage, values, validity, rows) : null;
+        } else if (!nullsHold(validity, rows, row -> values.getLong(row) == 0)) {
+            return null;
+        }
+        return field.typeType == INT_TYPE ? new MappedLongColumn(storage, Long.class, values, validity, rows)
+                : new MappedTemporalColumn(storage, LocalDateTime.class, values, validity, rows);
+    }
+
+    private static boolean nullsHold(Bitmap validity, int rows, IntPredicate placeholder) {
+        if (validity.cardinality() == rows) {
+            return true;
+        }
+        for (int row = 0; row < rows; row++) {
+            if (!validity.get(row) && !placeholder.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The validity of the first rows of a column across batches
+    private static Bitmap readValidity(Stream stream, int f, int rows) throws IOException {
+        long[] words = new long[(rows + 63) >>> 6];
+        int offset = 0;
+        for (Batch batch : stream.batches) {
+            int count = (int) Math.min(batch.rows, rows - offset);
+            if (count <= 0) {
+                break;
+            }
+            if (batch.nullCounts[f] == 0 || stream.fields.get(f).bufferCount() == 0) {
+                setBits(words, offset, count);
+            } else {
+                copyBits(stream.map(batch, f, 0), count, words, offset);
+            }
+            offset += count;
+        }
+        if (stream.fields.get(f).typeType == NULL_TYPE && !stream.fields.get(f).isDictionary()) {
+            Arrays.fill(words, 0);
+        }
+        return Bitmap.fromLongArray(words);
+    }
+
+    private static void setBits(long[] words, int offset, int count) {
+        int bit = offset;
+        int end = offset + count;
+        while (bit < end) {
+            int from = bit & 63;
+            int to = Math.min(64, from + end - bit);
+            long mask = to == 64 ? -1L : (1L << to) - 1;
+            words[bit >>> 6] |= mask & (-1L << from);
+            bit += to - from;
+        }
+    }
+
+    // Copies count bits of an Arrow bitmap to the given bit offset of the words
+    private static void copyBits(ByteBuffer bits, int count, long[] words, int offset) throws IOException {
+        if (bits.limit() < (count + 7) >>> 3) {
+            throw new IOException("Corrupt Arrow stream: a bitmap is truncated");
+        }
+        for (int i = 0; i < count; i += 64) {
+            long word = 0;
+            int index = i >>> 3;
+            if (index + 8 <= bits.limit()) {
+                word = bits.getLong(index);
+            } else {
+                for (int b = 0; index + b < bits.limit(); b++) {
+                    word |= (bits.get(index + b) & 0xFFL) << (8 * b);
+                }
+            }
+            if (count - i < 64) {
+                word &= (1L << (count - i)) - 1;
+            }
+            int bit = offset + i;
+            words[bit >>> 6] |= word << bit;
+            if ((bit & 63) != 0 && (bit >>> 6) + 1 < words.length) {
+                words[(bit >>> 6) + 1] |= word >>> (64 - (bit & 63));
+            }
+        }
+    }
+
+    // Copies the first rows of a column out of every batch
+    private static Column copyColumn(Stream stream, int f, int rows, MappedStorage storage) throws IOException {
+        Field field = stream.fields.get(f);
+        if (field.typeType == BOOL_TYPE && !field.isDictionary()) {
+            Bitmap validity = readValidity(stream, f, rows);
+            long[] values = new long[(rows + 63) >>> 6];
+            int offset = 0;
+            for (Batch batch : stream.batches) {
+                int count = (int) Math.min(batch.rows, rows - offset);
+                if (count <= 0) {
+                    break;
+                }
+                copyBits(stream.map(batch, f, 1), count, values, offset);
+                offset += count;
+            }
+            // Values under empty cells are undefined
+            long[] valid = validity.toLongArray();
+            for (int i = 0; i < values.length; i++) {
+                values[i] &= valid[i];
+            }
+            return new BooleanColumn(Bitmap.fromLongArray(values), validity, rows);
+        }
+
+        Column column = newColumn(stream, field, rows, storage);
+        int offset = 0;
+        for (Batch batch : stream.batches) {
+            int count = (int) Math.min(batch.rows, rows - offset);
+            if (count <= 0) {
+                break;
+            }
+            offset += count;
+            if (field.bufferCount() == 0) {
+                for (int i = 0; i < count; i++) {
+                    column.append(null);
+                }
+                continue;
+            }
+            ByteBuffer validity = batch.nullCounts[f] > 0 ? stream.map(batch, f, 0) : null;
+            if (field.typeType == UTF8_TYPE || field.typeType == LARGE_UTF8_TYPE) {
+                if (!field.isDictionary()) {
+                    Strings strings = new Strings(stream, batch, f, field.typeType == LARGE_UTF8_TYPE);
+                    for (int i = 0; i < count; i++) {
+                        String value = strings.get(i);
+                        if (!column.accepts(value)) {
+                            column = ObjectColumn.copyOf(column);
+                        }
+                        column.append(value);
+                    }
+                    continue;
+                }
+                Dictionary dictionary = stream.dictionaries.get(field.dictionaryId);
+                DictionaryColumn codes = (DictionaryColumn) column;
+                ByteBuffer indices = stream.map(batch, f, 1);
+                checkLength(indices, count, field.indexBits / 8, field);
+                for (int i = 0; i < count; i++) {
+                    boolean valid = validity == null || bit(validity, i);
+                    codes.appendCode(valid ? dictionary.code(readInt(indices, i, field.indexBits, field.indexSigned)) : -1);
+                }
+                continue;
+            }
+
+            ByteBuffer values = stream.map(batch, f, 1);
+            if (field.typeType == INT_TYPE) {
+                int bits = field.type.getInt(0, 0);
+                boolean signed = field.type.getBool(1);
+                checkLength(values, count, bits / 8, field);
+                LongColumn longs = (LongColumn) column;
+                for (int i = 0; i < count; i++) {
+                    if (validity == null || bit(validity, i)) {
+                        longs.appendLong(readInt(values, i, bits, signed));
+                    } else {
+                        longs.append(null);
+                    }
+                }
+            } else if (field.typeType == FLOAT_TYPE) {
+                boolean single = field.type.getShort(0, 0) == SINGLE_PRECISION;
+                checkLength(values, count, single ? 4 : 8, field);
+                DoubleColumn doubles = (DoubleColumn) column;
+                for (int i = 0; i < count; i++) {
+                    if (validity == null || bit(validity, i)) {
+                        doubles.appendDouble(single ? values.getFloat(4 * i) : values.getDouble(8 * i));
+                    } else {
+                        doubles.append(null);
+                    }
+                }
+            } else if (field.typeType == DATE_TYPE) {
+                boolean days = field.type.getShort(0, MILLISECOND_UNIT) == DAY_UNIT;
+                checkLength(values, count, days ? 4 : 8, field);
+                LongColumn dates = (LongColumn) column;
+                for (int i = 0; i < count; i++) {
+                    if (validity == null || bit(validity, i)) {
+                        dates.appendLong(days ? values.getInt(4 * i)
+                                : Math.floorDiv(values.getLong(8 * i), MILLIS_PER_DAY));
+                    } else {
+                        dates.append(null);
+                    }
+                }
+            } else {
+                long nanosPerUnit = NANOS_PER_UNIT[field.type.getShort(0, 0)];
+                long unitsPerSecond = NANOS_PER_UNIT[0] / nanosPerUnit;
+                checkLength(values, count, 8, field);
+                for (int i = 0; i < count; i++) {
+                    if (validity != null && !bit(validity, i)) {
+                        column.append(null);
+                        continue;
+                    }
+                    long value = values.getLong(8 * i);
+                    if (column instanceof TemporalColumn && Math.abs(value) <= Long.MAX_VALUE / nanosPerUnit) {
+                        ((LongColumn) column).appendLong(value * nanosPerUnit);
+                    } else {
+                        // Too far out for nanoseconds, so kept as plain objects
+                        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(value, unitsPerSecond),
+                                (int) (Math.floorMod(value, unitsPerSecond) * nanosPerUnit), ZoneOffset.UTC);
+                        if (!column.accepts(time)) {
+                            column = ObjectColumn.copyOf(column);
+                        }
+                        column.append(time);
+                    }
+                }
+            }
+        }
+        return column;
+    }
+
+    private static Column newColumn(Stream stream, Field field, int rows, MappedStorage storage) throws IOException {
+        int capacity = Math.max(rows, 16);
+        if (field.isDictionary()) {
+            Dictionary dictionary = stream.dictionaries.get(field.dictionaryId);
+            if (dictionary == null) {
+                throw new IOException("Corrupt Arrow stream: column " + field.name + " has no dictionary");
+            }
+            return storage != null ? new MappedDictionaryColumn(storage, dictionary.values, capacity)
+                    : new DictionaryColumn(dictionary.values, capacity);
+        }
+        switch (field.typeType) {
+            case INT_TYPE:
+                // Unsigned values need the next wider type
+                int bits = field.type.getInt(0, 0) + (field.type.getBool(1) ? 0 : 1);
+                Class<?> boxType = bits <= 8 ? Byte.class : bits <= 16 ? Short.class
+                        : bits <= 32 ? Integer.class : Long.class;
+                return storage != null ? new MappedLongColumn(storage, boxType, capacity)
+                        : new LongColumn(boxType, capacity);
+            case FLOAT_TYPE:
+                return ColumnType.DOUBLE.newColumn(capacity, storage);
+            case DATE_TYPE:
+                return ColumnType.DATE.newColumn(capacity, storage);
+            case TIMESTAMP_TYPE:
+                return ColumnType.DATE_TIME.newColumn(capacity, storage);
+            case UTF8_TYPE:
+            case LARGE_UTF8_TYPE:
+                return ColumnType.STRING.newColumn(capacity, storage);
+            default:
+                return new ObjectColumn(capacity);
+        }
+    }
+
+    private static void checkLength(ByteBuffer values, int count, int width, Field field) throws IOException {
+        if (values.limit() < (long) count * width) {
+            throw new IOException("Corrupt Arrow stream: column " + field.name + " is truncated");
+        }
+    }
+
+    private static long readInt(ByteBuffer values, int i, int bits, boolean signed) {
+        switch (bits) {
+            case 8:
+                return signed ? values.get(i) : values.get(i) & 0xFFL;
+            case 16:
+                return signed ? values.getShort(2 * i) : values.getShort(2 * i) & 0xFFFFL;
+            case 32:
+                return signed ? values.getInt(4 * i) : values.getInt(4 * i) & 0xFFFFFFFFL;
+            default:
+                return values.getLong(8 * i);
+        }
+    }
+}
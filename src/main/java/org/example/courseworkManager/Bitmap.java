@@ -0,0 +1,178 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * A growable set of bits packed into a long array.
+ * Columns use it as a validity map (bit set = cell holds a value).
+ */
+public class Bitmap {
+    private long[] words;
+
+    public Bitmap(int capacity) {
+        words = new long[wordsFor(capacity)];
+    }
+
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    private static int wordsFor(int bits) {
+        return (Math.max(bits, 1) + 63) >>> 6;
+    }
+
+    public boolean get(int index) {
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        ensureCapacity(index + 1);
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public void clear(int index) {
+        int word = index >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << index);
+        }
+    }
+
+    public void set(int index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    /**
+     * Grows the backing array so that at least the given number of bits fit.
+     */
+    public void ensureCapacity(int bits) {
+        int needed = wordsFor(bits);
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length + (words.length >> 1)));
+        }
+    }
+
+    /**
+     * Returns the index of the first set bit at or after the given index, or -1 if none.
+     */
+    public int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // The word holding bits 64 * index to 64 * index + 63; zero past the end
+    long word(int index) {
+        return index < words.length ? words[index] : 0L;
+    }
+
+    /**
+     * Keeps only the bits also set in the other bitmap.
+     */
+    public Bitmap and(Bitmap other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.word(i);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the bits set in the other bitmap.
+     */
+    public Bitmap or(Bitmap other) {
+        ensureCapacity(other.words.length << 6);
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Clears the bits set in the other bitmap.
+     */
+    public Bitmap andNot(Bitmap other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.word(i);
+        }
+        return this;
+    }
+
+    /**
+     * Flips the first size bits and clears any beyond them.
+     */
+    public Bitmap flip(int size) {
+        ensureCapacity(size);
+        int full = size >>> 6;
+        for (int i = 0; i < full; i++) {
+            words[i] = ~words[i];
+        }
+        if (full < words.length) {
+            int rest = size & 63;
+            words[full] = rest == 0 ? 0L : ~words[full] & (-1L >>> (64 - rest));
+            Arrays.fill(words, full + 1, words.length, 0L);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the indexes of the set bits in increasing order, e.g. the rows a
+     * selection keeps. Reads each word once.
+     */
+    public int[] toIndexes() {
+        int[] indexes = new int[cardinality()];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long bits = words[i];
+            while (bits != 0) {
+                indexes[count++] = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return indexes;
+    }
+
+    public Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+
+    // Raw words, e.g. for writing the bitmap to disk
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    public static Bitmap fromLongArray(long[] words) {
+        return new Bitmap(words.clone());
+    }
+
+    // Takes the array over rather than copying it
+    static Bitmap wrap(long[] words) {
+        return new Bitmap(words);
+    }
+
+    public long memoryUsage() {
+        return 16L + 8L * words.length;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.courseworkManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffers little-endian primitives on their way to a file channel, for the
+ * binary formats (see DsmFile and ArrowStream). Bytes are reported to the
+ * monitor as they are flushed.
+ */
+class BlockWriter {
+    private final FileChannel channel;
+    private final ProgressMonitor monitor;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    // File position of the start of the buffer
+    private long flushed;
+
+    BlockWriter(FileChannel channel, long start, ProgressMonitor monitor) {
+        this.channel = channel;
+        this.flushed = start;
+        this.monitor = monitor;
+    }
+
+    // Writes all of the bytes at the given file position
+    static void write(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+    }
+
+    long position() {
+        return flushed + buffer.position();
+    }
+
+    void putLong(long value) throws IOException {
+        ensureRoom(8);
+        buffer.putLong(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        ensureRoom(8);
+        buffer.putDouble(value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensureRoom(4);
+        buffer.putInt(value);
+    }
+
+    void putShort(short value) throws IOException {
+        ensureRoom(2);
+        buffer.putShort(value);
+    }
+
+    void putByte(byte value) throws IOException {
+        ensureRoom(1);
+        buffer.put(value);
+    }
+
+    void put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureRoom(1);
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    // Pads with zeros to the next multiple of 8
+    void align() throws IOException {
+        while (position() % 8 != 0) {
+            ensureRoom(1);
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        int count = buffer.remaining();
+        write(channel, buffer, flushed);
+        flushed += count;
+        buffer.clear();
+        monitor.addBytes(count);
+    }
+
+    OutputStream asStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                put(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                put(bytes, offset, length);
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.courseworkManager;
+
+/**
+ * Column of boolean values packed one bit per cell.
+ */
+public class BooleanColumn extends Column {
+    private final Bitmap values;
+
+    public BooleanColumn(int capacity) {
+        super(capacity);
+        values = new Bitmap(capacity);
+    }
+
+    /**
+     * Wraps bits that were already loaded, e.g. from a saved file.
+     */
+    public BooleanColumn(Bitmap values, Bitmap validity, int size) {
+        super(validity, size);
+        this.values = values;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Boolean.class;
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        return validity.get(row) ? values.get(row) : null;
+    }
+
+    public boolean getBoolean(int row) {
+        checkRow(row);
+        return values.get(row);
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof Boolean;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        values.set(row, Boolean.TRUE.equals(value));
+        setValid(row, value != null);
+    }
+
+    @Override
+    public void append(Object value) {
+        set(newRow(), value);
+    }
+
+    @Override
+    public BooleanColumn select(int[] rows) {
+        BooleanColumn result = new BooleanColumn(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            if (values.get(rows[i])) {
+                result.values.set(i);
+            }
+        }
+        return selectValidity(result, rows);
+    }
+
+    @Override
+    public BooleanColumn copy() {
+        BooleanColumn result = new BooleanColumn(size);
+        for (int row = values.nextSetBit(0); row >= 0 && row < size; row = values.nextSetBit(row + 1)) {
+            result.values.set(row);
+        }
+        return copyValidity(result);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 16L + values.memoryUsage() + validity.memoryUsage();
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.courseworkManager;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Undo/redo history made of recorded DataChange deltas.
+ * Each entry holds the changes of one user action, undone in reverse order.
+ * When the entries held in memory exceed the memory budget, the oldest ones
+ * are written to compressed files in the spill directory and read back only
+ * when the user undoes (or redoes) that far.
+ */
+public class ChangeHistory {
+    private final Deque<Entry> undoStack = new ArrayDeque<>();
+    private final Deque<Entry> redoStack = new ArrayDeque<>();
+    private final Path spillDirectory;
+    private long memoryBudget;
+    private long memoryUsage;
+
+    // The changes of one action, either in memory or spilled to a file
+    private static final class Entry {
+        private List<DataChange> changes;
+        private Path file;
+        private long memoryUsage;
+        private long diskUsage;
+
+        Entry(List<DataChange> changes) {
+            this.changes = changes;
+            for (DataChange change : changes) {
+                memoryUsage += change.memoryUsage();
+            }
+        }
+    }
+
+    /**
+     * @param memoryBudget   bytes of history kept in memory before spilling
+     * @param spillDirectory where spilled entries are written
+     */
+    public ChangeHistory(long memoryBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Records the changes of one action. Empty actions are not recorded.
+     */
+    public void push(List<DataChange> changes) {
+        if (!changes.isEmpty()) {
+            undoStack.push(track(new Entry(changes)));
+            for (Entry entry : redoStack) {
+                discard(entry);
+            }
+            redoStack.clear();
+            enforceBudget();
+        }
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Reverts the most recent action. Returns false if there was nothing to undo.
+     */
+    public boolean undo(ColumnarRowList rows) {
+        if (undoStack.isEmpty()) {
+            return false;
+        }
+        Entry entry = undoStack.pop();
+        List<DataChange> changes = load(entry, rows.getTable().getStorage());
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            changes.get(i).undo(rows);
+        }
+        redoStack.push(entry);
+        enforceBudget();
+        return true;
+    }
+
+    /**
+     * Reapplies the most recently undone action. Returns false if there was nothing to redo.
+     */
+    public boolean redo(ColumnarRowList rows) {
+        if (redoStack.isEmpty()) {
+            return false;
+        }
+        Entry entry = redoStack.pop();
+        for (DataChange change : load(entry, rows.getTable().getStorage())) {
+            change.redo(rows);
+        }
+        undoStack.push(entry);
+        enforceBudget();
+        return true;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        enforceBudget();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    // Approximate heap memory held by the entries that are not spilled
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    // Bytes currently used by spilled entries on disk
+    public long getDiskUsage() {
+        long total = 0;
+        for (Entry entry : undoStack) {
+            total += entry.diskUsage;
+        }
+        for (Entry entry : redoStack) {
+            total += entry.diskUsage;
+        }
+        return total;
+    }
+
+    private Entry track(Entry entry) {
+        memoryUsage += entry.memoryUsage;
+        return entry;
+    }
+
+    /**
+     * Spills the oldest in-memory entries (undo side first, then redo) until the
+     * history fits the budget again.
+     */
+    private void enforceBudget() {
+        while (memoryUsage > memoryBudget) {
+            Entry oldest = oldestInMemory(undoStack.descendingIterator());
+            if (oldest == null) {
+                oldest = oldestInMemory(redoStack.descendingIterator());
+            }
+            if (oldest == null || !spill(oldest)) {
+                return;
+            }
+        }
+    }
+
+    private static Entry oldestInMemory(Iterator<Entry> oldestFirst) {
+        while (oldestFirst.hasNext()) {
+            Entry entry = oldestFirst.next();
+            if (entry.changes != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // Writes an entry to disk and drops it from memory; keeps it in memory if writing fails
+    private boolean spill(Entry entry) {
+        Path file = null;
+        try {
+            Files.createDirectories(spillDirectory);
+            file = Files.createTempFile(spillDirectory, "history-", ".bin");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(file), new Deflater(Deflater.BEST_SPEED))))) {
+                out.writeInt(entry.changes.size());
+                for (DataChange change : entry.changes) {
+                    change.write(out);
+                }
+            }
+            entry.file = file;
+            entry.diskUsage = Files.size(file);
+            entry.changes = null;
+            memoryUsage -= entry.memoryUsage;
+            return true;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            return false;
+        }
+    }
+
+    // Returns the changes of an entry, reading them back first if it was spilled
+    private List<DataChange> load(Entry entry, MappedStorage storage) {
+        if (entry.changes == null) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(Files.newInputStream(entry.file))))) {
+                int count = in.readInt();
+                List<DataChange> changes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    changes.add(DataChange.read(in, storage));
+                }
+                entry.changes = changes;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spilled history from " + entry.file, e);
+            }
+            deleteQuietly(entry.file);
+            entry.file = null;
+            entry.diskUsage = 0;
+            track(entry);
+        }
+        return entry.changes;
+    }
+
+    private void discard(Entry entry) {
+        if (entry.changes != null) {
+            memoryUsage -= entry.memoryUsage;
+        }
+        deleteQuietly(entry.file);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Left for the OS to clean up with the temp directory
+            }
+        }
+    }
+}
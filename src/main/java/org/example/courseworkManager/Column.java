@@ -0,0 +1,181 @@
+package org.example.courseworkManager;
+
+import java.util.Objects;
+
+/**
+ * Base class for a single typed column of the columnar store.
+ * Values live in primitive arrays in the subclasses; nulls are tracked
+ * in a validity bitmap so that a numeric cell costs close to 8 bytes.
+ */
+public abstract class Column {
+    protected final Bitmap validity;
+    protected int size;
+    protected int nullCount;
+
+    protected Column(int capacity) {
+        validity = new Bitmap(capacity);
+    }
+
+    /**
+     * Wraps values that were already loaded, e.g. from a saved file. Bits of the
+     * validity map at or beyond size must be clear.
+     */
+    protected Column(Bitmap validity, int size) {
+        this.validity = validity;
+        this.size = size;
+        this.nullCount = size - validity.cardinality();
+    }
+
+    /**
+     * Creates an empty column suited to hold values like the given one.
+     * Text starts out dictionary-encoded and dates are kept as longs;
+     * unknown value types fall back to an ObjectColumn.
+     */
+    public static Column forValue(Object value, int capacity) {
+        if (value instanceof Double) {
+            return new DoubleColumn(capacity);
+        } else if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            return new LongColumn(value.getClass(), capacity);
+        } else if (value instanceof Boolean) {
+            return new BooleanColumn(capacity);
+        } else if (value instanceof String) {
+            return new DictionaryColumn(capacity);
+        } else if (TemporalColumn.canStore(value)) {
+            return new TemporalColumn(value.getClass(), capacity);
+        }
+        return new ObjectColumn(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int nullCount() {
+        return nullCount;
+    }
+
+    public boolean isNull(int row) {
+        return !validity.get(row);
+    }
+
+    // The rows holding a value, one bit per row
+    Bitmap validRows() {
+        return validity.copy();
+    }
+
+    // The Java type handed out by get()
+    public abstract Class<?> getType();
+
+    // Returns the boxed value of a cell, or null if the cell is empty
+    public abstract Object get(int row);
+
+    // Whether the value can be stored without changing the column type
+    public abstract boolean accepts(Object value);
+
+    public abstract void set(int row, Object value);
+
+    public abstract void append(Object value);
+
+    /**
+     * Appends every cell of another column. Typed columns copy cells of their own
+     * type without boxing; otherwise each value goes through append(), so the
+     * caller must know that this column accepts all of them.
+     */
+    public void appendAll(Column other) {
+        for (int row = 0; row < other.size(); row++) {
+            append(other.get(row));
+        }
+    }
+
+    /**
+     * Gathers the given rows, in order, into a new column of the same type.
+     */
+    public abstract Column select(int[] rows);
+
+    public abstract Column copy();
+
+    // Approximate heap footprint of this column in bytes
+    public abstract long memoryUsage();
+
+    public boolean isNumeric() {
+        return false;
+    }
+
+    /**
+     * Whether the values are stored where they cannot be changed, such as a file
+     * opened read-only. ColumnTable copies such a column before writing to it.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Returns the cell as a double, or NaN when it is empty or not a number.
+     */
+    public double getDouble(int row) {
+        Object value = get(row);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    public boolean isNumber(int row) {
+        return isNumeric() ? !isNull(row) : get(row) instanceof Number;
+    }
+
+    public boolean valueEquals(int rowA, int rowB) {
+        return Objects.equals(get(rowA), get(rowB));
+    }
+
+    public int valueHash(int row) {
+        return Objects.hashCode(get(row));
+    }
+
+    protected void checkRow(int row) {
+        Objects.checkIndex(row, size);
+    }
+
+    // Records whether a cell holds a value, keeping the null count in step
+    protected void setValid(int row, boolean valid) {
+        boolean wasValid = validity.get(row);
+        if (valid && !wasValid) {
+            validity.set(row);
+            nullCount--;
+        } else if (!valid && wasValid) {
+            validity.clear(row);
+            nullCount++;
+        }
+    }
+
+    // Reserves a new trailing row that starts out null
+    protected int newRow() {
+        size++;
+        nullCount++;
+        return size - 1;
+    }
+
+    // Copies validity of the selected rows into a freshly selected column
+    protected <C extends Column> C selectValidity(C target, int[] rows) {
+        target.size = rows.length;
+        target.nullCount = rows.length;
+        for (int i = 0; i < rows.length; i++) {
+            if (validity.get(rows[i])) {
+                target.validity.set(i);
+                target.nullCount--;
+            }
+        }
+        return target;
+    }
+
+    protected <C extends Column> C copyValidity(C target) {
+        target.size = size;
+        target.nullCount = nullCount;
+        for (int row = validity.nextSetBit(0); row >= 0 && row < size; row = validity.nextSetBit(row + 1)) {
+            target.validity.set(row);
+        }
+        return target;
+    }
+
+    protected static int grow(int capacity, int needed) {
+        return Math.max(needed, capacity + (capacity >> 1) + 8);
+    }
+}
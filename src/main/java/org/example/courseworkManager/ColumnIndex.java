@@ -0,0 +1,22 @@
+package org.example.courseworkManager;
+
+/**
+ * A secondary index over one column of a ColumnTable. The table builds indexes
+ * on demand and keeps them up to date as cells are written or rows appended;
+ * filters and sorts build a new table that takes over remapped copies.
+ */
+public interface ColumnIndex {
+    // Adds the row under the value it currently has in the column
+    void add(Column column, int row);
+
+    // Removes the row, which must still hold the value it was added with
+    void remove(Column column, int row);
+
+    /**
+     * Returns this index for a table built by selecting rows, where old row r
+     * became row positions[r], or was dropped if that is -1.
+     */
+    ColumnIndex remap(int[] positions);
+
+    long memoryUsage();
+}
@@ -0,0 +1,542 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+
+/**
+ * A set of equally sized, named columns. This is the storage behind DataModel:
+ * rows are not materialised but read through lightweight row views.
+ * Structural changes (filter, sort, replace) build a new table via select(),
+ * while cell writes and appends happen in place.
+ * A table created with a MappedStorage keeps its typed columns in mapped files.
+ * snapshot() hands out read-only views that share the columns; the table copies
+ * a shared column before writing to it, so views never see later changes.
+ * A view that is no longer read should be released, so that the next write to
+ * its columns does not pay for a copy.
+ */
+public class ColumnTable {
+    private final List<String> names;
+    private final Map<String, Integer> index;
+    private final List<Column> columns;
+    private final MappedStorage storage;
+    private int rowCount;
+    // Columns also referenced by unreleased snapshots, with their number; copied before their next write
+    private final Map<Column, Integer> sharedColumns = new IdentityHashMap<>();
+    // Set on snapshots, which must never change
+    private boolean readOnly;
+    // The table a snapshot was taken from, until the snapshot is released
+    private ColumnTable source;
+    // Secondary indexes by column name, built on demand, kept up to date by set() and
+    // appendRow(), and carried over by select(rows, true)
+    private final Map<String, SortedIndex> sortedIndexes = new HashMap<>();
+    private final Map<String, HashIndex> hashIndexes = new HashMap<>();
+
+    public ColumnTable(List<String> columnNames) {
+        this(columnNames, null);
+    }
+
+    /**
+     * @param storage where new typed columns are kept, or null for the heap
+     */
+    public ColumnTable(List<String> columnNames, MappedStorage storage) {
+        this.storage = storage;
+        names = new ArrayList<>();
+        index = new HashMap<>();
+        columns = new ArrayList<>();
+        for (String name : columnNames) {
+            addColumn(name, new ObjectColumn(0));
+        }
+    }
+
+    /**
+     * Builds a table from row maps, choosing a column type per header from the values.
+     * Keys that are not in the header list are kept as extra trailing columns.
+     */
+    public static ColumnTable fromRows(Collection<? extends Map<String, Object>> rows, List<String> headers) {
+        return fromRows(rows, headers, null);
+    }
+
+    public static ColumnTable fromRows(Collection<? extends Map<String, Object>> rows, List<String> headers,
+                                       MappedStorage storage) {
+        ColumnTable table = new ColumnTable(headers, storage);
+        for (Map<String, Object> row : rows) {
+            table.appendRow(row);
+        }
+        return table;
+    }
+
+    /**
+     * Builds a table from columns that were filled directly, e.g. by an importer.
+     */
+    public static ColumnTable fromColumns(List<String> names, List<Column> columns, MappedStorage storage) {
+        if (names.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + names.size() + " columns, got " + columns.size());
+        }
+        int rowCount = columns.isEmpty() ? 0 : columns.get(0).size();
+        ColumnTable table = new ColumnTable(List.of(), storage);
+        for (int i = 0; i < names.size(); i++) {
+            if (columns.get(i).size() != rowCount) {
+                throw new IllegalArgumentException("Column " + names.get(i) + " has "
+                        + columns.get(i).size() + " rows, expected " + rowCount);
+            }
+            table.addColumn(names.get(i), columns.get(i));
+        }
+        table.rowCount = rowCount;
+        return table;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    // Used when the columns were filled directly, e.g. by ColumnTableCodec
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public MappedStorage getStorage() {
+        return storage;
+    }
+
+    public int columnCount() {
+        return columns.size();
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public boolean hasColumn(String name) {
+        return index.containsKey(name);
+    }
+
+    /**
+     * Returns the named column, or null if the table has no such column.
+     */
+    public Column column(String name) {
+        Integer position = index.get(name);
+        return position != null ? columns.get(position) : null;
+    }
+
+    public Column column(int position) {
+        return columns.get(position);
+    }
+
+    public String columnName(int position) {
+        return names.get(position);
+    }
+
+    /**
+     * Adds a column, padding it with nulls to the current row count.
+     */
+    public void addColumn(String name, Column column) {
+        checkWritable();
+        if (index.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate column: " + name);
+        }
+        while (column.size() < rowCount) {
+            column.append(null);
+        }
+        index.put(name, columns.size());
+        names.add(name);
+        columns.add(column);
+    }
+
+    public Object get(int row, String name) {
+        Column column = column(name);
+        return column != null ? column.get(row) : null;
+    }
+
+    /**
+     * Writes a single cell, widening the column type if the value does not fit.
+     */
+    public void set(int row, String name, Object value) {
+        checkWritable();
+        Objects.checkIndex(row, rowCount);
+        if (!index.containsKey(name)) {
+            addColumn(name, new ObjectColumn(rowCount));
+        }
+        Column column = columnAccepting(index.get(name), value);
+        ColumnIndex sorted = sortedIndexes.get(name);
+        ColumnIndex hashed = hashIndexes.get(name);
+        if (sorted != null) {
+            sorted.remove(column, row);
+        }
+        if (hashed != null) {
+            hashed.remove(column, row);
+        }
+        column.set(row, value);
+        if (sorted != null) {
+            sorted.add(column, row);
+        }
+        if (hashed != null) {
+            hashed.add(column, row);
+        }
+    }
+
+    /**
+     * Appends one row; missing keys become nulls and unknown keys new columns.
+     */
+    public void appendRow(Map<String, Object> row) {
+        checkWritable();
+        int found = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = row.get(names.get(i));
+            if (value != null || row.containsKey(names.get(i))) {
+                found++;
+            }
+            columnAccepting(i, value).append(value);
+        }
+        rowCount++;
+        sortedIndexes.forEach((name, sorted) -> sorted.add(column(name), rowCount - 1));
+        hashIndexes.forEach((name, hashed) -> hashed.add(column(name), rowCount - 1));
+        if (found < row.size()) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if (!index.containsKey(entry.getKey())) {
+                    addColumn(entry.getKey(), new ObjectColumn(rowCount));
+                    set(rowCount - 1, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends all rows of another table, matching columns by name. Cells of
+     * typed columns are copied without boxing; columns missing on either side
+     * are filled with nulls.
+     */
+    public void appendRows(ColumnTable other) {
+        checkWritable();
+        int added = other.rowCount();
+        if (added == 0) {
+            return;
+        }
+        for (int i = 0; i < other.columnCount(); i++) {
+            if (!index.containsKey(other.columnName(i))) {
+                addColumn(other.columnName(i), new ObjectColumn(rowCount));
+            }
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            appendColumn(i, other.column(names.get(i)), added);
+        }
+        int from = rowCount;
+        rowCount += added;
+        for (int row = from; row < rowCount; row++) {
+            int appended = row;
+            sortedIndexes.forEach((name, sorted) -> sorted.add(column(name), appended));
+            hashIndexes.forEach((name, hashed) -> hashed.add(column(name), appended));
+        }
+    }
+
+    /**
+     * Turns a column that set() widened to objects back into a column of the
+     * given type, e.g. when the edit that widened it is undone. Does nothing
+     * unless every value of the column fits that type again.
+     */
+    public void narrow(String name, Class<?> type) {
+        checkWritable();
+        Integer position = index.get(name);
+        if (position == null || !(columns.get(position) instanceof ObjectColumn)) {
+            return;
+        }
+        Column column = columns.get(position);
+        int first = column.validity.nextSetBit(0);
+        if (first < 0 || first >= column.size()) {
+            return;
+        }
+        Object value = column.get(first);
+        Column narrowed = storage != null
+                ? storage.columnFor(value, column.size())
+                : Column.forValue(value, column.size());
+        if (narrowed.getType() != type) {
+            return;
+        }
+        for (int row = 0; row < column.size(); row++) {
+            value = column.get(row);
+            if (!narrowed.accepts(value)) {
+                return;
+            }
+            narrowed.append(value);
+        }
+        columns.set(position, narrowed);
+    }
+
+    // Appends the cells of a column (or nulls) at a position, widening it like set() does
+    private void appendColumn(int position, Column source, int rows) {
+        if (source == null) {
+            Column column = columnAccepting(position, null);
+            for (int row = 0; row < rows; row++) {
+                column.append(null);
+            }
+            return;
+        }
+        int first = source.validity.nextSetBit(0);
+        Column column = columnAccepting(position, first >= 0 && first < rows ? source.get(first) : null);
+        if ((column instanceof LongColumn || column instanceof DoubleColumn)
+                && column.getType() == source.getType()) {
+            column.appendAll(source);
+            return;
+        }
+        for (int row = 0; row < rows; row++) {
+            Object value = source.get(row);
+            columnAccepting(position, value).append(value);
+        }
+    }
+
+    // Returns a column at the position that can hold the value, replacing it if needed
+    private Column columnAccepting(int position, Object value) {
+        if (isShared(columns.get(position)) || columns.get(position).isReadOnly()) {
+            // Copy on write: a snapshot or a mapped file still holds the column
+            Column shared = columns.get(position);
+            columns.set(position, shared.copy());
+            synchronized (sharedColumns) {
+                sharedColumns.remove(shared);
+            }
+        }
+        Column column = columns.get(position);
+        // A column without any values yet takes the type of the first one
+        boolean untyped = value != null && column.nullCount() == column.size();
+        if (column.accepts(value) && !(untyped && column instanceof ObjectColumn)) {
+            return column;
+        }
+        Column widened;
+        if (untyped) {
+            widened = storage != null
+                    ? storage.columnFor(value, column.size() + 1)
+                    : Column.forValue(value, column.size() + 1);
+            while (widened.size() < column.size()) {
+                widened.append(null);
+            }
+        } else {
+            widened = ObjectColumn.copyOf(column);
+        }
+        columns.set(position, widened);
+        return widened;
+    }
+
+    /**
+     * Returns a new table holding the given rows in the given order.
+     */
+    public ColumnTable select(int[] rows) {
+        ColumnTable result = new ColumnTable(List.of(), storage);
+        for (int i = 0; i < columns.size(); i++) {
+            result.addColumn(names.get(i), columns.get(i).select(rows));
+        }
+        result.rowCount = rows.length;
+        return result;
+    }
+
+    /**
+     * Like select(int[]), and when keepIndexes is set and no row is selected twice
+     * (a filter or a reordering), the result takes over this table's indexes,
+     * remapped in linear time instead of rebuilt on their next use.
+     */
+    public ColumnTable select(int[] rows, boolean keepIndexes) {
+        ColumnTable result = select(rows);
+        if (keepIndexes) {
+            synchronized (this) {
+                if (!sortedIndexes.isEmpty() || !hashIndexes.isEmpty()) {
+                    int[] positions = positionsOf(rows);
+                    if (positions != null) {
+                        sortedIndexes.forEach((name, sorted) -> result.sortedIndexes.put(name, sorted.remap(positions)));
+                        hashIndexes.forEach((name, hashed) -> result.hashIndexes.put(name, hashed.remap(positions)));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // The new position of every row after selecting the given ones (-1 if dropped), or null if one repeats
+    private int[] positionsOf(int[] rows) {
+        int[] positions = new int[rowCount];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < rows.length; i++) {
+            if (positions[rows[i]] >= 0) {
+                return null;
+            }
+            positions[rows[i]] = i;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a new table of this table's rows with the rows of another table
+     * placed at the marked positions, e.g. to put back the rows a filter removed.
+     * Columns are merged by name and by type, so typed cells are not boxed.
+     *
+     * @param positions the positions of the other table's rows in the result
+     */
+    public ColumnTable insert(Bitmap positions, ColumnTable rows) {
+        int size = rowCount + rows.rowCount();
+        int[] order = new int[size];
+        int nextKept = 0;
+        int nextInserted = rowCount;
+        for (int i = 0; i < size; i++) {
+            order[i] = positions.get(i) ? nextInserted++ : nextKept++;
+        }
+        ColumnTable merged = select(new int[0]);
+        merged.appendRows(this);
+        merged.appendRows(rows);
+        return merged.select(order);
+    }
+
+    /**
+     * Returns the sorted index of a column, building it on first use,
+     * or null if there is no such column.
+     */
+    public synchronized SortedIndex sortedIndex(String name) {
+        Column column = column(name);
+        if (column == null) {
+            return null;
+        }
+        return sortedIndexes.computeIfAbsent(name, key -> new SortedIndex(column));
+    }
+
+    // The sorted index of a column if one was built, without building it
+    synchronized SortedIndex existingSortedIndex(String name) {
+        return sortedIndexes.get(name);
+    }
+
+    /**
+     * Returns the hash index of a column, building it on first use,
+     * or null if there is no such column.
+     */
+    public synchronized HashIndex hashIndex(String name) {
+        Column column = column(name);
+        if (column == null) {
+            return null;
+        }
+        return hashIndexes.computeIfAbsent(name, key -> new HashIndex(column));
+    }
+
+    /**
+     * Returns a read-only view of the current contents. Only the column references
+     * are copied, so this is cheap whatever the row count; the view can be read
+     * on other threads while this table keeps changing.
+     */
+    public ColumnTable snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        ColumnTable view = new ColumnTable(List.of(), storage);
+        synchronized (sharedColumns) {
+            for (int i = 0; i < columns.size(); i++) {
+                view.addColumn(names.get(i), columns.get(i));
+                sharedColumns.merge(columns.get(i), 1, Integer::sum);
+            }
+        }
+        view.rowCount = rowCount;
+        view.readOnly = true;
+        view.source = this;
+        return view;
+    }
+
+    /**
+     * Called on a snapshot that will not be read any more, from any thread: the
+     * table it was taken from may then write to the columns they share in place.
+     * Does nothing on other tables or when called again.
+     */
+    public void release() {
+        ColumnTable from;
+        synchronized (this) {
+            from = source;
+            source = null;
+        }
+        if (from == null) {
+            return;
+        }
+        synchronized (from.sharedColumns) {
+            for (Column column : columns) {
+                from.sharedColumns.computeIfPresent(column, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private boolean isShared(Column column) {
+        synchronized (sharedColumns) {
+            return sharedColumns.containsKey(column);
+        }
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Snapshot tables cannot be changed");
+        }
+    }
+
+    public ColumnTable copy() {
+        ColumnTable result = new ColumnTable(List.of(), storage);
+        for (int i = 0; i < columns.size(); i++) {
+            result.addColumn(names.get(i), columns.get(i).copy());
+        }
+        result.rowCount = rowCount;
+        return result;
+    }
+
+    /**
+     * Returns the indexes of the first occurrence of every distinct row, in order.
+     */
+    public int[] distinctRows() {
+        Set<RowKey> seen = new HashSet<>();
+        int[] keep = new int[rowCount];
+        int kept = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (seen.add(new RowKey(row))) {
+                keep[kept++] = row;
+            }
+        }
+        return Arrays.copyOf(keep, kept);
+    }
+
+    public long memoryUsage() {
+        long total = 0;
+        for (Column column : columns) {
+            total += column.memoryUsage();
+        }
+        for (ColumnIndex index : sortedIndexes.values()) {
+            total += index.memoryUsage();
+        }
+        for (ColumnIndex index : hashIndexes.values()) {
+            total += index.memoryUsage();
+        }
+        return total;
+    }
+
+    // Hashes and compares a row by its cell values without boxing numeric cells
+    private final class RowKey {
+        private final int row;
+        private final int hash;
+
+        RowKey(int row) {
+            this.row = row;
+            int h = 1;
+            for (Column column : columns) {
+                h = 31 * h + (column.isNull(row) ? 0 : column.valueHash(row));
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RowKey)) {
+                return false;
+            }
+            int otherRow = ((RowKey) other).row;
+            for (Column column : columns) {
+                if (!column.valueEquals(row, otherRow)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
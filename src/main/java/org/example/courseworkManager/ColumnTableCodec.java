@@ -0,0 +1,351 @@
+package org.example.courseworkManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Compact binary encoding of ColumnTables and single cell values.
+ * Columns are written in their primitive form (raw doubles/longs, bit-packed
+ * booleans, dictionary plus int codes) together with their validity bitmaps.
+ * Used to spill undo history to disk.
+ */
+public final class ColumnTableCodec {
+    private static final byte DOUBLE_COLUMN = 'D';
+    private static final byte LONG_COLUMN = 'L';
+    private static final byte BOOLEAN_COLUMN = 'B';
+    private static final byte DICTIONARY_COLUMN = 'S';
+    private static final byte OBJECT_COLUMN = 'O';
+
+    private static final byte NULL = 0;
+    private static final byte DOUBLE = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte SHORT = 4;
+    private static final byte BYTE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte STRING = 7;
+    private static final byte SERIALIZED = 8;
+    private static final byte DATE = 9;
+    private static final byte DATE_TIME = 10;
+
+    private ColumnTableCodec() {
+    }
+
+    public static void writeTable(DataOutput out, ColumnTable table) throws IOException {
+        out.writeInt(table.columnCount());
+        out.writeInt(table.rowCount());
+        for (int i = 0; i < table.columnCount(); i++) {
+            writeString(out, table.columnName(i));
+            writeColumn(out, table.column(i));
+        }
+    }
+
+    /**
+     * Reads a table written by writeTable.
+     *
+     * @param storage where typed columns are created, or null for the heap
+     */
+    public static ColumnTable readTable(DataInput in, MappedStorage storage) throws IOException {
+        int columnCount = in.readInt();
+        int rowCount = in.readInt();
+        ColumnTable table = new ColumnTable(List.of(), storage);
+        for (int i = 0; i < columnCount; i++) {
+            String name = readString(in);
+            table.addColumn(name, readColumn(in, rowCount, storage));
+        }
+        table.setRowCount(rowCount);
+        return table;
+    }
+
+    private static void writeColumn(DataOutput out, Column column) throws IOException {
+        int size = column.size();
+        if (column instanceof DoubleColumn) {
+            out.writeByte(DOUBLE_COLUMN);
+            writeValidity(out, column);
+            DoubleColumn values = (DoubleColumn) column;
+            for (int row = 0; row < size; row++) {
+                out.writeDouble(values.getDouble(row));
+            }
+        } else if (column instanceof LongColumn) {
+            out.writeByte(LONG_COLUMN);
+            out.writeByte(typeTag(column.getType()));
+            writeValidity(out, column);
+            LongColumn values = (LongColumn) column;
+            for (int row = 0; row < size; row++) {
+                out.writeLong(values.getLong(row));
+            }
+        } else if (column instanceof BooleanColumn) {
+            out.writeByte(BOOLEAN_COLUMN);
+            writeValidity(out, column);
+            Bitmap bits = new Bitmap(size);
+            for (int row = 0; row < size; row++) {
+                bits.set(row, ((BooleanColumn) column).getBoolean(row));
+            }
+            writeLongs(out, bits.toLongArray());
+        } else if (column instanceof DictionaryColumn) {
+            out.writeByte(DICTIONARY_COLUMN);
+            writeValidity(out, column);
+            DictionaryColumn codes = (DictionaryColumn) column;
+            StringDictionary dictionary = codes.getDictionary();
+            out.writeInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                writeString(out, dictionary.decode(code));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeInt(codes.getCode(row));
+            }
+        } else {
+            out.writeByte(OBJECT_COLUMN);
+            for (int row = 0; row < size; row++) {
+                writeValue(out, column.get(row));
+            }
+        }
+    }
+
+    private static Column readColumn(DataInput in, int size, MappedStorage storage) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case DOUBLE_COLUMN: {
+                Bitmap validity = readLongsAsBitmap(in);
+                DoubleColumn column = storage != null ? new MappedDoubleColumn(storage, size) : new DoubleColumn(size);
+                for (int row = 0; row < size; row++) {
+                    double value = in.readDouble();
+                    column.append(validity.get(row) ? value : null);
+                }
+                return column;
+            }
+            case LONG_COLUMN: {
+                Class<?> boxType = typeOf(in.readByte());
+                Bitmap validity = readLongsAsBitmap(in);
+                LongColumn column;
+                if (boxType == LocalDate.class || boxType == LocalDateTime.class) {
+                    column = storage != null
+                            ? new MappedTemporalColumn(storage, boxType, size) : new TemporalColumn(boxType, size);
+                } else {
+                    column = storage != null
+                            ? new MappedLongColumn(storage, boxType, size) : new LongColumn(boxType, size);
+                }
+                for (int row = 0; row < size; row++) {
+                    long value = in.readLong();
+                    if (validity.get(row)) {
+                        column.appendLong(value);
+                    } else {
+                        column.append(null);
+                    }
+                }
+                return column;
+            }
+            case BOOLEAN_COLUMN: {
+                Bitmap validity = readLongsAsBitmap(in);
+                Bitmap bits = readLongsAsBitmap(in);
+                BooleanColumn column = new BooleanColumn(size);
+                for (int row = 0; row < size; row++) {
+                    column.append(validity.get(row) ? (Object) bits.get(row) : null);
+                }
+                return column;
+            }
+            case DICTIONARY_COLUMN: {
+                readLongsAsBitmap(in);
+                StringDictionary dictionary = new StringDictionary();
+                int entries = in.readInt();
+                for (int code = 0; code < entries; code++) {
+                    dictionary.encode(readString(in));
+                }
+                DictionaryColumn column = storage != null
+                        ? new MappedDictionaryColumn(storage, dictionary, size) : new DictionaryColumn(dictionary, size);
+                for (int row = 0; row < size; row++) {
+                    int code = in.readInt();
+                    column.append(code >= 0 ? dictionary.decode(code) : null);
+                }
+                return column;
+            }
+            case OBJECT_COLUMN: {
+                ObjectColumn column = new ObjectColumn(size);
+                for (int row = 0; row < size; row++) {
+                    column.append(readValue(in));
+                }
+                return column;
+            }
+            default:
+                throw new IOException("Unknown column kind: " + kind);
+        }
+    }
+
+    private static void writeValidity(DataOutput out, Column column) throws IOException {
+        Bitmap validity = new Bitmap(column.size());
+        for (int row = 0; row < column.size(); row++) {
+            validity.set(row, !column.isNull(row));
+        }
+        writeLongs(out, validity.toLongArray());
+    }
+
+    private static void writeLongs(DataOutput out, long[] words) throws IOException {
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static Bitmap readLongsAsBitmap(DataInput in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return Bitmap.fromLongArray(words);
+    }
+
+    /**
+     * Writes a single cell value with a one-byte type tag. Values of other
+     * types are written with Java serialization, or as text if not serializable.
+     */
+    public static void writeValue(DataOutput out, Object value) throws IOException {
+        byte tag = value == null ? NULL : typeTag(value.getClass());
+        if (tag == SERIALIZED && !(value instanceof Serializable)) {
+            tag = STRING;
+            value = value.toString();
+        }
+        out.writeByte(tag);
+        switch (tag) {
+            case NULL:
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case LONG:
+            case INTEGER:
+            case SHORT:
+            case BYTE:
+                out.writeLong(((Number) value).longValue());
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case STRING:
+                writeString(out, (String) value);
+                break;
+            case DATE:
+                out.writeLong(((LocalDate) value).toEpochDay());
+                break;
+            case DATE_TIME:
+                out.writeLong(((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(((LocalDateTime) value).getNano());
+                break;
+            default:
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                    objects.writeObject(value);
+                }
+                out.writeInt(bytes.size());
+                out.write(bytes.toByteArray());
+        }
+    }
+
+    public static Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case DOUBLE:
+                return in.readDouble();
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return (int) in.readLong();
+            case SHORT:
+                return (short) in.readLong();
+            case BYTE:
+                return (byte) in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case STRING:
+                return readString(in);
+            case DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case DATE_TIME:
+                return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            case SERIALIZED:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Cannot restore value", e);
+                }
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public static int[] readInts(DataInput in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    public static void writeBitmap(DataOutput out, Bitmap bitmap) throws IOException {
+        writeLongs(out, bitmap.toLongArray());
+    }
+
+    public static Bitmap readBitmap(DataInput in) throws IOException {
+        return readLongsAsBitmap(in);
+    }
+
+    // Also used by DsmFile
+    static byte typeTag(Class<?> type) {
+        if (type == Double.class) return DOUBLE;
+        if (type == Long.class) return LONG;
+        if (type == Integer.class) return INTEGER;
+        if (type == Short.class) return SHORT;
+        if (type == Byte.class) return BYTE;
+        if (type == Boolean.class) return BOOLEAN;
+        if (type == String.class) return STRING;
+        if (type == LocalDate.class) return DATE;
+        if (type == LocalDateTime.class) return DATE_TIME;
+        return SERIALIZED;
+    }
+
+    // Box type of a LongColumn; dates and date-times are TemporalColumns
+    static Class<?> typeOf(byte tag) throws IOException {
+        switch (tag) {
+            case LONG:
+                return Long.class;
+            case INTEGER:
+                return Integer.class;
+            case SHORT:
+                return Short.class;
+            case BYTE:
+                return Byte.class;
+            case DATE:
+                return LocalDate.class;
+            case DATE_TIME:
+                return LocalDateTime.class;
+            default:
+                throw new IOException("Unknown integral type tag: " + tag);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.courseworkManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The value types an imported column can have, from the most specific to
+ * plain text. Columns are typed by looking at all of their values, widening
+ * whenever a value does not fit: LONG to DOUBLE, DATE to DATE_TIME, and
+ * anything else that disagrees to STRING.
+ */
+public enum ColumnType {
+    LONG(Long.class),
+    DOUBLE(Double.class),
+    BOOLEAN(Boolean.class),
+    DATE(LocalDate.class),
+    DATE_TIME(LocalDateTime.class),
+    STRING(String.class);
+
+    private final Class<?> javaType;
+
+    ColumnType(Class<?> javaType) {
+        this.javaType = javaType;
+    }
+
+    // The class of the values a column of this type hands out
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * Returns the narrowest type that holds values of both types.
+     * Null stands for a column that has only seen empty cells so far.
+     */
+    public static ColumnType widen(ColumnType a, ColumnType b) {
+        if (a == null || a == b) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if ((a == LONG && b == DOUBLE) || (a == DOUBLE && b == LONG)) {
+            return DOUBLE;
+        }
+        if ((a == DATE && b == DATE_TIME) || (a == DATE_TIME && b == DATE)) {
+            return DATE_TIME;
+        }
+        return STRING;
+    }
+
+    /**
+     * Creates an empty column for values of this type, in mapped files when a
+     * storage is given and the type supports it.
+     */
+    public Column newColumn(int capacity, MappedStorage storage) {
+        switch (this) {
+            case LONG:
+                return storage != null ? new MappedLongColumn(storage, Long.class, capacity)
+                        : new LongColumn(Long.class, capacity);
+            case DOUBLE:
+                return storage != null ? new MappedDoubleColumn(storage, capacity) : new DoubleColumn(capacity);
+            case BOOLEAN:
+                return new BooleanColumn(capacity);
+            case DATE:
+            case DATE_TIME:
+                return storage != null ? new MappedTemporalColumn(storage, javaType, capacity)
+                        : new TemporalColumn(javaType, capacity);
+            default:
+                return storage != null ? new MappedDictionaryColumn(storage, new StringDictionary(), capacity)
+                        : new DictionaryColumn(capacity);
+        }
+    }
+
+    /**
+     * Parses the text and appends it to a column made by newColumn().
+     * The text must have been classified as this type (or a narrower one)
+     * by ValueParser, so parsing cannot fail; empty text appends a null.
+     * Returns the column to append to from now on, which differs from the given
+     * one when text with too many distinct values outgrows its dictionary, or a
+     * date is too far out to be held as a date-time.
+     */
+    public Column appendParsed(Column column, String text) {
+        if (ValueParser.isBlank(text)) {
+            column.append(null);
+            return column;
+        }
+        switch (this) {
+            case LONG:
+                ((LongColumn) column).appendLong(Long.parseLong(text));
+                break;
+            case DOUBLE:
+                ((DoubleColumn) column).appendDouble(Double.parseDouble(text));
+                break;
+            case BOOLEAN:
+                column.append(ValueParser.parseBoolean(text));
+                break;
+            case DATE:
+                ((LongColumn) column).appendLong(TemporalColumn.encode(ValueParser.parseDate(text)));
+                break;
+            case DATE_TIME:
+                // Plain dates in a date-time column are taken as midnight
+                LocalDateTime time = ValueParser.parseDateTime(text);
+                if (time == null) {
+                    time = ValueParser.parseDate(text).atStartOfDay();
+                }
+                if (!column.accepts(time)) {
+                    column = ObjectColumn.copyOf(column);
+                }
+                column.append(time);
+                break;
+            default:
+                if (!column.accepts(text)) {
+                    column = ObjectColumn.copyOf(column);
+                }
+                column.append(text);
+        }
+        return column;
+    }
+
+    /**
+     * Appends the parts into one new column of this type. Typed parts are copied
+     * without boxing; longs and dates in parts of a narrower type are widened to
+     * doubles and date-times, and anything else that does not fit turns the
+     * column into an ObjectColumn.
+     */
+    public Column concat(List<Column> parts, MappedStorage storage) {
+        int rows = 0;
+        for (Column part : parts) {
+            rows += part.size();
+        }
+        Column result = newColumn(Math.max(rows, 16), storage);
+        for (Column part : parts) {
+            result = append(result, part);
+        }
+        return result;
+    }
+
+    /**
+     * Appends the cells of a part to a column made by newColumn(), converting
+     * them like concat(), e.g. to add chunks one at a time as they are read.
+     * Returns the column to append to from now on, which differs from the given
+     * one when a value did not fit and it became an ObjectColumn.
+     */
+    public Column append(Column result, Column part) {
+        boolean plainLongs = part instanceof LongColumn && !(part instanceof TemporalColumn);
+        if (result instanceof DoubleColumn && (part instanceof DoubleColumn || plainLongs)) {
+            DoubleColumn target = (DoubleColumn) result;
+            for (int row = 0; row < part.size(); row++) {
+                if (part.isNull(row)) {
+                    target.append(null);
+                } else {
+                    target.appendDouble(part.getDouble(row));
+                }
+            }
+        } else if (result instanceof LongColumn && part instanceof LongColumn
+                && (part instanceof TemporalColumn) == (result instanceof TemporalColumn)
+                && (plainLongs || part.getType() == result.getType())) {
+            LongColumn target = (LongColumn) result;
+            for (int row = 0; row < part.size(); row++) {
+                if (part.isNull(row)) {
+                    target.append(null);
+                } else {
+                    target.appendLong(((LongColumn) part).getLong(row));
+                }
+            }
+        } else {
+            for (int row = 0; row < part.size(); row++) {
+                Object value = part.get(row);
+                // Plain dates in a date-time column are taken as midnight
+                if (this == DATE_TIME && value instanceof LocalDate) {
+                    value = ((LocalDate) value).atStartOfDay();
+                }
+                if (!result.accepts(value)) {
+                    result = ObjectColumn.copyOf(result);
+                }
+                result.append(value);
+            }
+        }
+        return result;
+    }
+}
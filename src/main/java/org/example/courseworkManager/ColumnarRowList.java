@@ -0,0 +1,505 @@
+package org.example.courseworkManager;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * ObservableList adapter that exposes a ColumnTable as a list of row maps.
+ * Rows are handed out as lightweight views (table + row index), so TableView,
+ * the transformations and the stats code keep working on Map rows while the
+ * data itself stays in primitive columns.
+ * Every mutation goes through this class, so while recording is on each one is
+ * captured as a DataChange delta for the undo history.
+ */
+public class ColumnarRowList extends ObservableListBase<Map<String, Object>> {
+    private ColumnTable table;
+    // Changes made since recording started, or null when not recording
+    private List<DataChange> recorded;
+    // Incremented by every change, so readers can tell whether a snapshot is current
+    private long version;
+
+    public ColumnarRowList() {
+        table = new ColumnTable(List.of());
+    }
+
+    public ColumnTable getTable() {
+        return table;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts capturing every change made to the rows as a DataChange.
+     */
+    public void startRecording() {
+        recorded = new ArrayList<>();
+    }
+
+    /**
+     * Stops capturing and returns the changes made since startRecording().
+     */
+    public List<DataChange> stopRecording() {
+        List<DataChange> changes = recorded != null ? recorded : new ArrayList<>();
+        recorded = null;
+        return changes;
+    }
+
+    private void record(DataChange change) {
+        if (recorded != null) {
+            recorded.add(change);
+        }
+    }
+
+    /**
+     * Replaces the backing table with other data and reports it as a full replacement.
+     */
+    public void setTable(ColumnTable newTable) {
+        setTable(newTable, true);
+    }
+
+    /**
+     * Replaces the backing table and reports it as a full replacement.
+     *
+     * @param newData whether the table holds other data, rather than the current rows rebuilt
+     */
+    public void setTable(ColumnTable newTable, boolean newData) {
+        ColumnTable old = table;
+        table = newTable;
+        version++;
+        record(new DataChange.TableReplaced(old, newTable, newData));
+        beginChange();
+        if (hasListeners()) {
+            if (old.rowCount() > 0) {
+                nextRemove(0, new TableRows(old, 0, old.rowCount()));
+            }
+            if (newTable.rowCount() > 0) {
+                nextAdd(0, newTable.rowCount());
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Keeps only the given rows, in the given order. Increasing selections are
+     * reported as removals and full-length ones as permutations.
+     */
+    public void select(int[] rows) {
+        ColumnTable old = table;
+        int n = old.rowCount();
+        if (isIncreasing(rows)) {
+            if (rows.length == n) {
+                return;
+            }
+            table = old.select(rows, true);
+            version++;
+            if (recorded != null) {
+                recordRemoved(old, rows);
+            }
+            fireRemoved(old, rows);
+        } else if (rows.length == n && isPermutation(rows)) {
+            table = old.select(rows, true);
+            version++;
+            record(new DataChange.RowsPermuted(rows.clone()));
+            beginChange();
+            int[] permutation = new int[n];
+            for (int i = 0; i < n; i++) {
+                permutation[rows[i]] = i;
+            }
+            nextPermutation(0, n, permutation);
+            endChange();
+        } else {
+            setTable(old.select(rows), false);
+        }
+    }
+
+    // Keeps only the removed rows and their positions, not the whole old table
+    private void recordRemoved(ColumnTable old, int[] kept) {
+        int n = old.rowCount();
+        Bitmap removed = new Bitmap(n);
+        int[] removedRows = new int[n - kept.length];
+        int count = 0;
+        int next = 0;
+        for (int row = 0; row < n; row++) {
+            if (next < kept.length && kept[next] == row) {
+                next++;
+            } else {
+                removed.set(row);
+                removedRows[count++] = row;
+            }
+        }
+        record(new DataChange.RowsRemoved(removed, old.select(removedRows), n));
+    }
+
+    // Reports the rows missing from an increasing selection as removed runs
+    private void fireRemoved(ColumnTable old, int[] kept) {
+        beginChange();
+        if (hasListeners()) {
+            int removedSoFar = 0;
+            int next = 0;
+            for (int i = 0; i <= kept.length; i++) {
+                int end = i < kept.length ? kept[i] : old.rowCount();
+                if (end > next) {
+                    nextRemove(next - removedSoFar, new TableRows(old, next, end));
+                    removedSoFar += end - next;
+                }
+                next = end + 1;
+            }
+        }
+        endChange();
+    }
+
+    private static boolean isIncreasing(int[] rows) {
+        for (int i = 1; i < rows.length; i++) {
+            if (rows[i] <= rows[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPermutation(int[] rows) {
+        Bitmap seen = new Bitmap(rows.length);
+        for (int row : rows) {
+            if (row < 0 || row >= rows.length || seen.get(row)) {
+                return false;
+            }
+            seen.set(row);
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        Objects.checkIndex(index, table.rowCount());
+        return new RowView(this, table, index);
+    }
+
+    @Override
+    public int size() {
+        return table.rowCount();
+    }
+
+    @Override
+    public Map<String, Object> set(int index, Map<String, Object> row) {
+        Map<String, Object> old = detachedRow(index);
+        Map<String, Object> values = new HashMap<>(row);
+        beginChange();
+        for (String name : new ArrayList<>(table.getColumnNames())) {
+            setValue(index, name, values.remove(name));
+        }
+        values.forEach((name, value) -> setValue(index, name, value));
+        endChange();
+        return old;
+    }
+
+    /**
+     * Writes one cell in place and reports it as an update of that row.
+     */
+    public void setValue(int index, String column, Object value) {
+        Object old = table.get(index, column);
+        Column before = table.column(column);
+        table.set(index, column, value);
+        // A typed column that had to become an ObjectColumn is narrowed back on undo
+        Class<?> widenedFrom = before != null && !(before instanceof ObjectColumn)
+                && table.column(column) instanceof ObjectColumn ? before.getType() : null;
+        version++;
+        record(new DataChange.CellUpdate(index, column, old, value, widenedFrom));
+        beginChange();
+        nextUpdate(index);
+        endChange();
+    }
+
+    /**
+     * Turns a column widened to objects back into the given type if its values allow.
+     */
+    void narrowColumn(String column, Class<?> type) {
+        table.narrow(column, type);
+    }
+
+    /**
+     * Appends all rows of another table in place.
+     */
+    public void appendTable(ColumnTable rows) {
+        if (rows.rowCount() == 0) {
+            return;
+        }
+        int from = table.rowCount();
+        table.appendRows(rows);
+        version++;
+        recordInserted(from);
+        beginChange();
+        nextAdd(from, table.rowCount());
+        endChange();
+    }
+
+    /**
+     * Puts rows in at the marked positions of the resulting list, e.g. the rows a
+     * filter removed, and reports each run of them as added.
+     */
+    public void insertRows(Bitmap positions, ColumnTable rows) {
+        if (rows.rowCount() == 0) {
+            return;
+        }
+        table = table.insert(positions, rows);
+        version++;
+        record(new DataChange.RowsInserted(positions, rows));
+        beginChange();
+        if (hasListeners()) {
+            int size = table.rowCount();
+            for (int start = positions.nextSetBit(0); start >= 0 && start < size; ) {
+                int end = start + 1;
+                while (end < size && positions.get(end)) {
+                    end++;
+                }
+                nextAdd(start, end);
+                start = positions.nextSetBit(end);
+            }
+        }
+        endChange();
+    }
+
+    // Keeps a copy of the rows appended since the given index
+    private void recordInserted(int from) {
+        if (recorded != null) {
+            int[] inserted = new int[table.rowCount() - from];
+            for (int i = 0; i < inserted.length; i++) {
+                inserted[i] = from + i;
+            }
+            record(new DataChange.RowsInserted(from, table.select(inserted)));
+        }
+    }
+
+    @Override
+    public void add(int index, Map<String, Object> row) {
+        int n = table.rowCount();
+        Objects.checkIndex(index, n + 1);
+        if (index == n) {
+            table.appendRow(row);
+            version++;
+            recordInserted(n);
+        } else {
+            // Insert in the middle by appending to a copy and moving the row into place
+            ColumnTable old = table;
+            ColumnTable next = table.copy();
+            next.appendRow(row);
+            int[] order = new int[n + 1];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i < index ? i : i == index ? n : i - 1;
+            }
+            table = next.select(order);
+            version++;
+            record(new DataChange.TableReplaced(old, table, false));
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return false;
+        }
+        int from = table.rowCount();
+        for (Map<String, Object> row : rows) {
+            table.appendRow(row);
+        }
+        version++;
+        recordInserted(from);
+        beginChange();
+        nextAdd(from, table.rowCount());
+        endChange();
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> remove(int index) {
+        Map<String, Object> old = detachedRow(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int n = table.rowCount();
+        Objects.checkFromToIndex(fromIndex, toIndex, n);
+        int[] keep = new int[n - (toIndex - fromIndex)];
+        int kept = 0;
+        for (int row = 0; row < n; row++) {
+            if (row < fromIndex || row >= toIndex) {
+                keep[kept++] = row;
+            }
+        }
+        select(keep);
+    }
+
+    /**
+     * Evaluates the filter over all rows first and then compacts every column in one pass.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Map<String, Object>> filter) {
+        ColumnTable current = table;
+        int n = current.rowCount();
+        Bitmap removed = new Bitmap(n);
+        int removedCount = 0;
+        for (int row = 0; row < n; row++) {
+            if (filter.test(new RowView(null, current, row))) {
+                removed.set(row);
+                removedCount++;
+            }
+        }
+        if (removedCount == 0) {
+            return false;
+        }
+        int[] keep = new int[n - removedCount];
+        int kept = 0;
+        for (int row = 0; row < n; row++) {
+            if (!removed.get(row)) {
+                keep[kept++] = row;
+            }
+        }
+        select(keep);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> rows) {
+        return removeIf(rows::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> rows) {
+        return removeIf(row -> !rows.contains(row));
+    }
+
+    /**
+     * Views of this list's own rows are applied as a row selection (e.g. the result
+     * of sorting a copy of the list); any other rows are rebuilt into a new table.
+     */
+    @Override
+    public boolean setAll(Collection<? extends Map<String, Object>> rows) {
+        int[] selection = new int[rows.size()];
+        int i = 0;
+        for (Map<String, Object> row : rows) {
+            if (!(row instanceof RowView) || ((RowView) row).table != table) {
+                selection = null;
+                break;
+            }
+            selection[i++] = ((RowView) row).row;
+        }
+        if (selection != null) {
+            select(selection);
+        } else {
+            setTable(ColumnTable.fromRows(rows, table.getColumnNames()), false);
+        }
+        return true;
+    }
+
+    // Copies a row out of the table so it survives later changes
+    private Map<String, Object> detachedRow(int index) {
+        return new HashMap<>(get(index));
+    }
+
+    /**
+     * A row of a ColumnTable seen as a Map. Holds no values of its own.
+     * Writes go through the owning list while the row is still part of it.
+     */
+    static final class RowView extends AbstractMap<String, Object> {
+        private final ColumnarRowList owner;
+        private final ColumnTable table;
+        private final int row;
+
+        RowView(ColumnarRowList owner, ColumnTable table, int row) {
+            this.owner = owner;
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Column column = key instanceof String ? table.column((String) key) : null;
+            return column != null ? column.get(row) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && table.hasColumn((String) key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object old = get(key);
+            if (owner != null && owner.table == table) {
+                owner.setValue(row, key, value);
+            } else {
+                table.set(row, key, value);
+            }
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return table.columnCount();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < table.columnCount();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            String name = table.columnName(position);
+                            Object value = table.column(position++).get(row);
+                            return new SimpleImmutableEntry<>(name, value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return table.columnCount();
+                }
+            };
+        }
+    }
+
+    // Read-only list of row views over a range of a (possibly replaced) table
+    private static final class TableRows extends AbstractList<Map<String, Object>> {
+        private final ColumnTable table;
+        private final int from;
+        private final int to;
+
+        TableRows(ColumnTable table, int from, int to) {
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Map<String, Object> get(int index) {
+            Objects.checkIndex(index, to - from);
+            return new RowView(null, table, from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.courseworkManager;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of imported and exported files, using the JDK's zip streams.
+ * Gzip is recognised by its magic bytes; zlib-wrapped deflate by its header
+ * together with a .deflate, .zz or .zlib name, since that header is short
+ * enough to occur at the start of plain text.
+ * Compressed input is decompressed on its own thread, ahead of the parser.
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    DEFLATE;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The compression to write a file with, from its name (e.g. "sales.csv.gz").
+     */
+    public static Compression forName(String name) {
+        String lower = name.toLowerCase();
+        if (lower.endsWith(".gz") || lower.endsWith(".gzip")) {
+            return GZIP;
+        } else if (lower.endsWith(".deflate") || lower.endsWith(".zz") || lower.endsWith(".zlib")) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+
+    /**
+     * The compression a file was written with, from its first bytes.
+     */
+    public static Compression detect(Path file) throws IOException {
+        byte[] magic = new byte[2];
+        int count;
+        try (InputStream in = Files.newInputStream(file)) {
+            count = in.readNBytes(magic, 0, 2);
+        }
+        if (count < 2) {
+            return NONE;
+        }
+        int first = magic[0] & 0xFF;
+        int second = magic[1] & 0xFF;
+        if (first == 0x1F && second == 0x8B) {
+            return GZIP;
+        }
+        // zlib: deflate method, window size at most 32K and a header checksum
+        boolean zlib = (first & 0x0F) == 8 && (first >>> 4) <= 7 && ((first << 8) | second) % 31 == 0;
+        if (zlib && forName(file.getFileName().toString()) == DEFLATE) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+
+    /**
+     * The file name without a compression suffix, which tells the format of the
+     * contents: "sales.csv.gz" gives "sales.csv".
+     */
+    public static String stripSuffix(String name) {
+        if (forName(name) == NONE) {
+            return name;
+        }
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    /**
+     * Opens the file for reading its uncompressed contents. Compressed bytes read
+     * from disk are reported to the monitor. Decompression runs on a background thread.
+     */
+    public InputStream open(Path file, ProgressMonitor monitor) throws IOException {
+        // Counted below the buffer, so that progress is reported once per buffer fill
+        InputStream counting = new FilterInputStream(Files.newInputStream(file)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    monitor.addBytes(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                int count = super.read(bytes, offset, length);
+                if (count > 0) {
+                    monitor.addBytes(count);
+                }
+                return count;
+            }
+        };
+        InputStream raw = new BufferedInputStream(counting, BUFFER_SIZE);
+        switch (this) {
+            case GZIP:
+                return new ReadAheadInputStream(new GZIPInputStream(raw, BUFFER_SIZE), "decompress");
+            case DEFLATE:
+                return new ReadAheadInputStream(new InflaterInputStream(raw), "decompress");
+            default:
+                return raw;
+        }
+    }
+
+    /**
+     * Wraps a channel so that what is written to it is compressed. Closing the
+     * result finishes the compressed stream and closes the channel.
+     */
+    public WritableByteChannel wrap(FileChannel channel) throws IOException {
+        switch (this) {
+            case GZIP:
+                return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            case DEFLATE:
+                return Channels.newChannel(new DeflaterOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)));
+            default:
+                return channel;
+        }
+    }
+}
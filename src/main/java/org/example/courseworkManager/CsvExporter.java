@@ -0,0 +1,152 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Provides static methods to export columns to a CSV file (RFC 4180, with a header line).
+ * Values are read straight from the columns, so no row maps are built. Chunks of rows
+ * (a fixed number of cells, so fewer rows for wider tables) are formatted in parallel
+ * and written to the file channel in row order; only a few chunks are held in memory
+ * at a time. Files named .gz or .deflate are compressed as they are written.
+ */
+
+public class CsvExporter {
+    // Cells formatted as one chunk on one thread, so that wide tables get chunks of fewer rows
+    private static final int CHUNK_CELLS = 1 << 18;
+    // Characters reserved per cell when a chunk's text is started
+    private static final int CHARS_PER_CELL = 8;
+    // Chunks formatted before they are written, enough to keep every core busy
+    private static final int CHUNKS_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+    private static final String LINE_BREAK = "\r\n";
+
+    public static void exportCsv(ColumnTable table, List<String> columns, File file) throws IOException {
+        exportCsv(table, columns, file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * Writes the given columns of the table. Columns the table does not have are left empty.
+     */
+    public static void exportCsv(ColumnTable table, List<String> columns, File file,
+                                 ProgressMonitor monitor) throws IOException {
+        Column[] values = new Column[columns.size()];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = table.column(columns.get(c));
+        }
+        int rows = table.rowCount();
+        monitor.setTotalRows(rows);
+
+        try (FileChannel output = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             WritableByteChannel channel = Compression.forName(file.getName()).wrap(output)) {
+            StringBuilder header = new StringBuilder();
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    header.append(',');
+                }
+                appendText(header, columns.get(c));
+            }
+            header.append(LINE_BREAK);
+            write(channel, header.toString().getBytes(StandardCharsets.UTF_8), monitor);
+
+            // Every chunk holds at least one row, however wide the rows are
+            int chunkRows = Math.max(1, CHUNK_CELLS / Math.max(columns.size(), 1));
+            int chunks = (int) (((long) rows + chunkRows - 1) / chunkRows);
+            for (int first = 0; first < chunks; first += CHUNKS_IN_FLIGHT) {
+                monitor.checkCancelled();
+                List<byte[]> formatted = IntStream.range(first, Math.min(chunks, first + CHUNKS_IN_FLIGHT))
+                        .parallel()
+                        .mapToObj(chunk -> format(values, chunkStart(chunk, chunkRows, rows),
+                                chunkStart(chunk + 1, chunkRows, rows)))
+                        .collect(Collectors.toList());
+                for (int i = 0; i < formatted.size(); i++) {
+                    write(channel, formatted.get(i), monitor);
+                    int chunk = first + i;
+                    monitor.addRows(chunkStart(chunk + 1, chunkRows, rows) - chunkStart(chunk, chunkRows, rows));
+                }
+            }
+        }
+    }
+
+    // The first row of a chunk, or the row count for the chunk after the last
+    private static int chunkStart(int chunk, int chunkRows, int rows) {
+        return (int) Math.min(rows, (long) chunk * chunkRows);
+    }
+
+    private static void write(WritableByteChannel channel, byte[] bytes, ProgressMonitor monitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        monitor.addBytes(bytes.length);
+    }
+
+    // Formats rows start to end (exclusive) as UTF-8 CSV lines
+    private static byte[] format(Column[] columns, int start, int end) {
+        long cells = (long) (end - start) * Math.max(columns.length, 1);
+        StringBuilder text = new StringBuilder((int) Math.min(cells, CHUNK_CELLS) * CHARS_PER_CELL);
+        for (int row = start; row < end; row++) {
+            for (int c = 0; c < columns.length; c++) {
+                if (c > 0) {
+                    text.append(',');
+                }
+                appendValue(text, columns[c], row);
+            }
+            text.append(LINE_BREAK);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Nulls are written as empty fields; numbers without boxing
+    private static void appendValue(StringBuilder text, Column column, int row) {
+        if (column == null || column.isNull(row)) {
+            return;
+        }
+        if (column instanceof DoubleColumn) {
+            text.append(column.getDouble(row));
+        } else if (column instanceof LongColumn && !(column instanceof TemporalColumn)) {
+            text.append(((LongColumn) column).getLong(row));
+        } else {
+            appendText(text, column.get(row).toString());
+        }
+    }
+
+    // Quotes the text if it would not read back as the same field, doubling any quotes
+    private static void appendText(StringBuilder text, String value) {
+        if (!needsQuotes(value)) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                text.append('"');
+            }
+            text.append(ch);
+        }
+        text.append('"');
+    }
+
+    // Empty text is quoted so that it differs from a null; unquoted fields are trimmed on import
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty() || value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
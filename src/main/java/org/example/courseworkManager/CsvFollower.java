@@ -0,0 +1,174 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows a CSV file that other programs keep appending to, such as a log.
+ * The records already in the file are imported once; after that a WatchService
+ * reports changes to the file, and only the bytes after the last whole record
+ * read so far are parsed. A record still being written is left for the next
+ * change. Appended records are handed over as small tables, to be added to the
+ * DataModel as inserted rows.
+ */
+public class CsvFollower implements AutoCloseable {
+    // The file is also checked this often, for watch services that miss changes
+    private static final long CHECK_SECONDS = 1;
+    // Largest number of bytes parsed at once; more are read by the next check
+    private static final long MAX_READ = 64L << 20;
+
+    private final Path file;
+    private final long maxRead;
+    private final WatchService watcher;
+    // Byte offset just after the last whole record read
+    private long offset;
+    private List<String> headers;
+    private volatile boolean closed;
+
+    public CsvFollower(File file) throws IOException {
+        this(file, MAX_READ);
+    }
+
+    // Reads at most maxRead bytes at once, so tests can cross read boundaries
+    CsvFollower(File file, long maxRead) throws IOException {
+        this.file = file.toPath().toAbsolutePath();
+        this.maxRead = maxRead;
+        if (Compression.detect(this.file) != Compression.NONE) {
+            throw new IOException("Compressed files cannot be followed");
+        }
+        watcher = FileSystems.getDefault().newWatchService();
+        try {
+            this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException | RuntimeException e) {
+            watcher.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file.toFile();
+    }
+
+    /**
+     * Imports the records the file holds now, up to its last line break.
+     * Log writers append whole lines, so that line break is taken to end a record.
+     */
+    public ColumnTable importExisting(MappedStorage storage, ProgressMonitor monitor) throws IOException {
+        long end;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            end = channel.size();
+            while (end > 0) {
+                long start = Math.max(0, end - (1 << 16));
+                ByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int i = tail.limit() - 1;
+                while (i >= 0 && tail.get(i) != '\n') {
+                    i--;
+                }
+                if (i >= 0) {
+                    end = start + i + 1;
+                    break;
+                }
+                end = start;
+            }
+        }
+        if (end == 0) {
+            throw new IOException(file.getFileName() + " does not have a whole header line yet");
+        }
+        ColumnTable table = CsvImporter.importBefore(file, end, storage, monitor);
+        headers = table.getColumnNames();
+        offset = end;
+        return table;
+    }
+
+    /**
+     * Starts watching the file on a background thread. Appended records go to
+     * onRows and a failure, after which the file is no longer followed, to onError;
+     * both are called on that thread.
+     */
+    public void start(Consumer<ColumnTable> onRows, Consumer<IOException> onError) {
+        if (headers == null) {
+            throw new IllegalStateException("The existing records must be imported first");
+        }
+        Thread thread = new Thread(() -> watch(onRows, onError), "follow " + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch(Consumer<ColumnTable> onRows, Consumer<IOException> onError) {
+        try {
+            while (!closed) {
+                WatchKey key = watcher.poll(CHECK_SECONDS, TimeUnit.SECONDS);
+                if (key != null) {
+                    // Any change in the folder is a reason to look; the size says whether it was this file
+                    key.pollEvents();
+                    key.reset();
+                }
+                ColumnTable rows;
+                while (!closed && (rows = readAppended()) != null) {
+                    onRows.accept(rows);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        } catch (IOException e) {
+            if (!closed) {
+                onError.accept(e);
+            }
+        }
+    }
+
+    /**
+     * Parses the whole records appended since the last call, or returns null if
+     * there are none yet. Appended blank lines are skipped, like RecordReader does.
+     */
+    ColumnTable readAppended() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (true) {
+                long size = channel.size();
+                if (size < offset) {
+                    throw new IOException(file.getFileName() + " was truncated or replaced, so it is no longer followed");
+                }
+                if (size == offset) {
+                    return null;
+                }
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset, maxRead));
+                // The offset is always at the start of a record
+                int end = CsvImporter.lastRecordEnd(bytes);
+                if (end == 0) {
+                    if (bytes.limit() == maxRead) {
+                        throw new IOException("A record of " + file.getFileName() + " is too long to follow");
+                    }
+                    return null;
+                }
+                offset += end;
+                ColumnTable rows = CsvImporter.parseRecords(headers, bytes.limit(end));
+                // Blank lines alone add nothing; the records after them may already be there
+                if (rows.rowCount() > 0) {
+                    return rows;
+                }
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
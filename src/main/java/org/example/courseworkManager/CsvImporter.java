@@ -0,0 +1,704 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Provides static methods to import a CSV file (RFC 4180, with a header line) into typed columns.
+ * The file is memory-mapped and split into chunks on record boundaries, which
+ * are parsed in parallel on the common fork-join pool and appended to the
+ * result in file order as they finish, so that besides the result (in mapped
+ * files, if a storage is given) only the chunks in flight are held:
+ * 1. count quotes per chunk, so every chunk knows whether it starts inside a
+ *    quoted field, and move each chunk start to the next record boundary;
+ * 2. classify every cell to pick one type per column;
+ * 3. parse each cell straight into a column of that type.
+ * Gzip or deflate compressed files cannot be mapped; they are decompressed on
+ * a background thread, once per pass, and cut into chunks as they stream in.
+ * Progress is reported to a ProgressMonitor after each chunk, and a cancelled
+ * monitor stops the import with a CancellationException.
+ */
+
+public class CsvImporter {
+    // Bytes per chunk; big enough to amortise the per-chunk work, small enough to balance the cores
+    private static final long CHUNK_SIZE = 16L << 20;
+    // The header is read from a mapping of at most this size
+    static final long HEADER_WINDOW = 1L << 30;
+
+    public static ColumnTable importCsv(File file, MappedStorage storage) throws IOException {
+        return importCsv(file, storage, ProgressMonitor.NONE);
+    }
+
+    public static ColumnTable importCsv(File file, MappedStorage storage, ProgressMonitor monitor) throws IOException {
+        return importCsv(file.toPath(), storage, CHUNK_SIZE, monitor);
+    }
+
+    /**
+     * Reads only the first rows of the file, typed from those rows alone, so that
+     * they can be shown while the whole file is imported.
+     */
+    public static ColumnTable importPreview(File file, int maxRows) throws IOException {
+        Compression compression = Compression.detect(file.toPath());
+        if (compression != Compression.NONE) {
+            try (StreamChunker chunks = new StreamChunker(
+                    compression.open(file.toPath(), ProgressMonitor.NONE), CHUNK_SIZE, true)) {
+                ByteBuffer first = chunks.next();
+                return preview(first != null ? first : ByteBuffer.allocate(0), maxRows);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return preview(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_WINDOW)),
+                    maxRows);
+        }
+    }
+
+    private static ColumnTable preview(ByteBuffer window, int maxRows) throws IOException {
+        RecordReader reader = new RecordReader(window);
+        List<String> headers = readHeader(reader);
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields;
+        while (records.size() < maxRows && (fields = reader.readRecord()) != null) {
+            records.add(new ArrayList<>(fields));
+        }
+        List<Column> columns = new ArrayList<>(headers.size());
+        for (int c = 0; c < headers.size(); c++) {
+            ColumnType type = null;
+            for (List<String> record : records) {
+                type = ColumnType.widen(type, ValueParser.classify(c < record.size() ? record.get(c) : null));
+            }
+            type = type != null ? type : ColumnType.STRING;
+            Column column = type.newColumn(Math.max(records.size(), 16), null);
+            for (List<String> record : records) {
+                column = type.appendParsed(column, c < record.size() ? record.get(c) : null);
+            }
+            columns.add(column);
+        }
+        return ColumnTable.fromColumns(headers, columns, null);
+    }
+
+    /**
+     * Types every column by classifying all of its cells, widening as needed.
+     * Columns with nothing but empty cells are typed as STRING.
+     */
+    public static List<ColumnType> inferTypes(File file) throws IOException {
+        Compression compression = Compression.detect(file.toPath());
+        if (compression != Compression.NONE) {
+            try (CompressedCsv csv = new CompressedCsv(file.toPath(), compression, CHUNK_SIZE, ProgressMonitor.NONE)) {
+                return csv.inferTypes();
+            }
+        }
+        try (CsvFile csv = new CsvFile(file.toPath(), CHUNK_SIZE, Long.MAX_VALUE)) {
+            return csv.inferTypes(ProgressMonitor.NONE);
+        }
+    }
+
+    // The chunk size is a parameter so that tests can split small files
+    static ColumnTable importCsv(Path file, MappedStorage storage, long chunkSize) throws IOException {
+        return importCsv(file, storage, chunkSize, ProgressMonitor.NONE);
+    }
+
+    static ColumnTable importCsv(Path file, MappedStorage storage, long chunkSize,
+                                 ProgressMonitor monitor) throws IOException {
+        Compression compression = Compression.detect(file);
+        if (compression != Compression.NONE) {
+            try (CompressedCsv csv = new CompressedCsv(file, compression, chunkSize, monitor)) {
+                // Both passes decompress the whole file; the compressed bytes are counted
+                monitor.setTotalBytes(2 * Files.size(file));
+                return csv.read(csv.inferTypes(), storage);
+            }
+        }
+        return importMapped(file, Long.MAX_VALUE, storage, chunkSize, monitor);
+    }
+
+    /**
+     * Imports the records before the given byte offset, e.g. those already
+     * complete in a file that is still being written (see CsvFollower).
+     */
+    static ColumnTable importBefore(Path file, long end, MappedStorage storage, ProgressMonitor monitor)
+            throws IOException {
+        return importMapped(file, end, storage, CHUNK_SIZE, monitor);
+    }
+
+    private static ColumnTable importMapped(Path file, long end, MappedStorage storage, long chunkSize,
+                                            ProgressMonitor monitor) throws IOException {
+        try (CsvFile csv = new CsvFile(file, chunkSize, end)) {
+            // Both the typing and the parsing pass read every byte
+            monitor.setTotalBytes(2 * csv.dataSize());
+            return csv.read(csv.inferTypes(monitor), storage, monitor);
+        }
+    }
+
+    /**
+     * Parses whole records, typed from those records alone, into a heap table
+     * with the given columns.
+     */
+    static ColumnTable parseRecords(List<String> headers, ByteBuffer bytes) {
+        List<ColumnType> types = mergeTypes(List.<ColumnType[]>of(classifyChunk(bytes, headers.size())),
+                headers.size());
+        return ColumnTable.fromColumns(headers, Arrays.asList(parseChunk(bytes, types)), null);
+    }
+
+    static List<String> readHeader(RecordReader reader) throws IOException {
+        reader.skipByteOrderMark();
+        List<String> fields = reader.readRecord();
+        List<String> headers = fields != null ? new ArrayList<>(fields) : new ArrayList<>();
+        if (new HashSet<>(headers).size() < headers.size()) {
+            throw new IOException("The header contains duplicate column names: " + headers);
+        }
+        return headers;
+    }
+
+    // An open, mapped CSV file with its header and record-aligned chunks
+    private static final class CsvFile implements AutoCloseable {
+        private final FileChannel channel;
+        private final List<String> headers;
+        // Chunk i covers bytes starting[i] to starting[i + 1]
+        private final long[] starting;
+
+        // Only the bytes before end are read, if the file is longer
+        CsvFile(Path file, long chunkSize, long end) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                long size = Math.min(channel.size(), end);
+                ByteBuffer window = map(0, Math.min(size, HEADER_WINDOW));
+                RecordReader reader = new RecordReader(window);
+                headers = readHeader(reader);
+                starting = split(reader.position(), size, chunkSize);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private ByteBuffer map(long position, long length) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+
+        private int chunkCount() {
+            return starting.length - 1;
+        }
+
+        // Bytes after the header
+        private long dataSize() {
+            return starting[starting.length - 1] - starting[0];
+        }
+
+        private long chunkSize(int i) {
+            return starting[i + 1] - starting[i];
+        }
+
+        private ByteBuffer chunk(int i) {
+            try {
+                return map(starting[i], starting[i + 1] - starting[i]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Splits the data into chunks of about chunkSize that start on record boundaries
+        private long[] split(long dataStart, long size, long chunkSize) throws IOException {
+            int regions = (int) Math.max(1, (size - dataStart + chunkSize - 1) / chunkSize);
+            // The state each region starts in follows from the states the regions before it end in
+            int[][] endStates = parallel(() -> IntStream.range(0, regions).parallel().mapToObj(r -> {
+                long start = dataStart + r * chunkSize;
+                return RecordScanner.endStates(mapRegion(start, Math.min(size, start + chunkSize)));
+            }).toArray(int[][]::new));
+            int[] startStates = new int[regions];
+            int state = RecordScanner.FIELD_START;
+            for (int r = 0; r < regions; r++) {
+                startStates[r] = state;
+                state = endStates[r][state];
+            }
+            long[] boundaries = parallel(() -> IntStream.range(0, regions).parallel().mapToLong(r ->
+                    r == 0 ? dataStart : nextRecord(dataStart + r * chunkSize, startStates[r], size)).toArray());
+            long[] result = new long[regions + 1];
+            int count = 0;
+            for (long boundary : boundaries) {
+                if (count == 0 || boundary > result[count - 1]) {
+                    result[count++] = boundary;
+                }
+            }
+            if (result[count - 1] < size || count == 1) {
+                result[count++] = size;
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private ByteBuffer mapRegion(long start, long end) {
+            try {
+                return map(start, end - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Position after the first record end at or after the given position, scanned from the state there
+        private long nextRecord(long position, int state, long size) {
+            long window = 1L << 20;
+            RecordScanner scanner = new RecordScanner(state);
+            while (position < size) {
+                long end = Math.min(size, position + window);
+                ByteBuffer bytes = mapRegion(position, end);
+                for (int i = 0; i < bytes.limit(); i++) {
+                    if (scanner.next(bytes.get(i))) {
+                        return position + i + 1;
+                    }
+                }
+                position = end;
+            }
+            return size;
+        }
+
+        List<ColumnType> inferTypes(ProgressMonitor monitor) throws IOException {
+            int columnCount = headers.size();
+            List<ColumnType[]> chunkTypes = parallel(() -> IntStream.range(0, chunkCount()).parallel()
+                    .mapToObj(i -> {
+                        monitor.checkCancelled();
+                        ColumnType[] types = classifyChunk(chunk(i), columnCount);
+                        monitor.addBytes(chunkSize(i));
+                        return types;
+                    }).collect(Collectors.toList()));
+            return mergeTypes(chunkTypes, columnCount);
+        }
+
+        ColumnTable read(List<ColumnType> types, MappedStorage storage, ProgressMonitor monitor) throws IOException {
+            Joiner joiner = new Joiner(types, storage);
+            int[] next = {0};
+            StreamChunker.ChunkSource chunks = () -> {
+                if (next[0] == chunkCount()) {
+                    return null;
+                }
+                int i = next[0]++;
+                return map(starting[i], chunkSize(i));
+            };
+            StreamChunker.forEachInOrder(chunks, bytes -> {
+                monitor.checkCancelled();
+                Column[] columns = parseChunk(bytes, types);
+                monitor.addRows(columns.length > 0 ? columns[0].size() : 0);
+                monitor.addBytes(bytes.limit());
+                return columns;
+            }, joiner::append, monitor);
+            monitor.checkCancelled();
+            return joiner.table(headers);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A compressed CSV file, which cannot be mapped. Each pass decompresses it
+     * from the start, in chunks handed to the common pool as they are read.
+     */
+    private static final class CompressedCsv implements AutoCloseable {
+        private final Path file;
+        private final Compression compression;
+        private final long chunkSize;
+        private final ProgressMonitor monitor;
+        private final List<String> headers;
+        // The open stream and its first chunk after the header, for the next pass
+        private StreamChunker chunks;
+        private ByteBuffer first;
+
+        CompressedCsv(Path file, Compression compression, long chunkSize, ProgressMonitor monitor) throws IOException {
+            this.file = file;
+            this.compression = compression;
+            this.chunkSize = chunkSize;
+            this.monitor = monitor;
+            this.headers = open();
+        }
+
+        // Opens the stream and reads the header, which is always in the first chunk
+        private List<String> open() throws IOException {
+            chunks = new StreamChunker(compression.open(file, monitor), chunkSize, true);
+            try {
+                ByteBuffer bytes = chunks.next();
+                RecordReader reader = new RecordReader(bytes != null ? bytes : ByteBuffer.allocate(0));
+                List<String> result = readHeader(reader);
+                first = bytes != null ? bytes.position(reader.position()).slice() : null;
+                return result;
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private <T> List<T> pass(StreamChunker.ChunkWork<T> work) throws IOException {
+            List<T> results = new ArrayList<>();
+            pass(work, results::add);
+            return results;
+        }
+
+        // Hands the results to the consumer in stream order as they are done
+        private <T> void pass(StreamChunker.ChunkWork<T> work, Consumer<T> consumer) throws IOException {
+            if (chunks == null) {
+                open();
+            }
+            try {
+                chunks.forEachInOrder(first, work, consumer, monitor);
+            } finally {
+                close();
+            }
+        }
+
+        List<ColumnType> inferTypes() throws IOException {
+            int columnCount = headers.size();
+            return mergeTypes(pass(bytes -> {
+                monitor.checkCancelled();
+                return classifyChunk(bytes, columnCount);
+            }), columnCount);
+        }
+
+        ColumnTable read(List<ColumnType> types, MappedStorage storage) throws IOException {
+            Joiner joiner = new Joiner(types, storage);
+            pass(bytes -> {
+                monitor.checkCancelled();
+                Column[] columns = parseChunk(bytes, types);
+                monitor.addRows(columns.length > 0 ? columns[0].size() : 0);
+                return columns;
+            }, joiner::append);
+            monitor.checkCancelled();
+            return joiner.table(headers);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (chunks != null) {
+                StreamChunker open = chunks;
+                chunks = null;
+                first = null;
+                open.close();
+            }
+        }
+    }
+
+    // The widest type of each column's cells in one chunk; null where every cell is empty
+    static ColumnType[] classifyChunk(ByteBuffer bytes, int columnCount) {
+        ColumnType[] types = new ColumnType[columnCount];
+        RecordReader reader = new RecordReader(bytes);
+        List<String> fields;
+        while ((fields = reader.readRecord()) != null) {
+            for (int c = 0; c < columnCount && c < fields.size(); c++) {
+                if (types[c] != ColumnType.STRING) {
+                    types[c] = ColumnType.widen(types[c], ValueParser.classify(fields.get(c)));
+                }
+            }
+        }
+        return types;
+    }
+
+    static List<ColumnType> mergeTypes(List<ColumnType[]> chunkTypes, int columnCount) {
+        List<ColumnType> result = new ArrayList<>(columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            ColumnType type = null;
+            for (ColumnType[] types : chunkTypes) {
+                type = ColumnType.widen(type, types[c]);
+            }
+            result.add(type != null ? type : ColumnType.STRING);
+        }
+        return result;
+    }
+
+    // Parses one chunk's records into heap columns of the given types
+    private static Column[] parseChunk(ByteBuffer bytes, List<ColumnType> types) {
+        int columnCount = types.size();
+        Column[] columns = new Column[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            columns[c] = types.get(c).newColumn(16, null);
+        }
+        RecordReader reader = new RecordReader(bytes);
+        List<String> fields;
+        while ((fields = reader.readRecord()) != null) {
+            for (int c = 0; c < columnCount; c++) {
+                // Short records are padded with empty cells
+                String text = c < fields.size() ? fields.get(c) : null;
+                columns[c] = types.get(c).appendParsed(columns[c], text);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Appends parsed chunks to the result columns in file order, each as soon as
+     * it is parsed, so that only the chunks in flight are held besides the result;
+     * with a storage, the result columns are kept in its mapped files.
+     */
+    private static final class Joiner {
+        private final List<ColumnType> types;
+        private final MappedStorage storage;
+        private final Column[] columns;
+
+        Joiner(List<ColumnType> types, MappedStorage storage) {
+            this.types = types;
+            this.storage = storage;
+            columns = new Column[types.size()];
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = types.get(c).newColumn(16, storage);
+            }
+        }
+
+        // Appends the columns of the next chunk, one column per task
+        void append(Column[] chunk) {
+            IntStream.range(0, columns.length).parallel()
+                    .forEach(c -> columns[c] = types.get(c).append(columns[c], chunk[c]));
+        }
+
+        ColumnTable table(List<String> headers) {
+            return ColumnTable.fromColumns(headers, Arrays.asList(columns), storage);
+        }
+    }
+
+    private interface ParallelWork<T> {
+        T run();
+    }
+
+    // Runs parallel stream work, turning mapping failures back into IOExceptions
+    private static <T> T parallel(ParallelWork<T> work) throws IOException {
+        try {
+            return work.run();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the position after the last whole record of the bytes, which start
+     * at a record, or 0 if no record ends in them.
+     */
+    static int lastRecordEnd(ByteBuffer bytes) {
+        RecordScanner scanner = new RecordScanner(RecordScanner.FIELD_START);
+        int end = 0;
+        for (int i = 0; i < bytes.limit(); i++) {
+            if (scanner.next(bytes.get(i))) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Finds where records end without splitting them into fields, with the quote
+     * rules of RecordReader: a quote opens a quoted field only at the start of a
+     * field (after spaces), a doubled quote inside one is a quote, and anywhere
+     * else a quote is an ordinary character. Fed one byte at a time, so a file can
+     * be scanned in windows, or in parallel regions whose starting state comes
+     * from endStates() of the regions before them.
+     */
+    static final class RecordScanner {
+        static final int FIELD_START = 0;
+        static final int UNQUOTED = 1;
+        static final int QUOTED = 2;
+        // Just after a quote inside a quoted field: the end of the field, or half of a doubled quote
+        static final int QUOTE_SEEN = 3;
+        static final int STATES = 4;
+
+        private int state;
+        // Whether the current record has only spaces so far, so RecordReader would skip it
+        private boolean blank = true;
+        private boolean endedBlank;
+
+        RecordScanner(int state) {
+            this.state = state;
+        }
+
+        /**
+         * Moves past one byte and returns whether it was the line break ending a record.
+         */
+        boolean next(byte b) {
+            switch (state) {
+                case QUOTED:
+                    if (b == '"') {
+                        state = QUOTE_SEEN;
+                    }
+                    return false;
+                case QUOTE_SEEN:
+                    if (b == '"') {
+                        state = QUOTED;
+                        return false;
+                    }
+                    break;
+                case FIELD_START:
+                    if (b == '"') {
+                        state = QUOTED;
+                        blank = false;
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (b == '\n') {
+                endedBlank = blank;
+                blank = true;
+                state = FIELD_START;
+                return true;
+            }
+            if (b == ',') {
+                blank = false;
+                state = FIELD_START;
+            } else if (state != FIELD_START || (b != ' ' && b != '\t')) {
+                // Text after a closing quote is ignored like the rest of an unquoted field
+                blank &= (b & 0xFF) <= ' ';
+                state = UNQUOTED;
+            }
+            return false;
+        }
+
+        int state() {
+            return state;
+        }
+
+        // Whether the record the last line break ended was blank
+        boolean endedBlank() {
+            return endedBlank;
+        }
+
+        // Whether the record not ended yet has only spaces so far
+        boolean isBlank() {
+            return blank;
+        }
+
+        /**
+         * Returns the state after the bytes for each state they may start in.
+         */
+        static int[] endStates(ByteBuffer bytes) {
+            RecordScanner[] scanners = new RecordScanner[STATES];
+            for (int state = 0; state < STATES; state++) {
+                scanners[state] = new RecordScanner(state);
+            }
+            for (int i = 0; i < bytes.limit(); i++) {
+                byte b = bytes.get(i);
+                for (RecordScanner scanner : scanners) {
+                    scanner.next(b);
+                }
+            }
+            int[] ends = new int[STATES];
+            for (int state = 0; state < STATES; state++) {
+                ends[state] = scanners[state].state;
+            }
+            return ends;
+        }
+    }
+
+    /**
+     * Splits mapped bytes into records and fields. Quoted fields may contain
+     * commas, line breaks and doubled quotes; unquoted fields are trimmed.
+     * Blank lines are skipped.
+     */
+    static final class RecordReader {
+        private final ByteBuffer bytes;
+        private final int limit;
+        private int position;
+        // The current field's bytes, without quotes
+        private byte[] field = new byte[64];
+        private int fieldLength;
+        private final List<String> fields = new ArrayList<>();
+
+        RecordReader(ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.limit = bytes.limit();
+        }
+
+        int position() {
+            return position;
+        }
+
+        void skipByteOrderMark() {
+            if (limit >= 3 && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB
+                    && bytes.get(2) == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+
+        /**
+         * Returns the fields of the next record, or null at the end of the bytes.
+         * The list is reused by the next call.
+         */
+        List<String> readRecord() {
+            while (position < limit) {
+                fields.clear();
+                // A line holding one empty, unquoted field is blank
+                boolean blank = true;
+                while (true) {
+                    boolean quoted = readField();
+                    blank &= !quoted && fieldLength == 0;
+                    fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                    if (position < limit && bytes.get(position) == ',') {
+                        position++;
+                        blank = false;
+                        continue;
+                    }
+                    // Skip the line break
+                    if (position < limit) {
+                        position++;
+                    }
+                    break;
+                }
+                if (!blank) {
+                    return fields;
+                }
+            }
+            return null;
+        }
+
+        // Reads one field into the buffer; stops at the comma or line break after it
+        private boolean readField() {
+            fieldLength = 0;
+            while (position < limit && (bytes.get(position) == ' ' || bytes.get(position) == '\t')) {
+                position++;
+            }
+            if (position < limit && bytes.get(position) == '"') {
+                position++;
+                while (position < limit) {
+                    byte b = bytes.get(position++);
+                    if (b == '"') {
+                        if (position < limit && bytes.get(position) == '"') {
+                            position++;
+                        } else {
+                            break;
+                        }
+                    }
+                    append(b);
+                }
+                // Anything between the closing quote and the delimiter is ignored
+                while (position < limit && bytes.get(position) != ',' && bytes.get(position) != '\n') {
+                    position++;
+                }
+                return true;
+            }
+            while (position < limit) {
+                byte b = bytes.get(position);
+                if (b == ',' || b == '\n') {
+                    break;
+                }
+                append(b);
+                position++;
+            }
+            // Trim trailing spaces and the \r of \r\n line breaks
+            while (fieldLength > 0 && (field[fieldLength - 1] & 0xFF) <= ' ') {
+                fieldLength--;
+            }
+            return false;
+        }
+
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = b;
+        }
+    }
+}
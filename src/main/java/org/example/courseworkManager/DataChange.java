@@ -0,0 +1,381 @@
+package org.example.courseworkManager;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A single recorded change to the rows of a ColumnarRowList.
+ * Changes are stored as compact deltas (the old and new value of a cell, the
+ * removed rows of a filter, the permutation of a sort) so that undo and redo
+ * do not need full copies of the dataset.
+ */
+public interface DataChange {
+    void undo(ColumnarRowList rows);
+
+    void redo(ColumnarRowList rows);
+
+    // Approximate heap memory retained by this change, in bytes
+    long memoryUsage();
+
+    // Writes the change so that read() can restore it, e.g. when history spills to disk
+    void write(DataOutput out) throws IOException;
+
+    /**
+     * Reads a change written by write().
+     *
+     * @param storage where restored tables keep their columns, or null for the heap
+     */
+    static DataChange read(DataInput in, MappedStorage storage) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case CellUpdate.KIND:
+                int row = in.readInt();
+                String column = ColumnTableCodec.readString(in);
+                Object oldValue = ColumnTableCodec.readValue(in);
+                Object newValue = ColumnTableCodec.readValue(in);
+                Class<?> widenedFrom = null;
+                if (in.readBoolean()) {
+                    try {
+                        widenedFrom = Class.forName(ColumnTableCodec.readString(in));
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException("Unknown column type", e);
+                    }
+                }
+                return new CellUpdate(row, column, oldValue, newValue, widenedFrom);
+            case RowsRemoved.KIND:
+                return new RowsRemoved(ColumnTableCodec.readBitmap(in),
+                        ColumnTableCodec.readTable(in, storage), in.readInt());
+            case RowsPermuted.KIND:
+                return new RowsPermuted(ColumnTableCodec.readInts(in));
+            case RowsInserted.KIND:
+                int from = in.readInt();
+                Bitmap positions = in.readBoolean() ? ColumnTableCodec.readBitmap(in) : null;
+                ColumnTable insertedRows = ColumnTableCodec.readTable(in, storage);
+                return positions != null ? new RowsInserted(positions, insertedRows)
+                        : new RowsInserted(from, insertedRows);
+            case TableReplaced.KIND:
+                ColumnTable oldTable = ColumnTableCodec.readTable(in, storage);
+                boolean newData = in.readBoolean();
+                boolean settled = in.readBoolean();
+                return new TableReplaced(oldTable, settled ? ColumnTableCodec.readTable(in, storage) : null,
+                        newData, settled);
+            default:
+                throw new IOException("Unknown change kind: " + kind);
+        }
+    }
+
+    /**
+     * A single cell changed from one value to another. If the new value did not
+     * fit the column's type, the column was widened to objects; undo then turns
+     * it back into its old type so that one mistaken edit does not box every cell.
+     */
+    final class CellUpdate implements DataChange {
+        static final byte KIND = 1;
+        private final int row;
+        private final String column;
+        private final Object oldValue;
+        private final Object newValue;
+        // The type of the column before the edit widened it, or null
+        private final Class<?> widenedFrom;
+
+        public CellUpdate(int row, String column, Object oldValue, Object newValue) {
+            this(row, column, oldValue, newValue, null);
+        }
+
+        public CellUpdate(int row, String column, Object oldValue, Object newValue, Class<?> widenedFrom) {
+            this.row = row;
+            this.column = column;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.widenedFrom = widenedFrom;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        @Override
+        public void undo(ColumnarRowList rows) {
+            rows.setValue(row, column, oldValue);
+            if (widenedFrom != null) {
+                rows.narrowColumn(column, widenedFrom);
+            }
+        }
+
+        @Override
+        public void redo(ColumnarRowList rows) {
+            rows.setValue(row, column, newValue);
+        }
+
+        @Override
+        public long memoryUsage() {
+            // Object header and fields plus two boxed values
+            return 80L;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            out.writeInt(row);
+            ColumnTableCodec.writeString(out, column);
+            ColumnTableCodec.writeValue(out, oldValue);
+            ColumnTableCodec.writeValue(out, newValue);
+            out.writeBoolean(widenedFrom != null);
+            if (widenedFrom != null) {
+                ColumnTableCodec.writeString(out, widenedFrom.getName());
+            }
+        }
+    }
+
+    /**
+     * Rows were removed (e.g. by a filter). Keeps a bitmap of the removed
+     * positions and a small table holding only the removed rows.
+     */
+    final class RowsRemoved implements DataChange {
+        static final byte KIND = 2;
+        private final Bitmap removed;
+        private final ColumnTable removedRows;
+        private final int originalSize;
+
+        public RowsRemoved(Bitmap removed, ColumnTable removedRows, int originalSize) {
+            this.removed = removed;
+            this.removedRows = removedRows;
+            this.originalSize = originalSize;
+        }
+
+        public Bitmap getRemoved() {
+            return removed;
+        }
+
+        public int getOriginalSize() {
+            return originalSize;
+        }
+
+        @Override
+        public void undo(ColumnarRowList rows) {
+            rows.insertRows(removed, removedRows);
+        }
+
+        @Override
+        public void redo(ColumnarRowList rows) {
+            int[] keep = new int[originalSize - removedRows.rowCount()];
+            int kept = 0;
+            for (int i = 0; i < originalSize; i++) {
+                if (!removed.get(i)) {
+                    keep[kept++] = i;
+                }
+            }
+            rows.select(keep);
+        }
+
+        @Override
+        public long memoryUsage() {
+            return removed.memoryUsage() + removedRows.memoryUsage();
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            ColumnTableCodec.writeBitmap(out, removed);
+            ColumnTableCodec.writeTable(out, removedRows);
+            out.writeInt(originalSize);
+        }
+    }
+
+    /**
+     * Rows were reordered; new row i is old row order[i].
+     */
+    final class RowsPermuted implements DataChange {
+        static final byte KIND = 3;
+        private final int[] order;
+
+        public RowsPermuted(int[] order) {
+            this.order = order;
+        }
+
+        public int[] getOrder() {
+            return order;
+        }
+
+        @Override
+        public void undo(ColumnarRowList rows) {
+            int[] inverse = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                inverse[order[i]] = i;
+            }
+            rows.select(inverse);
+        }
+
+        @Override
+        public void redo(ColumnarRowList rows) {
+            rows.select(order);
+        }
+
+        @Override
+        public long memoryUsage() {
+            return 16L + 4L * order.length;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            ColumnTableCodec.writeInts(out, order);
+        }
+    }
+
+    /**
+     * Rows were appended at the end, or put in at the marked positions (e.g. when
+     * a filter is undone); keeps a copy of just those rows for redo.
+     */
+    final class RowsInserted implements DataChange {
+        static final byte KIND = 4;
+        private final int from;
+        // Positions of the rows after the insertion, or null when they were appended
+        private final Bitmap positions;
+        private final ColumnTable insertedRows;
+
+        public RowsInserted(int from, ColumnTable insertedRows) {
+            this.from = from;
+            this.positions = null;
+            this.insertedRows = insertedRows;
+        }
+
+        public RowsInserted(Bitmap positions, ColumnTable insertedRows) {
+            this.from = Math.max(positions.nextSetBit(0), 0);
+            this.positions = positions;
+            this.insertedRows = insertedRows;
+        }
+
+        // The first inserted position
+        public int getFrom() {
+            return from;
+        }
+
+        public int getCount() {
+            return insertedRows.rowCount();
+        }
+
+        // The inserted positions, or null if the rows were appended from getFrom() on
+        public Bitmap getPositions() {
+            return positions;
+        }
+
+        @Override
+        public void undo(ColumnarRowList rows) {
+            int[] keep = new int[rows.size() - insertedRows.rowCount()];
+            int kept = 0;
+            for (int i = 0; kept < keep.length; i++) {
+                if (positions != null ? !positions.get(i) : i < from) {
+                    keep[kept++] = i;
+                }
+            }
+            rows.select(keep);
+        }
+
+        @Override
+        public void redo(ColumnarRowList rows) {
+            if (positions != null) {
+                rows.insertRows(positions, insertedRows);
+            } else {
+                rows.appendTable(insertedRows);
+            }
+        }
+
+        @Override
+        public long memoryUsage() {
+            return insertedRows.memoryUsage() + (positions != null ? positions.memoryUsage() : 0);
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            out.writeInt(from);
+            out.writeBoolean(positions != null);
+            if (positions != null) {
+                ColumnTableCodec.writeBitmap(out, positions);
+            }
+            ColumnTableCodec.writeTable(out, insertedRows);
+        }
+    }
+
+    /**
+     * The whole table was replaced, either by other data (new data, aggregation,
+     * clear) or by the same rows rebuilt (e.g. the first rows of a sort).
+     * The old table is no longer live, so it is kept as is without copying.
+     * The new one is live and may be edited in place by later changes, so its
+     * contents are only settled once this change is undone: everything after it
+     * has then been undone too, and the live table is again what it replaced with.
+     * Undo therefore takes the table that redo restores from the live one, and
+     * until then the new table is not written out when the change is spilled.
+     */
+    final class TableReplaced implements DataChange {
+        static final byte KIND = 5;
+        private final ColumnTable oldTable;
+        private ColumnTable newTable;
+        // Whether the new table holds other data rather than the old rows rebuilt
+        private final boolean newData;
+        // Whether newTable holds the settled contents, i.e. the change is undone
+        private boolean settled;
+
+        public TableReplaced(ColumnTable oldTable, ColumnTable newTable) {
+            this(oldTable, newTable, true);
+        }
+
+        public TableReplaced(ColumnTable oldTable, ColumnTable newTable, boolean newData) {
+            this(oldTable, newTable, newData, false);
+        }
+
+        TableReplaced(ColumnTable oldTable, ColumnTable newTable, boolean newData, boolean settled) {
+            this.oldTable = oldTable;
+            this.newTable = newTable;
+            this.newData = newData;
+            this.settled = settled;
+        }
+
+        /**
+         * Whether the table was replaced by other data (new data, aggregation,
+         * clear) rather than by its own rows rebuilt.
+         */
+        public boolean isNewData() {
+            return newData;
+        }
+
+        @Override
+        public void undo(ColumnarRowList rows) {
+            newTable = rows.getTable();
+            settled = true;
+            rows.setTable(oldTable, newData);
+        }
+
+        @Override
+        public void redo(ColumnarRowList rows) {
+            settled = false;
+            rows.setTable(newTable, newData);
+        }
+
+        /**
+         * Counts only the old table: the new one is either live or is the old
+         * table of a later change, where it is counted.
+         */
+        @Override
+        public long memoryUsage() {
+            return oldTable.memoryUsage();
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            ColumnTableCodec.writeTable(out, oldTable);
+            out.writeBoolean(newData);
+            out.writeBoolean(settled);
+            if (settled) {
+                ColumnTableCodec.writeTable(out, newTable);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+
+/**
+ * Describes what changed in a DataModel so that listeners can patch their
+ * views instead of rebuilding everything. Built from the DataChange deltas
+ * recorded while the change was made.
+ */
+public class DataChangeEvent {
+
+    public enum Type {
+        // Rows from..to (exclusive) were appended or inserted; if getRows() is set,
+        // only the rows it marks (positions after the insertion) are new
+        ROWS_INSERTED,
+        // The rows marked in getRows() (positions before the removal) were removed
+        ROWS_REMOVED,
+        // Cells in the rows marked in getRows() and the columns in getColumns() changed
+        CELLS_UPDATED,
+        // Rows were reordered; new row i is old row getPermutation()[i]
+        ROWS_PERMUTED,
+        // The columns or the whole table changed; views should rebuild
+        SCHEMA_CHANGED
+    }
+
+    private final Type type;
+    private final int from;
+    private final int to;
+    private final Bitmap rows;
+    private final int[] permutation;
+    private final Set<String> columns;
+
+    private DataChangeEvent(Type type, int from, int to, Bitmap rows, int[] permutation, Set<String> columns) {
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.rows = rows;
+        this.permutation = permutation;
+        this.columns = columns;
+    }
+
+    public static DataChangeEvent rowsInserted(int from, int to) {
+        return new DataChangeEvent(Type.ROWS_INSERTED, from, to, null, null, Set.of());
+    }
+
+    public static DataChangeEvent rowsInserted(Bitmap inserted) {
+        int from = Math.max(inserted.nextSetBit(0), 0);
+        int to = from;
+        for (int row = from; row >= 0; row = inserted.nextSetBit(row + 1)) {
+            to = row + 1;
+        }
+        return new DataChangeEvent(Type.ROWS_INSERTED, from, to, inserted, null, Set.of());
+    }
+
+    public static DataChangeEvent rowsRemoved(Bitmap removed, int oldSize) {
+        return new DataChangeEvent(Type.ROWS_REMOVED, 0, oldSize, removed, null, Set.of());
+    }
+
+    public static DataChangeEvent cellsUpdated(Bitmap rows, Set<String> columns) {
+        return new DataChangeEvent(Type.CELLS_UPDATED, 0, 0, rows, null, Collections.unmodifiableSet(columns));
+    }
+
+    public static DataChangeEvent rowsPermuted(int[] permutation) {
+        return new DataChangeEvent(Type.ROWS_PERMUTED, 0, permutation.length, null, permutation, Set.of());
+    }
+
+    public static DataChangeEvent schemaChanged() {
+        return new DataChangeEvent(Type.SCHEMA_CHANGED, 0, 0, null, null, Set.of());
+    }
+
+    /**
+     * Summarises the changes of one action as a single event. Actions that mix
+     * different kinds of change are reported as SCHEMA_CHANGED.
+     */
+    public static DataChangeEvent of(List<DataChange> changes) {
+        if (changes.isEmpty()) {
+            // Nothing changed, e.g. a filter that kept every row
+            return cellsUpdated(new Bitmap(0), Set.of());
+        }
+        DataChange first = changes.get(0);
+        if (changes.size() == 1 && first instanceof DataChange.RowsRemoved) {
+            DataChange.RowsRemoved removed = (DataChange.RowsRemoved) first;
+            return rowsRemoved(removed.getRemoved(), removed.getOriginalSize());
+        }
+        if (changes.size() == 1 && first instanceof DataChange.RowsInserted
+                && ((DataChange.RowsInserted) first).getPositions() != null) {
+            return rowsInserted(((DataChange.RowsInserted) first).getPositions());
+        }
+        if (changes.size() == 1 && first instanceof DataChange.RowsPermuted) {
+            return rowsPermuted(((DataChange.RowsPermuted) first).getOrder());
+        }
+        if (first instanceof DataChange.RowsInserted && ((DataChange.RowsInserted) first).getPositions() == null) {
+            int from = ((DataChange.RowsInserted) first).getFrom();
+            int to = from;
+            for (DataChange change : changes) {
+                if (!(change instanceof DataChange.RowsInserted)
+                        || ((DataChange.RowsInserted) change).getPositions() != null
+                        || ((DataChange.RowsInserted) change).getFrom() != to) {
+                    return schemaChanged();
+                }
+                to += ((DataChange.RowsInserted) change).getCount();
+            }
+            return rowsInserted(from, to);
+        }
+        if (first instanceof DataChange.CellUpdate) {
+            Bitmap rows = new Bitmap(0);
+            Set<String> columns = new LinkedHashSet<>();
+            for (DataChange change : changes) {
+                if (!(change instanceof DataChange.CellUpdate)) {
+                    return schemaChanged();
+                }
+                rows.set(((DataChange.CellUpdate) change).getRow());
+                columns.add(((DataChange.CellUpdate) change).getColumn());
+            }
+            return cellsUpdated(rows, columns);
+        }
+        return schemaChanged();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    // Removed, updated or scattered inserted row positions, or null otherwise
+    public Bitmap getRows() {
+        return rows;
+    }
+
+    public int[] getPermutation() {
+        return permutation;
+    }
+
+    public Set<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Whether values of the given column may be different after this change.
+     * A permutation only moves rows, so it affects no column's set of values.
+     */
+    public boolean affectsColumn(String column) {
+        switch (type) {
+            case CELLS_UPDATED:
+                return columns.contains(column);
+            case ROWS_PERMUTED:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
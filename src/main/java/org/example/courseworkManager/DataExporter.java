@@ -3,19 +3,15 @@ package org.example.courseworkManager;
 
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Exports the current dataset from DataModel into either
- * CSV or JSON format using a file chooser. Headers preserved.
+ * CSV, JSON, newline-delimited JSON, an Arrow IPC stream or the native .dsm format using a file chooser. Headers preserved.
+ * CSV and JSON are compressed with gzip or deflate when the name ends in .gz or .deflate.
+ * A snapshot of the data is written on a background thread, with a progress dialog.
  */
 
 public class DataExporter {
@@ -33,7 +29,12 @@ public class DataExporter {
         // Set file extensions
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
-                new FileChooser.ExtensionFilter("JSON Files", "*.json")
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                new FileChooser.ExtensionFilter("Newline-Delimited JSON Files", "*.ndjson", "*.jsonl"),
+                new FileChooser.ExtensionFilter("Saved Datasets", "*.dsm"),
+                new FileChooser.ExtensionFilter("Arrow IPC Streams", "*.arrows"),
+                new FileChooser.ExtensionFilter("Compressed CSV Files", "*.csv.gz", "*.csv.deflate"),
+                new FileChooser.ExtensionFilter("Compressed JSON Files", "*.json.gz", "*.ndjson.gz", "*.json.deflate")
         );
 
         // Show file chooser dialog
@@ -48,34 +49,60 @@ public class DataExporter {
             // Save the directory
             AppConfig.getInstance().setLastDirectory(file.getParent());
 
-            try {
-                List<String> headers = dataModel.getColumnNames();
-                List<Map<String, Object>> data = dataModel.getData();
-
-                if (file.getName().toLowerCase().endsWith(".csv")) {
-                    // Export CSV
-                    try (CSVPrinter printer = new CSVPrinter(
-                            new FileWriter(file),
-                            CSVFormat.DEFAULT.withHeader(headers.toArray(new String[0])))) {
-
-                        for (Map<String, Object> row : data) {
-                            Object[] values = headers.stream()
-                                    .map(row::get)
-                                    .toArray();
-                            printer.printRecord(values);
-                        }
+            exportInBackground(dataModel.snapshot(), file, window);
+        }
+    }
+
+    // The snapshot keeps the written data consistent even if it is edited meanwhile
+    private static void exportInBackground(DataSnapshot snapshot, File file, Window window) {
+        // The format is that of the name without .gz or .deflate, which only selects the compression
+        String name = Compression.stripSuffix(file.getName().toLowerCase());
+        boolean compressed = !name.equals(file.getName().toLowerCase());
+        MonitoredTask<Void> task = new MonitoredTask<>() {
+            @Override
+            protected Void call() throws IOException {
+                try {
+                    if (name.endsWith(".dsm") && compressed) {
+                        throw new IOException("Saved datasets are mapped from disk and cannot be compressed");
+                    } else if (name.endsWith(".arrows") && compressed) {
+                        throw new IOException("Arrow streams are mapped from disk and cannot be compressed");
+                    } else if (name.endsWith(".arrows")) {
+                        ArrowStream.write(snapshot.getTable(), snapshot.getColumnNames(), file, monitor);
+                    } else if (name.endsWith(".csv")) {
+                        CsvExporter.exportCsv(snapshot.getTable(), snapshot.getColumnNames(), file, monitor);
+                    } else if (name.endsWith(".dsm")) {
+                        DsmFile.write(snapshot.getTable(), snapshot.getColumnNames(), file, monitor);
+                    } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                        JsonExporter.exportNdjson(snapshot.getTable(), snapshot.getColumnNames(), file, monitor);
+                    } else {
+                        JsonExporter.exportJson(snapshot.getTable(), snapshot.getColumnNames(), file, monitor);
                     }
-                } else {
-                    // Export JSON
-                    ObjectMapper mapper = new ObjectMapper();
-                    mapper.writerWithDefaultPrettyPrinter()
-                            .writeValue(file, data);
+                } finally {
+                    snapshot.release();
                 }
-
-            } catch (IOException e) {
-                showError("Error exporting file", e.getMessage());
+                return null;
             }
-        }
+        };
+
+        ProgressDialog progressDialog = new ProgressDialog("Exporting", "Exporting " + file.getName(), task, window);
+        task.setOnSucceeded(e -> progressDialog.close());
+        // A cancelled export leaves a partial file behind, which is removed;
+        // .dsm files are written aside and only moved into place when complete
+        task.setOnCancelled(e -> {
+            progressDialog.close();
+            if (!name.endsWith(".dsm") || compressed) {
+                file.delete();
+            }
+        });
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            showError("Error exporting file", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "export");
+        thread.setDaemon(true);
+        thread.start();
+        progressDialog.show();
     }
 
     private static void showError(String title, String message) {
@@ -1,22 +1,32 @@
 package org.example.courseworkManager;
 
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.TextInputDialog;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 
 /**
- * Provides a UI file chooser to import data from CSV or JSON files
- * and load it into the DataModel. Infers headers and numeric values.
+ * Provides a UI file chooser to import data from CSV or JSON files, plain or gzip/deflate compressed,
+ * or from Arrow IPC streams and files, and load it into the DataModel. Infers headers and column types.
+ * The file is read on a background thread; its first rows are shown straight
+ * away while a progress dialog reports the speed and allows cancelling.
+ * A plain CSV file can also be browsed: it is indexed in one pass and its rows
+ * are read as they are scrolled to (see PagedCsv), until it is loaded in full.
+ * A CSV file that keeps growing can be followed: after the first import, the
+ * records appended to it are added as new rows (see CsvFollower).
+ * Several files, picked together or matched by a glob pattern, are read in
+ * parallel and joined into one table by column name (see MultiFileImporter).
  */
 
 public class DataImporter {
+    // Rows shown while the rest of the file is read
+    private static final int PREVIEW_ROWS = 5000;
 
     public static void importData(DataModel dataModel) {
         FileChooser fileChooser = new FileChooser();
@@ -30,66 +40,304 @@ public class DataImporter {
 
         // Set file extensions
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("All Data Files", "*.csv", "*.json"),
-                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
-                new FileChooser.ExtensionFilter("JSON Files", "*.json")
+                new FileChooser.ExtensionFilter("All Data Files", "*.csv", "*.json", "*.ndjson", "*.jsonl", "*.dsm",
+                        "*.arrows", "*.arrow", "*.feather", "*.gz", "*.deflate"),
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv", "*.csv.gz", "*.csv.deflate"),
+                new FileChooser.ExtensionFilter("JSON Files", "*.json", "*.ndjson", "*.jsonl",
+                        "*.json.gz", "*.ndjson.gz", "*.jsonl.gz", "*.json.deflate"),
+                new FileChooser.ExtensionFilter("Saved Datasets", "*.dsm"),
+                new FileChooser.ExtensionFilter("Arrow Files", "*.arrows", "*.arrow", "*.feather"),
+                new FileChooser.ExtensionFilter("Compressed Files", "*.gz", "*.deflate")
         );
 
         // Show file chooser dialog
-        Window window = javafx.stage.Window.getWindows().stream()
+        Window window = activeWindow();
+
+        List<File> files = fileChooser.showOpenMultipleDialog(window);
+
+        if (files != null && files.size() > 1) {
+            AppConfig.getInstance().setLastDirectory(files.get(0).getParent());
+            importFiles(dataModel, files, window);
+        } else if (files != null) {
+            File file = files.get(0);
+            // Save the directory
+            AppConfig.getInstance().setLastDirectory(file.getParent());
+            // The format is that of the name without .gz or .deflate
+            String name = Compression.stripSuffix(file.getName().toLowerCase());
+            boolean compressed = !name.equals(file.getName().toLowerCase());
+            if (name.endsWith(".dsm") && compressed) {
+                showError("Error importing file", "Saved datasets are mapped from disk and cannot be compressed");
+            } else if (isArrow(name) && compressed) {
+                showError("Error importing file", "Arrow files are mapped from disk and cannot be compressed");
+            } else if (name.endsWith(".dsm")) {
+                // Saved datasets are mapped rather than parsed, so they open straight away
+                try {
+                    ColumnTable table = DsmFile.read(file, dataModel.getStorage());
+                    dataModel.setData(table, new ArrayList<>(table.getColumnNames()));
+                } catch (IOException e) {
+                    showError("Error importing file", e.getMessage());
+                }
+            } else {
+                importInBackground(dataModel, file, name, null, window);
+            }
+        }
+    }
+
+    /**
+     * Asks for a glob pattern, such as /data/2024-*&#47;part-*.csv, and imports every file it matches.
+     */
+    public static void importMatching(DataModel dataModel) {
+        String lastDir = AppConfig.getInstance().getLastDirectory();
+        TextInputDialog dialog = new TextInputDialog(
+                new File(lastDir != null ? lastDir : System.getProperty("user.dir"), "*.csv").getPath());
+        dialog.setTitle("Import Files Matching");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Files matching:");
+        Optional<String> pattern = dialog.showAndWait();
+        if (pattern.isEmpty() || pattern.get().isBlank()) {
+            return;
+        }
+
+        List<File> files;
+        try {
+            files = MultiFileImporter.expandGlob(pattern.get().trim());
+        } catch (IOException | RuntimeException e) {
+            showError("Error importing files", e.getMessage());
+            return;
+        }
+        if (files.isEmpty()) {
+            showError("Error importing files", "No files match " + pattern.get().trim());
+        } else {
+            importFiles(dataModel, files, activeWindow());
+        }
+    }
+
+    // Imports the files into one table, optionally with a column naming each row's file
+    private static void importFiles(DataModel dataModel, List<File> files, Window window) {
+        Alert question = new Alert(Alert.AlertType.CONFIRMATION,
+                "Add a \"" + MultiFileImporter.SOURCE_COLUMN + "\" column with the file each row came from?",
+                ButtonType.YES, ButtonType.NO, ButtonType.CANCEL);
+        question.setTitle("Import " + files.size() + " Files");
+        question.setHeaderText(null);
+        Optional<ButtonType> answer = question.showAndWait();
+        if (answer.isEmpty() || answer.get() == ButtonType.CANCEL) {
+            return;
+        }
+        boolean sourceColumn = answer.get() == ButtonType.YES;
+        MappedStorage storage = dataModel.getStorage();
+
+        MonitoredTask<ColumnTable> task = new MonitoredTask<>() {
+            @Override
+            protected ColumnTable call() throws IOException {
+                return MultiFileImporter.importFiles(files, sourceColumn, storage, monitor);
+            }
+        };
+        ProgressDialog progressDialog = new ProgressDialog("Importing",
+                "Importing " + files.size() + " files", task, window);
+        task.setOnSucceeded(e -> {
+            progressDialog.close();
+            ColumnTable table = task.getValue();
+            dataModel.setData(table, new ArrayList<>(table.getColumnNames()));
+        });
+        task.setOnCancelled(e -> progressDialog.close());
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            showError("Error importing files", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "import");
+        thread.setDaemon(true);
+        thread.start();
+        progressDialog.show();
+    }
+
+    /**
+     * Lets the user pick a CSV file to browse, and indexes it on a background thread.
+     */
+    public static void browseData(DataModel dataModel) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Browse CSV File");
+        String lastDir = AppConfig.getInstance().getLastDirectory();
+        if (lastDir != null) {
+            fileChooser.setInitialDirectory(new File(lastDir));
+        }
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+
+        Window window = activeWindow();
+        File file = fileChooser.showOpenDialog(window);
+        if (file == null) {
+            return;
+        }
+        AppConfig.getInstance().setLastDirectory(file.getParent());
+
+        MonitoredTask<PagedCsv> task = new MonitoredTask<>() {
+            @Override
+            protected PagedCsv call() throws IOException {
+                return PagedCsv.open(file, monitor);
+            }
+        };
+        ProgressDialog progressDialog = new ProgressDialog("Indexing", "Indexing " + file.getName(), task, window);
+        task.setOnSucceeded(e -> {
+            progressDialog.close();
+            dataModel.browse(task.getValue());
+        });
+        task.setOnCancelled(e -> progressDialog.close());
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            showError("Error browsing file", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "index");
+        thread.setDaemon(true);
+        thread.start();
+        progressDialog.show();
+    }
+
+    /**
+     * Lets the user pick a CSV file to follow. Its records are imported on a
+     * background thread, and the records appended to it afterwards are added as rows.
+     */
+    public static void followData(DataModel dataModel) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Follow CSV File");
+        String lastDir = AppConfig.getInstance().getLastDirectory();
+        if (lastDir != null) {
+            fileChooser.setInitialDirectory(new File(lastDir));
+        }
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+
+        Window window = activeWindow();
+        File file = fileChooser.showOpenDialog(window);
+        if (file == null) {
+            return;
+        }
+        AppConfig.getInstance().setLastDirectory(file.getParent());
+
+        CsvFollower follower;
+        try {
+            follower = new CsvFollower(file);
+        } catch (IOException e) {
+            showError("Error following file", e.getMessage());
+            return;
+        }
+        MappedStorage storage = dataModel.getStorage();
+        MonitoredTask<ColumnTable> task = new MonitoredTask<>() {
+            @Override
+            protected ColumnTable call() throws IOException {
+                return follower.importExisting(storage, monitor);
+            }
+        };
+        ProgressDialog progressDialog = new ProgressDialog("Importing", "Importing " + file.getName(), task, window);
+        task.setOnSucceeded(e -> {
+            progressDialog.close();
+            ColumnTable table = task.getValue();
+            dataModel.setData(table, new ArrayList<>(table.getColumnNames()));
+            // Rows are added on the FX thread; none arrive once the follower is closed
+            follower.start(rows -> Platform.runLater(() -> {
+                if (!follower.isClosed()) {
+                    dataModel.appendRows(rows);
+                }
+            }), error -> Platform.runLater(() -> {
+                if (!follower.isClosed()) {
+                    dataModel.stopFollowing();
+                    showError("Error following file", error.getMessage());
+                }
+            }));
+            dataModel.follow(follower);
+        });
+        task.setOnCancelled(e -> {
+            progressDialog.close();
+            follower.close();
+        });
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            follower.close();
+            showError("Error importing file", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "import");
+        thread.setDaemon(true);
+        thread.start();
+        progressDialog.show();
+    }
+
+    /**
+     * Imports the whole of the file being browsed, which stays on show until the
+     * import replaces it. Cancelling or failing leaves the file browsed.
+     */
+    public static MonitoredTask<ColumnTable> loadAll(DataModel dataModel) {
+        PagedCsv browsed = dataModel.getBrowsed();
+        return importInBackground(dataModel, browsed.getFile(), ".csv", browsed, activeWindow());
+    }
+
+    private static Window activeWindow() {
+        return javafx.stage.Window.getWindows().stream()
                 .filter(Window::isShowing)
                 .findFirst()
                 .orElse(null);
+    }
 
-        File file = fileChooser.showOpenDialog(window);
+    private static boolean isArrow(String name) {
+        return name.endsWith(".arrows") || name.endsWith(".arrow") || name.endsWith(".feather");
+    }
 
-        if (file != null) {
-            // Save the directory
-            AppConfig.getInstance().setLastDirectory(file.getParent());
+    // The name, without any compression suffix, selects the format. A browsed file is
+    // already on show, so it has no preview and is only replaced if it is still browsed.
+    private static MonitoredTask<ColumnTable> importInBackground(DataModel dataModel, File file, String name,
+                                                                 PagedCsv browsed, Window window) {
+        // Looked up on the FX thread, as it reads the app config
+        MappedStorage storage = dataModel.getStorage();
 
-            try {
-                List<Map<String, Object>> data;
-                List<String> headers;
-
-                if (file.getName().toLowerCase().endsWith(".csv")) {
-                    // Import CSV
-                    try (CSVParser parser = CSVParser.parse(file,
-                            java.nio.charset.StandardCharsets.UTF_8,
-                            CSVFormat.DEFAULT.withHeader().withTrim())) {
-
-                        headers = new ArrayList<>(parser.getHeaderMap().keySet());
-                        data = new ArrayList<>();
-
-                        for (CSVRecord record : parser) {
-                            Map<String, Object> row = new HashMap<>();
-                            for (String header : headers) {
-                                String value = record.get(header);
-                                // Try to parse as number if possible
-                                try {
-                                    row.put(header, Double.parseDouble(value));
-                                } catch (NumberFormatException e) {
-                                    row.put(header, value);
-                                }
-                            }
-                            data.add(row);
-                        }
-                    }
-                } else {
-                    // Import JSON
-                    data = JsonImporter.importJson(file);
-                    if (!data.isEmpty()) {
-                        headers = new ArrayList<>(data.get(0).keySet());
-                    } else {
-                        headers = new ArrayList<>();
+        MonitoredTask<ColumnTable> task = new MonitoredTask<>() {
+            @Override
+            protected ColumnTable call() throws IOException {
+                if (browsed != null) {
+                    return CsvImporter.importCsv(file, storage, monitor);
+                }
+                ColumnTable preview = isArrow(name) ? ArrowStream.readPreview(file, PREVIEW_ROWS)
+                        : name.endsWith(".csv") ? CsvImporter.importPreview(file, PREVIEW_ROWS)
+                        : JsonImporter.importPreview(file, PREVIEW_ROWS);
+                Platform.runLater(() -> {
+                    if (!isCancelled()) {
+                        dataModel.beginLoad(preview);
                     }
+                });
+                // Import straight into typed columns (disk-backed when enabled in AppConfig)
+                if (isArrow(name)) {
+                    return ArrowStream.read(file, storage, monitor);
                 }
+                return name.endsWith(".csv") ? CsvImporter.importCsv(file, storage, monitor)
+                        : JsonImporter.importTable(file, storage, monitor);
+            }
+        };
 
-                dataModel.setData(data, headers);
-
-            } catch (IOException e) {
-                showError("Error importing file", e.getMessage());
+        ProgressDialog progressDialog = new ProgressDialog("Importing", "Importing " + file.getName(), task, window);
+        // Handlers run on the FX thread after the preview, which was queued first
+        task.setOnSucceeded(e -> {
+            progressDialog.close();
+            if (browsed == null || dataModel.getBrowsed() == browsed) {
+                dataModel.finishLoad(task.getValue());
             }
-        }
+        });
+        task.setOnCancelled(e -> {
+            progressDialog.close();
+            if (browsed == null) {
+                dataModel.cancelLoad();
+            }
+        });
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            if (browsed == null) {
+                dataModel.cancelLoad();
+            }
+            showError("Error importing file", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "import");
+        thread.setDaemon(true);
+        thread.start();
+        progressDialog.show();
+        return task;
     }
 
     private static void showError(String title, String message) {
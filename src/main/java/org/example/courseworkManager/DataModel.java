@@ -1,40 +1,66 @@
 package org.example.courseworkManager;
 
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * DataModel manages the core dataset, column info, and supports transformations,
  * undo/redo operations, and listener notifications.
  * This is part of the Observer pattern implementation.
+ * Values are held in a columnar store (ColumnTable) and exposed to the UI as row views.
  */
 
 public class DataModel {
-    private ObservableList<Map<String, Object>> data;
+    private final ColumnarRowList data;
     private List<String> columnNames;
     private SimpleObjectProperty<Map<String, Class<?>>> columnTypes;
     // A list of listeners (observers) interested in changes to the data
     private final List<DataModelListener> listeners;
-    private Stack<List<Map<String, Object>>> undoStack;
-    private Stack<List<Map<String, Object>>> redoStack;
-
+    // Undo/redo history of recorded deltas
+    private final ChangeHistory history;
+    // Scratch storage for disk-backed mode, created on first use
+    private MappedStorage storage;
+    // Nesting depth of beginBatch() calls; changes inside a batch are committed together
+    private int batchDepth;
+    private boolean batchSchemaChanged;
+    private List<String> batchColumnNames;
+    private Map<String, Class<?>> batchColumnTypes;
+    // Last snapshot handed out, reused until the data changes
+    private DataSnapshot snapshot;
+    // True while an import shows its first rows and the rest is still being read, or a file is browsed
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+    // What was shown before the import started, restored if it is cancelled
+    private ColumnTable tableBeforeLoad;
+    private List<String> columnNamesBeforeLoad;
+    private Map<String, Class<?>> columnTypesBeforeLoad;
+    // The CSV file shown page by page, while it is browsed rather than loaded
+    private final ReadOnlyBooleanWrapper browsing = new ReadOnlyBooleanWrapper(false);
+    private PagedCsv browsed;
+    // The CSV file whose appended records are added as rows, while it is followed
+    private final ReadOnlyBooleanWrapper following = new ReadOnlyBooleanWrapper(false);
+    private CsvFollower follower;
 
     // Functional interface for notifying UI components of data changes.
+    // The event says what changed so that views can patch themselves.
     public interface DataModelListener {
-        void onDataChanged();
+        void onDataChanged(DataChangeEvent event);
     }
 
     //Constructor initializes collections and state.
     public DataModel() {
-        data = FXCollections.observableArrayList();
+        data = new ColumnarRowList();
         columnNames = new ArrayList<>();
         columnTypes = new SimpleObjectProperty<>(new HashMap<>());
         listeners = new ArrayList<>();
-        undoStack = new Stack<>();
-        redoStack = new Stack<>();
+        AppConfig config = AppConfig.getInstance();
+        history = new ChangeHistory(config.getHistoryBudgetMegabytes() * 1024L * 1024L,
+                Paths.get(config.getScratchDirectory(), "history"));
     }
 
     /**
@@ -52,28 +78,136 @@ public class DataModel {
      * Notifies all registered listeners that data has changed.
      * This method is called after any update to the dataset.
      */
-    private void notifyListeners() {
+    private void notifyListeners(DataChangeEvent event) {
+        if (batchDepth > 0) {
+            // Coalesced into one event when the batch commits
+            if (event != null && event.getType() == DataChangeEvent.Type.SCHEMA_CHANGED) {
+                batchSchemaChanged = true;
+            }
+            return;
+        }
         for (DataModelListener listener : listeners) {
-            listener.onDataChanged();
+            listener.onDataChanged(event);
         }
     }
 
     /**
-     * Saves current data state for undo.
+     * Starts recording the changes of one action for undo.
      */
     private void saveState() {
-        undoStack.push(new ArrayList<>(data));
-        redoStack.clear();
+        if (batchDepth == 0) {
+            data.startRecording();
+        }
+    }
+
+    /**
+     * Stores the changes recorded since saveState() as one history entry
+     * and returns the event describing them.
+     */
+    private DataChangeEvent commitState() {
+        if (batchDepth > 0) {
+            // Part of a batch, stored with it by commitBatch()
+            return null;
+        }
+        List<DataChange> changes = data.stopRecording();
+        history.push(changes);
+        return DataChangeEvent.of(changes);
+    }
+
+    /**
+     * Starts a batch. Until the matching commitBatch(), all changes are recorded as
+     * one history entry and listeners are not notified. Batches may be nested; only
+     * the outermost commit takes effect.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            data.startRecording();
+            batchSchemaChanged = false;
+            batchColumnNames = new ArrayList<>(columnNames);
+            batchColumnTypes = new HashMap<>(columnTypes.get());
+        }
+    }
+
+    /**
+     * Ends a batch. The outermost commit stores one history entry and sends
+     * listeners one event covering all changes made in the batch.
+     */
+    public void commitBatch() {
+        requireBatch();
+        if (--batchDepth == 0) {
+            List<DataChange> changes = data.stopRecording();
+            history.push(changes);
+            notifyListeners(batchSchemaChanged ? DataChangeEvent.schemaChanged() : DataChangeEvent.of(changes));
+        }
+    }
+
+    /**
+     * Abandons the whole batch, including any enclosing batches, and reverts every
+     * change made in it. Listeners are not notified since the data ends up unchanged.
+     */
+    public void rollbackBatch() {
+        requireBatch();
+        batchDepth = 0;
+        List<DataChange> changes = data.stopRecording();
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            changes.get(i).undo(data);
+        }
+        columnNames.clear();
+        columnNames.addAll(batchColumnNames);
+        columnTypes.set(batchColumnTypes);
+        snapshot = null;
+    }
+
+    /**
+     * Runs the given changes as one batch, rolling all of them back if any fails.
+     */
+    public void batch(Consumer<DataModel> changes) {
+        beginBatch();
+        try {
+            changes.accept(this);
+        } catch (RuntimeException | Error e) {
+            if (batchDepth > 0) {
+                rollbackBatch();
+            }
+            throw e;
+        }
+        commitBatch();
+    }
+
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    private void requireBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+    }
+
+    /**
+     * Returns the undo/redo history, e.g. to report its footprint or change its budget.
+     */
+    public ChangeHistory getHistory() {
+        return history;
     }
 
     /**
      * Reverts to the previous data state.
      */
     public void undo() {
-        if (!undoStack.isEmpty()) {
-            redoStack.push(new ArrayList<>(data));
-            data.setAll(undoStack.pop());
-            notifyListeners();
+        if (batchDepth > 0) {
+            throw new IllegalStateException("Cannot undo inside a batch");
+        }
+        if (loading.get()) {
+            return;
+        }
+        // Record what undoing does to the rows only to describe it to listeners
+        data.startRecording();
+        boolean undone = history.undo(data);
+        List<DataChange> changes = data.stopRecording();
+        tableReplaced(changes);
+        if (undone) {
+            notifyListeners(DataChangeEvent.of(changes));
         }
     }
 
@@ -81,41 +215,265 @@ public class DataModel {
      * Reapplies a previously undone action.
      */
     public void redo() {
-        if (!redoStack.isEmpty()) {
-            undoStack.push(new ArrayList<>(data));
-            data.setAll(redoStack.pop());
-            notifyListeners();
+        if (batchDepth > 0) {
+            throw new IllegalStateException("Cannot redo inside a batch");
+        }
+        if (loading.get()) {
+            return;
+        }
+        data.startRecording();
+        boolean redone = history.redo(data);
+        List<DataChange> changes = data.stopRecording();
+        tableReplaced(changes);
+        if (redone) {
+            notifyListeners(DataChangeEvent.of(changes));
         }
     }
 
+    // A table brought back by undo or redo brings its columns; if it holds other data
+    // (new data, an aggregation, clear), it is not the one a follower appends to
+    private void tableReplaced(List<DataChange> changes) {
+        boolean replaced = false;
+        for (DataChange change : changes) {
+            if (change instanceof DataChange.TableReplaced) {
+                replaced = true;
+                if (((DataChange.TableReplaced) change).isNewData()) {
+                    stopFollowing();
+                }
+            }
+        }
+        if (replaced) {
+            setColumns(data.getTable(), data.getTable().getColumnNames());
+        }
+    }
+
+    /**
+     * Creates an empty table for new data. In disk-backed mode (see AppConfig)
+     * its typed columns live in memory-mapped scratch files instead of the heap.
+     */
+    public ColumnTable newTable(List<String> headers) {
+        return new ColumnTable(headers, getStorage());
+    }
+
+    /**
+     * Returns the scratch storage for new tables, or null when not disk-backed.
+     */
+    public MappedStorage getStorage() {
+        if (!AppConfig.getInstance().isDiskBacked()) {
+            return null;
+        }
+        if (storage == null) {
+            storage = new MappedStorage(Paths.get(AppConfig.getInstance().getScratchDirectory()));
+        }
+        return storage;
+    }
+
     /**
      * Sets new data and headers, updates types, and notifies listeners.
      */
     public void setData(List<Map<String, Object>> newData, List<String> headers) {
+        setData(ColumnTable.fromRows(newData, headers, getStorage()), headers);
+    }
+
+    /**
+     * Sets an already built table as the new data, e.g. one filled row by row
+     * by an importer, so rows never need to exist as maps.
+     */
+    public void setData(ColumnTable table, List<String> headers) {
+        stopFollowing();
         saveState();
-        data.clear();
-        data.addAll(newData);
-        // data = FXCollections.observableArrayList(newData);
-        //  notifyListeners();
+        data.setTable(table);
+        commitState();
+        setColumns(table, headers);
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
+
+    private void setColumns(ColumnTable table, List<String> headers) {
+        // Column types come from the columns, which were typed from all of their values
+        Map<String, Class<?>> types = new HashMap<>();
+        if (table.rowCount() > 0) {
+            for (String column : headers) {
+                Column values = table.column(column);
+                types.put(column, values != null ? valueType(values) : Object.class);
+            }
+        }
+        setColumns(headers, types);
+    }
 
+    private void setColumns(List<String> headers, Map<String, Class<?>> types) {
         columnNames.clear();
         columnNames.addAll(headers);
+        snapshot = null;
+        columnTypes.set(types);
+    }
+
+    /**
+     * Shows the first rows of an import that is still running. The rows are not
+     * recorded for undo, and undo/redo do nothing until finishLoad() or cancelLoad().
+     */
+    public void beginLoad(ColumnTable preview) {
+        saveBeforeLoad();
+        data.setTable(preview);
+        setColumns(preview, preview.getColumnNames());
+        loading.set(true);
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
 
-        // Infer column types
+    /**
+     * Shows a CSV file that is read page by page as its rows are viewed. As with
+     * the first rows of an import, the rows cannot be changed and undo/redo do
+     * nothing until finishLoad() replaces them with the whole file, or cancelLoad()
+     * puts back the data from before.
+     */
+    public void browse(PagedCsv csv) {
+        saveBeforeLoad();
+        ColumnTable table = csv.getTable();
+        data.setTable(table);
+        // Typed from the first page, as checking every value would read the whole file
         Map<String, Class<?>> types = new HashMap<>();
-        if (!data.isEmpty()) {
-            Map<String, Object> firstRow = data.get(0);
-            for (String column : headers) {
-                Object value = firstRow.get(column);
-                if (value != null) {
-                    types.put(column, value.getClass());
-                } else {
-                    types.put(column, Object.class);
-                }
+        if (table.rowCount() > 0) {
+            for (String column : table.getColumnNames()) {
+                types.put(column, table.column(column).getType());
             }
         }
-        columnTypes.set(types);
-        notifyListeners();
+        setColumns(table.getColumnNames(), types);
+        loading.set(true);
+        browsed = csv;
+        browsing.set(true);
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
+
+    // Keeps what was shown before the first of a run of loads, and ends any browsing
+    private void saveBeforeLoad() {
+        stopFollowing();
+        if (!loading.get()) {
+            tableBeforeLoad = data.getTable();
+            columnNamesBeforeLoad = new ArrayList<>(columnNames);
+            columnTypesBeforeLoad = columnTypes.get();
+        }
+        browsed = null;
+        browsing.set(false);
+    }
+
+    /**
+     * Replaces the rows shown by beginLoad() with the whole imported table. Undo
+     * goes back to the data from before the import. Without a preview this is setData().
+     */
+    public void finishLoad(ColumnTable table) {
+        if (!loading.get()) {
+            setData(table, new ArrayList<>(table.getColumnNames()));
+            return;
+        }
+        data.setTable(table);
+        history.push(List.of(new DataChange.TableReplaced(tableBeforeLoad, table)));
+        endLoad();
+        setColumns(table, table.getColumnNames());
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
+
+    /**
+     * Puts back the data from before beginLoad(), e.g. when the import was
+     * cancelled or failed. Does nothing if no import is being shown.
+     */
+    public void cancelLoad() {
+        if (!loading.get()) {
+            return;
+        }
+        data.setTable(tableBeforeLoad);
+        columnNames.clear();
+        columnNames.addAll(columnNamesBeforeLoad);
+        columnTypes.set(columnTypesBeforeLoad);
+        snapshot = null;
+        endLoad();
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
+
+    private void endLoad() {
+        tableBeforeLoad = null;
+        columnNamesBeforeLoad = null;
+        columnTypesBeforeLoad = null;
+        browsed = null;
+        browsing.set(false);
+        loading.set(false);
+    }
+
+    // True while only the first rows of a running import are shown
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    // True while a CSV file is browsed page by page (see browse())
+    public ReadOnlyBooleanProperty browsingProperty() {
+        return browsing.getReadOnlyProperty();
+    }
+
+    // The file being browsed, or null
+    public PagedCsv getBrowsed() {
+        return browsed;
+    }
+
+    /**
+     * Adds the records later appended to a file to the current rows, until the
+     * data is replaced or stopFollowing() is called. The follower must already
+     * have been started; this model only closes it.
+     */
+    public void follow(CsvFollower newFollower) {
+        stopFollowing();
+        follower = newFollower;
+        following.set(true);
+    }
+
+    public void stopFollowing() {
+        if (follower != null) {
+            follower.close();
+            follower = null;
+            following.set(false);
+        }
+    }
+
+    // True while the records appended to a file are added as rows (see follow())
+    public ReadOnlyBooleanProperty followingProperty() {
+        return following.getReadOnlyProperty();
+    }
+
+    /**
+     * Appends the rows of another table, matching columns by name, as one
+     * undoable action reported as ROWS_INSERTED; e.g. records appended to a followed file.
+     */
+    public void appendRows(ColumnTable rows) {
+        if (rows.rowCount() == 0) {
+            return;
+        }
+        saveState();
+        data.appendTable(rows);
+        notifyListeners(commitState());
+    }
+
+    // The class shared by all values of a column, or Object if they differ or are all null
+    private static Class<?> valueType(Column values) {
+        if (values.nullCount() == values.size()) {
+            return Object.class;
+        }
+        if (!(values instanceof ObjectColumn)) {
+            return values.getType();
+        }
+        Class<?> type = null;
+        for (int row = 0; row < values.size(); row++) {
+            Object value = values.get(row);
+            if (value == null) {
+                continue;
+            }
+            if (type == null) {
+                type = value.getClass();
+            } else if (type != value.getClass()) {
+                return Object.class;
+            }
+        }
+        return type;
     }
 
     /**
@@ -124,25 +482,60 @@ public class DataModel {
 
     public void applyTransformation(DataTransformation transformation) {
         saveState();
-        transformation.apply(this);  // Pass the whole DataModel to let the transformation modify it
-        notifyListeners();
+        DataChangeEvent event;
+        try {
+            transformation.apply(this);  // Pass the whole DataModel to let the transformation modify it
+        } finally {
+            event = commitState();
+        }
+        notifyListeners(event);
     }
 
     /**
      * Clears all data, column names, and types.
      */
     public void clearData() {
+        stopFollowing();
         saveState();
-        data.clear();
+        data.setTable(new ColumnTable(List.of()));
+        commitState();
         columnNames.clear();
         columnTypes.get().clear();
-        notifyListeners();
+        snapshot = null;
+        notifyListeners(DataChangeEvent.schemaChanged());
+    }
+
+    /**
+     * Returns an immutable snapshot of the current data that background tasks can
+     * read while the model keeps changing. Costs one reference per column and is
+     * reused until the next change. Call it on the thread that changes the model
+     * (the FX thread) and hand the result to the background task, which releases
+     * it when done (see DataSnapshot.release()).
+     */
+    public DataSnapshot snapshot() {
+        long version = data.getVersion();
+        if (snapshot == null || snapshot.getVersion() != version || !snapshot.acquire()) {
+            snapshot = new DataSnapshot(version, data.getTable(), columnNames, columnTypes.get());
+        }
+        return snapshot;
+    }
+
+    // Increases with every change to the rows, see DataSnapshot.getVersion()
+    public long getVersion() {
+        return data.getVersion();
     }
 
     public ObservableList<Map<String, Object>> getData() {
         return data;
     }
 
+    /**
+     * Returns the columnar store behind getData(), for code that scans whole columns.
+     */
+    public ColumnTable getTable() {
+        return data.getTable();
+    }
+
     public List<String> getColumnNames() {
         return columnNames;
     }
@@ -151,61 +544,96 @@ public class DataModel {
         return columnTypes.get();
     }
 
+    /**
+     * Replaces the data with a table of other columns, such as the groups of an
+     * aggregation, and takes its column names. Lets transformations change the
+     * columns within their own undo entry, which setData() would not.
+     */
+    public void replaceTable(ColumnTable table) {
+        stopFollowing();
+        data.setTable(table);
+        setColumns(table, table.getColumnNames());
+    }
+
+    /**
+     * Keeps the given rows in the given order (a filter or a permutation).
+     * Lets transformations reorder the columnar data without going through row maps.
+     */
+    public void selectRows(int[] rows) {
+        data.select(rows);
+    }
+
+    /**
+     * Returns the rows whose numeric value in the column lies between the bounds,
+     * in increasing order. Uses the column's sorted index, built on first use and
+     * then kept up to date, so repeated range queries cost O(log n + k).
+     * Use infinite bounds for open ranges.
+     */
+    public int[] findRowsInRange(String column, double lower, boolean lowerInclusive,
+                                 double upper, boolean upperInclusive) {
+        SortedIndex index = data.getTable().sortedIndex(column);
+        if (index == null) {
+            return new int[0];
+        }
+        int[] rows = index.range(lower, lowerInclusive, upper, upperInclusive);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Returns the rows holding the value in the column, in increasing order.
+     * Uses the column's hash index, built on first use and then kept up to date.
+     */
+    public int[] findRows(String column, Object value) {
+        HashIndex index = data.getTable().hashIndex(column);
+        return index != null ? index.rowsEqualTo(value) : new int[0];
+    }
+
     /**
      * Updates a specific value in the dataset.
      */
     public void updateValue(int rowIndex, String column, Object value) {
         if (rowIndex >= 0 && rowIndex < data.size()) {
             saveState();
-            Map<String, Object> row = data.get(rowIndex);
-            row.put(column, value);
-            notifyListeners();
+            data.setValue(rowIndex, column, value);
+            notifyListeners(commitState());
         }
     }
 
     /**
      * Calculates basic statistics (count, mean, min, max, sum, median, std deviation).
+     * Streams over the column, so it also works on disk-backed columns.
      */
     public Map<String, Object> getBasicStats(String column) {
         Map<String, Object> stats = new HashMap<>();
-        List<Double> numericValues = new ArrayList<>();
-
-        // Collect numeric values and convert to double
-        for (Map<String, Object> row : data) {
-            Object value = row.get(column);
-            if (value instanceof Number) {
-                numericValues.add(((Number) value).doubleValue());
-            }
+        Column values = data.getTable().column(column);
+        if (values == null) {
+            return stats;
         }
 
-        if (!numericValues.isEmpty()) {
-            // Summary statistics (count, mean, min, max, sum)
-            DoubleSummaryStatistics summary = numericValues.stream()
-                    .mapToDouble(Double::doubleValue)
-                    .summaryStatistics();
+        // Summary statistics (count, mean, min, max, sum), collecting numbers for the median
+        DoubleColumn numbers = numericCopy(values);
+        DoubleSummaryStatistics summary = new DoubleSummaryStatistics();
+        for (int row = 0; row < numbers.size(); row++) {
+            summary.accept(numbers.getDouble(row));
+        }
 
+        if (summary.getCount() > 0) {
             stats.put("count", summary.getCount());
             stats.put("mean", summary.getAverage());
             stats.put("min", summary.getMin());
             stats.put("max", summary.getMax());
             stats.put("sum", summary.getSum());
-
-            // Median calculation
-            Collections.sort(numericValues);
-            int size = numericValues.size();
-            double median;
-            if (size % 2 == 0) {
-                median = (numericValues.get(size / 2 - 1) + numericValues.get(size / 2)) / 2.0;
-            } else {
-                median = numericValues.get(size / 2);
-            }
-            stats.put("median", median);
+            stats.put("median", median(numbers));
 
             // Standard deviation calculation
             double mean = summary.getAverage();
-            double variance = numericValues.stream()
-                    .mapToDouble(val -> Math.pow(val - mean, 2))
-                    .sum() / summary.getCount();
+            double squares = 0;
+            for (int row = 0; row < numbers.size(); row++) {
+                double value = numbers.getDouble(row);
+                squares += (value - mean) * (value - mean);
+            }
+            double variance = squares / summary.getCount();
             double stdDev = Math.sqrt(variance);
             stats.put("standardDeviation", stdDev);
         }
@@ -213,13 +641,83 @@ public class DataModel {
         return stats;
     }
 
+    // Copies the numeric cells of a column into a scratch column of the same storage kind
+    private DoubleColumn numericCopy(Column values) {
+        MappedStorage target = data.getTable().getStorage();
+        DoubleColumn numbers = target != null ? new MappedDoubleColumn(target, 0) : new DoubleColumn(0);
+        for (int row = 0; row < values.size(); row++) {
+            if (values.isNumber(row)) {
+                numbers.appendDouble(values.getDouble(row));
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Finds the median by quickselect, reordering the given scratch column in place.
+     */
+    private static double median(DoubleColumn values) {
+        int size = values.size();
+        int upper = size / 2;
+        select(values, upper);
+        double median = values.getDouble(upper);
+        if (size % 2 == 0) {
+            // Everything before the upper middle is now smaller or equal; take its maximum
+            double lower = values.getDouble(0);
+            for (int row = 1; row < upper; row++) {
+                lower = Math.max(lower, values.getDouble(row));
+            }
+            median = (lower + median) / 2.0;
+        }
+        return median;
+    }
+
+    // Moves the k-th smallest value to position k (Hoare partitioning)
+    private static void select(DoubleColumn values, int k) {
+        int left = 0;
+        int right = values.size() - 1;
+        while (left < right) {
+            double pivot = values.getDouble((left + right) >>> 1);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values.getDouble(i) < pivot) i++;
+                while (values.getDouble(j) > pivot) j--;
+                if (i <= j) {
+                    double swap = values.getDouble(i);
+                    values.setDouble(i++, values.getDouble(j));
+                    values.setDouble(j--, swap);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies the numeric cells of a column into a primitive array, skipping nulls and text.
+     */
+    public double[] numericValues(String column) {
+        DataSnapshot values = snapshot();
+        try {
+            return values.numericValues(column);
+        } finally {
+            values.release();
+        }
+    }
+
     /**
      * Removes rows with null values in a given column.
      */
     public void removeNullValues(String column) {
         saveState();
         data.removeIf(row -> row.get(column) == null);
-        notifyListeners();
+        notifyListeners(commitState());
     }
 
     /**
@@ -227,9 +725,7 @@ public class DataModel {
      */
     public void removeDuplicates() {
         saveState();
-        Set<Map<String, Object>> uniqueRows = new LinkedHashSet<>(data);
-        data.clear();
-        data.addAll(uniqueRows);
-        notifyListeners();
+        data.select(data.getTable().distinctRows());
+        notifyListeners(commitState());
     }
 }
\ No newline at end of file
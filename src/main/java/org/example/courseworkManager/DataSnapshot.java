@@ -0,0 +1,107 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+
+/**
+ * An immutable, versioned view of a DataModel's data, for background tasks
+ * (analysis, charts, export) that must not block or be disturbed by edits.
+ * Taking a snapshot only copies column references (see ColumnTable.snapshot()),
+ * and a snapshot can be read from any thread once handed over to it.
+ * Until every user of a snapshot has released it, the model copies a column
+ * before editing it; DataModel.snapshot() hands out the same snapshot to
+ * several users while the data is unchanged, counting them.
+ */
+public final class DataSnapshot {
+    private final long version;
+    private final ColumnTable table;
+    private final List<String> columnNames;
+    private final Map<String, Class<?>> columnTypes;
+    // Users that have not released the snapshot yet; none left means the columns are no longer protected
+    private int users = 1;
+
+    DataSnapshot(long version, ColumnTable table, List<String> columnNames, Map<String, Class<?>> columnTypes) {
+        this.version = version;
+        this.table = table.snapshot();
+        this.columnNames = List.copyOf(columnNames);
+        this.columnTypes = Map.copyOf(columnTypes);
+    }
+
+    // Adds a user, unless every earlier one has released the snapshot already
+    synchronized boolean acquire() {
+        if (users == 0) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    /**
+     * Tells the model this user will not read the snapshot any more. Once all
+     * users have, edits no longer copy the columns it shares with the model.
+     */
+    public void release() {
+        synchronized (this) {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+        }
+        table.release();
+    }
+
+    // The DataModel version this snapshot was taken at; later changes have higher versions
+    public long getVersion() {
+        return version;
+    }
+
+    public ColumnTable getTable() {
+        return table;
+    }
+
+    public int rowCount() {
+        return table.rowCount();
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public Map<String, Class<?>> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * The rows as read-only maps, for code that works row by row.
+     */
+    public List<Map<String, Object>> getRows() {
+        return new AbstractList<>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                Objects.checkIndex(index, table.rowCount());
+                return new ColumnarRowList.RowView(null, table, index);
+            }
+
+            @Override
+            public int size() {
+                return table.rowCount();
+            }
+        };
+    }
+
+    /**
+     * Copies the numeric cells of a column into a primitive array, skipping nulls and text.
+     */
+    public double[] numericValues(String column) {
+        Column values = table.column(column);
+        if (values == null) {
+            return new double[0];
+        }
+        double[] result = new double[values.size()];
+        int count = 0;
+        for (int row = 0; row < values.size(); row++) {
+            if (values.isNumber(row)) {
+                result[count++] = values.getDouble(row);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
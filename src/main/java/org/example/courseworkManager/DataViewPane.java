@@ -7,6 +7,7 @@ import javafx.scene.control.cell.MapValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.util.StringConverter;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,6 +22,10 @@ public class DataViewPane extends VBox {
     private final DataModel dataModel;
     private final TableView<Map<String, Object>> tableView;
     private final ToolBar toolbar;
+    private Label historySizeLabel;
+    // Shown instead of editing while a CSV file is browsed page by page
+    private final ToolBar browseBar;
+    private Label browseLabel;
 
     // Constructor sets up layout, binds to data, and listens for data changes
     public DataViewPane(DataModel dataModel) {
@@ -34,16 +39,26 @@ public class DataViewPane extends VBox {
 
         // Create table view
         tableView = new TableView<>();
-        tableView.setEditable(true);
         tableView.setItems(dataModel.getData());
-
-        dataModel.addListener(() -> {
-            tableView.setItems(dataModel.getData()); // rebind to new ObservableList
-            updateColumns();                         // rebuild columns
-            tableView.refresh();                     // repaint
+        // The first rows of a running import can be browsed but not changed
+        tableView.editableProperty().bind(dataModel.loadingProperty().not());
+        toolbar.disableProperty().bind(dataModel.loadingProperty());
+        browseBar = createBrowseBar();
+
+        dataModel.addListener(event -> {
+            if (event.getType() == DataChangeEvent.Type.SCHEMA_CHANGED) {
+                updateBrowseLabel();
+                updateColumns();                     // rebuild columns
+                tableView.refresh();                 // repaint
+            } else if (event.getType() == DataChangeEvent.Type.CELLS_UPDATED) {
+                tableView.refresh();                 // repaint visible cells only
+            }
+            // Row inserts, removals and reorders reach the table through the
+            // list's own change events, so the columns are kept as they are
+            updateHistorySize();
         });
         // Add components to the layout
-        getChildren().addAll(toolbar, tableView);
+        getChildren().addAll(toolbar, browseBar, tableView);
         VBox.setVgrow(tableView, Priority.ALWAYS);
     }
 
@@ -103,6 +118,10 @@ public class DataViewPane extends VBox {
         Button redoBtn = new Button("Redo");
         redoBtn.setOnAction(e -> dataModel.redo());
 
+        // Shows what the undo history currently costs
+        historySizeLabel = new Label();
+        updateHistorySize();
+
 
         // Add separators between sections
         toolbar.getItems().addAll(
@@ -120,11 +139,45 @@ public class DataViewPane extends VBox {
                 new Separator(),
                 historyLabel,
                 undoBtn,
-                redoBtn
+                redoBtn,
+                historySizeLabel
         );
         return toolbar;
     }
 
+    // Creates the bar for a browsed file, with buttons to load it in full or close it
+    private ToolBar createBrowseBar() {
+        browseLabel = new Label();
+        Button loadAllBtn = new Button("Load All");
+        loadAllBtn.setOnAction(e -> {
+            MonitoredTask<ColumnTable> task = DataImporter.loadAll(dataModel);
+            // One full load at a time
+            loadAllBtn.disableProperty().bind(task.runningProperty());
+        });
+        Button closeBtn = new Button("Close");
+        closeBtn.setOnAction(e -> dataModel.cancelLoad());
+
+        ToolBar bar = new ToolBar(browseLabel, loadAllBtn, closeBtn);
+        bar.visibleProperty().bind(dataModel.browsingProperty());
+        bar.managedProperty().bind(dataModel.browsingProperty());
+        return bar;
+    }
+
+    private void updateBrowseLabel() {
+        PagedCsv browsed = dataModel.getBrowsed();
+        if (browsed != null) {
+            browseLabel.setText(String.format("Browsing %s: %,d rows, read as they are shown. Editing needs a full load.",
+                    browsed.getFile().getName(), browsed.rowCount()));
+        }
+    }
+
+    // Updates the history footprint label (memory and spilled-to-disk size)
+    private void updateHistorySize() {
+        ChangeHistory history = dataModel.getHistory();
+        historySizeLabel.setText(String.format("%.1f MB (%.1f MB on disk)",
+                history.getMemoryUsage() / 1048576.0, history.getDiskUsage() / 1048576.0));
+    }
+
     // Displays filter dialog to apply a filter transformation to the data
     private void showFilterDialog() {
         Dialog<String[]> dialog = new Dialog<>();
@@ -161,10 +214,7 @@ public class DataViewPane extends VBox {
                 String column = res[0];
                 double threshold = Double.parseDouble(res[1]);
                 DataTransformation filter = TransformationFactory.createFilterTransformation(
-                        column,
-                        value -> value instanceof Number &&
-                                ((Number) value).doubleValue() > threshold
-                );
+                        RowFilter.compare(column, RowFilter.Comparison.GREATER, threshold));
                 dataModel.applyTransformation(filter);
             } catch (NumberFormatException ex) {
                 showError("Invalid number format");
@@ -192,13 +242,18 @@ public class DataViewPane extends VBox {
         grid.add(columnCombo, 1, 0);
         grid.add(new Label("Direction:"), 0, 1);
         grid.add(directionCombo, 1, 1);
+        // Left blank to sort every row; a number keeps only that many, found without a full sort
+        TextField limitField = new TextField();
+        limitField.setPromptText("All rows");
+        grid.add(new Label("Keep first rows:"), 0, 2);
+        grid.add(limitField, 1, 2);
 
         dialog.getDialogPane().setContent(grid);
         dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
 
         dialog.setResultConverter(buttonType -> {
             if (buttonType == ButtonType.OK) {
-                return new String[]{columnCombo.getValue(), directionCombo.getValue()};
+                return new String[]{columnCombo.getValue(), directionCombo.getValue(), limitField.getText()};
             }
             return null;
         });
@@ -207,7 +262,24 @@ public class DataViewPane extends VBox {
         result.ifPresent(res -> {
             String column = res[0];
             boolean ascending = "Ascending".equals(res[1]);
-            DataTransformation sorter = TransformationFactory.createSortTransformation(column, ascending);
+            DataTransformation sorter;
+            if (res[2].isBlank()) {
+                sorter = TransformationFactory.createSortTransformation(column, ascending);
+            } else {
+                int limit;
+                try {
+                    limit = Integer.parseInt(res[2].trim());
+                } catch (NumberFormatException ex) {
+                    showError("Invalid number format");
+                    return;
+                }
+                if (limit < 0) {
+                    showError("The number of rows cannot be negative");
+                    return;
+                }
+                sorter = TransformationFactory.createTopKTransformation(
+                        List.of(new RowSorter.SortKey(column, ascending)), limit);
+            }
             dataModel.applyTransformation(sorter);
         });
     }
@@ -228,7 +300,9 @@ public class DataViewPane extends VBox {
         ComboBox<String> aggregateCombo = new ComboBox<>();
         aggregateCombo.getItems().addAll(dataModel.getColumnNames());
         ComboBox<String> typeCombo = new ComboBox<>();
-        typeCombo.getItems().addAll("SUM", "AVERAGE", "COUNT");
+        for (TransformationFactory.AggregationType type : TransformationFactory.AggregationType.values()) {
+            typeCombo.getItems().add(type.name());
+        }
 
         grid.add(new Label("Group By:"), 0, 0);
         grid.add(groupByCombo, 1, 0);
@@ -290,17 +364,9 @@ public class DataViewPane extends VBox {
                 @Override
                 public Object fromString(String string) {
                     Class<?> type = dataModel.getColumnTypes().get(columnName);
-                    try {
-                        if (type == Integer.class) {
-                            return Integer.parseInt(string);
-                        } else if (type == Double.class) {
-                            return Double.parseDouble(string);
-                        } else {
-                            return string;
-                        }
-                    } catch (NumberFormatException e) {
-                        return string;
-                    }
+                    // Text that does not parse as the column's type is kept as text
+                    Object value = ValueParser.parse(string, type);
+                    return value != null ? value : string;
                 }
             }));
 
@@ -0,0 +1,170 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Text column stored as int codes into a StringDictionary.
+ * Used for categorical data where a handful of values repeat many times;
+ * grouping and counting can then work on the codes instead of the strings.
+ * Subclasses may keep the codes elsewhere by overriding the storage hooks.
+ */
+public class DictionaryColumn extends Column {
+    // Past this many distinct values the column stays encoded only while values repeat
+    static final int MIN_CARDINALITY = 256;
+
+    private final StringDictionary dictionary;
+    private int[] codes;
+
+    public DictionaryColumn(int capacity) {
+        this(new StringDictionary(), capacity);
+    }
+
+    protected DictionaryColumn(StringDictionary dictionary, int capacity) {
+        super(capacity);
+        this.dictionary = dictionary;
+        codes = new int[capacity];
+    }
+
+    // For subclasses whose codes were loaded elsewhere, see Column(Bitmap, int)
+    protected DictionaryColumn(StringDictionary dictionary, Bitmap validity, int size) {
+        super(validity, size);
+        this.dictionary = dictionary;
+        codes = new int[0];
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the dictionary code of a cell, or -1 if the cell is empty.
+     */
+    public int getCode(int row) {
+        checkRow(row);
+        return codeAt(row);
+    }
+
+    @Override
+    public Class<?> getType() {
+        return String.class;
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        int code = codeAt(row);
+        return code >= 0 ? dictionary.decode(code) : null;
+    }
+
+    /**
+     * Accepts strings while the cardinality stays low; a column of mostly unique
+     * text is better stored as plain references, so ColumnTable widens it.
+     */
+    @Override
+    public boolean accepts(Object value) {
+        if (value == null) {
+            return true;
+        }
+        if (!(value instanceof String)) {
+            return false;
+        }
+        return dictionary.size() < MIN_CARDINALITY
+                || dictionary.size() * 2 < size
+                || dictionary.lookup((String) value) >= 0;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        storeCode(row, value != null ? dictionary.encode((String) value) : -1);
+        setValid(row, value != null);
+    }
+
+    @Override
+    public void append(Object value) {
+        ensureCapacity(size + 1);
+        set(newRow(), value);
+    }
+
+    /**
+     * Appends a cell by its dictionary code, or an empty cell for -1.
+     */
+    public void appendCode(int code) {
+        ensureCapacity(size + 1);
+        int row = newRow();
+        storeCode(row, code);
+        setValid(row, code >= 0);
+    }
+
+    protected int codeAt(int row) {
+        return codes[row];
+    }
+
+    protected void storeCode(int row, int code) {
+        codes[row] = code;
+    }
+
+    protected void ensureCapacity(int needed) {
+        if (needed > codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, needed));
+            validity.ensureCapacity(codes.length);
+        }
+    }
+
+    // Creates an empty column sharing this dictionary, with the same kind of storage
+    protected DictionaryColumn newColumn(int capacity) {
+        return new DictionaryColumn(dictionary, capacity);
+    }
+
+    @Override
+    public boolean valueEquals(int rowA, int rowB) {
+        return codeAt(rowA) == codeAt(rowB);
+    }
+
+    @Override
+    public int valueHash(int row) {
+        return codeAt(row);
+    }
+
+    /**
+     * Returns the rows whose dictionary code is marked in wanted, as a bitmap.
+     * Empty cells never match.
+     */
+    Bitmap matchCodes(boolean[] wanted) {
+        long[] words = new long[(size + 63) >>> 6];
+        for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int bit = 0; bit < end; bit++) {
+                int code = codeAt(base + bit);
+                bits |= (code >= 0 && code < wanted.length && wanted[code] ? 1L : 0L) << bit;
+            }
+            words[word] = bits & validity.word(word);
+        }
+        return Bitmap.wrap(words);
+    }
+
+    @Override
+    public DictionaryColumn select(int[] rows) {
+        DictionaryColumn result = newColumn(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            result.storeCode(i, codeAt(rows[i]));
+        }
+        return selectValidity(result, rows);
+    }
+
+    @Override
+    public DictionaryColumn copy() {
+        DictionaryColumn result = newColumn(size);
+        for (int row = 0; row < size; row++) {
+            result.storeCode(row, codeAt(row));
+        }
+        return copyValidity(result);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 16L + 4L * codes.length + validity.memoryUsage() + dictionary.memoryUsage();
+    }
+}
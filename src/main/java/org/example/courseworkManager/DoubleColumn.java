@@ -0,0 +1,185 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Column of double values stored in a primitive array.
+ * Empty cells hold NaN so getDouble() needs no null check.
+ * Subclasses may keep the values elsewhere by overriding the storage hooks
+ * (valueAt, storeValue, ensureCapacity, newColumn).
+ */
+public class DoubleColumn extends Column {
+    private double[] values;
+
+    public DoubleColumn(int capacity) {
+        super(capacity);
+        values = new double[capacity];
+    }
+
+    // For subclasses whose values were loaded elsewhere, see Column(Bitmap, int)
+    protected DoubleColumn(Bitmap validity, int size) {
+        super(validity, size);
+        values = new double[0];
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Double.class;
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        return validity.get(row) ? valueAt(row) : null;
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        checkRow(row);
+        return valueAt(row);
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof Double;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        if (value == null) {
+            storeValue(row, Double.NaN);
+            setValid(row, false);
+        } else {
+            setDouble(row, (Double) value);
+        }
+    }
+
+    public void setDouble(int row, double value) {
+        checkRow(row);
+        storeValue(row, value);
+        setValid(row, true);
+    }
+
+    @Override
+    public void append(Object value) {
+        ensureCapacity(size + 1);
+        set(newRow(), value);
+    }
+
+    public void appendDouble(double value) {
+        ensureCapacity(size + 1);
+        setDouble(newRow(), value);
+    }
+
+    @Override
+    public void appendAll(Column other) {
+        if (!(other instanceof DoubleColumn)) {
+            super.appendAll(other);
+            return;
+        }
+        DoubleColumn doubles = (DoubleColumn) other;
+        ensureCapacity(size + other.size());
+        for (int row = 0; row < other.size(); row++) {
+            int target = newRow();
+            storeValue(target, doubles.valueAt(row));
+            if (!doubles.isNull(row)) {
+                setValid(target, true);
+            }
+        }
+    }
+
+    protected double valueAt(int row) {
+        return values[row];
+    }
+
+    protected void storeValue(int row, double value) {
+        values[row] = value;
+    }
+
+    protected void ensureCapacity(int needed) {
+        if (needed > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, needed));
+            validity.ensureCapacity(values.length);
+        }
+    }
+
+    // Creates an empty column with the same kind of storage
+    protected DoubleColumn newColumn(int capacity) {
+        return new DoubleColumn(capacity);
+    }
+
+    @Override
+    public boolean valueEquals(int rowA, int rowB) {
+        return isNull(rowA) == isNull(rowB) && Double.compare(valueAt(rowA), valueAt(rowB)) == 0;
+    }
+
+    @Override
+    public int valueHash(int row) {
+        return Double.hashCode(valueAt(row));
+    }
+
+    /**
+     * Returns the rows whose value lies in [lower, upper] as a bitmap, testing
+     * 64 rows per word without boxing. Empty cells never match.
+     */
+    Bitmap matchRange(double lower, double upper) {
+        long[] words = new long[(size + 63) >>> 6];
+        for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int bit = 0; bit < end; bit++) {
+                double value = valueAt(base + bit);
+                bits |= (value >= lower & value <= upper ? 1L : 0L) << bit;
+            }
+            words[word] = bits & validity.word(word);
+        }
+        return Bitmap.wrap(words);
+    }
+
+    /**
+     * Returns the rows whose value is one of the given ones, which must be sorted.
+     */
+    Bitmap matchAny(double[] sorted) {
+        long[] words = new long[(size + 63) >>> 6];
+        for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int bit = 0; bit < end; bit++) {
+                bits |= (Arrays.binarySearch(sorted, valueAt(base + bit)) >= 0 ? 1L : 0L) << bit;
+            }
+            words[word] = bits & validity.word(word);
+        }
+        return Bitmap.wrap(words);
+    }
+
+    @Override
+    public DoubleColumn select(int[] rows) {
+        DoubleColumn result = newColumn(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            result.storeValue(i, valueAt(rows[i]));
+        }
+        return selectValidity(result, rows);
+    }
+
+    @Override
+    public DoubleColumn copy() {
+        DoubleColumn result = newColumn(size);
+        for (int row = 0; row < size; row++) {
+            result.storeValue(row, valueAt(row));
+        }
+        return copyValidity(result);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 16L + 8L * values.length + validity.memoryUsage();
+    }
+}
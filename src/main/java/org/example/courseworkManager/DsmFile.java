@@ -0,0 +1,436 @@
+package org.example.courseworkManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the native dataset format (.dsm). Column values are stored
+ * little-endian in the layout the columns use in memory, so opening a file maps
+ * them instead of parsing them: numbers, dates and dictionary codes stay in the
+ * file and are paged in by the OS when read. Validity maps, booleans and
+ * dictionaries are small and are read onto the heap; columns of other objects
+ * are decoded value by value.
+ * Layout:
+ * 1. header: the magic bytes "DSM\0", the format version and the position of the footer;
+ * 2. one block per column: validity words, then the values, each starting on a multiple of 8;
+ * 3. footer: row and column counts, then per column its name, kind, type, null count,
+ *    min, max, block positions and dictionary, written with ColumnTableCodec.
+ */
+public final class DsmFile {
+    private static final int MAGIC = 0x44534D00;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static final byte DOUBLE_COLUMN = 'D';
+    private static final byte LONG_COLUMN = 'L';
+    private static final byte TEMPORAL_COLUMN = 'T';
+    private static final byte BOOLEAN_COLUMN = 'B';
+    private static final byte DICTIONARY_COLUMN = 'S';
+    private static final byte OBJECT_COLUMN = 'O';
+
+    private DsmFile() {
+    }
+
+    /**
+     * What the footer says about one column; available without reading any values.
+     */
+    public static final class ColumnInfo {
+        private final String name;
+        private final byte kind;
+        private final Class<?> type;
+        private final int rowCount;
+        private final int nullCount;
+        private final Object min;
+        private final Object max;
+        private final long validityPosition;
+        private final long valuesPosition;
+        private final StringDictionary dictionary;
+
+        private ColumnInfo(String name, byte kind, Class<?> type, int rowCount, int nullCount, Object min,
+                           Object max, long validityPosition, long valuesPosition, StringDictionary dictionary) {
+            this.name = name;
+            this.kind = kind;
+            this.type = type;
+            this.rowCount = rowCount;
+            this.nullCount = nullCount;
+            this.min = min;
+            this.max = max;
+            this.validityPosition = validityPosition;
+            this.valuesPosition = valuesPosition;
+            this.dictionary = dictionary;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // The Java type of the values, or Object for a column of mixed values
+        public Class<?> getType() {
+            return type;
+        }
+
+        // Number of cells holding a value
+        public int getCount() {
+            return rowCount - nullCount;
+        }
+
+        public int getNullCount() {
+            return nullCount;
+        }
+
+        // Smallest value, or null if the column is empty or its values cannot be ordered
+        public Object getMin() {
+            return min;
+        }
+
+        public Object getMax() {
+            return max;
+        }
+    }
+
+    /**
+     * Writes the given columns of the table. The file is written next to the target
+     * and then moved over it, so a dataset opened from the target stays readable.
+     */
+    public static void write(ColumnTable table, List<String> columns, File file,
+                             ProgressMonitor monitor) throws IOException {
+        int rows = table.rowCount();
+        monitor.setTotalRows(rows);
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                BlockWriter out = new BlockWriter(channel, HEADER_SIZE, monitor);
+                ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+                DataOutputStream footer = new DataOutputStream(footerBytes);
+                footer.writeInt(rows);
+                footer.writeInt(columns.size());
+                for (String name : columns) {
+                    monitor.checkCancelled();
+                    Column column = table.column(name);
+                    if (column == null) {
+                        // Columns the table does not have are written as empty
+                        column = new ObjectColumn(rows);
+                        for (int row = 0; row < rows; row++) {
+                            column.append(null);
+                        }
+                    }
+                    ColumnTableCodec.writeString(footer, name);
+                    writeColumn(out, footer, column);
+                }
+                long footerPosition = out.position();
+                out.flush();
+                footer.flush();
+                BlockWriter.write(channel, ByteBuffer.wrap(footerBytes.toByteArray()), footerPosition);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(footerPosition).flip();
+                BlockWriter.write(channel, header, 0);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            monitor.addRows(rows);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Writes the column's block and its footer entry, gathering min and max on the way
+    private static void writeColumn(BlockWriter out, DataOutput footer, Column column) throws IOException {
+        int size = column.size();
+        long validityPosition = out.position();
+        for (int start = 0; start < size; start += 64) {
+            long word = 0;
+            for (int row = start; row < Math.min(size, start + 64); row++) {
+                if (!column.isNull(row)) {
+                    word |= 1L << row;
+                }
+            }
+            out.putLong(word);
+        }
+        long valuesPosition = out.position();
+        Object min = null;
+        Object max = null;
+        StringDictionary dictionary = null;
+        byte kind;
+
+        if (column instanceof DoubleColumn) {
+            kind = DOUBLE_COLUMN;
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (int row = 0; row < size; row++) {
+                double value = column.getDouble(row);
+                out.putDouble(value);
+                if (!column.isNull(row) && !Double.isNaN(value)) {
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            if (low <= high) {
+                min = low;
+                max = high;
+            }
+        } else if (column instanceof LongColumn) {
+            kind = column instanceof TemporalColumn ? TEMPORAL_COLUMN : LONG_COLUMN;
+            LongColumn values = (LongColumn) column;
+            int lowRow = -1;
+            int highRow = -1;
+            for (int row = 0; row < size; row++) {
+                long value = values.getLong(row);
+                out.putLong(value);
+                if (!column.isNull(row)) {
+                    if (lowRow < 0 || value < values.getLong(lowRow)) {
+                        lowRow = row;
+                    }
+                    if (highRow < 0 || value > values.getLong(highRow)) {
+                        highRow = row;
+                    }
+                }
+            }
+            // Boxed by the column, so dates come back as dates
+            if (lowRow >= 0) {
+                min = column.get(lowRow);
+                max = column.get(highRow);
+            }
+        } else if (column instanceof BooleanColumn) {
+            kind = BOOLEAN_COLUMN;
+            BooleanColumn values = (BooleanColumn) column;
+            for (int start = 0; start < size; start += 64) {
+                long word = 0;
+                for (int row = start; row < Math.min(size, start + 64); row++) {
+                    if (values.getBoolean(row)) {
+                        word |= 1L << row;
+                    }
+                }
+                out.putLong(word);
+            }
+            Object[] range = objectRange(column);
+            min = range[0];
+            max = range[1];
+        } else if (column instanceof DictionaryColumn) {
+            kind = DICTIONARY_COLUMN;
+            DictionaryColumn codes = (DictionaryColumn) column;
+            dictionary = codes.getDictionary();
+            Bitmap used = new Bitmap(dictionary.size());
+            for (int row = 0; row < size; row++) {
+                int code = codes.getCode(row);
+                out.putInt(code);
+                if (code >= 0) {
+                    used.set(code);
+                }
+            }
+            // Each distinct value is compared once
+            for (int code = used.nextSetBit(0); code >= 0; code = used.nextSetBit(code + 1)) {
+                String value = dictionary.decode(code);
+                if (min == null || value.compareTo((String) min) < 0) {
+                    min = value;
+                }
+                if (max == null || value.compareTo((String) max) > 0) {
+                    max = value;
+                }
+            }
+        } else {
+            kind = OBJECT_COLUMN;
+            DataOutputStream values = new DataOutputStream(new BufferedOutputStream(out.asStream()));
+            for (int row = 0; row < size; row++) {
+                ColumnTableCodec.writeValue(values, column.get(row));
+            }
+            values.flush();
+            Object[] range = objectRange(column);
+            min = range[0];
+            max = range[1];
+        }
+        out.align();
+
+        footer.writeByte(kind);
+        if (kind == LONG_COLUMN || kind == TEMPORAL_COLUMN) {
+            footer.writeByte(ColumnTableCodec.typeTag(column.getType()));
+        }
+        footer.writeInt(column.nullCount());
+        ColumnTableCodec.writeValue(footer, min);
+        ColumnTableCodec.writeValue(footer, max);
+        footer.writeLong(validityPosition);
+        footer.writeLong(valuesPosition);
+        if (dictionary != null) {
+            int entries = dictionary.size();
+            footer.writeInt(entries);
+            for (int code = 0; code < entries; code++) {
+                ColumnTableCodec.writeString(footer, dictionary.decode(code));
+            }
+        }
+    }
+
+    // Min and max of values that all share one Comparable class, otherwise nulls
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] objectRange(Column column) {
+        Comparable min = null;
+        Comparable max = null;
+        for (int row = 0; row < column.size(); row++) {
+            Object value = column.get(row);
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof Comparable) || (min != null && min.getClass() != value.getClass())) {
+                return new Object[2];
+            }
+            Comparable comparable = (Comparable) value;
+            if (min == null || comparable.compareTo(min) < 0) {
+                min = comparable;
+            }
+            if (max == null || comparable.compareTo(max) > 0) {
+                max = comparable;
+            }
+        }
+        return new Object[]{min, max};
+    }
+
+    /**
+     * Opens a saved dataset. Typed columns map the file rather than read it, so this
+     * takes about the same time whatever the row count; they are copied (in the given
+     * storage, or on the heap if null) the first time they are changed.
+     */
+    public static ColumnTable read(File file, MappedStorage storage) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<ColumnInfo> infos = readFooter(channel);
+            List<String> names = new ArrayList<>(infos.size());
+            List<Column> columns = new ArrayList<>(infos.size());
+            for (ColumnInfo info : infos) {
+                names.add(info.name);
+                columns.add(readColumn(channel, info, storage));
+            }
+            return ColumnTable.fromColumns(names, columns, storage);
+        }
+    }
+
+    /**
+     * Reads only the per-column metadata (type, counts, min and max) of a saved dataset.
+     */
+    public static List<ColumnInfo> readColumnInfo(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readFooter(channel);
+        }
+    }
+
+    private static List<ColumnInfo> readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a saved dataset (.dsm) file");
+        }
+        int version = header.getInt();
+        if (version > VERSION) {
+            throw new IOException("Saved with a newer version of the format: " + version);
+        }
+        long footerPosition = header.getLong();
+        if (footerPosition < HEADER_SIZE || footerPosition > size) {
+            throw new IOException("Corrupt dataset file: bad footer position " + footerPosition);
+        }
+
+        ByteBuffer footerBytes = channel.map(FileChannel.MapMode.READ_ONLY, footerPosition, size - footerPosition);
+        byte[] bytes = new byte[footerBytes.remaining()];
+        footerBytes.get(bytes);
+        DataInputStream footer = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            int rows = footer.readInt();
+            int columnCount = footer.readInt();
+            List<ColumnInfo> infos = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                String name = ColumnTableCodec.readString(footer);
+                byte kind = footer.readByte();
+                Class<?> type;
+                switch (kind) {
+                    case DOUBLE_COLUMN:
+                        type = Double.class;
+                        break;
+                    case LONG_COLUMN:
+                    case TEMPORAL_COLUMN:
+                        type = ColumnTableCodec.typeOf(footer.readByte());
+                        break;
+                    case BOOLEAN_COLUMN:
+                        type = Boolean.class;
+                        break;
+                    case DICTIONARY_COLUMN:
+                        type = String.class;
+                        break;
+                    case OBJECT_COLUMN:
+                        type = Object.class;
+                        break;
+                    default:
+                        throw new IOException("Unknown column kind: " + kind);
+                }
+                int nullCount = footer.readInt();
+                Object min = ColumnTableCodec.readValue(footer);
+                Object max = ColumnTableCodec.readValue(footer);
+                long validityPosition = footer.readLong();
+                long valuesPosition = footer.readLong();
+                StringDictionary dictionary = null;
+                if (kind == DICTIONARY_COLUMN) {
+                    dictionary = new StringDictionary();
+                    int entries = footer.readInt();
+                    for (int code = 0; code < entries; code++) {
+                        dictionary.encode(ColumnTableCodec.readString(footer));
+                    }
+                }
+                infos.add(new ColumnInfo(name, kind, type, rows, nullCount, min, max,
+                        validityPosition, valuesPosition, dictionary));
+            }
+            return infos;
+        } catch (EOFException e) {
+            throw new IOException("Corrupt dataset file: the footer is truncated", e);
+        }
+    }
+
+    private static Column readColumn(FileChannel channel, ColumnInfo info, MappedStorage storage) throws IOException {
+        int rows = info.rowCount;
+        Bitmap validity = readBitmap(channel, info.validityPosition, rows);
+        switch (info.kind) {
+            case DOUBLE_COLUMN:
+                return new MappedDoubleColumn(storage,
+                        MappedBuffer.mapReadOnly(channel, info.valuesPosition, rows, 3), validity, rows);
+            case LONG_COLUMN:
+                return new MappedLongColumn(storage, info.type,
+                        MappedBuffer.mapReadOnly(channel, info.valuesPosition, rows, 3), validity, rows);
+            case TEMPORAL_COLUMN:
+                return new MappedTemporalColumn(storage, info.type,
+                        MappedBuffer.mapReadOnly(channel, info.valuesPosition, rows, 3), validity, rows);
+            case BOOLEAN_COLUMN:
+                return new BooleanColumn(readBitmap(channel, info.valuesPosition, rows), validity, rows);
+            case DICTIONARY_COLUMN:
+                return new MappedDictionaryColumn(storage, info.dictionary,
+                        MappedBuffer.mapReadOnly(channel, info.valuesPosition, rows, 2), validity, rows);
+            default:
+                ObjectColumn column = new ObjectColumn(rows);
+                DataInputStream values = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel.position(info.valuesPosition))));
+                for (int row = 0; row < rows; row++) {
+                    column.append(ColumnTableCodec.readValue(values));
+                }
+                return column;
+        }
+    }
+
+    private static Bitmap readBitmap(FileChannel channel, long position, int bits) throws IOException {
+        long[] words = new long[(bits + 63) >>> 6];
+        if (words.length > 0) {
+            LongBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * words.length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            mapped.get(words);
+        }
+        return Bitmap.fromLongArray(words);
+    }
+}
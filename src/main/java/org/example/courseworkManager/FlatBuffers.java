@@ -0,0 +1,359 @@
+package org.example.courseworkManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Just enough of the FlatBuffers binary format to write and read the metadata
+ * of Arrow IPC messages (see ArrowStream), without the generated classes.
+ * A table starts with the signed offset back to its vtable, which lists where
+ * each field sits in the table (0 if absent). Strings, vectors and sub-tables
+ * are referenced by unsigned offsets and always come after the reference.
+ * Every scalar is aligned to its size, as the Arrow libraries verify.
+ */
+final class FlatBuffers {
+
+    private FlatBuffers() {
+    }
+
+    /**
+     * A table to be written, built from fields in any order. Field ids are the
+     * positions of the fields in the schema, where a union takes two: its type, then its value.
+     */
+    static final class Table {
+        private final List<Entry> entries = new ArrayList<>();
+
+        private static final class Entry {
+            private final int id;
+            // Bytes taken in the table: the scalar size, or 4 for a reference
+            private final int size;
+            private final long value;
+            private final Object reference;
+
+            private Entry(int id, int size, long value, Object reference) {
+                this.id = id;
+                this.size = size;
+                this.value = value;
+                this.reference = reference;
+            }
+        }
+
+        // A vector of structs of two longs each, such as Arrow's FieldNode and Buffer
+        private static final class Structs {
+            private final long[] values;
+
+            private Structs(long[] values) {
+                this.values = values;
+            }
+        }
+
+        private Table add(int id, int size, long value, Object reference) {
+            entries.add(new Entry(id, size, value, reference));
+            return this;
+        }
+
+        Table addByte(int id, int value) {
+            return add(id, 1, value, null);
+        }
+
+        Table addBool(int id, boolean value) {
+            return add(id, 1, value ? 1 : 0, null);
+        }
+
+        Table addShort(int id, int value) {
+            return add(id, 2, value, null);
+        }
+
+        Table addInt(int id, int value) {
+            return add(id, 4, value, null);
+        }
+
+        Table addLong(int id, long value) {
+            return add(id, 8, value, null);
+        }
+
+        Table addString(int id, String value) {
+            return add(id, 4, 0, value);
+        }
+
+        Table addTable(int id, Table table) {
+            return add(id, 4, 0, table);
+        }
+
+        Table addTables(int id, List<Table> tables) {
+            return add(id, 4, 0, new ArrayList<>(tables));
+        }
+
+        Table addStructs(int id, long[] values) {
+            return add(id, 4, 0, new Structs(values));
+        }
+    }
+
+    /**
+     * Lays out the table and everything it references, starting with the offset of the root table.
+     */
+    static byte[] finish(Table root) {
+        Output out = new Output();
+        out.putInt(0);
+        out.putIntAt(0, writeTable(out, root));
+        return out.toByteArray();
+    }
+
+    private static int writeTable(Output out, Table table) {
+        // Largest fields first keeps the padding down
+        List<Table.Entry> fields = new ArrayList<>(table.entries);
+        fields.sort(Comparator.comparingInt((Table.Entry entry) -> entry.size).reversed());
+        int slots = 0;
+        int alignment = 4;
+        for (Table.Entry field : fields) {
+            slots = Math.max(slots, field.id + 1);
+            alignment = Math.max(alignment, field.size);
+        }
+        int[] offsets = new int[slots];
+        int size = 4;
+        for (Table.Entry field : fields) {
+            size = align(size, field.size);
+            offsets[field.id] = size;
+            size += field.size;
+        }
+
+        out.align(2);
+        int vtable = out.position();
+        out.putShort(4 + 2 * slots);
+        out.putShort(size);
+        for (int offset : offsets) {
+            out.putShort(offset);
+        }
+        out.align(alignment);
+        int start = out.position();
+        out.putInt(start - vtable);
+        out.skip(size - 4);
+        for (Table.Entry field : fields) {
+            int position = start + offsets[field.id];
+            switch (field.reference == null ? field.size : 0) {
+                case 1:
+                    out.putByteAt(position, (byte) field.value);
+                    break;
+                case 2:
+                    out.putShortAt(position, (short) field.value);
+                    break;
+                case 4:
+                    out.putIntAt(position, (int) field.value);
+                    break;
+                case 8:
+                    out.putLongAt(position, field.value);
+                    break;
+                default:
+                    out.putIntAt(position, writeReference(out, field.reference) - position);
+            }
+        }
+        return start;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int writeReference(Output out, Object reference) {
+        if (reference instanceof Table) {
+            return writeTable(out, (Table) reference);
+        } else if (reference instanceof String) {
+            byte[] bytes = ((String) reference).getBytes(StandardCharsets.UTF_8);
+            out.align(4);
+            int start = out.position();
+            out.putInt(bytes.length);
+            out.put(bytes);
+            // Strings are zero-terminated
+            out.put(new byte[1]);
+            return start;
+        } else if (reference instanceof Table.Structs) {
+            long[] values = ((Table.Structs) reference).values;
+            // The length comes just before the first struct, which is 8-aligned
+            out.align(8);
+            out.skip(4);
+            int start = out.position();
+            out.putInt(values.length / 2);
+            for (long value : values) {
+                out.putLong(value);
+            }
+            return start;
+        }
+        List<Table> tables = (List<Table>) reference;
+        out.align(4);
+        int start = out.position();
+        out.putInt(tables.size());
+        out.skip(4 * tables.size());
+        for (int i = 0; i < tables.size(); i++) {
+            int element = start + 4 + 4 * i;
+            out.putIntAt(element, writeTable(out, tables.get(i)) - element);
+        }
+        return start;
+    }
+
+    private static int align(int position, int alignment) {
+        return (position + alignment - 1) / alignment * alignment;
+    }
+
+    // A growing little-endian byte array
+    private static final class Output {
+        private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        int position() {
+            return buffer.position();
+        }
+
+        private void ensureRoom(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        // Pads with zeros to the next multiple of the alignment
+        void align(int alignment) {
+            skip(FlatBuffers.align(position(), alignment) - position());
+        }
+
+        void skip(int bytes) {
+            ensureRoom(bytes);
+            buffer.position(buffer.position() + bytes);
+        }
+
+        void put(byte[] bytes) {
+            ensureRoom(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putShort(int value) {
+            ensureRoom(2);
+            buffer.putShort((short) value);
+        }
+
+        void putInt(int value) {
+            ensureRoom(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensureRoom(8);
+            buffer.putLong(value);
+        }
+
+        void putByteAt(int position, byte value) {
+            buffer.put(position, value);
+        }
+
+        void putShortAt(int position, short value) {
+            buffer.putShort(position, value);
+        }
+
+        void putIntAt(int position, int value) {
+            buffer.putInt(position, value);
+        }
+
+        void putLongAt(int position, long value) {
+            buffer.putLong(position, value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    /**
+     * A table being read. Absent fields read as the given default, or null.
+     * Out-of-range offsets in corrupt input throw IndexOutOfBoundsException.
+     */
+    static final class Reader {
+        private final ByteBuffer bytes;
+        private final int position;
+
+        private Reader(ByteBuffer bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        // The root table of a buffer made by finish()
+        static Reader root(ByteBuffer bytes) {
+            ByteBuffer buffer = bytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new Reader(buffer, buffer.getInt(0));
+        }
+
+        // Position of the field in the buffer, or 0 if it is absent
+        private int field(int id) {
+            int vtable = position - bytes.getInt(position);
+            int entry = 4 + 2 * id;
+            if (entry >= (bytes.getShort(vtable) & 0xFFFF)) {
+                return 0;
+            }
+            int offset = bytes.getShort(vtable + entry) & 0xFFFF;
+            return offset != 0 ? position + offset : 0;
+        }
+
+        // Position of what the reference at the given position points to
+        private int target(int reference) {
+            return reference + bytes.getInt(reference);
+        }
+
+        int getByte(int id, int defaultValue) {
+            int field = field(id);
+            return field != 0 ? bytes.get(field) & 0xFF : defaultValue;
+        }
+
+        boolean getBool(int id) {
+            return getByte(id, 0) != 0;
+        }
+
+        int getShort(int id, int defaultValue) {
+            int field = field(id);
+            return field != 0 ? bytes.getShort(field) : defaultValue;
+        }
+
+        int getInt(int id, int defaultValue) {
+            int field = field(id);
+            return field != 0 ? bytes.getInt(field) : defaultValue;
+        }
+
+        long getLong(int id, long defaultValue) {
+            int field = field(id);
+            return field != 0 ? bytes.getLong(field) : defaultValue;
+        }
+
+        String getString(int id) {
+            int field = field(id);
+            if (field == 0) {
+                return null;
+            }
+            int start = target(field);
+            byte[] value = new byte[bytes.getInt(start)];
+            bytes.get(start + 4, value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        Reader getTable(int id) {
+            int field = field(id);
+            return field != 0 ? new Reader(bytes, target(field)) : null;
+        }
+
+        // Number of elements of a vector; 0 if it is absent
+        int getVectorLength(int id) {
+            int field = field(id);
+            return field != 0 ? bytes.getInt(target(field)) : 0;
+        }
+
+        Reader getTable(int id, int index) {
+            int element = target(field(id)) + 4 + 4 * index;
+            return new Reader(bytes, target(element));
+        }
+
+        // The given long of a struct in a vector of structs of two longs
+        long getStructLong(int id, int index, int part) {
+            return bytes.getLong(target(field(id)) + 4 + 16 * index + 8 * part);
+        }
+    }
+}
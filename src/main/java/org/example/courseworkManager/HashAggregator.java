@@ -0,0 +1,677 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Groups the rows of a ColumnTable by one or more columns and aggregates
+ * others, without materialising rows or keeping the values of a group.
+ * Every cell of a group column is encoded as a long (dictionary code, number
+ * bits, epoch value, or an id for other values), so a group key is a few longs
+ * in an open-addressing hash table. Each group has running accumulators, held
+ * in primitive arrays indexed by group: count, sum and squared deviations for
+ * SUM, AVERAGE, COUNT, VARIANCE and STDDEV; a row number for MIN, MAX, FIRST and
+ * LAST; and a hash set of (group, value) pairs for COUNT_DISTINCT.
+ * Large inputs are split into chunks aggregated in parallel, each into its own
+ * table, and the partial tables are merged in chunk order at the end.
+ * Groups come out in order of first appearance in the rows.
+ */
+public final class HashAggregator {
+    // Below this many rows the aggregation runs on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // Rows per parallel chunk, at least
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private HashAggregator() {
+    }
+
+    /**
+     * An aggregate of one column, shown in the result under its name, which
+     * is the column's own unless given.
+     */
+    public static final class Measure {
+        private final String column;
+        private final TransformationFactory.AggregationType type;
+        private final String name;
+
+        public Measure(String column, TransformationFactory.AggregationType type) {
+            this(column, type, column);
+        }
+
+        public Measure(String column, TransformationFactory.AggregationType type, String name) {
+            this.column = Objects.requireNonNull(column);
+            this.type = Objects.requireNonNull(type);
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public TransformationFactory.AggregationType getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Whether the result depends on the order of the rows
+        boolean isOrdered() {
+            return type == TransformationFactory.AggregationType.FIRST
+                    || type == TransformationFactory.AggregationType.LAST;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + column + (name.equals(column) ? "" : " as " + name);
+        }
+    }
+
+    /**
+     * Aggregates the given rows (all if null) of the table, in their order, and
+     * returns one row per group: the group columns, then the measures. Missing
+     * columns read as empty. Group columns keep their values; numeric aggregates
+     * are doubles, counts included, and are empty for groups without numbers
+     * (VARIANCE and STDDEV are of a sample, so need two); COUNT counts the
+     * non-empty cells whatever their type; MIN and MAX compare any
+     * values a sort would; FIRST, LAST and COUNT_DISTINCT skip empty cells.
+     * Throws IllegalArgumentException if two result columns would share a name.
+     */
+    public static ColumnTable aggregate(ColumnTable table, int[] rows, List<String> groupBy, List<Measure> measures) {
+        List<String> headers = columnNames(groupBy, measures);
+        int rowCount = rows != null ? rows.length : table.rowCount();
+        ValueCode[] keys = new ValueCode[groupBy.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = ValueCode.of(table.column(groupBy.get(k)), table.rowCount());
+        }
+        Measure[] specs = measures.toArray(new Measure[0]);
+        Column[] values = new Column[specs.length];
+        ValueCode[] distinct = new ValueCode[specs.length];
+        RowSorter.RowComparator[] orders = new RowSorter.RowComparator[specs.length];
+        for (int m = 0; m < specs.length; m++) {
+            values[m] = table.column(specs[m].column);
+            TransformationFactory.AggregationType type = specs[m].type;
+            if (type == TransformationFactory.AggregationType.COUNT_DISTINCT) {
+                distinct[m] = ValueCode.of(values[m], table.rowCount());
+            } else if (values[m] != null && (type == TransformationFactory.AggregationType.MIN
+                    || type == TransformationFactory.AggregationType.MAX)) {
+                orders[m] = RowSorter.comparing(values[m], true);
+            }
+        }
+
+        // Each chunk fills its own partial table, so threads share nothing but the columns
+        int chunks = rowCount < PARALLEL_THRESHOLD ? 1
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), rowCount / MIN_CHUNK));
+        int chunkSize = (rowCount + chunks - 1) / Math.max(chunks, 1);
+        Partial[] partials = new Partial[chunks];
+        IntStream chunkIndexes = IntStream.range(0, chunks);
+        (chunks > 1 ? chunkIndexes.parallel() : chunkIndexes).forEach(c -> {
+            Partial partial = new Partial(keys.length, accumulators(specs, values, distinct, orders));
+            partial.add(rows, c * chunkSize, Math.min(rowCount, (c + 1) * chunkSize), keys);
+            partials[c] = partial;
+        });
+        Partial result = partials[0];
+        for (int c = 1; c < chunks; c++) {
+            result.merge(partials[c]);
+        }
+
+        // Group columns hold the values of each group's first row, measures their results
+        int[] firstRows = Arrays.copyOf(result.firstRows, result.groups);
+        List<Column> columns = new ArrayList<>(headers.size());
+        for (String column : groupBy) {
+            Column keyColumn = table.column(column);
+            columns.add(keyColumn != null ? keyColumn.select(firstRows) : empty(result.groups));
+        }
+        for (Accumulator accumulator : result.accumulators) {
+            columns.add(accumulator.results(result.groups));
+        }
+        return ColumnTable.fromColumns(headers, columns, table.getStorage());
+    }
+
+    /**
+     * The columns of an aggregation's result: the group columns, then the measure
+     * names. Throws IllegalArgumentException if a name appears twice, e.g. a measure
+     * named like a group column.
+     */
+    static List<String> columnNames(List<String> groupBy, List<Measure> measures) {
+        List<String> names = new ArrayList<>(groupBy);
+        for (Measure measure : measures) {
+            names.add(measure.name);
+        }
+        Set<String> seen = new HashSet<>();
+        for (String name : names) {
+            if (!seen.add(name)) {
+                throw new IllegalArgumentException("The result would have two columns named " + name);
+            }
+        }
+        return names;
+    }
+
+    private static Column empty(int size) {
+        Column column = new ObjectColumn(size);
+        for (int row = 0; row < size; row++) {
+            column.append(null);
+        }
+        return column;
+    }
+
+    private static Accumulator[] accumulators(Measure[] specs, Column[] values, ValueCode[] distinct,
+                                              RowSorter.RowComparator[] orders) {
+        Accumulator[] accumulators = new Accumulator[specs.length];
+        for (int m = 0; m < specs.length; m++) {
+            switch (specs[m].type) {
+                case SUM:
+                case AVERAGE:
+                case COUNT:
+                case VARIANCE:
+                case STDDEV:
+                    accumulators[m] = new Moments(values[m], specs[m].type);
+                    break;
+                case MIN:
+                case MAX:
+                case FIRST:
+                case LAST:
+                    accumulators[m] = new Pick(values[m], specs[m].type, orders[m]);
+                    break;
+                case COUNT_DISTINCT:
+                    accumulators[m] = new Distinct(distinct[m]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown aggregation type: " + specs[m].type);
+            }
+        }
+        return accumulators;
+    }
+
+    // Scrambles the bits of a key so that nearby values land in distant slots
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb34a2dd0c2b3L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * The cells of a column as longs that are equal exactly when the values are.
+     * Values without a primitive form get ids in a first pass over the column.
+     */
+    private abstract static class ValueCode {
+        abstract boolean isNull(int row);
+
+        abstract long code(int row);
+
+        static ValueCode of(Column column, int rowCount) {
+            if (column == null) {
+                return new ValueCode() {
+                    boolean isNull(int row) {
+                        return true;
+                    }
+
+                    long code(int row) {
+                        return 0;
+                    }
+                };
+            }
+            if (column instanceof DictionaryColumn) {
+                DictionaryColumn codes = (DictionaryColumn) column;
+                return new ValueCode() {
+                    boolean isNull(int row) {
+                        return codes.getCode(row) < 0;
+                    }
+
+                    long code(int row) {
+                        return codes.getCode(row);
+                    }
+                };
+            }
+            if (column instanceof DoubleColumn) {
+                DoubleColumn doubles = (DoubleColumn) column;
+                return new ValueCode() {
+                    boolean isNull(int row) {
+                        return doubles.isNull(row);
+                    }
+
+                    // The bits Double.equals compares
+                    long code(int row) {
+                        return Double.doubleToLongBits(doubles.valueAt(row));
+                    }
+                };
+            }
+            if (column instanceof LongColumn) {
+                LongColumn longs = (LongColumn) column;
+                return new ValueCode() {
+                    boolean isNull(int row) {
+                        return longs.isNull(row);
+                    }
+
+                    long code(int row) {
+                        return longs.valueAt(row);
+                    }
+                };
+            }
+            if (column instanceof BooleanColumn) {
+                BooleanColumn booleans = (BooleanColumn) column;
+                return new ValueCode() {
+                    boolean isNull(int row) {
+                        return booleans.isNull(row);
+                    }
+
+                    long code(int row) {
+                        return booleans.getBoolean(row) ? 1 : 0;
+                    }
+                };
+            }
+            int[] ids = new int[rowCount];
+            Map<Object, Integer> seen = new HashMap<>();
+            for (int row = 0; row < rowCount; row++) {
+                Object value = column.get(row);
+                ids[row] = value == null ? -1 : seen.computeIfAbsent(value, key -> seen.size());
+            }
+            return new ValueCode() {
+                boolean isNull(int row) {
+                    return ids[row] < 0;
+                }
+
+                long code(int row) {
+                    return ids[row];
+                }
+            };
+        }
+    }
+
+    /**
+     * The groups of one chunk of rows: an open-addressing table from key to
+     * group number, the keys of the groups in order, and their accumulators.
+     * Keys are the codes of the group columns followed by one null mask per
+     * 64 columns, since a code alone cannot tell an empty cell.
+     */
+    private static final class Partial {
+        private final int width;
+        private final int keyColumns;
+        private final Accumulator[] accumulators;
+        private long[] keys;
+        private int[] hashes;
+        private int[] firstRows;
+        private int groups;
+        // Group number plus one per slot, zero for free slots
+        private int[] slots = new int[64];
+
+        private Partial(int keyColumns, Accumulator[] accumulators) {
+            this.keyColumns = keyColumns;
+            this.width = keyColumns + (keyColumns + 63) / 64;
+            this.accumulators = accumulators;
+            int capacity = 16;
+            keys = new long[capacity * width];
+            hashes = new int[capacity];
+            firstRows = new int[capacity];
+            for (Accumulator accumulator : accumulators) {
+                accumulator.grow(capacity);
+            }
+        }
+
+        void add(int[] rows, int from, int to, ValueCode[] codes) {
+            long[] key = new long[width];
+            for (int i = from; i < to; i++) {
+                int row = rows != null ? rows[i] : i;
+                Arrays.fill(key, keyColumns, width, 0);
+                for (int k = 0; k < keyColumns; k++) {
+                    if (codes[k].isNull(row)) {
+                        key[k] = 0;
+                        key[keyColumns + (k >> 6)] |= 1L << k;
+                    } else {
+                        key[k] = codes[k].code(row);
+                    }
+                }
+                int group = group(key, 0, row);
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.add(group, row);
+                }
+            }
+        }
+
+        // The number of the group with the key at the offset, added with the row first seen in it if new
+        int group(long[] key, int offset, int row) {
+            long hash = 0;
+            for (int k = 0; k < width; k++) {
+                hash = mix(hash + key[offset + k]);
+            }
+            int mask = slots.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                int group = slots[slot] - 1;
+                if (group < 0) {
+                    return insert(key, offset, (int) hash, slot, row);
+                }
+                if (hashes[group] == (int) hash && Arrays.equals(keys, group * width, (group + 1) * width,
+                        key, offset, offset + width)) {
+                    return group;
+                }
+            }
+        }
+
+        private int insert(long[] key, int offset, int hash, int slot, int row) {
+            if (groups == hashes.length) {
+                int capacity = groups * 2;
+                keys = Arrays.copyOf(keys, capacity * width);
+                hashes = Arrays.copyOf(hashes, capacity);
+                firstRows = Arrays.copyOf(firstRows, capacity);
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.grow(capacity);
+                }
+            }
+            int group = groups++;
+            System.arraycopy(key, offset, keys, group * width, width);
+            hashes[group] = hash;
+            firstRows[group] = row;
+            slots[slot] = group + 1;
+            // Keep the table at most half full so probes stay short
+            if (groups * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+            return group;
+        }
+
+        private void rehash(int size) {
+            slots = new int[size];
+            int mask = size - 1;
+            for (int group = 0; group < groups; group++) {
+                int slot = hashes[group] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = group + 1;
+            }
+        }
+
+        // Adds the groups of a later chunk, so first rows and FIRST/LAST follow the row order
+        void merge(Partial later) {
+            int[] groupMap = new int[later.groups];
+            for (int group = 0; group < later.groups; group++) {
+                groupMap[group] = group(later.keys, group * width, later.firstRows[group]);
+            }
+            for (int m = 0; m < accumulators.length; m++) {
+                accumulators[m].merge(later.accumulators[m], groupMap);
+            }
+        }
+    }
+
+    /**
+     * A running aggregate for every group of a partial table.
+     */
+    private abstract static class Accumulator {
+        abstract void grow(int capacity);
+
+        abstract void add(int group, int row);
+
+        // Folds in the groups of another partial table, numbered here as the map gives
+        abstract void merge(Accumulator other, int[] groupMap);
+
+        // The results of the first groups as a column
+        abstract Column results(int groups);
+    }
+
+    // Count, sum and sum of squared deviations of the numeric values, merged as in Chan et al.;
+    // for COUNT only the count, of all non-empty values
+    private static final class Moments extends Accumulator {
+        private final Column values;
+        private final TransformationFactory.AggregationType type;
+        private long[] counts = new long[0];
+        private double[] sums = new double[0];
+        private double[] squares = new double[0];
+
+        private Moments(Column values, TransformationFactory.AggregationType type) {
+            this.values = values;
+            this.type = type;
+        }
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            squares = Arrays.copyOf(squares, capacity);
+        }
+
+        @Override
+        void add(int group, int row) {
+            if (values == null || values.isNull(row)) {
+                return;
+            }
+            if (type == TransformationFactory.AggregationType.COUNT) {
+                // Counts cells of any type, e.g. the rows per category of a text column
+                counts[group]++;
+                return;
+            }
+            if (!values.isNumber(row)) {
+                return;
+            }
+            double value = values.getDouble(row);
+            long count = counts[group];
+            double meanBefore = count > 0 ? sums[group] / count : 0;
+            counts[group] = count + 1;
+            sums[group] += value;
+            squares[group] += (value - meanBefore) * (value - sums[group] / (count + 1));
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMap) {
+            Moments later = (Moments) other;
+            for (int group = 0; group < groupMap.length; group++) {
+                long countB = later.counts[group];
+                if (countB == 0) {
+                    continue;
+                }
+                int target = groupMap[group];
+                long countA = counts[target];
+                if (countA > 0) {
+                    double delta = later.sums[group] / countB - sums[target] / countA;
+                    squares[target] += later.squares[group]
+                            + delta * delta * ((double) countA * countB / (countA + countB));
+                } else {
+                    squares[target] = later.squares[group];
+                }
+                counts[target] = countA + countB;
+                sums[target] += later.sums[group];
+            }
+        }
+
+        @Override
+        Column results(int groups) {
+            // Sample variance needs two values, the others one; COUNT is never empty
+            long needed = type == TransformationFactory.AggregationType.COUNT ? 0
+                    : type == TransformationFactory.AggregationType.VARIANCE
+                    || type == TransformationFactory.AggregationType.STDDEV ? 2 : 1;
+            DoubleColumn column = new DoubleColumn(groups);
+            for (int group = 0; group < groups; group++) {
+                long count = counts[group];
+                if (count < needed) {
+                    column.append(null);
+                } else {
+                    column.appendDouble(result(group, count));
+                }
+            }
+            return column;
+        }
+
+        private double result(int group, long count) {
+            switch (type) {
+                case COUNT:
+                    return count;
+                case SUM:
+                    return sums[group];
+                case AVERAGE:
+                    return sums[group] / count;
+                case VARIANCE:
+                    return squares[group] / (count - 1);
+                case STDDEV:
+                    return Math.sqrt(squares[group] / (count - 1));
+                default:
+                    throw new IllegalStateException("Unknown aggregation type: " + type);
+            }
+        }
+    }
+
+    // The row holding the group's value: the least, greatest, first or last non-empty one
+    private static final class Pick extends Accumulator {
+        private final Column values;
+        private final TransformationFactory.AggregationType type;
+        private final RowSorter.RowComparator order;
+        private int[] picked = new int[0];
+
+        private Pick(Column values, TransformationFactory.AggregationType type, RowSorter.RowComparator order) {
+            this.values = values;
+            this.type = type;
+            this.order = order;
+        }
+
+        @Override
+        void grow(int capacity) {
+            int size = picked.length;
+            picked = Arrays.copyOf(picked, capacity);
+            Arrays.fill(picked, size, capacity, -1);
+        }
+
+        @Override
+        void add(int group, int row) {
+            if (values != null && !values.isNull(row)) {
+                pick(group, row);
+            }
+        }
+
+        // Rows come in order, so a later row replaces the current one only as LAST or on a strict win
+        private void pick(int group, int row) {
+            int current = picked[group];
+            if (current < 0) {
+                picked[group] = row;
+                return;
+            }
+            switch (type) {
+                case LAST:
+                    picked[group] = row;
+                    break;
+                case MIN:
+                    if (order.compare(row, current) < 0) {
+                        picked[group] = row;
+                    }
+                    break;
+                case MAX:
+                    if (order.compare(row, current) > 0) {
+                        picked[group] = row;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMap) {
+            Pick later = (Pick) other;
+            for (int group = 0; group < groupMap.length; group++) {
+                if (later.picked[group] >= 0) {
+                    pick(groupMap[group], later.picked[group]);
+                }
+            }
+        }
+
+        // The picked rows of the value column, with groups that have none emptied
+        @Override
+        Column results(int groups) {
+            if (values == null) {
+                return empty(groups);
+            }
+            int[] rows = new int[groups];
+            for (int group = 0; group < groups; group++) {
+                rows[group] = Math.max(picked[group], 0);
+            }
+            Column column = values.select(rows);
+            for (int group = 0; group < groups; group++) {
+                if (picked[group] < 0) {
+                    column.set(group, null);
+                }
+            }
+            return column;
+        }
+    }
+
+    // A hash set of (group, value code) pairs; a group's count grows with each new pair
+    private static final class Distinct extends Accumulator {
+        private final ValueCode codes;
+        private long[] pairValues = new long[64];
+        // Group number plus one per slot, zero for free slots
+        private int[] pairGroups = new int[64];
+        private int pairs;
+        private int[] counts = new int[0];
+
+        private Distinct(ValueCode codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void add(int group, int row) {
+            if (!codes.isNull(row)) {
+                addPair(group, codes.code(row));
+            }
+        }
+
+        private void addPair(int group, long value) {
+            int mask = pairGroups.length - 1;
+            for (int slot = (int) mix(value * 31 + group) & mask; ; slot = (slot + 1) & mask) {
+                if (pairGroups[slot] == 0) {
+                    pairGroups[slot] = group + 1;
+                    pairValues[slot] = value;
+                    counts[group]++;
+                    if (++pairs * 2 > pairGroups.length) {
+                        rehash();
+                    }
+                    return;
+                }
+                if (pairGroups[slot] == group + 1 && pairValues[slot] == value) {
+                    return;
+                }
+            }
+        }
+
+        private void rehash() {
+            long[] oldValues = pairValues;
+            int[] oldGroups = pairGroups;
+            pairValues = new long[oldValues.length * 2];
+            pairGroups = new int[oldGroups.length * 2];
+            int mask = pairGroups.length - 1;
+            for (int i = 0; i < oldGroups.length; i++) {
+                if (oldGroups[i] != 0) {
+                    int slot = (int) mix(oldValues[i] * 31 + oldGroups[i] - 1) & mask;
+                    while (pairGroups[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    pairGroups[slot] = oldGroups[i];
+                    pairValues[slot] = oldValues[i];
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMap) {
+            Distinct later = (Distinct) other;
+            for (int i = 0; i < later.pairGroups.length; i++) {
+                if (later.pairGroups[i] != 0) {
+                    addPair(groupMap[later.pairGroups[i] - 1], later.pairValues[i]);
+                }
+            }
+        }
+
+        @Override
+        Column results(int groups) {
+            DoubleColumn column = new DoubleColumn(groups);
+            for (int group = 0; group < groups; group++) {
+                column.appendDouble(counts[group]);
+            }
+            return column;
+        }
+    }
+}
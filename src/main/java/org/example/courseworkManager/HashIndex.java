@@ -0,0 +1,129 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The rows of every distinct value of a column, for equality predicates and
+ * lookups: finding the k rows equal to a value takes one hash lookup, O(1 + k).
+ * Values compare with equals(), like a predicate of the form value.equals(cell),
+ * except that numbers match by value whatever their boxed type, so 2L finds a
+ * cell holding the Integer 2 or the Double 2.0; null is indexed too.
+ */
+public class HashIndex implements ColumnIndex {
+    private final Map<Object, Rows> rowsByValue = new HashMap<>();
+
+    public HashIndex(Column column) {
+        for (int row = 0; row < column.size(); row++) {
+            add(column, row);
+        }
+    }
+
+    private HashIndex() {
+    }
+
+    /**
+     * Returns the rows holding the value, in increasing order.
+     */
+    public int[] rowsEqualTo(Object value) {
+        Rows rows = rowsByValue.get(key(value));
+        return rows != null ? Arrays.copyOf(rows.rows, rows.size) : new int[0];
+    }
+
+    public int distinctValues() {
+        return rowsByValue.size();
+    }
+
+    // Whole numbers become Longs and other numbers Doubles, so that equal numbers share a key
+    private static Object key(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            return number == Math.rint(number) && Math.abs(number) < 0x1p63 ? (Object) (long) number : number;
+        }
+        return value;
+    }
+
+    @Override
+    public void add(Column column, int row) {
+        rowsByValue.computeIfAbsent(key(column.get(row)), value -> new Rows()).add(row);
+    }
+
+    @Override
+    public void remove(Column column, int row) {
+        Object value = key(column.get(row));
+        Rows rows = rowsByValue.get(value);
+        if (rows != null && rows.remove(row) && rows.size == 0) {
+            rowsByValue.remove(value);
+        }
+    }
+
+    @Override
+    public HashIndex remap(int[] positions) {
+        HashIndex result = new HashIndex();
+        rowsByValue.forEach((value, rows) -> {
+            Rows mapped = new Rows(rows.size);
+            for (int i = 0; i < rows.size; i++) {
+                int row = positions[rows.rows[i]];
+                if (row >= 0) {
+                    mapped.rows[mapped.size++] = row;
+                }
+            }
+            if (mapped.size > 0) {
+                Arrays.sort(mapped.rows, 0, mapped.size);
+                result.rowsByValue.put(value, mapped);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public long memoryUsage() {
+        long total = 48L * rowsByValue.size();
+        for (Rows rows : rowsByValue.values()) {
+            total += 4L * rows.rows.length;
+        }
+        return total;
+    }
+
+    // Sorted row numbers of one value; appended rows usually go at the end
+    private static final class Rows {
+        private int[] rows;
+        private int size;
+
+        Rows() {
+            this(4);
+        }
+
+        Rows(int capacity) {
+            rows = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int row) {
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        boolean remove(int row) {
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
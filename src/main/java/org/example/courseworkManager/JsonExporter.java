@@ -0,0 +1,110 @@
+package org.example.courseworkManager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.temporal.Temporal;
+import java.util.List;
+
+/**
+ * Provides static methods to export columns as compact JSON (an array of objects)
+ * or newline-delimited JSON (one object per line). Rows are streamed from the
+ * columns through Jackson's JsonGenerator, so no row maps are built.
+ * Files named .gz or .deflate are compressed as they are written.
+ */
+
+public class JsonExporter {
+    private static final JsonFactory factory = new ObjectMapper().getFactory();
+    // Rows written between progress reports
+    private static final int REPORT_INTERVAL = 4096;
+
+    public static void exportJson(ColumnTable table, List<String> columns, File file,
+                                  ProgressMonitor monitor) throws IOException {
+        export(table, columns, file, false, monitor);
+    }
+
+    public static void exportNdjson(ColumnTable table, List<String> columns, File file,
+                                    ProgressMonitor monitor) throws IOException {
+        export(table, columns, file, true, monitor);
+    }
+
+    private static void export(ColumnTable table, List<String> columns, File file, boolean lines,
+                               ProgressMonitor monitor) throws IOException {
+        Column[] values = new Column[columns.size()];
+        SerializableString[] names = new SerializableString[columns.size()];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = table.column(columns.get(c));
+            names[c] = new SerializedString(columns.get(c));
+        }
+        int rows = table.rowCount();
+        monitor.setTotalRows(rows);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             WritableByteChannel out = Compression.forName(file.getName()).wrap(channel);
+             JsonGenerator generator = factory.createGenerator(Channels.newOutputStream(out))) {
+            // Lines are separated by writeRaw below rather than Jackson's default space
+            generator.setRootValueSeparator(null);
+            if (!lines) {
+                generator.writeStartArray();
+            }
+            long reported = 0;
+            for (int row = 0; row < rows; row++) {
+                generator.writeStartObject();
+                for (int c = 0; c < values.length; c++) {
+                    generator.writeFieldName(names[c]);
+                    writeValue(generator, values[c], row);
+                }
+                generator.writeEndObject();
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+                if ((row + 1) % REPORT_INTERVAL == 0) {
+                    monitor.checkCancelled();
+                    generator.flush();
+                    monitor.addBytes(channel.position() - reported);
+                    monitor.addRows(REPORT_INTERVAL);
+                    reported = channel.position();
+                }
+            }
+            if (!lines) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+            monitor.addBytes(channel.position() - reported);
+            monitor.addRows(rows % REPORT_INTERVAL);
+        }
+    }
+
+    // Numbers and booleans are written without boxing; dates as ISO text
+    private static void writeValue(JsonGenerator generator, Column column, int row) throws IOException {
+        if (column == null || column.isNull(row)) {
+            generator.writeNull();
+        } else if (column instanceof DoubleColumn) {
+            generator.writeNumber(column.getDouble(row));
+        } else if (column instanceof TemporalColumn) {
+            generator.writeString(column.get(row).toString());
+        } else if (column instanceof LongColumn) {
+            generator.writeNumber(((LongColumn) column).getLong(row));
+        } else if (column instanceof BooleanColumn) {
+            generator.writeBoolean(((BooleanColumn) column).getBoolean(row));
+        } else {
+            Object value = column.get(row);
+            if (value instanceof String || value instanceof Temporal) {
+                generator.writeString(value.toString());
+            } else {
+                // Nested maps and lists from a JSON import are written back as JSON
+                generator.writeObject(value);
+            }
+        }
+    }
+}
@@ -1,20 +1,45 @@
 package org.example.courseworkManager;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 
 /**
  * Provides static methods to import data from a JSON file or JSON string
- * into a list of maps (rows with column-value pairs).
+ * into a list of maps (rows with column-value pairs), or streamed straight
+ * into a ColumnTable.
+ * Streaming reads Jackson's token stream one object at a time, so no tree of
+ * maps is ever built. Columns are added as new keys appear, in order of first
+ * appearance. Newline-delimited JSON (one object per line) is split into
+ * chunks of lines that are parsed in parallel and appended to the result in
+ * file order as they finish (see MultiFileImporter.Union), so that besides the
+ * result only the chunks in flight are held.
+ * Gzip or deflate compressed files are decompressed on a background thread
+ * while the parser reads.
+ * Progress is reported to a ProgressMonitor as objects are read, and a
+ * cancelled monitor stops the import with a CancellationException.
  */
 
 public class JsonImporter {
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory factory = mapper.getFactory();
+    // Bytes per chunk of newline-delimited JSON parsed on one thread
+    private static final long CHUNK_SIZE = 16L << 20;
+    // Objects read from an array between progress reports
+    private static final int REPORT_INTERVAL = 4096;
 
     public static List<Map<String, Object>> importJson(File file) throws IOException {
         return mapper.readValue(file, new TypeReference<List<Map<String, Object>>>() {
@@ -25,4 +50,295 @@ public class JsonImporter {
         return mapper.readValue(jsonContent, new TypeReference<List<Map<String, Object>>>() {
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams a JSON file into a table. The file may hold an array of objects or
+     * newline-delimited objects (.ndjson/.jsonl, or any file not starting with '[').
+     *
+     * @param storage where typed columns are created, or null for the heap
+     */
+    public static ColumnTable importTable(File file, MappedStorage storage) throws IOException {
+        return importTable(file, storage, ProgressMonitor.NONE);
+    }
+
+    public static ColumnTable importTable(File file, MappedStorage storage, ProgressMonitor monitor) throws IOException {
+        Compression compression = Compression.detect(file.toPath());
+        if (compression == Compression.NONE && !startsWithArray(file)) {
+            return importNdjson(file, storage, CHUNK_SIZE, monitor);
+        }
+        // Bytes are counted as they are read from disk, compressed or not
+        monitor.setTotalBytes(file.length());
+        try (PushbackInputStream in = new PushbackInputStream(compression.open(file.toPath(), monitor))) {
+            if (startsWithArray(in)) {
+                try (JsonParser parser = factory.createParser(in)) {
+                    return readArray(parser, storage, monitor, Integer.MAX_VALUE);
+                }
+            }
+            return readNdjson(in, storage, CHUNK_SIZE, monitor);
+        }
+    }
+
+    /**
+     * Reads only the first objects of the file, so that they can be shown
+     * while the whole file is imported.
+     */
+    public static ColumnTable importPreview(File file, int maxRows) throws IOException {
+        Compression compression = Compression.detect(file.toPath());
+        try (PushbackInputStream in = new PushbackInputStream(compression.open(file.toPath(), ProgressMonitor.NONE))) {
+            boolean array = startsWithArray(in);
+            try (JsonParser parser = factory.createParser(in)) {
+                if (array) {
+                    return readArray(parser, null, ProgressMonitor.NONE, maxRows);
+                }
+                ColumnTable table = new ColumnTable(List.of());
+                Map<String, Object> row = new LinkedHashMap<>();
+                while (table.rowCount() < maxRows && parser.nextToken() != null) {
+                    readObject(parser, row);
+                    table.appendRow(row);
+                }
+                return normalizeNumbers(table);
+            }
+        }
+    }
+
+    /**
+     * Streams a JSON string holding an array of objects into a table.
+     */
+    public static ColumnTable importTableString(String jsonContent) throws IOException {
+        try (JsonParser parser = factory.createParser(jsonContent)) {
+            return readArray(parser, null, ProgressMonitor.NONE, Integer.MAX_VALUE);
+        }
+    }
+
+    private static boolean startsWithArray(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return startsWithArray(new PushbackInputStream(in));
+        }
+    }
+
+    // Skips leading whitespace and any byte order mark, then puts back the first byte after them
+    private static boolean startsWithArray(PushbackInputStream in) throws IOException {
+        int b;
+        do {
+            b = in.read();
+        } while (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == 0xEF || b == 0xBB || b == 0xBF);
+        if (b >= 0) {
+            in.unread(b);
+        }
+        return b == '[';
+    }
+
+    // Reads up to maxRows objects of an array
+    private static ColumnTable readArray(JsonParser parser, MappedStorage storage, ProgressMonitor monitor,
+                                         int maxRows) throws IOException {
+        ColumnTable table = new ColumnTable(List.of(), storage);
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return table;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new IOException("Expected an array of objects at " + parser.getCurrentLocation());
+        }
+        // Keeps keys in document order, so new columns are added in the order they appear
+        Map<String, Object> row = new LinkedHashMap<>();
+        while (table.rowCount() < maxRows && (token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of JSON input");
+            }
+            readObject(parser, row);
+            table.appendRow(row);
+            if (table.rowCount() % REPORT_INTERVAL == 0) {
+                monitor.checkCancelled();
+                monitor.addRows(REPORT_INTERVAL);
+            }
+        }
+        monitor.addRows(table.rowCount() % REPORT_INTERVAL);
+        monitor.checkCancelled();
+        return normalizeNumbers(table);
+    }
+
+    // Newline-delimited JSON: chunks of whole lines are parsed in parallel and appended in file order
+    static ColumnTable importNdjson(File file, MappedStorage storage, long chunkSize) throws IOException {
+        return importNdjson(file, storage, chunkSize, ProgressMonitor.NONE);
+    }
+
+    static ColumnTable importNdjson(File file, MappedStorage storage, long chunkSize,
+                                    ProgressMonitor monitor) throws IOException {
+        monitor.setTotalBytes(file.length());
+        Compression compression = Compression.detect(file.toPath());
+        if (compression != Compression.NONE) {
+            try (InputStream in = compression.open(file.toPath(), monitor)) {
+                return readNdjson(in, storage, chunkSize, monitor);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] starting = splitLines(channel, chunkSize);
+            MultiFileImporter.Union union = new MultiFileImporter.Union(storage);
+            int[] next = {0};
+            StreamChunker.ChunkSource chunks = () -> {
+                if (next[0] == starting.length - 1) {
+                    return null;
+                }
+                int i = next[0]++;
+                return channel.map(FileChannel.MapMode.READ_ONLY, starting[i], starting[i + 1] - starting[i]);
+            };
+            StreamChunker.forEachInOrder(chunks, bytes -> {
+                monitor.checkCancelled();
+                ColumnTable chunk = readLines(bytes);
+                monitor.addRows(chunk.rowCount());
+                monitor.addBytes(bytes.limit());
+                return chunk;
+            }, union::add, monitor);
+            return joined(union, monitor);
+        }
+    }
+
+    // Newline-delimited JSON from a stream that cannot be mapped, cut into chunks as it is read
+    private static ColumnTable readNdjson(InputStream in, MappedStorage storage, long chunkSize,
+                                         ProgressMonitor monitor) throws IOException {
+        try (StreamChunker chunker = new StreamChunker(in, chunkSize, false)) {
+            MultiFileImporter.Union union = new MultiFileImporter.Union(storage);
+            StreamChunker.forEachInOrder(chunker::next, bytes -> {
+                monitor.checkCancelled();
+                ColumnTable chunk = readLines(bytes);
+                monitor.addRows(chunk.rowCount());
+                return chunk;
+            }, union::add, monitor);
+            return joined(union, monitor);
+        }
+    }
+
+    // The table of the chunks, each added to the union in file order as soon as it was parsed
+    private static ColumnTable joined(MultiFileImporter.Union union, ProgressMonitor monitor) {
+        monitor.checkCancelled();
+        return normalizeNumbers(union.result());
+    }
+
+    // Chunk boundaries of about chunkSize bytes, each just after a line break
+    private static long[] splitLines(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long end = Math.min(size, position + (1 << 20));
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+            int i = 0;
+            while (i < bytes.limit() && bytes.get(i) != '\n') {
+                i++;
+            }
+            if (i == bytes.limit()) {
+                // No line break yet; keep looking in the next window
+                position = end;
+                continue;
+            }
+            long boundary = position + i + 1;
+            if (boundary < size) {
+                boundaries.add(boundary);
+            }
+            position = boundary + chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static ColumnTable readLines(ByteBuffer lines) {
+        try {
+            byte[] bytes;
+            int offset = 0;
+            if (lines.hasArray()) {
+                bytes = lines.array();
+                offset = lines.arrayOffset() + lines.position();
+            } else {
+                bytes = new byte[lines.remaining()];
+                lines.duplicate().get(bytes);
+            }
+            ColumnTable table = new ColumnTable(List.of());
+            Map<String, Object> row = new LinkedHashMap<>();
+            try (JsonParser parser = factory.createParser(bytes, offset, lines.remaining())) {
+                // Jackson reads a sequence of root-level values separated by whitespace
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IOException("Expected one object per line at " + parser.getCurrentLocation());
+                    }
+                    readObject(parser, row);
+                    table.appendRow(row);
+                }
+            }
+            return normalizeNumbers(table);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Reads the fields of the object the parser is at into the (cleared) row
+    private static void readObject(JsonParser parser, Map<String, Object> row) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an object at " + parser.getCurrentLocation());
+        }
+        row.clear();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            row.put(name, readValue(parser));
+        }
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                // All integers become longs, so that a column does not mix Integer and Long
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? parser.getBigIntegerValue() : (Object) parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NULL:
+                return null;
+            default:
+                // Nested objects and arrays are kept as maps and lists
+                return mapper.readValue(parser, Object.class);
+        }
+    }
+
+    // A column holding both integers and decimals is stored as doubles instead of mixed objects
+    private static ColumnTable normalizeNumbers(ColumnTable table) {
+        List<Column> columns = new ArrayList<>();
+        boolean changed = false;
+        for (int i = 0; i < table.columnCount(); i++) {
+            Column column = table.column(i);
+            if (column instanceof ObjectColumn && onlyLongsAndDoubles(column)) {
+                Column doubles = table.getStorage() != null
+                        ? new MappedDoubleColumn(table.getStorage(), column.size()) : new DoubleColumn(column.size());
+                for (int row = 0; row < column.size(); row++) {
+                    Object value = column.get(row);
+                    doubles.append(value != null ? (Object) ((Number) value).doubleValue() : null);
+                }
+                column = doubles;
+                changed = true;
+            }
+            columns.add(column);
+        }
+        return changed ? ColumnTable.fromColumns(table.getColumnNames(), columns, table.getStorage()) : table;
+    }
+
+    private static boolean onlyLongsAndDoubles(Column column) {
+        boolean any = false;
+        for (int row = 0; row < column.size(); row++) {
+            Object value = column.get(row);
+            if (value != null) {
+                if (!(value instanceof Long) && !(value instanceof Double)) {
+                    return false;
+                }
+                any = true;
+            }
+        }
+        return any;
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Column of integral values stored as longs.
+ * Remembers the boxed type it was built from (Integer, Long, ...)
+ * so that values read back compare equal to the originals.
+ * Subclasses may keep the values elsewhere by overriding the storage hooks.
+ */
+public class LongColumn extends Column {
+    private final Class<?> boxType;
+    private long[] values;
+
+    public LongColumn(Class<?> boxType, int capacity) {
+        super(capacity);
+        this.boxType = boxType;
+        values = new long[capacity];
+    }
+
+    // For subclasses whose values were loaded elsewhere, see Column(Bitmap, int)
+    protected LongColumn(Class<?> boxType, Bitmap validity, int size) {
+        super(validity, size);
+        this.boxType = boxType;
+        values = new long[0];
+    }
+
+    @Override
+    public Class<?> getType() {
+        return boxType;
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        if (!validity.get(row)) {
+            return null;
+        }
+        long value = valueAt(row);
+        if (boxType == Integer.class) {
+            return (int) value;
+        } else if (boxType == Short.class) {
+            return (short) value;
+        } else if (boxType == Byte.class) {
+            return (byte) value;
+        }
+        return value;
+    }
+
+    public long getLong(int row) {
+        checkRow(row);
+        return valueAt(row);
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        checkRow(row);
+        return validity.get(row) ? valueAt(row) : Double.NaN;
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value.getClass() == boxType;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        if (value == null) {
+            storeValue(row, 0);
+            setValid(row, false);
+        } else {
+            setLong(row, ((Number) value).longValue());
+        }
+    }
+
+    public void setLong(int row, long value) {
+        checkRow(row);
+        storeValue(row, value);
+        setValid(row, true);
+    }
+
+    @Override
+    public void append(Object value) {
+        ensureCapacity(size + 1);
+        set(newRow(), value);
+    }
+
+    public void appendLong(long value) {
+        ensureCapacity(size + 1);
+        setLong(newRow(), value);
+    }
+
+    @Override
+    public void appendAll(Column other) {
+        if (!(other instanceof LongColumn) || other.getType() != boxType) {
+            super.appendAll(other);
+            return;
+        }
+        LongColumn longs = (LongColumn) other;
+        ensureCapacity(size + other.size());
+        for (int row = 0; row < other.size(); row++) {
+            int target = newRow();
+            storeValue(target, longs.valueAt(row));
+            if (!longs.isNull(row)) {
+                setValid(target, true);
+            }
+        }
+    }
+
+    protected long valueAt(int row) {
+        return values[row];
+    }
+
+    protected void storeValue(int row, long value) {
+        values[row] = value;
+    }
+
+    protected void ensureCapacity(int needed) {
+        if (needed > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, needed));
+            validity.ensureCapacity(values.length);
+        }
+    }
+
+    // Creates an empty column with the same kind of storage
+    protected LongColumn newColumn(int capacity) {
+        return new LongColumn(boxType, capacity);
+    }
+
+    @Override
+    public boolean valueEquals(int rowA, int rowB) {
+        return isNull(rowA) == isNull(rowB) && valueAt(rowA) == valueAt(rowB);
+    }
+
+    @Override
+    public int valueHash(int row) {
+        return Long.hashCode(valueAt(row));
+    }
+
+    /**
+     * Returns the rows whose value lies in [lower, upper] as a bitmap, testing
+     * 64 rows per word without boxing. Empty cells never match.
+     */
+    Bitmap matchRange(long lower, long upper) {
+        long[] words = new long[(size + 63) >>> 6];
+        for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int bit = 0; bit < end; bit++) {
+                long value = valueAt(base + bit);
+                bits |= (value >= lower & value <= upper ? 1L : 0L) << bit;
+            }
+            words[word] = bits & validity.word(word);
+        }
+        return Bitmap.wrap(words);
+    }
+
+    /**
+     * Returns the rows whose value is one of the given ones, which must be sorted.
+     */
+    Bitmap matchAny(long[] sorted) {
+        long[] words = new long[(size + 63) >>> 6];
+        for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int bit = 0; bit < end; bit++) {
+                bits |= (Arrays.binarySearch(sorted, valueAt(base + bit)) >= 0 ? 1L : 0L) << bit;
+            }
+            words[word] = bits & validity.word(word);
+        }
+        return Bitmap.wrap(words);
+    }
+
+    @Override
+    public LongColumn select(int[] rows) {
+        LongColumn result = newColumn(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            result.storeValue(i, valueAt(rows[i]));
+        }
+        return selectValidity(result, rows);
+    }
+
+    @Override
+    public LongColumn copy() {
+        LongColumn result = newColumn(size);
+        for (int row = 0; row < size; row++) {
+            result.storeValue(row, valueAt(row));
+        }
+        return copyValidity(result);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 16L + 8L * values.length + validity.memoryUsage();
+    }
+}
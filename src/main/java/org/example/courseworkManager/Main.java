@@ -68,17 +68,40 @@ public class Main extends Application {
         Menu fileMenu = new Menu("File");
         MenuItem importItem = new MenuItem("Import Data...");
         importItem.setOnAction(e -> DataImporter.importData(dataModel));
+        // One import at a time; a browsed file can be replaced by another
+        importItem.disableProperty().bind(dataModel.loadingProperty().and(dataModel.browsingProperty().not()));
+        MenuItem importMatchingItem = new MenuItem("Import Files Matching...");
+        importMatchingItem.setOnAction(e -> DataImporter.importMatching(dataModel));
+        importMatchingItem.disableProperty().bind(importItem.disableProperty());
+        MenuItem browseItem = new MenuItem("Browse CSV...");
+        browseItem.setOnAction(e -> DataImporter.browseData(dataModel));
+        browseItem.disableProperty().bind(importItem.disableProperty());
+        // Following adds the records appended to a CSV file as rows, until stopped
+        MenuItem followItem = new MenuItem("Follow CSV...");
+        followItem.setOnAction(e -> DataImporter.followData(dataModel));
+        followItem.disableProperty().bind(importItem.disableProperty());
+        MenuItem stopFollowingItem = new MenuItem("Stop Following");
+        stopFollowingItem.setOnAction(e -> dataModel.stopFollowing());
+        stopFollowingItem.disableProperty().bind(dataModel.followingProperty().not());
         MenuItem exportItem = new MenuItem("Export Data...");
         exportItem.setOnAction(e -> DataExporter.exportData(dataModel));
+        // Disk-backed mode keeps imported columns in memory-mapped scratch files
+        CheckMenuItem diskBackedItem = new CheckMenuItem("Disk-Backed Storage");
+        diskBackedItem.setSelected(AppConfig.getInstance().isDiskBacked());
+        diskBackedItem.setOnAction(e -> AppConfig.getInstance().setDiskBacked(diskBackedItem.isSelected()));
         MenuItem exitItem = new MenuItem("Exit");
         exitItem.setOnAction(e -> System.exit(0));
-        fileMenu.getItems().addAll(importItem, exportItem, new SeparatorMenuItem(), exitItem);
+        fileMenu.getItems().addAll(importItem, importMatchingItem, browseItem, followItem, stopFollowingItem,
+                exportItem, new SeparatorMenuItem(), diskBackedItem, new SeparatorMenuItem(), exitItem);
 
         // Edit Menu - clear data from app
         Menu editMenu = new Menu("Edit");
         MenuItem clearItem = new MenuItem("Clear Data");
         clearItem.setOnAction(e -> dataModel.clearData());
-        editMenu.getItems().add(clearItem);
+        clearItem.disableProperty().bind(dataModel.loadingProperty());
+        MenuItem historyBudgetItem = new MenuItem("History Memory Budget...");
+        historyBudgetItem.setOnAction(e -> showHistoryBudgetDialog());
+        editMenu.getItems().addAll(clearItem, historyBudgetItem);
 
         // Help Menu
         Menu helpMenu = new Menu("Help");
@@ -186,6 +209,27 @@ public class Main extends Application {
         });
     }
 
+    /**
+     * Lets the user set how much undo history is kept in memory before it spills to disk.
+     */
+    private void showHistoryBudgetDialog() {
+        TextInputDialog dialog = new TextInputDialog(
+                String.valueOf(AppConfig.getInstance().getHistoryBudgetMegabytes()));
+        dialog.setTitle("History Memory Budget");
+        dialog.setHeaderText("Megabytes of undo history to keep in memory");
+
+        Optional<String> result = dialog.showAndWait();
+        result.ifPresent(value -> {
+            try {
+                int megabytes = Integer.parseInt(value.trim());
+                AppConfig.getInstance().setHistoryBudgetMegabytes(megabytes);
+                dataModel.getHistory().setMemoryBudget(megabytes * 1024L * 1024L);
+            } catch (NumberFormatException ex) {
+                showError("Invalid number format");
+            }
+        });
+    }
+
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -0,0 +1,120 @@
+package org.example.courseworkManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Fixed-width element storage in a scratch file, mapped into memory in
+ * segments as it grows. Pages are loaded by the OS on demand, so the data
+ * does not count against the Java heap.
+ * mapReadOnly() instead maps elements already stored in a file, such as a
+ * saved dataset; such a buffer cannot grow or be written.
+ */
+class MappedBuffer {
+    // Each mapping covers 64 MB; element sizes are powers of two so no element spans two segments
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final int elementShift;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long capacity;
+    private boolean readOnly;
+
+    /**
+     * @param elementShift log2 of the element size in bytes (2 for int, 3 for long/double)
+     */
+    MappedBuffer(FileChannel channel, int elementShift) {
+        this.channel = channel;
+        this.elementShift = elementShift;
+    }
+
+    /**
+     * Maps the given number of little-endian elements stored in the file from the
+     * given byte position. The mapping stays valid after the channel is closed.
+     */
+    static MappedBuffer mapReadOnly(FileChannel channel, long position, long elements,
+                                    int elementShift) throws IOException {
+        MappedBuffer buffer = new MappedBuffer(null, elementShift);
+        long length = elements << elementShift;
+        int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        buffer.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(1L << SEGMENT_SHIFT, length - offset));
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.segments[i] = segment;
+        }
+        buffer.capacity = elements;
+        buffer.readOnly = true;
+        return buffer;
+    }
+
+    boolean isReadOnly() {
+        return readOnly;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Maps further segments until the given number of elements fit.
+     */
+    void ensureCapacity(long elements) {
+        if (readOnly && capacity < elements) {
+            throw new UnsupportedOperationException("A read-only mapping cannot grow");
+        }
+        while (capacity < elements) {
+            long position = (long) segments.length << SEGMENT_SHIFT;
+            try {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, position, 1L << SEGMENT_SHIFT);
+                segment.order(ByteOrder.nativeOrder());
+                segments = Arrays.copyOf(segments, segments.length + 1);
+                segments[segments.length - 1] = segment;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map scratch storage", e);
+            }
+            capacity += 1L << (SEGMENT_SHIFT - elementShift);
+        }
+    }
+
+    long diskUsage() {
+        return (long) segments.length << SEGMENT_SHIFT;
+    }
+
+    double getDouble(long index) {
+        long offset = index << elementShift;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) (offset & SEGMENT_MASK));
+    }
+
+    void putDouble(long index, double value) {
+        long offset = index << elementShift;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putDouble((int) (offset & SEGMENT_MASK), value);
+    }
+
+    long getLong(long index) {
+        long offset = index << elementShift;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+
+    void putLong(long index, long value) {
+        long offset = index << elementShift;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & SEGMENT_MASK), value);
+    }
+
+    int getInt(long index) {
+        long offset = index << elementShift;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+    }
+
+    void putInt(long index, int value) {
+        long offset = index << elementShift;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putInt((int) (offset & SEGMENT_MASK), value);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.courseworkManager;
+
+/**
+ * DictionaryColumn whose codes live in a memory-mapped scratch file,
+ * or in a read-only mapping of a saved dataset (see DsmFile).
+ * The dictionary itself stays on the heap.
+ */
+public class MappedDictionaryColumn extends DictionaryColumn {
+    private final MappedStorage storage;
+    private final MappedBuffer codes;
+
+    public MappedDictionaryColumn(MappedStorage storage, StringDictionary dictionary, int capacity) {
+        super(dictionary, 0);
+        this.storage = storage;
+        codes = storage.allocate(2);
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Wraps codes mapped from a file. Copies are made in the given storage,
+     * or on the heap if it is null.
+     */
+    public MappedDictionaryColumn(MappedStorage storage, StringDictionary dictionary, MappedBuffer codes,
+                                  Bitmap validity, int size) {
+        super(dictionary, validity, size);
+        this.storage = storage;
+        this.codes = codes;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return codes.isReadOnly();
+    }
+
+    @Override
+    protected int codeAt(int row) {
+        return codes.getInt(row);
+    }
+
+    @Override
+    protected void storeCode(int row, int code) {
+        codes.putInt(row, code);
+    }
+
+    @Override
+    protected void ensureCapacity(int needed) {
+        codes.ensureCapacity(needed);
+        validity.ensureCapacity(needed);
+    }
+
+    @Override
+    protected DictionaryColumn newColumn(int capacity) {
+        return storage != null ? new MappedDictionaryColumn(storage, getDictionary(), capacity)
+                : new DictionaryColumn(getDictionary(), capacity);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 64L + validity.memoryUsage() + getDictionary().memoryUsage();
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.courseworkManager;
+
+/**
+ * DoubleColumn whose values live in a memory-mapped scratch file,
+ * or in a read-only mapping of a saved dataset (see DsmFile).
+ */
+public class MappedDoubleColumn extends DoubleColumn {
+    private final MappedStorage storage;
+    private final MappedBuffer values;
+
+    public MappedDoubleColumn(MappedStorage storage, int capacity) {
+        super(0);
+        this.storage = storage;
+        values = storage.allocate(3);
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Wraps values mapped from a file. Copies are made in the given storage,
+     * or on the heap if it is null.
+     */
+    public MappedDoubleColumn(MappedStorage storage, MappedBuffer values, Bitmap validity, int size) {
+        super(validity, size);
+        this.storage = storage;
+        this.values = values;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return values.isReadOnly();
+    }
+
+    @Override
+    protected double valueAt(int row) {
+        return values.getDouble(row);
+    }
+
+    @Override
+    protected void storeValue(int row, double value) {
+        values.putDouble(row, value);
+    }
+
+    @Override
+    protected void ensureCapacity(int needed) {
+        values.ensureCapacity(needed);
+        validity.ensureCapacity(needed);
+    }
+
+    @Override
+    protected DoubleColumn newColumn(int capacity) {
+        return storage != null ? new MappedDoubleColumn(storage, capacity) : new DoubleColumn(capacity);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 64L + validity.memoryUsage();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.courseworkManager;
+
+/**
+ * LongColumn whose values live in a memory-mapped scratch file,
+ * or in a read-only mapping of a saved dataset (see DsmFile).
+ */
+public class MappedLongColumn extends LongColumn {
+    private final MappedStorage storage;
+    private final MappedBuffer values;
+
+    public MappedLongColumn(MappedStorage storage, Class<?> boxType, int capacity) {
+        super(boxType, 0);
+        this.storage = storage;
+        values = storage.allocate(3);
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Wraps values mapped from a file. Copies are made in the given storage,
+     * or on the heap if it is null.
+     */
+    public MappedLongColumn(MappedStorage storage, Class<?> boxType, MappedBuffer values, Bitmap validity,
+                            int size) {
+        super(boxType, validity, size);
+        this.storage = storage;
+        this.values = values;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return values.isReadOnly();
+    }
+
+    @Override
+    protected long valueAt(int row) {
+        return values.getLong(row);
+    }
+
+    @Override
+    protected void storeValue(int row, long value) {
+        values.putLong(row, value);
+    }
+
+    @Override
+    protected void ensureCapacity(int needed) {
+        values.ensureCapacity(needed);
+        validity.ensureCapacity(needed);
+    }
+
+    @Override
+    protected LongColumn newColumn(int capacity) {
+        return storage != null ? new MappedLongColumn(storage, getType(), capacity)
+                : new LongColumn(getType(), capacity);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 64L + validity.memoryUsage();
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.courseworkManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Creates disk-backed columns whose values live in memory-mapped scratch files.
+ * Used by DataModel in disk-backed mode so that datasets larger than the heap
+ * can be opened; only validity bitmaps and dictionaries stay on the heap.
+ * Scratch files are deleted when their column is garbage collected.
+ */
+public class MappedStorage {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Path directory;
+
+    public MappedStorage(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Creates an empty column suited to the value, like Column.forValue, but with
+     * numeric values and dictionary codes kept in mapped files.
+     */
+    public Column columnFor(Object value, int capacity) {
+        if (value instanceof Double) {
+            return new MappedDoubleColumn(this, capacity);
+        } else if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            return new MappedLongColumn(this, value.getClass(), capacity);
+        } else if (value instanceof String) {
+            return new MappedDictionaryColumn(this, new StringDictionary(), capacity);
+        }
+        return Column.forValue(value, capacity);
+    }
+
+    /**
+     * Opens a new scratch file for elements of 2^elementShift bytes.
+     */
+    MappedBuffer allocate(int elementShift) {
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "column-", ".bin");
+            // DELETE_ON_CLOSE unlinks the file as soon as the channel (or the JVM) goes away
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            MappedBuffer buffer = new MappedBuffer(channel, elementShift);
+            CLEANER.register(buffer, () -> closeQuietly(channel));
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create scratch file in " + directory, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to do for a scratch file
+        }
+    }
+}
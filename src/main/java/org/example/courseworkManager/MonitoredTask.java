@@ -0,0 +1,23 @@
+package org.example.courseworkManager;
+
+import javafx.concurrent.Task;
+
+/**
+ * A background task whose work is tracked by a ProgressMonitor. The monitor's
+ * progress and description are shown through the task's progress and message
+ * properties, and cancelling the task cancels the monitor.
+ */
+public abstract class MonitoredTask<T> extends Task<T> {
+    protected final ProgressMonitor monitor = new ProgressMonitor(progress -> {
+        double fraction = progress.getProgress();
+        updateProgress(fraction >= 0 ? fraction : -1, 1);
+        updateMessage(progress.describe());
+    });
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // Importers and exporters stop at their next check rather than on interrupt
+        monitor.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+}
@@ -0,0 +1,259 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Imports many files, e.g. daily partitions of one dataset, into one table.
+ * The files are read in parallel on a pool with one thread per core, each by
+ * the importer for its format, a few files ahead of the one being joined; each
+ * file is added to the result in file order as soon as it is read, and dropped.
+ * Their columns are matched by name: the result has every column of every file,
+ * in order of first appearance, typed as the widest of its types in the files
+ * (see ColumnType.widen). Rows of files without a column are empty in it. Rows
+ * keep the order of the files.
+ */
+public class MultiFileImporter {
+    // Name of the optional column holding each row's file name; a suffix is added if it is taken
+    public static final String SOURCE_COLUMN = "source_file";
+
+    public static ColumnTable importFiles(List<File> files, boolean sourceColumn, MappedStorage storage,
+                                          ProgressMonitor monitor) throws IOException {
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        monitor.setTotalBytes(totalBytes);
+
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "import files");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Union union = new Union(storage);
+        try {
+            // Files are read onto the heap a few ahead, and each is added to the union in file order
+            // as soon as it and the files before it are read, then dropped
+            ArrayDeque<Future<ColumnTable>> reading = new ArrayDeque<>();
+            int next = 0;
+            for (File file : files) {
+                while (next < files.size() && reading.size() < threads) {
+                    reading.add(pool.submit(readTask(files.get(next++), monitor)));
+                }
+                ColumnTable table = result(reading.removeFirst(), file);
+                monitor.checkCancelled();
+                union.add(table, sourceColumn ? file.getName() : null);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        monitor.checkCancelled();
+        return union.result();
+    }
+
+    private static Callable<ColumnTable> readTask(File file, ProgressMonitor monitor) {
+        return () -> {
+            monitor.checkCancelled();
+            // Each importer reports to its own monitor, which passes on a cancellation
+            ProgressMonitor fileMonitor = new ProgressMonitor(progress -> {
+                if (monitor.isCancelled()) {
+                    progress.cancel();
+                }
+            });
+            // Read onto the heap; the union copies the columns into the storage
+            ColumnTable table = importFile(file, null, fileMonitor);
+            monitor.addRows(table.rowCount());
+            monitor.addBytes(file.length());
+            return table;
+        };
+    }
+
+    // The table of a finished file, with its failure rethrown as an IOException naming it
+    private static ColumnTable result(Future<ColumnTable> future, File file) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while importing " + file.getName());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CancellationException) {
+                throw (CancellationException) cause;
+            }
+            throw new IOException(file.getName() + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Imports one file by the format its name gives, without any .gz or .deflate suffix.
+     */
+    public static ColumnTable importFile(File file, MappedStorage storage, ProgressMonitor monitor) throws IOException {
+        String name = Compression.stripSuffix(file.getName().toLowerCase());
+        boolean compressed = !name.equals(file.getName().toLowerCase());
+        boolean arrow = name.endsWith(".arrows") || name.endsWith(".arrow") || name.endsWith(".feather");
+        if ((name.endsWith(".dsm") || arrow) && compressed) {
+            throw new IOException("Saved datasets and Arrow files are mapped from disk and cannot be compressed");
+        } else if (name.endsWith(".dsm")) {
+            return DsmFile.read(file, storage);
+        } else if (arrow) {
+            return ArrowStream.read(file, storage, monitor);
+        } else if (name.endsWith(".csv")) {
+            return CsvImporter.importCsv(file, storage, monitor);
+        }
+        return JsonImporter.importTable(file, storage, monitor);
+    }
+
+    /**
+     * Joins tables by column name one at a time, in order, so that each can be
+     * dropped as soon as it is added, e.g. a file or chunk just read. The result
+     * is kept in the storage if one is given. Its columns are typed as the widest
+     * of their types so far; a column is copied when a later table widens it.
+     */
+    static final class Union {
+        private final MappedStorage storage;
+        // Columns in order of first appearance, with their type; null while they only have empty cells
+        private final Map<String, ColumnType> types = new LinkedHashMap<>();
+        private final Map<String, Column> columns = new HashMap<>();
+        // The source name of every row, if the tables were added with one
+        private Column sources;
+        private int rows;
+
+        Union(MappedStorage storage) {
+            this.storage = storage;
+        }
+
+        void add(ColumnTable table) {
+            add(table, null);
+        }
+
+        /**
+         * Appends the rows of the table, with the given name in the source column
+         * unless it is null. Columns are appended in parallel.
+         */
+        void add(ColumnTable table, String source) {
+            int added = table.rowCount();
+            List<String> names = table.getColumnNames();
+            ColumnType[] widened = new ColumnType[names.size()];
+            Column[] appended = new Column[names.size()];
+            IntStream.range(0, names.size()).parallel().forEach(i -> {
+                String name = names.get(i);
+                Column part = table.column(name);
+                ColumnType known = types.get(name);
+                ColumnType type = ColumnType.widen(known, typeOf(part));
+                ColumnType target = type != null ? type : ColumnType.STRING;
+                Column column = columns.get(name);
+                if (column == null) {
+                    column = target.newColumn(Math.max(rows + added, 16), storage);
+                    appendNulls(column, rows);
+                } else if (type != known) {
+                    column = target.concat(List.of(column), storage);
+                }
+                widened[i] = type;
+                appended[i] = target.append(column, part);
+            });
+            for (int i = 0; i < names.size(); i++) {
+                types.put(names.get(i), widened[i]);
+                columns.put(names.get(i), appended[i]);
+            }
+            for (Map.Entry<String, Column> column : columns.entrySet()) {
+                if (!table.hasColumn(column.getKey())) {
+                    appendNulls(column.getValue(), added);
+                }
+            }
+            if (source != null) {
+                if (sources == null) {
+                    sources = ColumnType.STRING.newColumn(Math.max(added, 16), storage);
+                }
+                for (int row = 0; row < added; row++) {
+                    if (!sources.accepts(source)) {
+                        sources = ObjectColumn.copyOf(sources);
+                    }
+                    sources.append(source);
+                }
+            }
+            rows += added;
+        }
+
+        ColumnTable result() {
+            List<String> names = new ArrayList<>(types.keySet());
+            List<Column> result = new ArrayList<>(names.size() + 1);
+            for (String name : names) {
+                result.add(columns.get(name));
+            }
+            if (sources != null) {
+                String name = SOURCE_COLUMN;
+                for (int suffix = 2; types.containsKey(name); suffix++) {
+                    name = SOURCE_COLUMN + "_" + suffix;
+                }
+                names.add(name);
+                result.add(sources);
+            }
+            ColumnTable table = ColumnTable.fromColumns(names, result, storage);
+            if (result.isEmpty()) {
+                table.setRowCount(rows);
+            }
+            return table;
+        }
+
+        private static void appendNulls(Column column, int count) {
+            for (int row = 0; row < count; row++) {
+                column.append(null);
+            }
+        }
+    }
+
+    // The type the column was imported as, or null if it only has empty cells
+    private static ColumnType typeOf(Column column) {
+        if (column.nullCount() == column.size()) {
+            return null;
+        }
+        if (column instanceof DoubleColumn) {
+            return ColumnType.DOUBLE;
+        } else if (column instanceof TemporalColumn) {
+            return column.getType() == LocalDateTime.class ? ColumnType.DATE_TIME : ColumnType.DATE;
+        } else if (column instanceof LongColumn) {
+            return ColumnType.LONG;
+        } else if (column instanceof BooleanColumn) {
+            return ColumnType.BOOLEAN;
+        }
+        // Text, or values of different types, which end up in an ObjectColumn
+        return ColumnType.STRING;
+    }
+
+    /**
+     * Lists the files matching a glob pattern such as /data/2024-*&#47;part-*.csv,
+     * sorted by path. Directories before the first wildcard are searched from.
+     */
+    public static List<File> expandGlob(String pattern) throws IOException {
+        Path path = Paths.get(pattern).toAbsolutePath();
+        Path base = path.getRoot();
+        int depth = 0;
+        for (Path part : path) {
+            if (part.toString().matches(".*[*?\\[\\]{}].*")) {
+                break;
+            }
+            base = base.resolve(part);
+            depth++;
+        }
+        if (depth == path.getNameCount()) {
+            // No wildcards: the pattern names one file
+            return Files.isRegularFile(path) ? List.of(path.toFile()) : List.of();
+        }
+        PathMatcher matcher = path.getFileSystem().getPathMatcher(
+                "glob:" + path.toString().replace("\\", "\\\\"));
+        try (Stream<Path> paths = Files.walk(base, path.getNameCount() - depth)) {
+            return paths.filter(Files::isRegularFile).filter(matcher::matches).sorted()
+                    .map(Path::toFile).collect(Collectors.toList());
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+    }
+}
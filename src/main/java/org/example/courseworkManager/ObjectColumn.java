@@ -0,0 +1,82 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Fallback column holding arbitrary objects, used for text and for
+ * columns whose values do not share a single primitive type.
+ */
+public class ObjectColumn extends Column {
+    private Object[] values;
+
+    public ObjectColumn(int capacity) {
+        super(capacity);
+        values = new Object[capacity];
+    }
+
+    /**
+     * Copies any column into an ObjectColumn, e.g. when a text value is
+     * written into a numeric column.
+     */
+    public static ObjectColumn copyOf(Column column) {
+        ObjectColumn result = new ObjectColumn(column.size());
+        for (int row = 0; row < column.size(); row++) {
+            result.append(column.get(row));
+        }
+        return result;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Object.class;
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return true;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        values[row] = value;
+        setValid(row, value != null);
+    }
+
+    @Override
+    public void append(Object value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grow(values.length, size + 1));
+            validity.ensureCapacity(values.length);
+        }
+        set(newRow(), value);
+    }
+
+    @Override
+    public ObjectColumn select(int[] rows) {
+        ObjectColumn result = new ObjectColumn(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            result.values[i] = values[rows[i]];
+        }
+        return selectValidity(result, rows);
+    }
+
+    @Override
+    public ObjectColumn copy() {
+        ObjectColumn result = new ObjectColumn(size);
+        System.arraycopy(values, 0, result.values, 0, size);
+        return copyValidity(result);
+    }
+
+    @Override
+    public long memoryUsage() {
+        // Counts the references only; the referenced objects may be shared
+        return 16L + 8L * values.length + validity.memoryUsage();
+    }
+}
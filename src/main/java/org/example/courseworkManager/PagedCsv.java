@@ -0,0 +1,300 @@
+package org.example.courseworkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A CSV file that is browsed rather than loaded. Opening it makes one
+ * sequential pass that records where every page of PAGE_ROWS records starts;
+ * a page is parsed only when one of its rows is read, e.g. when the TableView
+ * scrolls to it, and the most recently read pages are kept in a bounded LRU
+ * cache. Opening a large file therefore takes one read of it and memory for
+ * the page offsets only.
+ * Columns are typed from the first page. Cells of later pages that do not fit
+ * the type of their column are handed out as text.
+ * Compressed files cannot be browsed, as pages are read from where they start.
+ */
+public class PagedCsv {
+    static final int PAGE_ROWS = 1024;
+    // Pages kept parsed, least recently read first
+    private static final int CACHED_PAGES = 64;
+    // Bytes mapped at a time by the indexing pass
+    private static final long SCAN_WINDOW = 64L << 20;
+
+    private final Path file;
+    private final int pageRows;
+    private final List<String> headers;
+    private final List<ColumnType> types;
+    // Page i holds the records from byte pageStarts[i] to pageStarts[i + 1]
+    private final long[] pageStarts;
+    private final int rowCount;
+    private final Map<Integer, Column[]> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Column[]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    public static PagedCsv open(File file, ProgressMonitor monitor) throws IOException {
+        return open(file.toPath(), PAGE_ROWS, monitor);
+    }
+
+    // The page size is a parameter so that tests can use small files
+    static PagedCsv open(Path file, int pageRows, ProgressMonitor monitor) throws IOException {
+        if (Compression.detect(file) != Compression.NONE) {
+            throw new IOException("Compressed files cannot be browsed; import them instead");
+        }
+        return new PagedCsv(file, pageRows, monitor);
+    }
+
+    private PagedCsv(Path file, int pageRows, ProgressMonitor monitor) throws IOException {
+        this.file = file;
+        this.pageRows = pageRows;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CsvImporter.RecordReader reader = new CsvImporter.RecordReader(channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, Math.min(size, CsvImporter.HEADER_WINDOW)));
+            headers = CsvImporter.readHeader(reader);
+
+            // Counts records the way RecordReader reads them (see RecordScanner):
+            // line breaks inside quoted fields do not end a record, and blank lines are skipped
+            monitor.setTotalBytes(size);
+            long[] starts = new long[16];
+            starts[0] = reader.position();
+            int pages = 1;
+            long records = 0;
+            CsvImporter.RecordScanner scanner = new CsvImporter.RecordScanner(CsvImporter.RecordScanner.FIELD_START);
+            for (long position = reader.position(); position < size; position += SCAN_WINDOW) {
+                monitor.checkCancelled();
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SCAN_WINDOW, size - position));
+                for (int i = 0; i < bytes.limit(); i++) {
+                    if (scanner.next(bytes.get(i)) && !scanner.endedBlank() && ++records % pageRows == 0) {
+                        if (pages == starts.length) {
+                            starts = Arrays.copyOf(starts, pages * 2);
+                        }
+                        starts[pages++] = position + i + 1;
+                    }
+                }
+                monitor.addBytes(bytes.limit());
+            }
+            if (!scanner.isBlank()) {
+                records++;
+            }
+            if (records > Integer.MAX_VALUE) {
+                throw new IOException("Too many rows to browse: " + records);
+            }
+            rowCount = (int) records;
+            // The last page ends at the end of the file; a start recorded after the last record is dropped
+            int pageCount = (int) ((records + pageRows - 1) / pageRows);
+            pageStarts = Arrays.copyOf(starts, pageCount + 1);
+            pageStarts[pageCount] = size;
+            monitor.addRows(rowCount);
+        }
+        List<ColumnType[]> firstPage = rowCount > 0
+                ? Collections.singletonList(CsvImporter.classifyChunk(pageBytes(0), headers.size())) : List.of();
+        types = CsvImporter.mergeTypes(firstPage, headers.size());
+    }
+
+    public File getFile() {
+        return file.toFile();
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns a table over the file. Its columns are read-only, so changing the
+     * table first copies the changed column whole.
+     */
+    public ColumnTable getTable() {
+        List<Column> columns = new ArrayList<>(headers.size());
+        for (int c = 0; c < headers.size(); c++) {
+            columns.add(new PagedColumn(this, c));
+        }
+        ColumnTable table = ColumnTable.fromColumns(headers, columns, null);
+        // Without columns the row count cannot come from them
+        table.setRowCount(rowCount);
+        return table;
+    }
+
+    private ByteBuffer pageBytes(int page) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < pageStarts[pageStarts.length - 1]) {
+                throw new IOException(file.getFileName() + " has been changed since it was opened");
+            }
+            // The mapping stays valid once the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, pageStarts[page],
+                    pageStarts[page + 1] - pageStarts[page]);
+        }
+    }
+
+    // The parsed columns of the page holding the row, reading it if it is not cached
+    synchronized Column[] page(int row) {
+        int page = row / pageRows;
+        Column[] columns = cache.get(page);
+        if (columns == null) {
+            try {
+                columns = parsePage(pageBytes(page));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // The index counted records like the parser reads them, so only a changed file differs
+            int rows = Math.min(pageRows, rowCount - page * pageRows);
+            if (columns.length > 0 && columns[0].size() != rows) {
+                throw new UncheckedIOException(new IOException(
+                        file.getFileName() + " has been changed since it was opened"));
+            }
+            cache.put(page, columns);
+        }
+        return columns;
+    }
+
+    // Like a chunk of an import, but the types were not checked against these cells
+    private Column[] parsePage(ByteBuffer bytes) {
+        Column[] columns = new Column[types.size()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = types.get(c).newColumn(pageRows, null);
+        }
+        CsvImporter.RecordReader reader = new CsvImporter.RecordReader(bytes);
+        List<String> fields;
+        while ((fields = reader.readRecord()) != null) {
+            for (int c = 0; c < columns.length; c++) {
+                String text = c < fields.size() ? fields.get(c) : null;
+                ColumnType type = types.get(c);
+                if (ColumnType.widen(type, ValueParser.classify(text)) == type) {
+                    columns[c] = type.appendParsed(columns[c], text);
+                } else {
+                    if (!columns[c].accepts(text)) {
+                        columns[c] = ObjectColumn.copyOf(columns[c]);
+                    }
+                    columns[c].append(text);
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * One column of the file, read through the page cache.
+     */
+    static final class PagedColumn extends Column {
+        private final PagedCsv csv;
+        private final int index;
+        // Counted on first use, as it needs every page; -1 until then
+        private int counted = -1;
+
+        PagedColumn(PagedCsv csv, int index) {
+            super(new Bitmap(0), 0);
+            this.csv = csv;
+            this.index = index;
+            size = csv.rowCount;
+        }
+
+        private Column part(int row) {
+            checkRow(row);
+            return csv.page(row)[index];
+        }
+
+        @Override
+        public synchronized int nullCount() {
+            if (counted < 0) {
+                int count = 0;
+                for (int row = 0; row < size; row++) {
+                    if (isNull(row)) {
+                        count++;
+                    }
+                }
+                counted = count;
+            }
+            return counted;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return part(row).isNull(row % csv.pageRows);
+        }
+
+        @Override
+        Bitmap validRows() {
+            Bitmap rows = new Bitmap(size);
+            for (int row = 0; row < size; row++) {
+                rows.set(row, !isNull(row));
+            }
+            return rows;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return csv.types.get(index).getJavaType();
+        }
+
+        @Override
+        public Object get(int row) {
+            return part(row).get(row % csv.pageRows);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return part(row).getDouble(row % csv.pageRows);
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return false;
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            throw new UnsupportedOperationException("Browsed files cannot be changed");
+        }
+
+        @Override
+        public void append(Object value) {
+            throw new UnsupportedOperationException("Browsed files cannot be changed");
+        }
+
+        @Override
+        public Column select(int[] rows) {
+            Column result = csv.types.get(index).newColumn(Math.max(rows.length, 16), null);
+            for (int row : rows) {
+                Object value = get(row);
+                if (!result.accepts(value)) {
+                    result = ObjectColumn.copyOf(result);
+                }
+                result.append(value);
+            }
+            return result;
+        }
+
+        // Reads the whole column onto the heap
+        @Override
+        public Column copy() {
+            int[] rows = new int[size];
+            Arrays.setAll(rows, row -> row);
+            return select(rows);
+        }
+
+        @Override
+        public long memoryUsage() {
+            // The pages are shared by the columns and bounded by the cache
+            return 16L;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.courseworkManager;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+
+/**
+ * Non-modal dialog showing the progress and message of a background task,
+ * with a Cancel button. Used for long imports and exports.
+ */
+public class ProgressDialog extends Dialog<Void> {
+
+    public ProgressDialog(String title, String header, Task<?> task, Window owner) {
+        setTitle(title);
+        setHeaderText(header);
+        initModality(Modality.NONE);
+        if (owner != null) {
+            initOwner(owner);
+        }
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(400);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Label messageLabel = new Label();
+        messageLabel.textProperty().bind(task.messageProperty());
+        VBox content = new VBox(10, progressBar, messageLabel);
+        content.setPadding(new Insets(10));
+
+        getDialogPane().setContent(content);
+        getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        // Pressing Cancel or closing the window stops the task
+        setOnCloseRequest(e -> task.cancel());
+    }
+}
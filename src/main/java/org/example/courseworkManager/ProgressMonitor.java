@@ -0,0 +1,132 @@
+package org.example.courseworkManager;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of an import or export and lets it be cancelled.
+ * Importers and exporters report work as they go, possibly from several
+ * threads at once, and call checkCancelled() between chunks.
+ */
+public class ProgressMonitor {
+    // Does nothing and is never cancelled; used when the caller does not need progress
+    public static final ProgressMonitor NONE = new ProgressMonitor(null);
+
+    // Called after each report with the work done so far
+    public interface ProgressListener {
+        void progress(ProgressMonitor monitor);
+    }
+
+    private final ProgressListener listener;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private volatile long totalBytes;
+    private volatile long totalRows;
+    private volatile boolean cancelled;
+
+    public ProgressMonitor(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the number of bytes that will be processed in total. Importers that
+     * pass over the file more than once count every pass.
+     */
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Sets the number of rows that will be processed in total, for work whose
+     * size in bytes is not known up front, such as an export.
+     */
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public void addBytes(long count) {
+        bytes.addAndGet(count);
+        report();
+    }
+
+    public void addRows(long count) {
+        rows.addAndGet(count);
+        report();
+    }
+
+    private void report() {
+        if (listener != null) {
+            listener.progress(this);
+        }
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    // Fraction of the bytes (or else rows) processed, or -1 if neither total is known
+    public double getProgress() {
+        long total = totalBytes;
+        if (total > 0) {
+            return Math.min(1.0, (double) bytes.get() / total);
+        }
+        total = totalRows;
+        return total > 0 ? Math.min(1.0, (double) rows.get() / total) : -1;
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    public double getBytesPerSecond() {
+        return bytes.get() / Math.max(getElapsedSeconds(), 1e-3);
+    }
+
+    public double getRowsPerSecond() {
+        return rows.get() / Math.max(getElapsedSeconds(), 1e-3);
+    }
+
+    /**
+     * Describes the work done so far, e.g.
+     * "12.0 of 48.0 MB (95.3 MB/s), 1,204,331 rows (980,000 rows/s)".
+     */
+    public String describe() {
+        String size = totalBytes > 0
+                ? String.format("%.1f of %.1f MB", bytes.get() / 1048576.0, totalBytes / 1048576.0)
+                : String.format("%.1f MB", bytes.get() / 1048576.0);
+        return String.format("%s (%.1f MB/s), %,d rows (%,.0f rows/s)",
+                size, getBytesPerSecond() / 1048576.0, rows.get(), getRowsPerSecond());
+    }
+
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws CancellationException if the work was cancelled.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.courseworkManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads another stream on a background thread, a few blocks ahead of the consumer.
+ * Wrapped around a decompressing stream it lets decompression run on its own
+ * core while the consumer parses what has already been decompressed.
+ */
+class ReadAheadInputStream extends InputStream {
+    private static final int BLOCK_SIZE = 1 << 20;
+    // Blocks read ahead before the reader thread waits for the consumer
+    private static final int BLOCKS_AHEAD = 4;
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(BLOCKS_AHEAD);
+    private final Thread reader;
+    // Set by the reader thread when the source fails; rethrown to the consumer
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private byte[] block;
+    private int position;
+
+    ReadAheadInputStream(InputStream source, String threadName) {
+        this.source = source;
+        reader = new Thread(this::readAhead, threadName);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readAhead() {
+        try {
+            try {
+                byte[] next;
+                do {
+                    next = source.readNBytes(BLOCK_SIZE);
+                    blocks.put(next.length > 0 ? next : END);
+                } while (next.length > 0 && !closed);
+            } catch (IOException e) {
+                failure = e;
+                blocks.put(END);
+            } catch (RuntimeException e) {
+                // Also raised when the source is closed while it is being read
+                failure = new IOException(e);
+                blocks.put(END);
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+        }
+    }
+
+    // Moves to the next block; false at the end of the stream
+    private boolean nextBlock() throws IOException {
+        if (block == END) {
+            return false;
+        }
+        if (block == null || position == block.length) {
+            try {
+                block = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            position = 0;
+            if (block == END) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextBlock() ? block[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int count = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        source.close();
+    }
+}
@@ -0,0 +1,314 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+
+/**
+ * A typed condition on the rows of a ColumnTable, evaluated a whole column at
+ * a time into a selection bitmap with one bit per row. Comparisons and IN-lists
+ * on number and text columns run in tight loops over the primitive values or
+ * dictionary codes, without boxing; other columns are read cell by cell.
+ * Conditions combine with and(), or() and not(), which combine the bitmaps
+ * word by word, and the final bitmap is turned into row numbers in one pass
+ * (see Bitmap.toIndexes()) for DataModel.selectRows.
+ * Comparisons are numeric, so text and empty cells never pass them; a missing
+ * column reads as empty. A comparison on a column that already has a sorted
+ * index (see ColumnTable.sortedIndex) reads its rows from the index instead.
+ */
+public abstract class RowFilter {
+
+    public enum Comparison {
+        LESS("<"), LESS_OR_EQUAL("<="), GREATER(">"), GREATER_OR_EQUAL(">="), EQUAL("="), NOT_EQUAL("!=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    /**
+     * Returns the rows of the table that pass, as a bitmap of rowCount() bits.
+     */
+    public abstract Bitmap evaluate(ColumnTable table);
+
+    /**
+     * Returns the rows of the table that pass, in increasing order.
+     */
+    public int[] selectRows(ColumnTable table) {
+        return evaluate(table).toIndexes();
+    }
+
+    public RowFilter and(RowFilter other) {
+        return new Combined(this, other, true);
+    }
+
+    public RowFilter or(RowFilter other) {
+        return new Combined(this, other, false);
+    }
+
+    /**
+     * Passes the rows the filter does not, empty cells included.
+     */
+    public static RowFilter not(RowFilter filter) {
+        return new Not(filter);
+    }
+
+    /**
+     * Passes rows whose numeric value in the column compares to the given one as stated.
+     * Against NaN, = passes the NaN cells and != every other number, while the
+     * ordering comparisons pass nothing.
+     */
+    public static RowFilter compare(String column, Comparison comparison, double value) {
+        double infinity = Double.POSITIVE_INFINITY;
+        if (Double.isNaN(value) && comparison == Comparison.EQUAL) {
+            return in(column, List.of(Double.NaN)).describedAs(column + " = NaN");
+        } else if (Double.isNaN(value) && comparison == Comparison.NOT_EQUAL) {
+            return new Range(column, -infinity, true, infinity, true, "!= NaN");
+        }
+        switch (comparison) {
+            case LESS:
+                return new Range(column, -infinity, true, value, false, comparison + " " + value);
+            case LESS_OR_EQUAL:
+                return new Range(column, -infinity, true, value, true, comparison + " " + value);
+            case GREATER:
+                return new Range(column, value, false, infinity, true, comparison + " " + value);
+            case GREATER_OR_EQUAL:
+                return new Range(column, value, true, infinity, true, comparison + " " + value);
+            case EQUAL:
+                return new Range(column, value, true, value, true, comparison + " " + value);
+            case NOT_EQUAL:
+                return new Range(column, -infinity, true, value, false, "")
+                        .or(new Range(column, value, false, infinity, true, "")).describedAs(column + " != " + value);
+            default:
+                throw new IllegalArgumentException("Unknown comparison: " + comparison);
+        }
+    }
+
+    /**
+     * Passes rows whose numeric value in the column lies between the bounds;
+     * infinite bounds leave a side open.
+     */
+    public static RowFilter between(String column, double lower, boolean lowerInclusive,
+                                    double upper, boolean upperInclusive) {
+        return new Range(column, lower, lowerInclusive, upper, upperInclusive,
+                (lowerInclusive ? "in [" : "in (") + lower + ", " + upper + (upperInclusive ? "]" : ")"));
+    }
+
+    /**
+     * Passes rows whose value in the column is one of the given ones. In number
+     * columns any Number matches by value; a null in the list passes empty cells.
+     */
+    public static RowFilter in(String column, Collection<?> values) {
+        return new In(column, new ArrayList<>(values));
+    }
+
+    public static RowFilter isNull(String column) {
+        return new Nulls(column, true);
+    }
+
+    public static RowFilter isNotNull(String column) {
+        return new Nulls(column, false);
+    }
+
+    // The same filter with another description
+    private RowFilter describedAs(String description) {
+        RowFilter filter = this;
+        return new RowFilter() {
+            @Override
+            public Bitmap evaluate(ColumnTable table) {
+                return filter.evaluate(table);
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+
+    private static final class Range extends RowFilter {
+        private final String column;
+        private final double lower;
+        private final boolean lowerInclusive;
+        private final double upper;
+        private final boolean upperInclusive;
+        private final String description;
+
+        private Range(String column, double lower, boolean lowerInclusive, double upper, boolean upperInclusive,
+                      String description) {
+            this.column = column;
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+            this.description = description;
+        }
+
+        @Override
+        public Bitmap evaluate(ColumnTable table) {
+            Column values = table.column(column);
+            if (values == null || Double.isNaN(lower) || Double.isNaN(upper)) {
+                return new Bitmap(table.rowCount());
+            }
+            SortedIndex index = table.existingSortedIndex(column);
+            if (index != null) {
+                Bitmap rows = new Bitmap(table.rowCount());
+                for (int row : index.range(lower, lowerInclusive, upper, upperInclusive)) {
+                    rows.set(row);
+                }
+                return rows;
+            }
+            if (values instanceof DoubleColumn) {
+                // Exclusive bounds become the next double inside them
+                return ((DoubleColumn) values).matchRange(lowerInclusive ? lower : Math.nextUp(lower),
+                        upperInclusive ? upper : Math.nextDown(upper));
+            }
+            if (values instanceof LongColumn && values.isNumeric()) {
+                // Whole-number bounds; casts saturate, so infinite bounds become the extreme longs
+                double low = lowerInclusive ? Math.ceil(lower) : Math.floor(lower) + 1;
+                double high = upperInclusive ? Math.floor(upper) : Math.ceil(upper) - 1;
+                if (low > high) {
+                    return new Bitmap(table.rowCount());
+                }
+                return ((LongColumn) values).matchRange((long) low, (long) high);
+            }
+            Bitmap rows = new Bitmap(values.size());
+            for (int row = 0; row < values.size(); row++) {
+                if (values.isNumber(row)) {
+                    double value = values.getDouble(row);
+                    if ((lowerInclusive ? value >= lower : value > lower)
+                            && (upperInclusive ? value <= upper : value < upper)) {
+                        rows.set(row);
+                    }
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return column + " " + description;
+        }
+    }
+
+    private static final class In extends RowFilter {
+        private final String column;
+        private final List<Object> values;
+
+        private In(String column, List<Object> values) {
+            this.column = column;
+            this.values = values;
+        }
+
+        @Override
+        public Bitmap evaluate(ColumnTable table) {
+            Column cells = table.column(column);
+            if (cells == null) {
+                return values.contains(null) ? isNull(column).evaluate(table) : new Bitmap(table.rowCount());
+            }
+            Bitmap rows;
+            if (cells instanceof DictionaryColumn) {
+                StringDictionary dictionary = ((DictionaryColumn) cells).getDictionary();
+                boolean[] wanted = new boolean[dictionary.size()];
+                for (Object value : values) {
+                    int code = value instanceof String ? dictionary.lookup((String) value) : -1;
+                    if (code >= 0 && code < wanted.length) {
+                        wanted[code] = true;
+                    }
+                }
+                rows = ((DictionaryColumn) cells).matchCodes(wanted);
+            } else if (cells instanceof DoubleColumn) {
+                rows = ((DoubleColumn) cells).matchAny(values.stream().filter(value -> value instanceof Number)
+                        .mapToDouble(value -> ((Number) value).doubleValue()).sorted().toArray());
+            } else if (cells instanceof LongColumn && cells.isNumeric()) {
+                // Only whole numbers can equal a long
+                rows = ((LongColumn) cells).matchAny(values.stream().filter(value -> value instanceof Number
+                                && ((Number) value).doubleValue() == Math.rint(((Number) value).doubleValue()))
+                        .mapToLong(value -> ((Number) value).longValue()).sorted().toArray());
+            } else {
+                Set<Object> wanted = new HashSet<>(values);
+                rows = new Bitmap(cells.size());
+                for (int row = 0; row < cells.size(); row++) {
+                    Object value = cells.get(row);
+                    if (value != null && wanted.contains(value)) {
+                        rows.set(row);
+                    }
+                }
+            }
+            return values.contains(null) ? rows.or(isNull(column).evaluate(table)) : rows;
+        }
+
+        @Override
+        public String toString() {
+            return column + " IN " + values;
+        }
+    }
+
+    private static final class Nulls extends RowFilter {
+        private final String column;
+        private final boolean empty;
+
+        private Nulls(String column, boolean empty) {
+            this.column = column;
+            this.empty = empty;
+        }
+
+        @Override
+        public Bitmap evaluate(ColumnTable table) {
+            Column values = table.column(column);
+            Bitmap valid = values != null ? values.validRows() : new Bitmap(table.rowCount());
+            return empty ? valid.flip(table.rowCount()) : valid;
+        }
+
+        @Override
+        public String toString() {
+            return column + (empty ? " IS NULL" : " IS NOT NULL");
+        }
+    }
+
+    private static final class Combined extends RowFilter {
+        private final RowFilter left;
+        private final RowFilter right;
+        private final boolean all;
+
+        private Combined(RowFilter left, RowFilter right, boolean all) {
+            this.left = left;
+            this.right = right;
+            this.all = all;
+        }
+
+        @Override
+        public Bitmap evaluate(ColumnTable table) {
+            Bitmap rows = left.evaluate(table);
+            return all ? rows.and(right.evaluate(table)) : rows.or(right.evaluate(table));
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + (all ? " AND " : " OR ") + right + ")";
+        }
+    }
+
+    private static final class Not extends RowFilter {
+        private final RowFilter filter;
+
+        private Not(RowFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public Bitmap evaluate(ColumnTable table) {
+            return filter.evaluate(table).flip(table.rowCount());
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + filter;
+        }
+    }
+}
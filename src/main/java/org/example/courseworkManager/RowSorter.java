@@ -0,0 +1,522 @@
+package org.example.courseworkManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Computes row orders for a ColumnTable without materialising rows.
+ * The result is a permutation that can be applied with DataModel.selectRows.
+ * Sorting by keys (see sort(ColumnTable, int[], List)) turns every cell into a
+ * long whose unsigned order is the value order: numbers and dates by their
+ * bits, text by dictionary rank. The longs are then radix sorted, the larger
+ * sorts in parallel on the common fork-join pool, with no comparisons at all.
+ */
+public final class RowSorter {
+    // Below this size merge sort falls back to insertion sort
+    private static final int INSERTION_THRESHOLD = 32;
+    // Below this many rows a radix sort runs on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // Rows per parallel radix chunk, at least
+    private static final int MIN_CHUNK = 1 << 14;
+    // Bits sorted per radix pass: six passes cover a long
+    private static final int DIGIT_BITS = 11;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+
+    private RowSorter() {
+    }
+
+    /**
+     * One column to sort by. Nulls come first when ascending and last when
+     * descending, unless placed explicitly.
+     */
+    public static final class SortKey {
+        private final String column;
+        private final boolean ascending;
+        private final boolean nullsFirst;
+
+        public SortKey(String column, boolean ascending) {
+            this(column, ascending, ascending);
+        }
+
+        public SortKey(String column, boolean ascending, boolean nullsFirst) {
+            this.column = column;
+            this.ascending = ascending;
+            this.nullsFirst = nullsFirst;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+
+        public boolean isNullsFirst() {
+            return nullsFirst;
+        }
+
+        @Override
+        public String toString() {
+            return column + (ascending ? " ascending" : " descending") + (nullsFirst ? ", nulls first" : ", nulls last");
+        }
+    }
+
+    // Compares two rows of the same table by index
+    @FunctionalInterface
+    public interface RowComparator {
+        int compare(int rowA, int rowB);
+    }
+
+    /**
+     * Orders rows by one column. Nulls come first when ascending and last when
+     * descending; whole numbers compare exactly, like the radix keys of sort(),
+     * other numbers as doubles, text by dictionary rank and dates by their
+     * encoded value. Columns of mixed values order them as compareValues() does.
+     */
+    public static RowComparator comparing(Column column, boolean ascending) {
+        RowComparator values;
+        if (column instanceof LongColumn && column.isNumeric()) {
+            // Not as doubles, which cannot tell longs apart above 2^53
+            LongColumn longs = (LongColumn) column;
+            values = (a, b) -> Long.compare(longs.getLong(a), longs.getLong(b));
+        } else if (column.isNumeric()) {
+            values = (a, b) -> Double.compare(column.getDouble(a), column.getDouble(b));
+        } else if (column instanceof DictionaryColumn) {
+            int[] rank = dictionaryRank(((DictionaryColumn) column).getDictionary());
+            DictionaryColumn codes = (DictionaryColumn) column;
+            values = (a, b) -> Integer.compare(rank[codes.getCode(a)], rank[codes.getCode(b)]);
+        } else if (column instanceof TemporalColumn) {
+            // Epoch days or nanoseconds order like the dates themselves
+            TemporalColumn times = (TemporalColumn) column;
+            values = (a, b) -> Long.compare(times.getLong(a), times.getLong(b));
+        } else {
+            values = (a, b) -> compareValues(column.get(a), column.get(b));
+        }
+        return (a, b) -> {
+            boolean nullA = column.isNull(a);
+            boolean nullB = column.isNull(b);
+            if (nullA || nullB) {
+                if (nullA == nullB) return 0;
+                return nullA == ascending ? -1 : 1;
+            }
+            int comparison = values.compare(a, b);
+            return ascending ? comparison : -comparison;
+        };
+    }
+
+    /**
+     * Orders any two non-null values without throwing, e.g. in a column where one
+     * cell was edited to text: numbers by value come first, then text, then other
+     * values, which compare naturally within a class and otherwise by class name.
+     */
+    public static int compareValues(Object valueA, Object valueB) {
+        int kindA = kind(valueA);
+        int kindB = kind(valueB);
+        if (kindA != kindB) {
+            return Integer.compare(kindA, kindB);
+        }
+        if (kindA == 0) {
+            if (isWhole(valueA) && isWhole(valueB)) {
+                return Long.compare(((Number) valueA).longValue(), ((Number) valueB).longValue());
+            }
+            return Double.compare(((Number) valueA).doubleValue(), ((Number) valueB).doubleValue());
+        }
+        if (valueA.getClass() != valueB.getClass()) {
+            return valueA.getClass().getName().compareTo(valueB.getClass().getName());
+        }
+        if (valueA instanceof Comparable) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> comparable = (Comparable<Object>) valueA;
+            return comparable.compareTo(valueB);
+        }
+        return 0;
+    }
+
+    private static boolean isWhole(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    // Numbers sort before text, and text before any other values
+    private static int kind(Object value) {
+        if (value instanceof Number) {
+            return 0;
+        }
+        return value instanceof String ? 1 : 2;
+    }
+
+    // Position of each dictionary code in sorted string order
+    private static int[] dictionaryRank(StringDictionary dictionary) {
+        Integer[] codes = new Integer[dictionary.size()];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, (a, b) -> dictionary.decode(a).compareTo(dictionary.decode(b)));
+        int[] rank = new int[codes.length];
+        for (int position = 0; position < codes.length; position++) {
+            rank[codes[position]] = position;
+        }
+        return rank;
+    }
+
+    public static int[] sort(ColumnTable table, List<SortKey> keys) {
+        return sort(table, null, keys);
+    }
+
+    /**
+     * Returns the given rows (all if null) ordered by the keys, the first key
+     * deciding first. Columns missing from the table are skipped. The sort is stable.
+     */
+    public static int[] sort(ColumnTable table, int[] rows, List<SortKey> keys) {
+        int[] order = new int[rows != null ? rows.length : table.rowCount()];
+        Arrays.setAll(order, i -> rows != null ? rows[i] : i);
+        // Least significant key first: each pass is stable, so it keeps the order
+        // of the later keys among rows that tie on its own
+        for (int k = keys.size() - 1; k >= 0; k--) {
+            SortKey key = keys.get(k);
+            Column column = table.column(key.column);
+            if (column != null) {
+                order = sortByKey(order, column, key);
+            }
+        }
+        return order;
+    }
+
+    private static int[] sortByKey(int[] order, Column column, SortKey key) {
+        // Set the empty cells aside, in their current order
+        int[] values = new int[order.length];
+        int[] nulls = new int[order.length];
+        int valueCount = 0;
+        int nullCount = 0;
+        for (int row : order) {
+            if (column.isNull(row)) {
+                nulls[nullCount++] = row;
+            } else {
+                values[valueCount++] = row;
+            }
+        }
+        values = Arrays.copyOf(values, valueCount);
+
+        long[] keys = extractKeys(column, values, key.ascending);
+        if (keys != null) {
+            radixSort(keys, values);
+        } else {
+            int[] sorted = values;
+            RowComparator comparator = comparing(column, key.ascending);
+            int[] positions = sort(sorted.length, (a, b) -> comparator.compare(sorted[a], sorted[b]));
+            values = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                values[i] = sorted[positions[i]];
+            }
+        }
+
+        int[] result = new int[order.length];
+        System.arraycopy(values, 0, result, key.nullsFirst ? nullCount : 0, valueCount);
+        System.arraycopy(nulls, 0, result, key.nullsFirst ? 0 : valueCount, nullCount);
+        return result;
+    }
+
+    /**
+     * Returns for each row a long whose unsigned order is the order of its value,
+     * reversed if descending, or null if the column has no such encoding.
+     */
+    private static long[] extractKeys(Column column, int[] rows, boolean ascending) {
+        long[] keys = new long[rows.length];
+        // Inverting every bit reverses the unsigned order
+        long flip = ascending ? 0L : -1L;
+        if (column instanceof DoubleColumn) {
+            // Negative doubles order backwards by their bits, so those are inverted too
+            parallelSetAll(keys, i -> {
+                long bits = Double.doubleToLongBits(column.getDouble(rows[i]));
+                return (bits < 0 ? ~bits : bits ^ Long.MIN_VALUE) ^ flip;
+            });
+        } else if (column instanceof LongColumn) {
+            // Also dates, as epoch days or nanoseconds
+            LongColumn longs = (LongColumn) column;
+            parallelSetAll(keys, i -> longs.getLong(rows[i]) ^ Long.MIN_VALUE ^ flip);
+        } else if (column instanceof DictionaryColumn) {
+            DictionaryColumn codes = (DictionaryColumn) column;
+            int[] rank = dictionaryRank(codes.getDictionary());
+            parallelSetAll(keys, i -> rank[codes.getCode(rows[i])] ^ flip);
+        } else if (column instanceof BooleanColumn) {
+            parallelSetAll(keys, i -> (Boolean.TRUE.equals(column.get(rows[i])) ? 1L : 0L) ^ flip);
+        } else {
+            return null;
+        }
+        return keys;
+    }
+
+    private interface KeyFunction {
+        long key(int index);
+    }
+
+    private static void parallelSetAll(long[] keys, KeyFunction function) {
+        if (keys.length < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = function.key(i);
+            }
+        } else {
+            IntStream.range(0, keys.length).parallel().forEach(i -> keys[i] = function.key(i));
+        }
+    }
+
+    /**
+     * Sorts the rows by their keys, compared unsigned, with a stable LSD radix
+     * sort over 11-bit digits. Digits that all keys share are skipped, so small ranges
+     * take few passes. Large inputs are split into chunks that are counted and
+     * scattered in parallel, each into its own slice of every bucket.
+     */
+    static void radixSort(long[] keys, int[] rows) {
+        int n = keys.length;
+        int chunks = n < PARALLEL_THRESHOLD ? 1
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, n / MIN_CHUNK));
+        int chunkSize = (n + chunks - 1) / Math.max(chunks, 1);
+        long[] sourceKeys = keys;
+        int[] sourceRows = rows;
+        long[] targetKeys = new long[n];
+        int[] targetRows = new int[n];
+        int[][] counts = new int[chunks][BUCKETS];
+
+        for (int shift = 0; shift < 64; shift += DIGIT_BITS) {
+            int digit = shift;
+            long[] fromKeys = sourceKeys;
+            int[] fromRows = sourceRows;
+            long[] toKeys = targetKeys;
+            int[] toRows = targetRows;
+            forEachChunk(chunks, c -> {
+                int[] count = counts[c];
+                Arrays.fill(count, 0);
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                    count[(int) (fromKeys[i] >>> digit) & (BUCKETS - 1)]++;
+                }
+            });
+            if (n == 0 || sharedDigit(counts, n)) {
+                continue;
+            }
+            // Where each chunk's share of each bucket starts
+            int position = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                for (int[] count : counts) {
+                    int size = count[bucket];
+                    count[bucket] = position;
+                    position += size;
+                }
+            }
+            forEachChunk(chunks, c -> {
+                int[] next = counts[c];
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                    int target = next[(int) (fromKeys[i] >>> digit) & (BUCKETS - 1)]++;
+                    toKeys[target] = fromKeys[i];
+                    toRows[target] = fromRows[i];
+                }
+            });
+            targetKeys = sourceKeys;
+            targetRows = sourceRows;
+            sourceKeys = toKeys;
+            sourceRows = toRows;
+        }
+        if (sourceRows != rows) {
+            System.arraycopy(sourceKeys, 0, keys, 0, n);
+            System.arraycopy(sourceRows, 0, rows, 0, n);
+        }
+    }
+
+    // Whether every key falls in one bucket, so this digit does not reorder anything
+    private static boolean sharedDigit(int[][] counts, int n) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            int total = 0;
+            for (int[] count : counts) {
+                total += count[bucket];
+            }
+            if (total != 0) {
+                return total == n;
+            }
+        }
+        return true;
+    }
+
+    private interface ChunkWork {
+        void run(int chunk);
+    }
+
+    private static void forEachChunk(int chunks, ChunkWork work) {
+        if (chunks == 1) {
+            work.run(0);
+        } else {
+            IntStream.range(0, chunks).parallel().forEach(work::run);
+        }
+    }
+
+    /**
+     * Returns the first limit of the given rows (all if null) in key order, the
+     * same rows sort() would put first, without sorting the rest. See topK(int, RowComparator, int).
+     */
+    public static int[] topK(ColumnTable table, int[] rows, List<SortKey> keys, int limit) {
+        RowComparator byKeys = comparing(table, keys);
+        if (rows == null) {
+            return topK(table.rowCount(), byKeys, limit);
+        }
+        int[] positions = topK(rows.length, (a, b) -> byKeys.compare(rows[a], rows[b]), limit);
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = rows[positions[i]];
+        }
+        return positions;
+    }
+
+    // Orders rows by the keys in turn, placing empty cells as each key says
+    private static RowComparator comparing(ColumnTable table, List<SortKey> keys) {
+        List<RowComparator> comparators = new ArrayList<>();
+        for (SortKey key : keys) {
+            Column column = table.column(key.column);
+            if (column == null) {
+                continue;
+            }
+            RowComparator values = comparing(column, key.ascending);
+            comparators.add((a, b) -> {
+                boolean nullA = column.isNull(a);
+                boolean nullB = column.isNull(b);
+                if (nullA || nullB) {
+                    return nullA == nullB ? 0 : nullA == key.nullsFirst ? -1 : 1;
+                }
+                return values.compare(a, b);
+            });
+        }
+        return (a, b) -> {
+            for (RowComparator comparator : comparators) {
+                int comparison = comparator.compare(a, b);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Returns the first limit rows of 0..rowCount-1 in comparator order, as the
+     * stable sort() would, in O(n log k). Each chunk of rows keeps its best k in
+     * a bounded heap, the chunks in parallel for large inputs, and the heaps are
+     * then merged by sorting their few rows.
+     */
+    public static int[] topK(int rowCount, RowComparator comparator, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        if (limit >= rowCount) {
+            return sort(rowCount, comparator);
+        }
+        // Ties go to the earlier row, which keeps the result that of a stable sort
+        RowComparator order = (a, b) -> {
+            int comparison = comparator.compare(a, b);
+            return comparison != 0 ? comparison : Integer.compare(a, b);
+        };
+        int chunks = rowCount < PARALLEL_THRESHOLD ? 1
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), rowCount / MIN_CHUNK));
+        int chunkSize = (rowCount + chunks - 1) / chunks;
+        int[][] heaps = new int[chunks][];
+        forEachChunk(chunks, c -> heaps[c] = boundedHeap(c * chunkSize,
+                Math.min(rowCount, (c + 1) * chunkSize), order, limit));
+
+        int[] candidates = new int[0];
+        for (int[] heap : heaps) {
+            int start = candidates.length;
+            candidates = Arrays.copyOf(candidates, start + heap.length);
+            System.arraycopy(heap, 0, candidates, start, heap.length);
+        }
+        int[] found = candidates;
+        int[] positions = sort(found.length, (a, b) -> order.compare(found[a], found[b]));
+        int[] result = new int[Math.min(limit, found.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = found[positions[i]];
+        }
+        return result;
+    }
+
+    // The best limit rows in [from, to), in no particular order; the worst kept row is at the root
+    private static int[] boundedHeap(int from, int to, RowComparator order, int limit) {
+        int[] heap = new int[Math.min(limit, to - from)];
+        int size = 0;
+        for (int row = from; row < to; row++) {
+            if (size < heap.length) {
+                // Sift up
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (order.compare(heap[parent], row) >= 0) {
+                        break;
+                    }
+                    heap[child] = heap[parent];
+                    child = parent;
+                }
+                heap[child] = row;
+            } else if (order.compare(row, heap[0]) < 0) {
+                // Replace the worst and sift down
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                        child++;
+                    }
+                    if (order.compare(heap[child], row) <= 0) {
+                        break;
+                    }
+                    heap[parent] = heap[child];
+                    parent = child;
+                }
+                heap[parent] = row;
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * Returns the rows 0..rowCount-1 in comparator order. The sort is stable.
+     */
+    public static int[] sort(int rowCount, RowComparator comparator) {
+        int[] order = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            order[row] = row;
+        }
+        mergeSort(order, new int[rowCount], 0, rowCount, comparator);
+        return order;
+    }
+
+    private static void mergeSort(int[] order, int[] buffer, int from, int to, RowComparator comparator) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = order[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(order[j], row) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid, comparator);
+        mergeSort(order, buffer, mid, to, comparator);
+        if (comparator.compare(order[mid - 1], order[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        int out = from;
+        while (left < mid && right < to) {
+            order[out++] = comparator.compare(buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+        }
+        while (left < mid) {
+            order[out++] = buffer[left++];
+        }
+        while (right < to) {
+            order[out++] = buffer[right++];
+        }
+    }
+}
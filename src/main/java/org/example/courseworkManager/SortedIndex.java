@@ -0,0 +1,230 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+
+/**
+ * Numeric values of a column in sorted order, each with its row, for range
+ * predicates: finding the k rows in a range takes two binary searches, O(log n + k).
+ * Nulls, text and NaN are left out since no range contains them.
+ * Changes are not shifted into the sorted arrays one at a time: added entries
+ * wait in a buffer and removed ones are only marked, and both are merged in one
+ * pass on the next lookup, or once they make up an eighth of the index.
+ */
+public class SortedIndex implements ColumnIndex {
+    // Entries ordered by key, then by row
+    private double[] keys;
+    private int[] rows;
+    private int size;
+    // Entries added since the last merge, in no particular order
+    private double[] addedKeys = new double[0];
+    private int[] addedRows = new int[0];
+    private int added;
+    // Positions of sorted entries removed since the last merge
+    private Bitmap removed = new Bitmap(0);
+    private int removedCount;
+
+    public SortedIndex(Column column) {
+        int n = column.size();
+        int[] order = RowSorter.sort(n, (a, b) -> Double.compare(key(column, a), key(column, b)));
+        keys = new double[n];
+        rows = new int[n];
+        for (int row : order) {
+            if (indexed(column, row)) {
+                keys[size] = key(column, row);
+                rows[size] = row;
+                size++;
+            }
+        }
+    }
+
+    private SortedIndex(double[] keys, int[] rows, int size) {
+        this.keys = keys;
+        this.rows = rows;
+        this.size = size;
+    }
+
+    private static boolean indexed(Column column, int row) {
+        return column.isNumber(row) && !Double.isNaN(column.getDouble(row));
+    }
+
+    // Adding 0.0 turns -0.0 into 0.0, so that keys order like the == and > operators
+    private static double key(Column column, int row) {
+        return column.isNumber(row) ? column.getDouble(row) + 0.0 : Double.NaN;
+    }
+
+    /**
+     * Returns the rows whose value lies between the bounds, in value order.
+     * Use infinite bounds for open ranges.
+     */
+    public int[] range(double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+        merge();
+        int from = lowerInclusive ? firstAtLeast(lower + 0.0) : firstAbove(lower + 0.0);
+        int to = upperInclusive ? firstAbove(upper + 0.0) : firstAtLeast(upper + 0.0);
+        return from < to ? Arrays.copyOfRange(rows, from, to) : new int[0];
+    }
+
+    // Index of the first key >= value
+    private int firstAtLeast(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Index of the first key > value
+    private int firstAbove(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Position of the entry for this key and row, or of the first entry after it
+    private int find(double key, int row) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key || (keys[mid] == key && rows[mid] < row)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void add(Column column, int row) {
+        if (!indexed(column, row)) {
+            return;
+        }
+        if (added == addedKeys.length) {
+            addedKeys = Arrays.copyOf(addedKeys, Math.max(16, added + (added >> 1)));
+            addedRows = Arrays.copyOf(addedRows, addedKeys.length);
+        }
+        addedKeys[added] = key(column, row);
+        addedRows[added] = row;
+        added++;
+        mergeIfLarge();
+    }
+
+    @Override
+    public void remove(Column column, int row) {
+        if (!indexed(column, row)) {
+            return;
+        }
+        double key = key(column, row);
+        int position = find(key, row);
+        if (position < size && keys[position] == key && rows[position] == row && !removed.get(position)) {
+            removed.set(position);
+            removedCount++;
+            mergeIfLarge();
+            return;
+        }
+        // Not merged yet; recent entries are the likeliest
+        for (int i = added - 1; i >= 0; i--) {
+            if (addedRows[i] == row && addedKeys[i] == key) {
+                added--;
+                addedKeys[i] = addedKeys[added];
+                addedRows[i] = addedRows[added];
+                return;
+            }
+        }
+    }
+
+    private void mergeIfLarge() {
+        if (added + removedCount > Math.max(1024, size >> 3)) {
+            merge();
+        }
+    }
+
+    // Sorts the added entries and merges them with the sorted ones that were not removed, in one pass
+    private void merge() {
+        if (added == 0 && removedCount == 0) {
+            return;
+        }
+        double[] pendingKeys = addedKeys;
+        int[] pendingRows = addedRows;
+        int[] order = RowSorter.sort(added, (a, b) -> pendingKeys[a] != pendingKeys[b]
+                ? Double.compare(pendingKeys[a], pendingKeys[b]) : Integer.compare(pendingRows[a], pendingRows[b]));
+        int total = size - removedCount + added;
+        double[] mergedKeys = new double[Math.max(16, total)];
+        int[] mergedRows = new int[mergedKeys.length];
+        int merged = 0;
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed.get(i)) {
+                continue;
+            }
+            while (next < added && (pendingKeys[order[next]] < keys[i]
+                    || (pendingKeys[order[next]] == keys[i] && pendingRows[order[next]] < rows[i]))) {
+                mergedKeys[merged] = pendingKeys[order[next]];
+                mergedRows[merged] = pendingRows[order[next]];
+                merged++;
+                next++;
+            }
+            mergedKeys[merged] = keys[i];
+            mergedRows[merged] = rows[i];
+            merged++;
+        }
+        for (; next < added; next++) {
+            mergedKeys[merged] = pendingKeys[order[next]];
+            mergedRows[merged] = pendingRows[order[next]];
+            merged++;
+        }
+        keys = mergedKeys;
+        rows = mergedRows;
+        size = merged;
+        added = 0;
+        removed = new Bitmap(0);
+        removedCount = 0;
+    }
+
+    @Override
+    public SortedIndex remap(int[] positions) {
+        merge();
+        double[] newKeys = new double[size];
+        int[] newRows = new int[size];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int row = positions[rows[i]];
+            if (row >= 0) {
+                newKeys[kept] = keys[i];
+                newRows[kept] = row;
+                kept++;
+            }
+        }
+        // Equal keys must stay in row order, which a reordering may have broken
+        for (int start = 0; start < kept; ) {
+            int end = start + 1;
+            while (end < kept && newKeys[end] == newKeys[start]) {
+                end++;
+            }
+            if (end - start > 1) {
+                Arrays.sort(newRows, start, end);
+            }
+            start = end;
+        }
+        return new SortedIndex(newKeys, newRows, kept);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 64L + 12L * (keys.length + addedKeys.length) + removed.memoryUsage();
+    }
+}
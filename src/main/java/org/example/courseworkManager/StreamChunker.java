@@ -0,0 +1,161 @@
+package org.example.courseworkManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Cuts a stream into chunks of about a given size that end just after a line
+ * break, so that each chunk holds whole records and can be parsed on its own.
+ * For CSV, line breaks inside quoted fields are not record boundaries (see CsvImporter.RecordScanner).
+ * Used for input that cannot be memory-mapped, such as a decompressing stream.
+ */
+class StreamChunker implements AutoCloseable {
+    // Chunks being parsed at once; bounds the memory held by chunks
+    private static final int CHUNKS_IN_FLIGHT = ForkJoinPool.getCommonPoolParallelism() + 2;
+
+    private final InputStream in;
+    private final int chunkSize;
+    private final boolean quoted;
+    // Bytes read after the last boundary, carried into the next chunk
+    private byte[] carry = new byte[0];
+    private boolean ended;
+
+    // Work done on each chunk; may throw unchecked exceptions
+    interface ChunkWork<T> {
+        T apply(ByteBuffer chunk);
+    }
+
+    StreamChunker(InputStream in, long chunkSize, boolean quoted) {
+        this.in = in;
+        this.chunkSize = (int) Math.min(chunkSize, Integer.MAX_VALUE - 16);
+        this.quoted = quoted;
+    }
+
+    /**
+     * Returns the next chunk, or null at the end of the stream.
+     */
+    ByteBuffer next() throws IOException {
+        if (ended && carry.length == 0) {
+            return null;
+        }
+        byte[] buffer = Arrays.copyOf(carry, Math.max(chunkSize, carry.length) + 1);
+        int length = carry.length;
+        int scanned = 0;
+        // The carry starts at a record
+        CsvImporter.RecordScanner scanner = new CsvImporter.RecordScanner(CsvImporter.RecordScanner.FIELD_START);
+        int boundary = -1;
+        while (true) {
+            // Look for the last record end in what has been read so far
+            for (int i = scanned; i < length; i++) {
+                if (quoted ? scanner.next(buffer[i]) : buffer[i] == '\n') {
+                    boundary = i + 1;
+                }
+            }
+            scanned = length;
+            if (ended || (boundary > 0 && length >= chunkSize)) {
+                break;
+            }
+            if (length == buffer.length) {
+                // A single record longer than the chunk size
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int count = in.read(buffer, length, buffer.length - length);
+            if (count < 0) {
+                ended = true;
+            } else {
+                length += count;
+            }
+        }
+        int end = ended ? length : boundary;
+        carry = Arrays.copyOfRange(buffer, end, length);
+        return end > 0 ? ByteBuffer.wrap(buffer, 0, end).slice() : null;
+    }
+
+    /**
+     * Applies the work to the given first chunk (if not null) and every chunk after it,
+     * in parallel on the common pool, and returns the results in stream order.
+     * Reading the stream overlaps with the work.
+     */
+    <T> List<T> mapInOrder(ByteBuffer first, ChunkWork<T> work, ProgressMonitor monitor) throws IOException {
+        List<T> values = new ArrayList<>();
+        forEachInOrder(first, work, values::add, monitor);
+        return values;
+    }
+
+    /**
+     * Like mapInOrder(), but hands each result to the consumer as soon as it and
+     * all before it are done, e.g. to append it to a larger table and drop it.
+     */
+    <T> void forEachInOrder(ByteBuffer first, ChunkWork<T> work, Consumer<T> consumer,
+                            ProgressMonitor monitor) throws IOException {
+        ByteBuffer[] pending = {first};
+        forEachInOrder(() -> {
+            ByteBuffer chunk = pending[0] != null ? pending[0] : next();
+            pending[0] = null;
+            return chunk;
+        }, work, consumer, monitor);
+    }
+
+    // Supplies chunks in order, or null after the last
+    interface ChunkSource {
+        ByteBuffer next() throws IOException;
+    }
+
+    /**
+     * Applies the work to every chunk of the source in parallel on the common pool,
+     * and hands the results to the consumer in source order on the calling thread.
+     * At most CHUNKS_IN_FLIGHT chunks are read and not yet consumed at a time,
+     * which bounds the memory held by chunks and their results.
+     */
+    static <T> void forEachInOrder(ChunkSource source, ChunkWork<T> work, Consumer<T> consumer,
+                                   ProgressMonitor monitor) throws IOException {
+        ArrayDeque<CompletableFuture<T>> results = new ArrayDeque<>();
+        try {
+            ByteBuffer chunk = source.next();
+            while (chunk != null) {
+                monitor.checkCancelled();
+                if (results.size() == CHUNKS_IN_FLIGHT) {
+                    consumer.accept(results.removeFirst().join());
+                }
+                ByteBuffer bytes = chunk;
+                results.add(CompletableFuture.supplyAsync(() -> work.apply(bytes), ForkJoinPool.commonPool()));
+                chunk = source.next();
+            }
+            while (!results.isEmpty()) {
+                consumer.accept(results.removeFirst().join());
+            }
+        } catch (UncheckedIOException e) {
+            // From the consumer, e.g. appending to mapped columns
+            throw e.getCause();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (CompletableFuture<T> result : results) {
+                result.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
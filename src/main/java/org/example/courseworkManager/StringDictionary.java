@@ -0,0 +1,61 @@
+package org.example.courseworkManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only mapping between distinct strings and small int codes.
+ * Shared by a DictionaryColumn and every column selected from it, which may
+ * include snapshots read on other threads: decode() and lookup() never block
+ * and always see every code handed out before the snapshot was taken.
+ */
+public class StringDictionary {
+    // Slots below size are never changed once written; growing replaces the array
+    private volatile String[] values = new String[16];
+    private volatile int size;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the code of the value, adding it to the dictionary if it is new.
+     */
+    public synchronized int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = size;
+            String[] slots = values;
+            if (code == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slots[code] = value;
+            // Publish the slot before the code can be seen through size or codes
+            values = slots;
+            size = code + 1;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    // Returns the code of the value, or -1 if it is not in the dictionary
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    public String decode(int code) {
+        // Reading size first guarantees that values holds the slot
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Unknown dictionary code: " + code);
+        }
+        return values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memoryUsage() {
+        // Rough estimate: array slot, map entry and a short string per value
+        return 96L * size;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.courseworkManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Column of dates or date-times kept as longs: epoch days for LocalDate and
+ * nanoseconds since the epoch (UTC) for LocalDateTime. Longs keep the column
+ * 8 bytes per cell and make sorting and comparing cheap.
+ * Date-times outside the range of epoch nanoseconds (years 1678 to 2261)
+ * are not accepted, so such a column is widened like any other mismatch.
+ */
+public class TemporalColumn extends LongColumn {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final LocalDateTime MIN = LocalDateTime.of(1678, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(2261, 12, 31, 23, 59, 59);
+
+    private final boolean dateTime;
+
+    public TemporalColumn(Class<?> type, int capacity) {
+        super(type, capacity);
+        if (type != LocalDate.class && type != LocalDateTime.class) {
+            throw new IllegalArgumentException("Not a temporal type: " + type);
+        }
+        dateTime = type == LocalDateTime.class;
+    }
+
+    // For subclasses whose values were loaded elsewhere, see Column(Bitmap, int)
+    protected TemporalColumn(Class<?> type, Bitmap validity, int size) {
+        super(type, validity, size);
+        if (type != LocalDate.class && type != LocalDateTime.class) {
+            throw new IllegalArgumentException("Not a temporal type: " + type);
+        }
+        dateTime = type == LocalDateTime.class;
+    }
+
+    /**
+     * Whether the value is a date or a date-time that fits the column's encoding.
+     */
+    public static boolean canStore(Object value) {
+        if (value instanceof LocalDate) {
+            return true;
+        }
+        if (value instanceof LocalDateTime) {
+            LocalDateTime time = (LocalDateTime) value;
+            return !time.isBefore(MIN) && !time.isAfter(MAX);
+        }
+        return false;
+    }
+
+    public static long encode(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static long encode(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
+    }
+
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        if (!validity.get(row)) {
+            return null;
+        }
+        long value = valueAt(row);
+        if (dateTime) {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(value, NANOS_PER_SECOND),
+                    (int) Math.floorMod(value, NANOS_PER_SECOND), ZoneOffset.UTC);
+        }
+        return LocalDate.ofEpochDay(value);
+    }
+
+    // Dates are ordered through getLong(), but are not numbers for statistics
+    @Override
+    public boolean isNumeric() {
+        return false;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        checkRow(row);
+        return Double.NaN;
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || (value.getClass() == getType() && canStore(value));
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        checkRow(row);
+        if (value == null) {
+            storeValue(row, 0);
+            setValid(row, false);
+        } else if (dateTime) {
+            setLong(row, encode((LocalDateTime) value));
+        } else {
+            setLong(row, encode((LocalDate) value));
+        }
+    }
+
+    @Override
+    protected LongColumn newColumn(int capacity) {
+        return new TemporalColumn(getType(), capacity);
+    }
+}
@@ -11,9 +11,9 @@ import java.util.function.Predicate;
  */
 public class TransformationFactory {
 
-    // Enum for supported aggregation types
+    // Enum for supported aggregation types, see HashAggregator.aggregate for their results
     public enum AggregationType {
-        SUM, AVERAGE, COUNT
+        SUM, AVERAGE, COUNT, MIN, MAX, VARIANCE, STDDEV, FIRST, LAST, COUNT_DISTINCT
     }
 
     /**
@@ -34,29 +34,74 @@ public class TransformationFactory {
     }
 
     /**
-     * Creates a transformation that sorts data by the specified column in ascending or descending order.
+     * Creates a transformation that keeps the rows passing a typed filter. The filter
+     * runs over whole columns into a selection bitmap, applied in one compaction pass.
      */
-    public static DataTransformation createSortTransformation(String column, boolean ascending) {
+    public static DataTransformation createFilterTransformation(RowFilter filter) {
+        return new DataTransformation() {
+            @Override
+            public void apply(DataModel model) {
+                model.selectRows(filter.selectRows(model.getTable()));
+            }
+
+            @Override
+            public String getDescription() {
+                return "Filter data: " + filter;
+            }
+        };
+    }
+
+    /**
+     * Creates a transformation that keeps rows whose numeric value in the column lies
+     * between the bounds (infinite bounds leave a side open). Uses the column's sorted
+     * index, built on first use and carried through later filters and sorts, so further
+     * range filters find their k rows in O(log n + k) rather than rebuilding it.
+     */
+    public static DataTransformation createRangeFilterTransformation(String column, double lower, boolean lowerInclusive,
+                                                                     double upper, boolean upperInclusive) {
         return new DataTransformation() {
             @Override
             public void apply(DataModel model) {
-                List<Map<String, Object>> sortedData = new ArrayList<>(model.getData());
-                sortedData.sort((a, b) -> {
-                    Object valA = a.get(column);
-                    Object valB = b.get(column);
+                model.selectRows(model.findRowsInRange(column, lower, lowerInclusive, upper, upperInclusive));
+            }
+
+            @Override
+            public String getDescription() {
+                return "Filter data on column: " + column + " in " + (lowerInclusive ? "[" : "(")
+                        + lower + ", " + upper + (upperInclusive ? "]" : ")");
+            }
+        };
+    }
 
-                    if (valA == null && valB == null) return 0;
-                    if (valA == null) return ascending ? -1 : 1;
-                    if (valB == null) return ascending ? 1 : -1;
+    /**
+     * Creates a transformation that keeps rows whose value in the column equals the given one,
+     * using the column's hash index.
+     */
+    public static DataTransformation createEqualsFilterTransformation(String column, Object value) {
+        return new DataTransformation() {
+            @Override
+            public void apply(DataModel model) {
+                model.selectRows(model.findRows(column, value));
+            }
 
-                    if (valA instanceof Comparable && valB instanceof Comparable) {
-                        int comparison = ((Comparable) valA).compareTo(valB);
-                        return ascending ? comparison : -comparison;
-                    }
+            @Override
+            public String getDescription() {
+                return "Filter data on column: " + column + " = " + value;
+            }
+        };
+    }
 
-                    return 0;
-                });
-                model.getData().setAll(sortedData);
+    /**
+     * Creates a transformation that sorts data by the specified column in ascending or descending order.
+     * The sort runs over the column and applies the resulting row order, without copying rows.
+     */
+    public static DataTransformation createSortTransformation(String column, boolean ascending) {
+        return new DataTransformation() {
+            @Override
+            public void apply(DataModel model) {
+                if (model.getTable().hasColumn(column)) {
+                    model.selectRows(RowSorter.sort(model.getTable(), List.of(new RowSorter.SortKey(column, ascending))));
+                }
             }
 
             @Override
@@ -67,62 +112,82 @@ public class TransformationFactory {
     }
 
     /**
-     * Creates a transformation that aggregates data by a grouping column.
+     * Creates a transformation that sorts by several columns, each with its own direction
+     * and null placement; later keys order the rows that tie on the earlier ones.
      */
-    public static DataTransformation createAggregationTransformation(String groupByColumn, String aggregateColumn, AggregationType type) {
+    public static DataTransformation createSortTransformation(List<RowSorter.SortKey> keys) {
+        List<RowSorter.SortKey> sortKeys = List.copyOf(keys);
         return new DataTransformation() {
             @Override
             public void apply(DataModel model) {
-                Map<Object, List<Number>> groups = new HashMap<>();
+                model.selectRows(RowSorter.sort(model.getTable(), sortKeys));
+            }
 
-                // Group the data
-                for (Map<String, Object> row : model.getData()) {
-                    Object groupKey = row.get(groupByColumn);
-                    Object value = row.get(aggregateColumn);
+            @Override
+            public String getDescription() {
+                return "Sort by " + sortKeys;
+            }
+        };
+    }
 
-                    if (value instanceof Number) {
-                        groups.computeIfAbsent(groupKey, k -> new ArrayList<>())
-                                .add((Number) value);
-                    }
-                }
+    /**
+     * Creates a transformation that keeps only the first rows of a sort by the keys,
+     * e.g. the ten largest values. Costs O(n log limit) instead of a full sort.
+     */
+    public static DataTransformation createTopKTransformation(List<RowSorter.SortKey> keys, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative row limit: " + limit);
+        }
+        List<RowSorter.SortKey> sortKeys = List.copyOf(keys);
+        return new DataTransformation() {
+            @Override
+            public void apply(DataModel model) {
+                model.selectRows(RowSorter.topK(model.getTable(), null, sortKeys, limit));
+            }
 
-                // Calculate aggregations
-                List<Map<String, Object>> result = new ArrayList<>();
-                for (Map.Entry<Object, List<Number>> entry : groups.entrySet()) {
-                    Map<String, Object> newRow = new HashMap<>();
-                    newRow.put(groupByColumn, entry.getKey());
-
-                    double aggregateValue;
-                    switch (type) {
-                        case SUM:
-                            aggregateValue = entry.getValue().stream()
-                                    .mapToDouble(Number::doubleValue)
-                                    .sum();
-                            break;
-                        case AVERAGE:
-                            aggregateValue = entry.getValue().stream()
-                                    .mapToDouble(Number::doubleValue)
-                                    .average()
-                                    .orElse(0.0);
-                            break;
-                        case COUNT:
-                            aggregateValue = entry.getValue().size();
-                            break;
-                        default:
-                            throw new IllegalStateException("Unknown aggregation type: " + type);
-                    }
-
-                    newRow.put(aggregateColumn, aggregateValue);
-                    result.add(newRow);
-                }
+            @Override
+            public String getDescription() {
+                return "First " + limit + " rows by " + sortKeys;
+            }
+        };
+    }
+
+    /**
+     * Creates a transformation that aggregates data by a grouping column. The result
+     * column keeps the aggregated column's name, or is named like COUNT(age) when
+     * that is the grouping column itself.
+     */
+    public static DataTransformation createAggregationTransformation(String groupByColumn, String aggregateColumn, AggregationType type) {
+        String name = aggregateColumn.equals(groupByColumn) ? type + "(" + aggregateColumn + ")" : aggregateColumn;
+        return createAggregationTransformation(List.of(groupByColumn),
+                List.of(new HashAggregator.Measure(aggregateColumn, type, name)));
+    }
 
-                model.getData().setAll(result);
+    /**
+     * Creates a transformation that groups rows by the values of several columns and
+     * computes the measures for each group, with HashAggregator. The result replaces
+     * the data: the group columns, then one column per measure under its name.
+     * Throws IllegalArgumentException if two of those columns share a name.
+     */
+    public static DataTransformation createAggregationTransformation(List<String> groupByColumns,
+                                                                     List<HashAggregator.Measure> measures) {
+        List<String> groupBy = List.copyOf(groupByColumns);
+        List<HashAggregator.Measure> aggregates = List.copyOf(measures);
+        HashAggregator.columnNames(groupBy, aggregates);
+        return new DataTransformation() {
+            @Override
+            public void apply(DataModel model) {
+                model.replaceTable(HashAggregator.aggregate(model.getTable(), null, groupBy, aggregates));
             }
 
             @Override
             public String getDescription() {
-                return String.format("%s %s grouped by %s", type, aggregateColumn, groupByColumn);
+                StringJoiner description = new StringJoiner(", ");
+                for (HashAggregator.Measure measure : aggregates) {
+                    description.add(measure.toString());
+                }
+                return String.format("%s grouped by %s", description, String.join(", ", groupBy));
             }
         };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,540 @@
+package org.example.courseworkManager;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A chain of transformations that is planned first and run later, in one go.
+ * Adding a step only records it; nothing is read until the pipeline is applied
+ * to a DataModel (one undo entry for the whole chain) or executed against a
+ * table, e.g. a snapshot that a chart or an export reads on a background thread.
+ * Before running, the plan is optimized:
+ * - filters move ahead of sorts, of projections that keep their column, and of
+ *   aggregations grouped by their column, so later steps see fewer rows;
+ * - adjacent filters are fused, and filters at the start run inside the scan,
+ *   testing every condition of a row in a single pass over the columns;
+ * - sorts whose order is lost are dropped: those followed by another sort by
+ *   the same column, or by an aggregation without FIRST or LAST grouped by one
+ *   column that is then sorted. Groups come out in order of first appearance,
+ *   so a sort before any other aggregation still orders its result;
+ * - a sort followed by a limit only finds the rows it keeps (see RowSorter.topK);
+ * - columns no later step needs are never copied.
+ * Rows travel between steps as row numbers into the scanned table, so filters
+ * and sorts do not copy values; only the result is materialized.
+ */
+public class TransformationPipeline implements DataTransformation {
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * Keeps rows whose value in the column passes the condition, like
+     * TransformationFactory.createFilterTransformation.
+     */
+    public TransformationPipeline filter(String column, Predicate<Object> condition) {
+        steps.add(new Filter(new Condition(column, "matches a condition", values ->
+                row -> condition.test(values != null ? values.get(row) : null))));
+        return this;
+    }
+
+    /**
+     * Keeps rows whose numeric value in the column lies between the bounds;
+     * infinite bounds leave a side open.
+     */
+    public TransformationPipeline filterRange(String column, double lower, boolean lowerInclusive,
+                                              double upper, boolean upperInclusive) {
+        String range = (lowerInclusive ? "in [" : "in (") + lower + ", " + upper + (upperInclusive ? "]" : ")");
+        steps.add(new Filter(new Condition(column, range, values -> {
+            if (values == null) {
+                return row -> false;
+            }
+            return row -> {
+                if (!values.isNumber(row)) {
+                    return false;
+                }
+                double value = values.getDouble(row);
+                return (lowerInclusive ? value >= lower : value > lower)
+                        && (upperInclusive ? value <= upper : value < upper);
+            };
+        })));
+        return this;
+    }
+
+    /**
+     * Keeps rows whose value in the column equals the given one.
+     */
+    public TransformationPipeline filterEquals(String column, Object value) {
+        steps.add(new Filter(new Condition(column, "= " + value, values -> {
+            if (values == null) {
+                return row -> value == null;
+            }
+            if (values instanceof DictionaryColumn) {
+                // One dictionary lookup, then int comparisons
+                DictionaryColumn codes = (DictionaryColumn) values;
+                if (value == null) {
+                    return row -> codes.getCode(row) < 0;
+                }
+                int code = value instanceof String ? codes.getDictionary().lookup((String) value) : -1;
+                return code < 0 ? row -> false : row -> codes.getCode(row) == code;
+            }
+            return row -> Objects.equals(values.get(row), value);
+        })));
+        return this;
+    }
+
+    public TransformationPipeline sort(String column, boolean ascending) {
+        steps.add(new Sort(column, ascending));
+        return this;
+    }
+
+    /**
+     * Keeps the first rows only; after a sort, e.g. the largest values.
+     */
+    public TransformationPipeline limit(int rowCount) {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("Negative row limit: " + rowCount);
+        }
+        steps.add(new Limit(rowCount));
+        return this;
+    }
+
+    /**
+     * Groups rows by a column and aggregates another, like
+     * TransformationFactory.createAggregationTransformation. The result has the
+     * two columns only, with groups in order of first appearance.
+     */
+    public TransformationPipeline aggregate(String groupByColumn, String aggregateColumn,
+                                            TransformationFactory.AggregationType type) {
+        return aggregate(List.of(groupByColumn), List.of(new HashAggregator.Measure(aggregateColumn, type)));
+    }
+
+    /**
+     * Groups rows by several columns and computes the measures for each group
+     * with HashAggregator. The result has the group columns, then the measures
+     * under their names.
+     */
+    public TransformationPipeline aggregate(List<String> groupByColumns, List<HashAggregator.Measure> measures) {
+        // Clashing result names are refused now rather than when the pipeline runs
+        HashAggregator.columnNames(groupByColumns, measures);
+        steps.add(new Aggregate(List.copyOf(groupByColumns), List.copyOf(measures)));
+        return this;
+    }
+
+    /**
+     * Keeps only the given columns in the result of execute(). Applied to a
+     * DataModel, it limits the columns of an aggregation's result; otherwise the
+     * model keeps its columns.
+     */
+    public TransformationPipeline select(List<String> columns) {
+        steps.add(new Project(List.copyOf(columns)));
+        return this;
+    }
+
+    /**
+     * Runs the optimized plan against the table, which is not changed, and
+     * returns the result with only the columns it keeps.
+     */
+    public ColumnTable execute(ColumnTable table) {
+        return materialize(run(table), table.getStorage());
+    }
+
+    // Copies the result's rows and columns into a table of their own
+    private static ColumnTable materialize(Result result, MappedStorage storage) {
+        List<Column> columns = new ArrayList<>(result.columns.size());
+        for (String name : result.columns) {
+            Column column = result.table.column(name);
+            columns.add(result.rows != null ? column.select(result.rows) : column.copy());
+        }
+        ColumnTable output = ColumnTable.fromColumns(result.columns, columns, storage);
+        output.setRowCount(result.rows != null ? result.rows.length : result.table.rowCount());
+        return output;
+    }
+
+    public ColumnTable execute(DataSnapshot snapshot) {
+        return execute(snapshot.getTable());
+    }
+
+    /**
+     * Runs the plan against the model's data. Filters and sorts end in one row
+     * selection; after an aggregation its result, with the columns kept, replaces
+     * the model's table, as the eager one does.
+     */
+    @Override
+    public void apply(DataModel model) {
+        Result result = run(model.getTable());
+        if (result.table == model.getTable()) {
+            if (result.rows != null) {
+                model.selectRows(result.rows);
+            }
+            return;
+        }
+        if (result.rows == null && result.columns.equals(result.table.getColumnNames())) {
+            // The aggregation's own table, not shared with anything
+            model.replaceTable(result.table);
+        } else {
+            model.replaceTable(materialize(result, model.getTable().getStorage()));
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        StringJoiner description = new StringJoiner(", then ");
+        for (Step step : steps) {
+            description.add(step.toString());
+        }
+        return description.length() > 0 ? description.toString() : "No transformation";
+    }
+
+    /**
+     * Describes the optimized plan, one step per line, starting with the scan
+     * and the columns it reads.
+     */
+    public String explain(List<String> tableColumns) {
+        List<Step> plan = optimize(steps);
+        StringBuilder text = new StringBuilder("Scan ").append(String.join(", ", scannedColumns(plan, tableColumns)));
+        int first = 0;
+        if (!plan.isEmpty() && plan.get(0) instanceof Filter) {
+            text.append(" where ").append(((Filter) plan.get(0)).conditionsText());
+            first = 1;
+        }
+        for (Step step : plan.subList(first, plan.size())) {
+            text.append('\n').append(step);
+        }
+        return text.toString();
+    }
+
+    // The rows of the last table reached, as row numbers (all if null), and the columns kept
+    private static final class Result {
+        private final ColumnTable table;
+        private final int[] rows;
+        private final List<String> columns;
+
+        private Result(ColumnTable table, int[] rows, List<String> columns) {
+            this.table = table;
+            this.rows = rows;
+            this.columns = columns;
+        }
+    }
+
+    private Result run(ColumnTable table) {
+        List<Step> plan = optimize(steps);
+        ColumnTable current = table;
+        int[] rows = null;
+        List<String> columns = table.getColumnNames();
+        for (Step step : plan) {
+            // Columns a projection removed read as missing, as they would from its result
+            if (step instanceof Filter) {
+                rows = ((Filter) step).select(current, columns, rows);
+            } else if (step instanceof Sort) {
+                rows = ((Sort) step).order(current, columns, rows);
+            } else if (step instanceof Limit) {
+                int count = rows != null ? rows.length : current.rowCount();
+                int[] first = new int[Math.min(count, ((Limit) step).rowCount)];
+                for (int i = 0; i < first.length; i++) {
+                    first[i] = rows != null ? rows[i] : i;
+                }
+                rows = first;
+            } else if (step instanceof Aggregate) {
+                current = ((Aggregate) step).aggregate(current, columns, rows);
+                rows = null;
+                columns = current.getColumnNames();
+            } else {
+                List<String> kept = new ArrayList<>();
+                for (String column : ((Project) step).columns) {
+                    if (columns.contains(column) && !kept.contains(column)) {
+                        kept.add(column);
+                    }
+                }
+                columns = kept;
+            }
+        }
+        return new Result(current, rows, columns);
+    }
+
+    /**
+     * Rewrites the steps into an equivalent plan that does less work.
+     */
+    static List<Step> optimize(List<Step> steps) {
+        // Conditions are moved one at a time, so a filter can split around a step
+        List<Step> plan = new ArrayList<>();
+        for (Step step : steps) {
+            if (step instanceof Filter) {
+                for (Condition condition : ((Filter) step).conditions) {
+                    plan.add(new Filter(condition));
+                }
+            } else {
+                plan.add(step);
+            }
+        }
+
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int i = 1; i < plan.size(); i++) {
+                if (plan.get(i) instanceof Filter && commutes((Filter) plan.get(i), plan.get(i - 1))) {
+                    Collections.swap(plan, i - 1, i);
+                    moved = true;
+                }
+            }
+        }
+
+        for (int i = plan.size() - 1; i >= 0; i--) {
+            if (plan.get(i) instanceof Sort && orderIsLost((Sort) plan.get(i), plan.subList(i + 1, plan.size()))) {
+                plan.remove(i);
+            }
+        }
+
+        List<Step> fused = new ArrayList<>();
+        for (Step step : plan) {
+            Step last = fused.isEmpty() ? null : fused.get(fused.size() - 1);
+            if (step instanceof Filter && last instanceof Filter) {
+                List<Condition> conditions = new ArrayList<>(((Filter) last).conditions);
+                conditions.addAll(((Filter) step).conditions);
+                fused.set(fused.size() - 1, new Filter(conditions));
+            } else if (step instanceof Limit && last instanceof Sort) {
+                // The sort stops at the rows the limit keeps
+                Sort sort = (Sort) last;
+                int limit = Math.min(((Limit) step).rowCount, sort.limit >= 0 ? sort.limit : Integer.MAX_VALUE);
+                fused.set(fused.size() - 1, new Sort(sort.column, sort.ascending, limit));
+            } else if (step instanceof Limit && last instanceof Limit) {
+                fused.set(fused.size() - 1, new Limit(Math.min(((Limit) step).rowCount, ((Limit) last).rowCount)));
+            } else {
+                fused.add(step);
+            }
+        }
+        return fused;
+    }
+
+    // Whether filtering before the step keeps the same rows as filtering after it
+    private static boolean commutes(Filter filter, Step step) {
+        if (step instanceof Sort) {
+            return true;
+        }
+        String column = filter.conditions.get(0).column;
+        if (step instanceof Project) {
+            // The column read before the projection is the one read after it
+            return ((Project) step).columns.contains(column);
+        }
+        // Each group is kept or dropped whole, so its rows can be dropped before aggregating
+        return step instanceof Aggregate && ((Aggregate) step).groupBy.contains(column);
+    }
+
+    // Whether a later step discards the order the sort makes
+    private static boolean orderIsLost(Sort sort, List<Step> later) {
+        for (int i = 0; i < later.size(); i++) {
+            Step step = later.get(i);
+            if (step instanceof Limit) {
+                // Which rows are kept depends on the order
+                return false;
+            } else if (step instanceof Project && !((Project) step).columns.contains(sort.column)) {
+                // A later sort by the column would find it missing and keep the order
+                return false;
+            } else if (step instanceof Aggregate) {
+                // Groups come out in order of first appearance, and FIRST or LAST read the order too.
+                // With one group column its values are unique, so a later sort by it sets the whole order.
+                Aggregate aggregate = (Aggregate) step;
+                return aggregate.groupBy.size() == 1
+                        && aggregate.measures.stream().noneMatch(HashAggregator.Measure::isOrdered)
+                        && orderIsLost(new Sort(aggregate.groupBy.get(0), true), later.subList(i + 1, later.size()));
+            } else if (step instanceof Sort) {
+                // Stable sorts: equal values keep their order from before either sort
+                return ((Sort) step).column.equals(sort.column);
+            }
+        }
+        return false;
+    }
+
+    // The columns the plan reads from the table, in table order
+    private static List<String> scannedColumns(List<Step> plan, List<String> tableColumns) {
+        Set<String> needed = new HashSet<>(tableColumns);
+        for (int i = plan.size() - 1; i >= 0; i--) {
+            Step step = plan.get(i);
+            if (step instanceof Project) {
+                needed = new HashSet<>(((Project) step).columns);
+            } else if (step instanceof Aggregate) {
+                needed = new HashSet<>(((Aggregate) step).groupBy);
+                for (HashAggregator.Measure measure : ((Aggregate) step).measures) {
+                    needed.add(measure.getColumn());
+                }
+            } else if (step instanceof Sort) {
+                needed.add(((Sort) step).column);
+            } else if (step instanceof Filter) {
+                for (Condition condition : ((Filter) step).conditions) {
+                    needed.add(condition.column);
+                }
+            }
+        }
+        List<String> scanned = new ArrayList<>();
+        for (String column : tableColumns) {
+            if (needed.contains(column)) {
+                scanned.add(column);
+            }
+        }
+        return scanned;
+    }
+
+    abstract static class Step {
+    }
+
+    // Tests one row by its number; bound to the column it reads
+    private interface RowTest {
+        boolean test(int row);
+    }
+
+    private interface Binder {
+        RowTest bind(Column values);
+    }
+
+    private static final class Condition {
+        private final String column;
+        private final String description;
+        private final Binder binder;
+
+        private Condition(String column, String description, Binder binder) {
+            this.column = column;
+            this.description = description;
+            this.binder = binder;
+        }
+
+        @Override
+        public String toString() {
+            return column + " " + description;
+        }
+    }
+
+    private static final class Filter extends Step {
+        private final List<Condition> conditions;
+
+        private Filter(Condition condition) {
+            this(List.of(condition));
+        }
+
+        private Filter(List<Condition> conditions) {
+            this.conditions = conditions;
+        }
+
+        // One pass over the rows, testing the conditions of each row in turn
+        int[] select(ColumnTable table, List<String> columns, int[] rows) {
+            RowTest[] tests = new RowTest[conditions.size()];
+            for (int i = 0; i < tests.length; i++) {
+                String column = conditions.get(i).column;
+                tests[i] = conditions.get(i).binder.bind(columns.contains(column) ? table.column(column) : null);
+            }
+            int count = rows != null ? rows.length : table.rowCount();
+            int[] kept = new int[count];
+            int size = 0;
+            next:
+            for (int i = 0; i < count; i++) {
+                int row = rows != null ? rows[i] : i;
+                for (RowTest test : tests) {
+                    if (!test.test(row)) {
+                        continue next;
+                    }
+                }
+                kept[size++] = row;
+            }
+            return Arrays.copyOf(kept, size);
+        }
+
+        String conditionsText() {
+            StringJoiner text = new StringJoiner(" and ");
+            for (Condition condition : conditions) {
+                text.add(condition.toString());
+            }
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "Filter " + conditionsText();
+        }
+    }
+
+    private static final class Sort extends Step {
+        private final String column;
+        private final boolean ascending;
+        // Rows to find, or -1 for all
+        private final int limit;
+
+        private Sort(String column, boolean ascending) {
+            this(column, ascending, -1);
+        }
+
+        private Sort(String column, boolean ascending, int limit) {
+            this.column = column;
+            this.ascending = ascending;
+            this.limit = limit;
+        }
+
+        int[] order(ColumnTable table, List<String> columns, int[] rows) {
+            List<RowSorter.SortKey> keys = columns.contains(column) && table.hasColumn(column)
+                    ? List.of(new RowSorter.SortKey(column, ascending)) : List.of();
+            if (limit >= 0) {
+                return RowSorter.topK(table, rows, keys, limit);
+            }
+            return keys.isEmpty() ? rows : RowSorter.sort(table, rows, keys);
+        }
+
+        @Override
+        public String toString() {
+            String direction = ascending ? "ascending" : "descending";
+            return limit >= 0 ? "First " + limit + " rows by " + column + " " + direction
+                    : "Sort " + direction + " by " + column;
+        }
+    }
+
+    private static final class Limit extends Step {
+        private final int rowCount;
+
+        private Limit(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Limit " + rowCount;
+        }
+    }
+
+    private static final class Aggregate extends Step {
+        private final List<String> groupBy;
+        private final List<HashAggregator.Measure> measures;
+
+        private Aggregate(List<String> groupBy, List<HashAggregator.Measure> measures) {
+            this.groupBy = groupBy;
+            this.measures = measures;
+        }
+
+        ColumnTable aggregate(ColumnTable table, List<String> columns, int[] rows) {
+            // Only the columns still kept are visible to the aggregation
+            List<Column> visible = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                visible.add(table.column(column));
+            }
+            ColumnTable scope = ColumnTable.fromColumns(columns, visible, table.getStorage());
+            scope.setRowCount(table.rowCount());
+            return HashAggregator.aggregate(scope, rows, groupBy, measures);
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner aggregates = new StringJoiner(", ");
+            for (HashAggregator.Measure measure : measures) {
+                aggregates.add(measure.getType() + " of " + measure.getColumn()
+                        + (measure.getName().equals(measure.getColumn()) ? "" : " as " + measure.getName()));
+            }
+            return "Aggregate " + aggregates + " by " + String.join(", ", groupBy);
+        }
+    }
+
+    private static final class Project extends Step {
+        private final List<String> columns;
+
+        private Project(List<String> columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public String toString() {
+            return "Select " + String.join(", ", columns);
+        }
+    }
+}
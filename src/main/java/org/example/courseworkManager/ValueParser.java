@@ -0,0 +1,244 @@
+package org.example.courseworkManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Exception-free parsing of text cells. Every value is first checked against
+ * a small grammar, so the JDK parsers are only called on text they accept and
+ * importing a text column no longer throws (and catches) once per cell.
+ * Dates use the ISO forms yyyy-MM-dd and yyyy-MM-dd[T ]HH:mm[:ss[.fraction]].
+ */
+public final class ValueParser {
+    private static final String MAX_LONG = Long.toString(Long.MAX_VALUE);
+    private static final String MIN_LONG_DIGITS = Long.toString(Long.MIN_VALUE).substring(1);
+    // Years that TemporalColumn can hold as epoch nanoseconds
+    private static final int MIN_DATE_TIME_YEAR = 1678;
+    private static final int MAX_DATE_TIME_YEAR = 2261;
+
+    private ValueParser() {
+    }
+
+    public static boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
+
+    /**
+     * Returns the narrowest type that can hold the text, or null for an empty cell.
+     */
+    public static ColumnType classify(String text) {
+        if (isBlank(text)) {
+            return null;
+        } else if (isLong(text)) {
+            return ColumnType.LONG;
+        } else if (isDouble(text)) {
+            return ColumnType.DOUBLE;
+        } else if (isBoolean(text)) {
+            return ColumnType.BOOLEAN;
+        } else if (isDate(text)) {
+            return ColumnType.DATE;
+        } else if (isDateTime(text)) {
+            return ColumnType.DATE_TIME;
+        }
+        return ColumnType.STRING;
+    }
+
+    /**
+     * Parses the text as a value of the given Java type (as found in
+     * DataModel.getColumnTypes()). Returns null if the text is not such a value,
+     * and the text itself for String and unknown types.
+     */
+    public static Object parse(String text, Class<?> type) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.trim();
+        if (type == Long.class || type == Integer.class) {
+            if (!isLong(value)) {
+                return null;
+            }
+            long number = Long.parseLong(value);
+            if (type == Long.class) {
+                return number;
+            }
+            return number == (int) number ? (Object) (int) number : null;
+        } else if (type == Double.class) {
+            return isDouble(value) ? (Object) Double.parseDouble(value) : null;
+        } else if (type == Boolean.class) {
+            return isBoolean(value) ? parseBoolean(value) : null;
+        } else if (type == LocalDate.class) {
+            return parseDate(value);
+        } else if (type == LocalDateTime.class) {
+            return parseDateTime(value);
+        }
+        return text;
+    }
+
+    /**
+     * Whether Long.parseLong() accepts the text: an optional sign and up to
+     * 19 digits that do not overflow.
+     */
+    public static boolean isLong(String text) {
+        int start = text.length() > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        int length = text.length() - start;
+        if (length == 0 || length > MAX_LONG.length() || !allDigits(text, start, text.length())) {
+            return false;
+        }
+        if (length < MAX_LONG.length()) {
+            return true;
+        }
+        String limit = text.charAt(0) == '-' ? MIN_LONG_DIGITS : MAX_LONG;
+        return text.substring(start).compareTo(limit) <= 0;
+    }
+
+    /**
+     * Whether the text is a decimal number: [sign] digits [. digits] [e [sign] digits],
+     * where either the integer or the fraction digits may be left out.
+     * This is a subset of what Double.parseDouble() accepts.
+     */
+    public static boolean isDouble(String text) {
+        int i = 0;
+        int n = text.length();
+        if (i < n && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < n && isDigit(text.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < n && text.charAt(i) == '.') {
+            i++;
+            while (i < n && isDigit(text.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < n && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < n && isDigit(text.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        return i == n;
+    }
+
+    public static boolean isBoolean(String text) {
+        return text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false");
+    }
+
+    public static boolean parseBoolean(String text) {
+        return text.equalsIgnoreCase("true");
+    }
+
+    public static boolean isDate(String text) {
+        return text.length() == 10 && dateAt(text) != null;
+    }
+
+    public static boolean isDateTime(String text) {
+        return parseDateTime(text) != null;
+    }
+
+    /**
+     * Parses yyyy-MM-dd, or returns null if the text is not a valid date.
+     */
+    public static LocalDate parseDate(String text) {
+        return text.length() == 10 ? dateAt(text) : null;
+    }
+
+    /**
+     * Parses yyyy-MM-dd followed by 'T' or a space and HH:mm[:ss[.fraction]],
+     * or returns null if the text is not a valid date-time in the years TemporalColumn holds.
+     */
+    public static LocalDateTime parseDateTime(String text) {
+        int n = text.length();
+        if (n < 16 || (text.charAt(10) != 'T' && text.charAt(10) != ' ') || text.charAt(13) != ':') {
+            return null;
+        }
+        LocalDate date = dateAt(text);
+        int hour = number(text, 11, 13);
+        int minute = number(text, 14, 16);
+        if (date == null || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || date.getYear() < MIN_DATE_TIME_YEAR || date.getYear() > MAX_DATE_TIME_YEAR) {
+            return null;
+        }
+        int second = 0;
+        int nano = 0;
+        if (n > 16) {
+            if (n < 19 || text.charAt(16) != ':') {
+                return null;
+            }
+            second = number(text, 17, 19);
+            if (second < 0 || second > 59) {
+                return null;
+            }
+            if (n > 19) {
+                int fractionDigits = n - 20;
+                if (text.charAt(19) != '.' || fractionDigits == 0 || fractionDigits > 9) {
+                    return null;
+                }
+                nano = number(text, 20, n);
+                if (nano < 0) {
+                    return null;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(date.getYear(), date.getMonth(), date.getDayOfMonth(), hour, minute, second, nano);
+    }
+
+    // Reads the yyyy-MM-dd prefix of the text, checking the day against the month
+    private static LocalDate dateAt(String text) {
+        if (text.length() < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        int year = number(text, 0, 4);
+        int month = number(text, 5, 7);
+        int day = number(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    // The value of the digits from start to end, or -1 if any is not a digit
+    private static int number(String text, int start, int end) {
+        if (!allDigits(text, start, end)) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean allDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
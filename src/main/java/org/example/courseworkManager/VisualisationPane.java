@@ -1,5 +1,6 @@
 package org.example.courseworkManager;
 
+import javafx.concurrent.Task;
 import org.jfree.chart.fx.ChartViewer;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -23,6 +24,14 @@ public class VisualisationPane extends VBox {
     private final ComboBox<String> yAxisComboBox;
     private final ComboBox<ChartType> chartTypeComboBox;
     private ChartViewer chartViewer;
+    // Columns and type of the chart on display, so it can be redrawn when its rows change
+    private String chartXColumn;
+    private String chartYColumn;
+    private ChartType shownChartType;
+    // Chart still being built in the background, if any
+    private Task<JFreeChart> running;
+    // Bars drawn at most; more would be too narrow to read
+    private static final int MAX_BARS = 50;
 
     public enum ChartType {
         SCATTER_PLOT("Scatter Plot"),
@@ -76,10 +85,16 @@ public class VisualisationPane extends VBox {
         //      dataModel.getData().addListener((javafx.collections.ListChangeListener.Change<?> c) -> {
 //            updateColumns(); });
         // Update columns when data changes using DataModel listener
-        dataModel.addListener(() -> {
-            updateColumns();
-            // Clear existing chart when data changes
-            chartViewer.setChart(null);
+        dataModel.addListener(event -> {
+            if (event.getType() == DataChangeEvent.Type.SCHEMA_CHANGED) {
+                updateColumns();
+                // Clear existing chart when the columns change
+                clearChart();
+            } else if (shownChartType != null
+                    && (event.affectsColumn(chartXColumn) || event.affectsColumn(chartYColumn))) {
+                // Keep the selections and redraw the current chart from the changed rows
+                drawChart(chartXColumn, chartYColumn, shownChartType);
+            }
         });
 
         // Initial column update
@@ -109,38 +124,86 @@ public class VisualisationPane extends VBox {
             return;
         }
 
-        JFreeChart chart = null;
+        drawChart(xColumn, yColumn, chartType);
+    }
+
+    /**
+     * Builds the chart from a snapshot in a background thread, so that large
+     * datasets do not freeze the UI and edits made meanwhile cannot disturb it;
+     * only the finished chart is put on screen here. If the data changed while
+     * the chart was built, it is built again from the new data.
+     */
+    private void drawChart(String xColumn, String yColumn, ChartType chartType) {
+        if (running != null) {
+            running.cancel();
+        }
+        DataSnapshot snapshot = dataModel.snapshot();
+        Task<JFreeChart> task = new Task<>() {
+            @Override
+            protected JFreeChart call() {
+                try {
+                    return buildChart(snapshot, xColumn, yColumn, chartType);
+                } finally {
+                    snapshot.release();
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            running = null;
+            if (snapshot.getVersion() != dataModel.getVersion()) {
+                drawChart(xColumn, yColumn, chartType);
+                return;
+            }
+            chartViewer.setChart(task.getValue());
+            this.chartXColumn = xColumn;
+            this.chartYColumn = yColumn;
+            this.shownChartType = chartType;
+        });
+        task.setOnFailed(e -> {
+            running = null;
+            clearChart();
+            showError(task.getException().getMessage());
+        });
+        running = task;
+
+        Thread thread = new Thread(task, "chart");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    private static JFreeChart buildChart(DataSnapshot snapshot, String xColumn, String yColumn, ChartType chartType) {
         switch (chartType) {
-            case SCATTER_PLOT:
-                chart = createScatterPlot(xColumn, yColumn);
-                break;
             case LINE_CHART:
-                chart = createLineChart(xColumn, yColumn);
-                break;
+                return createLineChart(snapshot, xColumn, yColumn);
             case BAR_CHART:
-                chart = createBarChart(xColumn, yColumn);
-                break;
+                return createBarChart(snapshot, xColumn, yColumn);
             case HISTOGRAM:
-                chart = createHistogram(xColumn);
-                break;
+                return createHistogram(snapshot, xColumn);
+            default:
+                return createScatterPlot(snapshot, xColumn, yColumn);
         }
+    }
 
-        if (chart != null) {
-            chartViewer.setChart(chart);
+    private void clearChart() {
+        if (running != null) {
+            running.cancel();
+            running = null;
         }
+        chartViewer.setChart(null);
+        shownChartType = null;
     }
 
     // Generates a scatter plot using two numeric columns
-    private JFreeChart createScatterPlot(String xColumn, String yColumn) {
+    private static JFreeChart createScatterPlot(DataSnapshot snapshot, String xColumn, String yColumn) {
         XYSeries series = new XYSeries("Data");
 
-        for (Map<String, Object> row : dataModel.getData()) {
-            Object xValue = row.get(xColumn);
-            Object yValue = row.get(yColumn);
-
-            if (xValue instanceof Number && yValue instanceof Number) {
-                series.add(((Number) xValue).doubleValue(), ((Number) yValue).doubleValue());
+        Column xValues = snapshot.getTable().column(xColumn);
+        Column yValues = snapshot.getTable().column(yColumn);
+        if (xValues != null && yValues != null) {
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                if (xValues.isNumber(row) && yValues.isNumber(row)) {
+                    series.add(xValues.getDouble(row), yValues.getDouble(row));
+                }
             }
         }
 
@@ -153,22 +216,18 @@ public class VisualisationPane extends VBox {
     }
 
     // Generates a line chart (x-axis is sorted)
-    private JFreeChart createLineChart(String xColumn, String yColumn) {
-        XYSeries series = new XYSeries("Data");
-
-        List<Map<String, Object>> sortedData = new ArrayList<>(dataModel.getData());
-        sortedData.sort((a, b) -> {
-            Number x1 = (Number) a.get(xColumn);
-            Number x2 = (Number) b.get(xColumn);
-            return Double.compare(x1.doubleValue(), x2.doubleValue());
-        });
-
-        for (Map<String, Object> row : sortedData) {
-            Object xValue = row.get(xColumn);
-            Object yValue = row.get(yColumn);
-
-            if (xValue instanceof Number && yValue instanceof Number) {
-                series.add(((Number) xValue).doubleValue(), ((Number) yValue).doubleValue());
+    private static JFreeChart createLineChart(DataSnapshot snapshot, String xColumn, String yColumn) {
+        XYSeries series = new XYSeries("Data", false);
+
+        ColumnTable table = snapshot.getTable();
+        Column xValues = table.column(xColumn);
+        Column yValues = table.column(yColumn);
+        if (xValues != null && yValues != null) {
+            // Row order by x, from the column's primitive keys; rows without two numbers are skipped
+            for (int row : RowSorter.sort(table, List.of(new RowSorter.SortKey(xColumn, true)))) {
+                if (xValues.isNumber(row) && yValues.isNumber(row)) {
+                    series.add(xValues.getDouble(row), yValues.getDouble(row));
+                }
             }
         }
 
@@ -180,54 +239,72 @@ public class VisualisationPane extends VBox {
         );
     }
 
-    // Aggregates values and displays them in a bar chart grouped by a selected column
-    private JFreeChart createBarChart(String xColumn, String yColumn) {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-
-        Map<Object, Double> aggregatedData = new HashMap<>();
-        for (Map<String, Object> row : dataModel.getData()) {
-            Object xValue = row.get(xColumn);
-            Object yValue = row.get(yColumn);
-
-            if (xValue != null && yValue instanceof Number) {
-                String category = xValue.toString();
-                double value = ((Number) yValue).doubleValue();
-                aggregatedData.merge(category, value, Double::sum);
+    // Aggregates values and displays the largest totals in a bar chart grouped by a selected column
+    private static JFreeChart createBarChart(DataSnapshot snapshot, String xColumn, String yColumn) {
+        List<String> labels = new ArrayList<>();
+        List<Double> totals = new ArrayList<>();
+
+        Column categories = snapshot.getTable().column(xColumn);
+        Column values = snapshot.getTable().column(yColumn);
+        if (categories instanceof DictionaryColumn && values != null) {
+            // Sum per dictionary code, then label each bar once
+            DictionaryColumn codes = (DictionaryColumn) categories;
+            double[] sums = new double[codes.getDictionary().size()];
+            boolean[] present = new boolean[sums.length];
+            for (int row = 0; row < codes.size(); row++) {
+                int code = codes.getCode(row);
+                if (code >= 0 && values.isNumber(row)) {
+                    sums[code] += values.getDouble(row);
+                    present[code] = true;
+                }
+            }
+            for (int code = 0; code < sums.length; code++) {
+                if (present[code]) {
+                    labels.add(codes.getDictionary().decode(code));
+                    totals.add(sums[code]);
+                }
             }
+        } else if (categories != null && values != null) {
+            Map<String, Double> aggregatedData = new LinkedHashMap<>();
+            for (int row = 0; row < snapshot.rowCount(); row++) {
+                if (!categories.isNull(row) && values.isNumber(row)) {
+                    aggregatedData.merge(categories.get(row).toString(), values.getDouble(row), Double::sum);
+                }
+            }
+            labels.addAll(aggregatedData.keySet());
+            totals.addAll(aggregatedData.values());
         }
 
-        for (Map.Entry<Object, Double> entry : aggregatedData.entrySet()) {
-            dataset.addValue(entry.getValue(), "Data", entry.getKey().toString());
+        // Only the largest bars fit, found without sorting every category, and shown in category order
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        int[] shown = RowSorter.topK(labels.size(), (a, b) -> Double.compare(totals.get(b), totals.get(a)), MAX_BARS);
+        Arrays.sort(shown);
+        for (int bar : shown) {
+            dataset.addValue(totals.get(bar), "Data", labels.get(bar));
         }
-
+        String title = shown.length < labels.size()
+                ? "Bar Chart (top " + shown.length + " of " + labels.size() + " categories by " + yColumn + ")"
+                : "Bar Chart";
         return ChartFactory.createBarChart(
-                "Bar Chart", xColumn, yColumn,
+                title, xColumn, yColumn,
                 dataset, PlotOrientation.VERTICAL,
                 true, true, false
         );
     }
 
     // Creates a histogram of numeric data in the selected column
-    private JFreeChart createHistogram(String column) {
-        List<Double> values = new ArrayList<>();
-
-        for (Map<String, Object> row : dataModel.getData()) {
-            Object value = row.get(column);
-            if (value instanceof Number) {
-                values.add(((Number) value).doubleValue());
-            }
-        }
+    private static JFreeChart createHistogram(DataSnapshot snapshot, String column) {
+        double[] values = snapshot.numericValues(column);
 
-        if (values.isEmpty()) {
-            showError("No numeric data available for histogram.");
-            return null;
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No numeric data available for histogram.");
         }
 
         HistogramDataset dataset = new HistogramDataset();
         dataset.addSeries(
                 "Data",
-                values.stream().mapToDouble(Double::doubleValue).toArray(),
-                Math.min(50, values.size() / 2)
+                values,
+                Math.min(50, values.length / 2)
         );
 
         return ChartFactory.createHistogram(
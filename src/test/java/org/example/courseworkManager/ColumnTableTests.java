@@ -0,0 +1,197 @@
+package org.example.courseworkManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the columnar storage (ColumnTable, Column types and ColumnarRowList).
+ * These tests check type selection, widening, null tracking and that the row-view
+ * list behaves like a normal list of maps for the rest of the application.
+ */
+public class ColumnTableTests {
+    private ColumnarRowList rows;
+
+    @BeforeEach
+    void setUp() {
+        List<Map<String, Object>> testData = new ArrayList<>();
+        testData.add(Map.of("id", 1, "value", 10.5, "category", "A"));
+        testData.add(Map.of("id", 2, "value", 20.5, "category", "B"));
+        testData.add(Map.of("id", 3, "value", 30.5, "category", "A"));
+
+        rows = new ColumnarRowList();
+        rows.setTable(ColumnTable.fromRows(testData, List.of("id", "value", "category")));
+    }
+
+    // Numeric values should land in primitive columns and read back as the original boxed type
+    @Test
+    void testPrimitiveColumnTypes() {
+        ColumnTable table = rows.getTable();
+        assertInstanceOf(LongColumn.class, table.column("id"));
+        assertInstanceOf(DoubleColumn.class, table.column("value"));
+        assertEquals(Integer.class, table.column("id").getType());
+        assertEquals(2, rows.get(1).get("id"));
+        assertEquals(20.5, rows.get(1).get("value"));
+    }
+
+    // Rows put back at their positions keep the typed columns they came from
+    @Test
+    void testInsertRowsAtPositions() {
+        ColumnTable table = rows.getTable();
+        ColumnTable removed = table.select(new int[]{0, 2});
+        Bitmap positions = new Bitmap(3);
+        positions.set(0);
+        positions.set(2);
+        rows.select(new int[]{1});
+
+        rows.insertRows(positions, removed);
+        assertEquals(3, rows.size());
+        assertEquals(1, rows.get(0).get("id"));
+        assertEquals("B", rows.get(1).get("category"));
+        assertEquals(30.5, rows.get(2).get("value"));
+        assertInstanceOf(LongColumn.class, rows.getTable().column("id"));
+        assertInstanceOf(DoubleColumn.class, rows.getTable().column("value"));
+        assertEquals(Integer.class, rows.getTable().column("id").getType());
+    }
+
+    // Writing text into a numeric column widens it instead of failing
+    @Test
+    void testWideningOnMixedValues() {
+        rows.get(0).put("value", "n/a");
+        Column column = rows.getTable().column("value");
+        assertInstanceOf(ObjectColumn.class, column);
+        assertEquals("n/a", rows.get(0).get("value"));
+        assertEquals(20.5, rows.get(1).get("value"));
+    }
+
+    // Nulls are tracked in the validity bitmap and read back as null
+    @Test
+    void testNullTracking() {
+        Map<String, Object> rowWithNull = new HashMap<>();
+        rowWithNull.put("id", 4);
+        rowWithNull.put("value", null);
+        rows.add(rowWithNull);
+
+        Column value = rows.getTable().column("value");
+        assertEquals(1, value.nullCount());
+        assertNull(rows.get(3).get("value"));
+        assertNull(rows.get(3).get("category"));
+        assertTrue(Double.isNaN(value.getDouble(3)));
+    }
+
+    // removeIf compacts the columns and keeps the row order
+    @Test
+    void testRemoveIfKeepsOrder() {
+        rows.removeIf(row -> "B".equals(row.get("category")));
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.get(0).get("id"));
+        assertEquals(3, rows.get(1).get("id"));
+    }
+
+    // Sorting a copy of the list and writing it back applies a permutation
+    @Test
+    void testSetAllWithOwnRowsPermutes() {
+        List<Map<String, Object>> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(row -> -((Number) row.get("id")).intValue()));
+        rows.setAll(sorted);
+        assertEquals(3, rows.get(0).get("id"));
+        assertEquals(1, rows.get(2).get("id"));
+        assertInstanceOf(DoubleColumn.class, rows.getTable().column("value"));
+    }
+
+    // Duplicate detection compares cell values column by column
+    @Test
+    void testDistinctRows() {
+        rows.add(Map.of("id", 1, "value", 10.5, "category", "A"));
+        assertArrayEquals(new int[]{0, 1, 2}, rows.getTable().distinctRows());
+    }
+
+    // Repeating text is dictionary-encoded and shares one entry per distinct value
+    @Test
+    void testDictionaryEncodedText() {
+        Column category = rows.getTable().column("category");
+        assertInstanceOf(DictionaryColumn.class, category);
+        DictionaryColumn codes = (DictionaryColumn) category;
+        assertEquals(2, codes.getDictionary().size());
+        assertEquals(codes.getCode(0), codes.getCode(2));
+        assertEquals("B", rows.get(1).get("category"));
+    }
+
+    // Mostly unique text falls back to plain references once cardinality is high
+    @Test
+    void testHighCardinalityTextIsNotEncoded() {
+        List<Map<String, Object>> unique = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            unique.add(Map.of("name", "row-" + i));
+        }
+        ColumnTable table = ColumnTable.fromRows(unique, List.of("name"));
+        assertInstanceOf(ObjectColumn.class, table.column("name"));
+        assertEquals("row-1999", table.get(1999, "name"));
+    }
+
+    // Disk-backed tables keep typed values in mapped files and still filter and sort
+    @Test
+    void testMappedStorage(@TempDir Path scratch) {
+        MappedStorage storage = new MappedStorage(scratch);
+        ColumnarRowList mapped = new ColumnarRowList();
+        mapped.setTable(ColumnTable.fromRows(new ArrayList<>(rows), rows.getTable().getColumnNames(), storage));
+
+        assertInstanceOf(MappedDoubleColumn.class, mapped.getTable().column("value"));
+        assertInstanceOf(MappedDictionaryColumn.class, mapped.getTable().column("category"));
+        assertEquals(30.5, mapped.get(2).get("value"));
+
+        mapped.removeIf(row -> "B".equals(row.get("category")));
+        assertInstanceOf(MappedDoubleColumn.class, mapped.getTable().column("value"));
+        assertEquals(30.5, mapped.get(1).get("value"));
+
+        Column value = mapped.getTable().column("value");
+        mapped.select(RowSorter.sort(value.size(), RowSorter.comparing(value, false)));
+        assertEquals(3, mapped.get(0).get("id"));
+    }
+
+    // A double column should cost about 8 bytes per cell
+    @Test
+    void testNumericMemoryFootprint() {
+        DoubleColumn column = new DoubleColumn(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            column.appendDouble(i);
+        }
+        assertTrue(column.memoryUsage() < 8.5 * 1_000_000);
+    }
+
+    // Many appends and edits to few distinct values keep the sorted index equal to a scan
+    @Test
+    void testSortedIndexUnderManyChanges() {
+        ColumnTable table = new ColumnTable(List.of("v"));
+        SortedIndex index = table.sortedIndex("v");
+        for (int i = 0; i < 5000; i++) {
+            table.appendRow(Map.of("v", (double) (i % 5)));
+        }
+        ColumnTable tail = new ColumnTable(List.of("v"));
+        for (int i = 0; i < 3000; i++) {
+            tail.appendRow(Map.of("v", (double) (i % 7)));
+        }
+        table.appendRows(tail);
+        for (int row = 0; row < table.rowCount(); row += 3) {
+            table.set(row, "v", (double) (row % 11));
+            table.set(row, "v", table.get(row, "v"));
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int row = 0; row < table.rowCount(); row++) {
+            double value = (Double) table.get(row, "v");
+            if (value >= 4 && value < 6) {
+                expected.add(row);
+            }
+        }
+        int[] found = index.range(4, true, 6, false);
+        Arrays.sort(found);
+        assertEquals(expected, Arrays.stream(found).boxed().toList());
+        assertSame(index, table.sortedIndex("v"));
+    }
+}
@@ -187,7 +187,7 @@ public class DataModelTests {
     void testListenerNotification() {
         final boolean[] notified = {false};
 
-        dataModel.addListener(() -> notified[0] = true);
+        dataModel.addListener(event -> notified[0] = true);
 
         // Extract column order from the first row
         List<String> columnOrder = new ArrayList<>();
@@ -200,4 +200,282 @@ public class DataModelTests {
 
         assertTrue(notified[0]);
     }
+
+    // Undo and redo of a cell edit restore exactly that cell
+    @Test
+    void testUndoRedoCellEdit() {
+        dataModel.updateValue(1, "value", 99.0);
+        assertEquals(99.0, dataModel.getData().get(1).get("value"));
+
+        dataModel.undo();
+        assertEquals(20.5, dataModel.getData().get(1).get("value"));
+
+        dataModel.redo();
+        assertEquals(99.0, dataModel.getData().get(1).get("value"));
+    }
+
+    // Undoing an edit that widened a typed column gives the column its type back
+    @Test
+    void testUndoWideningEditNarrowsColumn() {
+        dataModel.updateValue(1, "value", "n/a");
+        assertInstanceOf(ObjectColumn.class, dataModel.getTable().column("value"));
+
+        dataModel.undo();
+        assertInstanceOf(DoubleColumn.class, dataModel.getTable().column("value"));
+        assertEquals(20.5, dataModel.getData().get(1).get("value"));
+
+        // Also after the edit was spilled to disk
+        dataModel.redo();
+        dataModel.getHistory().setMemoryBudget(0);
+        dataModel.undo();
+        assertInstanceOf(DoubleColumn.class, dataModel.getTable().column("value"));
+    }
+
+    // Editing after a filter must not change the state that undo goes back to
+    @Test
+    void testUndoFilterRestoresRowsInOrder() {
+        dataModel.applyTransformation(TransformationFactory.createFilterTransformation(
+                "category", value -> "A".equals(value)));
+        dataModel.updateValue(0, "value", 0.0);
+        assertEquals(2, dataModel.getData().size());
+
+        dataModel.undo();
+        dataModel.undo();
+        assertEquals(3, dataModel.getData().size());
+        assertEquals(10.5, dataModel.getData().get(0).get("value"));
+        assertEquals("B", dataModel.getData().get(1).get("category"));
+        assertEquals(3, dataModel.getData().get(2).get("id"));
+    }
+
+    // A sort is undone by inverting its permutation
+    @Test
+    void testUndoSort() {
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("value", false));
+        assertEquals(3, dataModel.getData().get(0).get("id"));
+
+        dataModel.undo();
+        assertEquals(1, dataModel.getData().get(0).get("id"));
+        assertEquals(3, dataModel.getData().get(2).get("id"));
+
+        dataModel.redo();
+        assertEquals(3, dataModel.getData().get(0).get("id"));
+    }
+
+    // With no memory budget, history is spilled to disk and read back on undo
+    @Test
+    void testHistorySpillsToDisk() {
+        dataModel.getHistory().setMemoryBudget(0);
+        dataModel.applyTransformation(TransformationFactory.createFilterTransformation(
+                "category", value -> "B".equals(value)));
+        dataModel.updateValue(0, "category", "C");
+
+        assertEquals(0, dataModel.getHistory().getMemoryUsage());
+        assertTrue(dataModel.getHistory().getDiskUsage() > 0);
+
+        dataModel.undo();
+        dataModel.undo();
+        assertEquals(3, dataModel.getData().size());
+        assertEquals("B", dataModel.getData().get(1).get("category"));
+        assertEquals(30.5, dataModel.getData().get(2).get("value"));
+
+        dataModel.redo();
+        assertEquals(1, dataModel.getData().size());
+    }
+
+    // A spilled table replacement redoes the table as it was replaced, not as it was later edited
+    @Test
+    void testSpilledTableReplacementIgnoresLaterEdits() {
+        dataModel.setData(List.of(Map.of("id", 1, "v", 10.0)), List.of("id", "v"));
+        dataModel.setData(List.of(Map.of("id", 2, "v", 20.0)), List.of("id", "v"));
+        dataModel.updateValue(0, "v", 99.0);
+        dataModel.getHistory().setMemoryBudget(0);
+
+        dataModel.undo();
+        dataModel.undo();
+        assertEquals(Map.of("id", 1, "v", 10.0), dataModel.getData().get(0));
+        dataModel.redo();
+        assertEquals(Map.of("id", 2, "v", 20.0), dataModel.getData().get(0));
+        dataModel.redo();
+        assertEquals(99.0, dataModel.getData().get(0).get("v"));
+
+        // Undone again after being spilled with its settled table
+        dataModel.undo();
+        dataModel.undo();
+        dataModel.getHistory().setMemoryBudget(0);
+        dataModel.redo();
+        assertEquals(20.0, dataModel.getData().get(0).get("v"));
+        dataModel.undo();
+        assertEquals(10.0, dataModel.getData().get(0).get("v"));
+    }
+
+    // Listeners are told what kind of change happened and where
+    @Test
+    void testListenerReceivesTypedEvents() {
+        List<DataChangeEvent> events = new ArrayList<>();
+        dataModel.addListener(events::add);
+
+        dataModel.updateValue(2, "value", 1.0);
+        assertEquals(DataChangeEvent.Type.CELLS_UPDATED, events.get(0).getType());
+        assertTrue(events.get(0).getRows().get(2));
+        assertEquals(Set.of("value"), events.get(0).getColumns());
+        assertFalse(events.get(0).affectsColumn("category"));
+
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("id", false));
+        assertEquals(DataChangeEvent.Type.ROWS_PERMUTED, events.get(1).getType());
+        assertArrayEquals(new int[]{2, 1, 0}, events.get(1).getPermutation());
+
+        dataModel.applyTransformation(TransformationFactory.createFilterTransformation(
+                "category", value -> "A".equals(value)));
+        assertEquals(DataChangeEvent.Type.ROWS_REMOVED, events.get(2).getType());
+        assertTrue(events.get(2).getRows().get(1));
+        assertEquals(1, events.get(2).getRows().cardinality());
+
+        // Undoing the filter puts the row back where it was
+        dataModel.undo();
+        assertEquals(DataChangeEvent.Type.ROWS_INSERTED, events.get(3).getType());
+        assertTrue(events.get(3).getRows().get(1));
+        assertEquals(1, events.get(3).getRows().cardinality());
+        assertEquals(1, events.get(3).getFrom());
+        assertEquals(2, events.get(3).getTo());
+        dataModel.redo();
+        assertEquals(DataChangeEvent.Type.ROWS_REMOVED, events.get(4).getType());
+        dataModel.setData(testData, List.of("id", "value", "category"));
+        assertEquals(DataChangeEvent.Type.SCHEMA_CHANGED, events.get(5).getType());
+    }
+
+    // A batch of edits is one undo step and one event
+    @Test
+    void testBatchCoalescesHistoryAndEvents() {
+        List<DataChangeEvent> events = new ArrayList<>();
+        dataModel.addListener(events::add);
+
+        dataModel.batch(model -> {
+            for (int row = 0; row < 3; row++) {
+                model.updateValue(row, "value", 0.0);
+            }
+        });
+        assertEquals(1, events.size());
+        assertEquals(DataChangeEvent.Type.CELLS_UPDATED, events.get(0).getType());
+        assertEquals(3, events.get(0).getRows().cardinality());
+
+        dataModel.undo();
+        assertEquals(10.5, dataModel.getData().get(0).get("value"));
+        assertEquals(30.5, dataModel.getData().get(2).get("value"));
+    }
+
+    // A failing batch leaves data, columns and history as they were
+    @Test
+    void testBatchRollsBackOnFailure() {
+        List<DataChangeEvent> events = new ArrayList<>();
+        dataModel.addListener(events::add);
+
+        assertThrows(IllegalStateException.class, () -> dataModel.batch(model -> {
+            model.updateValue(0, "category", "Z");
+            model.applyTransformation(TransformationFactory.createSortTransformation("id", false));
+            model.setData(List.of(Map.of("other", 1)), List.of("other"));
+            throw new IllegalStateException("script failed");
+        }));
+
+        assertTrue(events.isEmpty());
+        assertFalse(dataModel.isInBatch());
+        assertEquals(List.of("id", "value", "category"), dataModel.getColumnNames());
+        assertEquals(3, dataModel.getData().size());
+        assertEquals("A", dataModel.getData().get(0).get("category"));
+        assertEquals(1, dataModel.getData().get(0).get("id"));
+
+        // The only history entry left is the initial setData()
+        dataModel.undo();
+        assertTrue(dataModel.getData().isEmpty());
+    }
+
+    // A snapshot keeps its contents while the model is edited, sorted and appended to
+    @Test
+    void testSnapshotIsolation() throws InterruptedException {
+        DataSnapshot snapshot = dataModel.snapshot();
+        assertSame(snapshot, dataModel.snapshot());
+
+        dataModel.updateValue(0, "value", 99.0);
+        dataModel.updateValue(1, "category", "Z");
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("id", false));
+        dataModel.getData().add(Map.of("id", 4, "value", 40.5, "category", "C"));
+
+        assertTrue(dataModel.getVersion() > snapshot.getVersion());
+        assertNotSame(snapshot, dataModel.snapshot());
+        assertEquals(3, snapshot.rowCount());
+        assertEquals(10.5, snapshot.getRows().get(0).get("value"));
+        assertEquals("B", snapshot.getRows().get(1).get("category"));
+        assertEquals(99.0, dataModel.getData().get(2).get("value"));
+
+        // Readers on other threads see the same values
+        double[] sum = new double[1];
+        Thread reader = new Thread(() -> {
+            for (double value : snapshot.numericValues("value")) {
+                sum[0] += value;
+            }
+        });
+        reader.start();
+        reader.join();
+        assertEquals(61.5, sum[0], 0.001);
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRows().get(0).put("value", 1.0));
+    }
+
+    // An import shows its first rows, then the whole table; undo goes back to the data before it
+    @Test
+    void testLoadShowsPreviewThenWholeTable() {
+        ColumnTable preview = ColumnTable.fromRows(List.of(Map.of("x", 1.0)), List.of("x"), null);
+        dataModel.beginLoad(preview);
+        assertTrue(dataModel.isLoading());
+        assertEquals(List.of("x"), dataModel.getColumnNames());
+        assertEquals(1, dataModel.getData().size());
+
+        ColumnTable full = ColumnTable.fromRows(List.of(Map.of("x", 1.0), Map.of("x", 2.0)), List.of("x"), null);
+        dataModel.finishLoad(full);
+        assertFalse(dataModel.isLoading());
+        assertEquals(2, dataModel.getData().size());
+        assertEquals(Double.class, dataModel.getColumnTypes().get("x"));
+
+        dataModel.undo();
+        assertEquals(3, dataModel.getData().size());
+        assertEquals("B", dataModel.getData().get(1).get("category"));
+
+        // A cancelled load puts the old data back without touching the history
+        Map<String, Class<?>> types = dataModel.getColumnTypes();
+        dataModel.beginLoad(preview);
+        dataModel.cancelLoad();
+        assertFalse(dataModel.isLoading());
+        assertEquals(3, dataModel.getData().size());
+        assertEquals(types, dataModel.getColumnTypes());
+        dataModel.redo();
+        assertEquals(2, dataModel.getData().size());
+    }
+
+    // Once every user released a snapshot, edits write to the shared column in place instead of copying it
+    @Test
+    void testReleasedSnapshotStopsCopyOnWrite() {
+        DataSnapshot first = dataModel.snapshot();
+        DataSnapshot second = dataModel.snapshot();
+        assertSame(first, second);
+        Column values = dataModel.getTable().column("value");
+
+        first.release();
+        dataModel.updateValue(0, "value", 99.0);
+        // The second user still reads the column, so it was copied
+        assertNotSame(values, dataModel.getTable().column("value"));
+        assertEquals(10.5, second.getRows().get(0).get("value"));
+        second.release();
+
+        DataSnapshot third = dataModel.snapshot();
+        assertNotSame(second, third);
+        third.release();
+        // A released snapshot is not handed out again, and releasing twice counts once
+        DataSnapshot fourth = dataModel.snapshot();
+        assertNotSame(third, fourth);
+        third.release();
+        fourth.release();
+        Column copied = dataModel.getTable().column("value");
+        dataModel.updateValue(1, "value", 1.0);
+        assertSame(copied, dataModel.getTable().column("value"));
+        assertEquals(1.0, dataModel.getData().get(1).get("value"));
+    }
 }
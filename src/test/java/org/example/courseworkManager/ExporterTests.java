@@ -0,0 +1,232 @@
+package org.example.courseworkManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming exporters: what they write, and that the
+ * importers read it back unchanged.
+ */
+public class ExporterTests {
+    @TempDir
+    Path folder;
+
+    private ColumnTable sampleTable() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<String, Object> first = new HashMap<>();
+        first.put("id", 1L);
+        first.put("name", "say \"hi\", then go");
+        first.put("score", 1.5);
+        first.put("day", LocalDate.of(2024, 2, 29));
+        rows.add(first);
+        Map<String, Object> second = new HashMap<>();
+        second.put("id", 2L);
+        second.put("name", "line one\nline two");
+        second.put("score", null);
+        second.put("day", null);
+        rows.add(second);
+        return ColumnTable.fromRows(rows, List.of("id", "name", "score", "day"), null);
+    }
+
+    // Quoted fields, nulls and dates survive a CSV round trip
+    @Test
+    void testCsvRoundTrip() throws IOException {
+        File file = folder.resolve("out.csv").toFile();
+        CsvExporter.exportCsv(sampleTable(), List.of("id", "name", "score", "day"), file);
+
+        assertTrue(Files.readString(file.toPath()).startsWith("id,name,score,day\r\n1,\"say \"\"hi\"\", then go\",1.5,2024-02-29\r\n"));
+        ColumnTable table = CsvImporter.importCsv(file, null);
+        assertEquals(2, table.rowCount());
+        assertEquals("say \"hi\", then go", table.get(0, "name"));
+        assertEquals("line one\nline two", table.get(1, "name"));
+        assertEquals(LocalDate.of(2024, 2, 29), table.get(0, "day"));
+        assertNull(table.get(1, "score"));
+    }
+
+    // Rows come out in order however many chunks are formatted in parallel
+    @Test
+    void testCsvChunksKeepRowOrder() throws IOException {
+        int rows = 150_000;
+        ColumnTable source = new ColumnTable(List.of("n"));
+        for (int i = 0; i < rows; i++) {
+            source.appendRow(Map.of("n", (long) i));
+        }
+        File file = folder.resolve("many.csv").toFile();
+        ProgressMonitor monitor = new ProgressMonitor(null);
+        CsvExporter.exportCsv(source, List.of("n"), file, monitor);
+
+        assertEquals(rows, monitor.getRows());
+        assertEquals(1.0, monitor.getProgress());
+        assertEquals(Files.size(file.toPath()), monitor.getBytes());
+        ColumnTable table = CsvImporter.importCsv(file, null);
+        assertEquals(rows, table.rowCount());
+        for (int i = 0; i < rows; i += 997) {
+            assertEquals((long) i, table.get(i, "n"));
+        }
+    }
+
+    // Wide tables are cut into chunks of fewer rows, still written in order
+    @Test
+    void testWideCsvChunks() throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Column> columns = new ArrayList<>();
+        for (int c = 0; c < 300; c++) {
+            LongColumn column = new LongColumn(Long.class, 2000);
+            for (int row = 0; row < 2000; row++) {
+                column.appendLong((long) row * c);
+            }
+            names.add("c" + c);
+            columns.add(column);
+        }
+        File file = folder.resolve("wide.csv").toFile();
+        CsvExporter.exportCsv(ColumnTable.fromColumns(names, columns, null), names, file);
+
+        ColumnTable table = CsvImporter.importCsv(file, null);
+        assertEquals(2000, table.rowCount());
+        assertEquals(300, table.columnCount());
+        assertEquals(1999L * 299, table.get(1999, "c299"));
+        assertEquals(874L * 7, table.get(874, "c7"));
+    }
+
+    // Compact JSON and newline-delimited JSON read back as the same table
+    @Test
+    void testJsonAndNdjson() throws IOException {
+        File json = folder.resolve("out.json").toFile();
+        File ndjson = folder.resolve("out.ndjson").toFile();
+        List<String> columns = List.of("id", "name", "score", "day");
+        JsonExporter.exportJson(sampleTable(), columns, json, ProgressMonitor.NONE);
+        JsonExporter.exportNdjson(sampleTable(), columns, ndjson, ProgressMonitor.NONE);
+
+        assertTrue(Files.readString(json.toPath()).startsWith("[{\"id\":1,\"name\":"));
+        assertEquals(2, Files.readAllLines(ndjson.toPath()).size());
+        for (File file : List.of(json, ndjson)) {
+            ColumnTable table = JsonImporter.importTable(file, null);
+            assertEquals(columns, table.getColumnNames());
+            assertEquals(2L, table.get(1, "id"));
+            assertEquals("line one\nline two", table.get(1, "name"));
+            assertEquals(1.5, table.get(0, "score"));
+            assertEquals("2024-02-29", table.get(0, "day"));
+            assertNull(table.get(1, "day"));
+        }
+    }
+
+    // Names ending in .gz or .deflate are compressed on export and detected on import
+    @Test
+    void testCompressedRoundTrip() throws IOException {
+        List<String> columns = List.of("id", "name", "score", "day");
+        File csv = folder.resolve("out.csv.gz").toFile();
+        File json = folder.resolve("out.json.deflate").toFile();
+        File ndjson = folder.resolve("out.ndjson.gz").toFile();
+        CsvExporter.exportCsv(sampleTable(), columns, csv);
+        JsonExporter.exportJson(sampleTable(), columns, json, ProgressMonitor.NONE);
+        JsonExporter.exportNdjson(sampleTable(), columns, ndjson, ProgressMonitor.NONE);
+
+        assertEquals(Compression.GZIP, Compression.detect(csv.toPath()));
+        assertEquals(Compression.DEFLATE, Compression.detect(json.toPath()));
+        assertEquals("out.csv", Compression.stripSuffix(csv.getName()));
+        ColumnTable table = CsvImporter.importCsv(csv, null);
+        assertEquals(2, table.rowCount());
+        assertEquals("line one\nline two", table.get(1, "name"));
+        assertEquals(LocalDate.of(2024, 2, 29), table.get(0, "day"));
+        for (File file : List.of(json, ndjson)) {
+            table = JsonImporter.importTable(file, null);
+            assertEquals(columns, table.getColumnNames());
+            assertEquals("say \"hi\", then go", table.get(0, "name"));
+            assertNull(table.get(1, "score"));
+        }
+    }
+
+    // A saved dataset opens as mapped columns with the same values, types and metadata
+    @Test
+    void testDsmRoundTrip() throws IOException {
+        ColumnTable source = sampleTable();
+        source.appendRow(Map.of("id", 3L, "name", "say \"hi\", then go", "flag", true));
+        List<String> columns = List.of("id", "name", "score", "day", "flag", "missing");
+        File file = folder.resolve("saved.dsm").toFile();
+        DsmFile.write(source, columns, file, ProgressMonitor.NONE);
+
+        ColumnTable table = DsmFile.read(file, null);
+        assertEquals(columns, table.getColumnNames());
+        assertEquals(3, table.rowCount());
+        assertInstanceOf(MappedLongColumn.class, table.column("id"));
+        assertInstanceOf(MappedDictionaryColumn.class, table.column("name"));
+        assertInstanceOf(MappedTemporalColumn.class, table.column("day"));
+        assertTrue(table.column("id").isReadOnly());
+        for (String column : List.of("id", "name", "score", "day", "flag")) {
+            for (int row = 0; row < 3; row++) {
+                assertEquals(source.get(row, column), table.get(row, column), column + " row " + row);
+            }
+        }
+        assertEquals(3, table.column("missing").nullCount());
+
+        List<DsmFile.ColumnInfo> infos = DsmFile.readColumnInfo(file);
+        assertEquals(1L, infos.get(0).getMin());
+        assertEquals(3L, infos.get(0).getMax());
+        assertEquals(1, infos.get(2).getCount());
+        assertEquals(2, infos.get(3).getNullCount());
+        assertEquals(LocalDate.of(2024, 2, 29), infos.get(3).getMax());
+        assertEquals("line one\nline two", infos.get(1).getMin());
+
+        // Writing copies the mapped column first, so the file is left as it was
+        table.set(0, "id", 10L);
+        table.appendRow(Map.of("id", 4L));
+        assertFalse(table.column("id").isReadOnly());
+        assertEquals(10L, table.get(0, "id"));
+        assertEquals(1L, DsmFile.read(file, null).get(0, "id"));
+
+        // Saving over the file that is open keeps the open table readable
+        DsmFile.write(table, table.getColumnNames(), file, ProgressMonitor.NONE);
+        assertEquals(4, DsmFile.read(file, null).rowCount());
+        assertEquals("line one\nline two", table.get(1, "name"));
+    }
+
+    // Numbers, date-times and dictionary codes of a single batch are mapped from the stream
+    @Test
+    void testArrowRoundTrip() throws IOException {
+        ColumnTable source = sampleTable();
+        source.appendRow(Map.of("id", 3L, "name", "say \"hi\", then go", "flag", true,
+                "at", LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6)));
+        List<String> columns = List.of("id", "name", "score", "day", "flag", "at", "missing");
+        File file = folder.resolve("table.arrows").toFile();
+        ArrowStream.write(source, columns, file, ProgressMonitor.NONE);
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assertArrayEquals(new byte[]{-1, -1, -1, -1}, Arrays.copyOf(bytes, 4));
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, 0, 0, 0, 0}, Arrays.copyOfRange(bytes, bytes.length - 8, bytes.length));
+
+        ColumnTable table = ArrowStream.read(file, null);
+        assertEquals(columns, table.getColumnNames());
+        assertEquals(3, table.rowCount());
+        assertInstanceOf(MappedLongColumn.class, table.column("id"));
+        assertInstanceOf(MappedDoubleColumn.class, table.column("score"));
+        assertInstanceOf(MappedTemporalColumn.class, table.column("at"));
+        assertTrue(table.column("id").isReadOnly());
+        for (String column : List.of("id", "name", "score", "day", "flag", "at")) {
+            for (int row = 0; row < 3; row++) {
+                assertEquals(source.get(row, column), table.get(row, column), column + " row " + row);
+            }
+        }
+        assertEquals(3, table.column("missing").nullCount());
+        assertEquals(2, ArrowStream.readPreview(file, 2).rowCount());
+
+        // Several batches are copied into columns
+        ArrowStream.write(source, columns, file, ProgressMonitor.NONE, 2);
+        table = ArrowStream.read(file, null);
+        assertFalse(table.column("id").isReadOnly());
+        for (String column : List.of("id", "name", "score", "day", "flag", "at")) {
+            for (int row = 0; row < 3; row++) {
+                assertEquals(source.get(row, column), table.get(row, column), column + " row " + row);
+            }
+        }
+    }
+}
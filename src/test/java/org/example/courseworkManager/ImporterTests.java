@@ -0,0 +1,467 @@
+package org.example.courseworkManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for importing files into typed columns: type inference over whole
+ * columns, the exception-free value parsers, and the resulting column types.
+ */
+public class ImporterTests {
+    @TempDir
+    Path folder;
+
+    private File writeFile(String name, String content) throws IOException {
+        Path file = folder.resolve(name);
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    // Each cell is classified as the narrowest type that can hold it
+    @Test
+    void testClassify() {
+        assertEquals(ColumnType.LONG, ValueParser.classify("-42"));
+        assertEquals(ColumnType.DOUBLE, ValueParser.classify("3.5e-2"));
+        assertEquals(ColumnType.DOUBLE, ValueParser.classify("9223372036854775808"));
+        assertEquals(ColumnType.BOOLEAN, ValueParser.classify("TRUE"));
+        assertEquals(ColumnType.DATE, ValueParser.classify("2024-02-29"));
+        assertEquals(ColumnType.STRING, ValueParser.classify("2023-02-29"));
+        assertEquals(ColumnType.DATE_TIME, ValueParser.classify("2024-01-05T10:15:30.5"));
+        assertEquals(ColumnType.STRING, ValueParser.classify("1.2.3"));
+        assertEquals(ColumnType.STRING, ValueParser.classify("e5"));
+        assertNull(ValueParser.classify(" "));
+    }
+
+    // A late value that does not fit widens the whole column
+    @Test
+    void testInferenceLooksAtWholeColumn() throws IOException {
+        File file = writeFile("mixed.csv", "id,score,flag,when,name\n"
+                + "1,10,true,2024-01-01,a\n"
+                + "2,,false,2024-01-02 08:30,b\n"
+                + "3,12.5,,2024-01-03,c\n");
+
+        assertEquals(List.of(ColumnType.LONG, ColumnType.DOUBLE, ColumnType.BOOLEAN,
+                ColumnType.DATE_TIME, ColumnType.STRING), CsvImporter.inferTypes(file));
+
+        ColumnTable table = CsvImporter.importCsv(file, null);
+        assertEquals(3, table.rowCount());
+        assertInstanceOf(LongColumn.class, table.column("id"));
+        assertEquals(3L, table.get(2, "id"));
+        assertInstanceOf(DoubleColumn.class, table.column("score"));
+        assertEquals(10.0, table.get(0, "score"));
+        assertNull(table.get(1, "score"));
+        assertEquals(false, table.get(1, "flag"));
+        assertNull(table.get(2, "flag"));
+        assertInstanceOf(TemporalColumn.class, table.column("when"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), table.get(0, "when"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 8, 30), table.get(1, "when"));
+        assertInstanceOf(DictionaryColumn.class, table.column("name"));
+    }
+
+    // DataModel reports the inferred types, and dates sort chronologically
+    @Test
+    void testModelUsesColumnTypes() throws IOException {
+        File file = writeFile("dates.csv", "day,amount\n2024-03-01,5\n2023-12-31,7\n");
+        DataModel model = new DataModel();
+        ColumnTable table = CsvImporter.importCsv(file, null);
+        model.setData(table, table.getColumnNames());
+
+        assertEquals(LocalDate.class, model.getColumnTypes().get("day"));
+        assertEquals(Long.class, model.getColumnTypes().get("amount"));
+
+        model.applyTransformation(TransformationFactory.createSortTransformation("day", true));
+        assertEquals(LocalDate.of(2023, 12, 31), model.getData().get(0).get("day"));
+        assertEquals(7L, model.getData().get(0).get("amount"));
+    }
+
+    // Editing a cell parses the text as the column's type, falling back to text
+    @Test
+    void testParseForColumnType() {
+        assertEquals(7L, ValueParser.parse(" 7 ", Long.class));
+        assertEquals(7, ValueParser.parse("7", Integer.class));
+        assertNull(ValueParser.parse("3000000000", Integer.class));
+        assertNull(ValueParser.parse("seven", Double.class));
+        assertEquals(LocalDate.of(2020, 5, 17), ValueParser.parse("2020-05-17", LocalDate.class));
+        assertEquals("seven", ValueParser.parse("seven", String.class));
+    }
+
+    // Chunks must start on record boundaries even when quoted fields hold line breaks
+    @Test
+    void testParallelChunksRespectQuotes() throws IOException {
+        File file = writeFile("quoted.csv", "\uFEFFid,note,amount\r\n"
+                + "1,\"line one\nline two\",1.5\r\n"
+                + "2,\"say \"\"hi\"\", then, go\",2\r\n"
+                + "\r\n"
+                + "3, plain ,\n"
+                + "4,\"\"\"\",4\n"
+                + "5,last");
+
+        for (long chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            ColumnTable table = CsvImporter.importCsv(file.toPath(), null, chunkSize);
+            assertEquals(List.of("id", "note", "amount"), table.getColumnNames());
+            assertEquals(5, table.rowCount(), "chunk size " + chunkSize);
+            assertEquals(1L, table.get(0, "id"));
+            assertEquals("line one\nline two", table.get(0, "note"));
+            assertEquals("say \"hi\", then, go", table.get(1, "note"));
+            assertEquals("plain", table.get(2, "note"));
+            assertNull(table.get(2, "amount"));
+            assertEquals("\"", table.get(3, "note"));
+            assertEquals(5L, table.get(4, "id"));
+            assertNull(table.get(4, "amount"));
+            assertEquals(2.0, table.get(1, "amount"));
+        }
+    }
+
+    // A quote inside an unquoted field is an ordinary character, wherever the chunks and pages start
+    @Test
+    void testStrayQuoteAcrossChunks() throws IOException {
+        String csv = "id,note\n1,5\" screw\n2,ok\n3,\"a, \"\"b\"\"\nc\"\n4,it's \"fine\"\n\n5,last\n";
+        File file = writeFile("stray.csv", csv);
+        File compressed = writeCompressed("stray.csv.gz", csv);
+        for (long chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            for (File source : List.of(file, compressed)) {
+                ColumnTable table = CsvImporter.importCsv(source.toPath(), null, chunkSize);
+                assertEquals(5, table.rowCount(), source.getName() + ", chunk size " + chunkSize);
+                assertEquals("5\" screw", table.get(0, "note"));
+                assertEquals("a, \"b\"\nc", table.get(2, "note"));
+                assertEquals("it's \"fine\"", table.get(3, "note"));
+                assertEquals(5L, table.get(4, "id"));
+            }
+        }
+        for (int pageRows = 1; pageRows <= 5; pageRows++) {
+            PagedCsv paged = PagedCsv.open(file.toPath(), pageRows, ProgressMonitor.NONE);
+            ColumnTable table = paged.getTable();
+            assertEquals(5, table.rowCount());
+            assertEquals("ok", table.get(1, "note"));
+            assertEquals("last", table.get(4, "note"));
+        }
+
+        try (CsvFollower follower = new CsvFollower(writeFile("stray-log.csv", "id,note\n"))) {
+            follower.importExisting(null, ProgressMonitor.NONE);
+            Files.writeString(follower.getFile().toPath(), "1,5\" screw\n2,ok\n", StandardOpenOption.APPEND);
+            assertEquals(2, follower.readAppended().rowCount());
+        }
+    }
+
+    // Gzip and deflate files are streamed in chunks that still split only between records
+    @Test
+    void testCompressedChunks() throws IOException {
+        String csv = "id,note\n1,\"line one\nline two\"\n2,\"a, b\"\n3,plain\n";
+        String ndjson = "{\"id\": 1, \"city\": \"Leeds\"}\n{\"id\": 2, \"note\": \"a\\nb\"}\n";
+        for (String suffix : List.of(".gz", ".deflate")) {
+            File file = writeCompressed("quoted.csv" + suffix, csv);
+            for (long chunkSize = 1; chunkSize <= 32; chunkSize++) {
+                ColumnTable table = CsvImporter.importCsv(file.toPath(), null, chunkSize);
+                assertEquals(List.of("id", "note"), table.getColumnNames());
+                assertEquals(3, table.rowCount(), "chunk size " + chunkSize);
+                assertEquals("line one\nline two", table.get(0, "note"));
+                assertEquals("a, b", table.get(1, "note"));
+                assertEquals(3L, table.get(2, "id"));
+            }
+            assertEquals(2, CsvImporter.importPreview(file, 2).rowCount());
+
+            File lines = writeCompressed("rows.ndjson" + suffix, ndjson);
+            for (long chunkSize = 1; chunkSize <= 32; chunkSize++) {
+                ColumnTable table = JsonImporter.importNdjson(lines, null, chunkSize);
+                assertEquals(List.of("id", "city", "note"), table.getColumnNames(), "chunk size " + chunkSize);
+                assertEquals("a\nb", table.get(1, "note"));
+            }
+            File array = writeCompressed("rows.json" + suffix, "[{\"id\": 1}, {\"id\": 2}]");
+            assertEquals(2L, JsonImporter.importTable(array, null).get(1, "id"));
+            assertEquals(1, JsonImporter.importPreview(array, 1).rowCount());
+        }
+
+        // Both passes count the compressed bytes read from disk
+        File file = writeCompressed("progress.csv.gz", csv);
+        ProgressMonitor monitor = new ProgressMonitor(null);
+        CsvImporter.importCsv(file.toPath(), null, 8, monitor);
+        assertEquals(2 * Files.size(file.toPath()), monitor.getBytes());
+        assertEquals(3, monitor.getRows());
+    }
+
+    // Disk-backed imports append each chunk to mapped columns in file order
+    @Test
+    void testChunksAppendToStorage() throws IOException {
+        StringBuilder csv = new StringBuilder("id,amount,name\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(',').append(i % 3 == 0 ? "" : i * 0.5).append(",row").append(i % 10).append('\n');
+        }
+        MappedStorage storage = new MappedStorage(folder.resolve("scratch"));
+        for (File file : List.of(writeFile("chunks.csv", csv.toString()),
+                writeCompressed("chunks.csv.gz", csv.toString()))) {
+            ColumnTable table = CsvImporter.importCsv(file.toPath(), storage, 100);
+            assertEquals(500, table.rowCount());
+            assertInstanceOf(MappedLongColumn.class, table.column("id"));
+            assertInstanceOf(MappedDoubleColumn.class, table.column("amount"));
+            assertEquals(499L, table.get(499, "id"));
+            assertNull(table.get(498, "amount"));
+            assertEquals(248.5, table.get(497, "amount"));
+            assertEquals("row7", table.get(497, "name"));
+        }
+    }
+
+    private File writeCompressed(String name, String content) throws IOException {
+        Path file = folder.resolve(name);
+        try (OutputStream out = name.endsWith(".gz") ? new GZIPOutputStream(Files.newOutputStream(file))
+                : new DeflaterOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file.toFile();
+    }
+
+    // Keys that only appear in later objects still become columns, in order of appearance
+    @Test
+    void testStreamingJsonDerivesSchemaFromAllObjects() throws IOException {
+        ColumnTable table = JsonImporter.importTableString("[{\"id\": 1, \"score\": 2},"
+                + " {\"id\": 2, \"score\": 2.5, \"tags\": [\"a\"]},"
+                + " {\"id\": 3, \"name\": \"x\", \"score\": null}]");
+
+        assertEquals(List.of("id", "score", "tags", "name"), table.getColumnNames());
+        assertEquals(3, table.rowCount());
+        assertInstanceOf(LongColumn.class, table.column("id"));
+        assertInstanceOf(DoubleColumn.class, table.column("score"));
+        assertEquals(2.0, table.get(0, "score"));
+        assertNull(table.get(2, "score"));
+        assertEquals(List.of("a"), table.get(1, "tags"));
+        assertNull(table.get(0, "name"));
+        assertEquals("x", table.get(2, "name"));
+    }
+
+    // Newline-delimited JSON gives the same table however it is split into chunks
+    @Test
+    void testNdjsonChunks() throws IOException {
+        File file = writeFile("rows.ndjson", "{\"id\": 1, \"city\": \"Leeds\"}\n"
+                + "{\"id\": 2, \"note\": \"a\\nb\"}\r\n"
+                + "\n"
+                + "{\"id\": 3, \"city\": \"York\", \"flag\": true}\n");
+
+        for (long chunkSize = 1; chunkSize <= 40; chunkSize++) {
+            ColumnTable table = JsonImporter.importNdjson(file, null, chunkSize);
+            assertEquals(List.of("id", "city", "note", "flag"), table.getColumnNames(), "chunk size " + chunkSize);
+            assertEquals(3, table.rowCount());
+            assertEquals(3L, table.get(2, "id"));
+            assertEquals("a\nb", table.get(1, "note"));
+            assertNull(table.get(1, "city"));
+            assertEquals(true, table.get(2, "flag"));
+        }
+        assertEquals(3, JsonImporter.importTable(file, null).rowCount());
+    }
+
+    // Chunks are joined into typed columns, widened where the chunks disagree
+    @Test
+    void testNdjsonChunksJoinTyped() throws IOException {
+        File file = writeFile("typed.ndjson", "{\"n\": 1, \"s\": \"a\"}\n{\"n\": 2.5, \"s\": \"b\"}\n{\"n\": 3, \"s\": 4}\n");
+
+        ColumnTable table = JsonImporter.importNdjson(file, null, 1);
+        assertInstanceOf(DoubleColumn.class, table.column("n"));
+        assertEquals(1.0, table.get(0, "n"));
+        assertEquals(2.5, table.get(1, "n"));
+        assertEquals("b", table.get(1, "s"));
+        assertEquals(4L, table.get(2, "s"));
+
+        // Disk-backed, each chunk goes straight into mapped columns
+        ColumnTable mapped = JsonImporter.importNdjson(file, new MappedStorage(folder.resolve("scratch")), 1);
+        assertInstanceOf(MappedDoubleColumn.class, mapped.column("n"));
+        assertEquals(3.0, mapped.get(2, "n"));
+        assertEquals("a", mapped.get(0, "s"));
+    }
+
+    // Progress counts every pass over the data, and a cancelled monitor stops the import
+    @Test
+    void testProgressAndCancellation() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(",row").append(i).append('\n');
+        }
+        File file = writeFile("progress.csv", csv.toString());
+
+        List<Long> reported = new ArrayList<>();
+        ProgressMonitor monitor = new ProgressMonitor(progress -> reported.add(progress.getBytes()));
+        ColumnTable table = CsvImporter.importCsv(file.toPath(), null, 64, monitor);
+        assertEquals(100, table.rowCount());
+        assertEquals(100, monitor.getRows());
+        assertEquals(monitor.getTotalBytes(), monitor.getBytes());
+        assertEquals(1.0, monitor.getProgress());
+        assertTrue(reported.size() > 2);
+
+        ColumnTable preview = CsvImporter.importPreview(file, 10);
+        assertEquals(10, preview.rowCount());
+        assertEquals(9L, preview.get(9, "id"));
+
+        ProgressMonitor cancelled = new ProgressMonitor(null);
+        cancelled.cancel();
+        assertThrows(CancellationException.class, () -> CsvImporter.importCsv(file.toPath(), null, 64, cancelled));
+        File json = writeFile("progress.json", "[{\"id\": 1}, {\"id\": 2}]");
+        assertThrows(CancellationException.class, () -> JsonImporter.importTable(json, null, cancelled));
+        assertEquals(1, JsonImporter.importPreview(json, 1).rowCount());
+    }
+
+    // A browsed file is read a page at a time and agrees with a full import
+    @Test
+    void testPagedCsv() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFid,note,amount\r\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i).append(i % 7 == 0 ? ",\"two\nlines\"," : ",row" + i + ",").append(i % 5 == 0 ? "" : i * 0.5)
+                    .append(i % 9 == 0 ? "\r\n\r\n" : "\n");
+        }
+        // Typed from the first page, so the text in a later page stays text
+        csv.append("50,last,n/a");
+        File file = writeFile("browse.csv", csv.toString());
+
+        PagedCsv paged = PagedCsv.open(file.toPath(), 4, ProgressMonitor.NONE);
+        ColumnTable table = paged.getTable();
+        ColumnTable full = CsvImporter.importCsv(file, null);
+        assertEquals(full.getColumnNames(), table.getColumnNames());
+        assertEquals(51, table.rowCount());
+        assertEquals(Double.class, table.column("amount").getType());
+        assertTrue(table.column("id").isReadOnly());
+        for (int row = 50; row >= 0; row--) {
+            for (String column : List.of("id", "note")) {
+                assertEquals(full.get(row, column), table.get(row, column), column + " row " + row);
+            }
+        }
+        assertEquals(0.5, table.get(1, "amount"));
+        assertNull(table.get(5, "amount"));
+        assertEquals("n/a", table.get(50, "amount"));
+        assertEquals(10, table.column("amount").nullCount());
+
+        // Changing a column first copies it whole
+        table.set(0, "id", 100L);
+        assertFalse(table.column("id").isReadOnly());
+        assertEquals(100L, table.get(0, "id"));
+        assertEquals(50L, table.get(50, "id"));
+    }
+
+    // Only whole records appended since the last read are parsed, and added as inserted rows
+    @Test
+    void testFollowAppendedRecords() throws IOException {
+        File file = writeFile("log.csv", "time,level,message\n1,INFO,started\n2,WARN,\"slow\nrequest\"\n3,IN");
+        try (CsvFollower follower = new CsvFollower(file)) {
+            ColumnTable table = follower.importExisting(null, ProgressMonitor.NONE);
+            assertEquals(2, table.rowCount());
+            assertNull(follower.readAppended());
+
+            DataModel dataModel = new DataModel();
+            dataModel.setData(table, table.getColumnNames());
+            List<DataChangeEvent> events = new ArrayList<>();
+            dataModel.addListener(events::add);
+
+            Files.writeString(file.toPath(), "FO,\"a, b\"\n4,ERROR,\"half", StandardOpenOption.APPEND);
+            ColumnTable rows = follower.readAppended();
+            assertEquals(1, rows.rowCount());
+            assertEquals("a, b", rows.get(0, "message"));
+            assertNull(follower.readAppended());
+            Files.writeString(file.toPath(), " done\"\n\n5,INFO,ok\n", StandardOpenOption.APPEND);
+            ColumnTable more = follower.readAppended();
+            assertEquals(2, more.rowCount());
+            assertEquals("half done", more.get(0, "message"));
+
+            dataModel.appendRows(rows);
+            dataModel.appendRows(more);
+            assertEquals(5, dataModel.getData().size());
+            assertEquals(5L, dataModel.getTable().get(4, "time"));
+            assertEquals(DataChangeEvent.Type.ROWS_INSERTED, events.get(1).getType());
+            assertEquals(3, events.get(1).getFrom());
+            assertEquals(5, events.get(1).getTo());
+
+            // Undoing a filter or the first rows of a sort keeps following the same data
+            dataModel.follow(follower);
+            dataModel.applyTransformation(TransformationFactory.createTopKTransformation(
+                    List.of(new RowSorter.SortKey("time", false)), 2));
+            assertEquals(5L, dataModel.getTable().get(0, "time"));
+            dataModel.undo();
+            dataModel.applyTransformation(TransformationFactory.createFilterTransformation(
+                    "level", "INFO"::equals));
+            dataModel.undo();
+            dataModel.redo();
+            assertEquals(3, dataModel.getData().size());
+            assertTrue(dataModel.followingProperty().get());
+
+            Files.writeString(file.toPath(), "time\n");
+            assertThrows(IOException.class, follower::readAppended);
+        }
+    }
+
+    // Blank lines filling a whole read do not hide the records appended after them
+    @Test
+    void testFollowSkipsAppendedBlankLines() throws IOException {
+        File file = writeFile("blank-log.csv", "id,note\n1,x\n");
+        try (CsvFollower follower = new CsvFollower(file, 4)) {
+            ColumnTable table = follower.importExisting(null, ProgressMonitor.NONE);
+            Files.writeString(file.toPath(), "\n\n\n\n2,y\n", StandardOpenOption.APPEND);
+            ColumnTable rows = follower.readAppended();
+            assertEquals(1, rows.rowCount());
+            assertEquals("y", rows.get(0, "note"));
+            assertNull(follower.readAppended());
+
+            // Undoing back to another table ends following
+            DataModel dataModel = new DataModel();
+            dataModel.setData(table, table.getColumnNames());
+            dataModel.setData(rows, rows.getColumnNames());
+            dataModel.follow(follower);
+            dataModel.undo();
+            assertFalse(dataModel.followingProperty().get());
+            assertTrue(follower.isClosed());
+        }
+    }
+
+    // Files are joined by column name, with types widened and missing columns left empty
+    @Test
+    void testMultiFileImport() throws IOException {
+        File first = writeFile("part-1.csv", "id,amount,city\n1,10,Leeds\n2,20,York\n");
+        File second = writeFile("part-2.json", "[{\"id\": 3, \"amount\": 2.5, \"tag\": \"x\"}]");
+        File third = writeFile("part-3.csv", "city,id,day\nHull,4,2024-01-02\n");
+        writeFile("other.csv", "x\n1\n");
+
+        List<File> files = MultiFileImporter.expandGlob(folder.resolve("part-*").toString());
+        assertEquals(List.of(first, second, third), files);
+
+        ColumnTable table = MultiFileImporter.importFiles(files, true, null, ProgressMonitor.NONE);
+        assertEquals(List.of("id", "amount", "city", "tag", "day", MultiFileImporter.SOURCE_COLUMN),
+                table.getColumnNames());
+        assertEquals(4, table.rowCount());
+        assertInstanceOf(LongColumn.class, table.column("id"));
+        assertInstanceOf(DoubleColumn.class, table.column("amount"));
+        assertEquals(10.0, table.get(0, "amount"));
+        assertEquals(2.5, table.get(2, "amount"));
+        assertNull(table.get(3, "amount"));
+        assertEquals(4L, table.get(3, "id"));
+        assertEquals("Hull", table.get(3, "city"));
+        assertNull(table.get(2, "city"));
+        assertEquals("x", table.get(2, "tag"));
+        assertEquals(LocalDate.of(2024, 1, 2), table.get(3, "day"));
+        assertNull(table.get(0, "day"));
+        assertEquals("part-2.json", table.get(2, MultiFileImporter.SOURCE_COLUMN));
+        assertEquals("part-3.csv", table.get(3, MultiFileImporter.SOURCE_COLUMN));
+
+        // Disk-backed, each file is added to mapped columns as soon as it is read
+        ColumnTable mapped = MultiFileImporter.importFiles(files, false, new MappedStorage(folder.resolve("scratch")),
+                ProgressMonitor.NONE);
+        assertInstanceOf(MappedDoubleColumn.class, mapped.column("amount"));
+        assertInstanceOf(MappedLongColumn.class, mapped.column("id"));
+        assertEquals(2.5, mapped.get(2, "amount"));
+        assertEquals("Hull", mapped.get(3, "city"));
+
+        // A failing file is named in the error
+        File broken = writeFile("part-4.json", "[{\"id\": ");
+        IOException error = assertThrows(IOException.class, () -> MultiFileImporter.importFiles(
+                List.of(first, broken), false, null, ProgressMonitor.NONE));
+        assertTrue(error.getMessage().startsWith("part-4.json"));
+    }
+}
@@ -147,4 +147,419 @@ public class TransformationFactoryTests {
 
         assertEquals(4, dataModel.getData().size()); // No crash = pass
     }
-}
\ No newline at end of file
+
+    //Verifies that the indexed range filter keeps the same rows as the predicate filter, in order.
+    @Test
+    void testRangeFilterTransformation() {
+        dataModel.getData().add(Map.of("id", 4, "value", 15.0, "category", "C"));
+        DataTransformation filter = TransformationFactory.createRangeFilterTransformation(
+                "value", 15.0, true, 30.5, false);
+
+        dataModel.applyTransformation(filter);
+        assertEquals(2, dataModel.getData().size());
+        assertEquals(2, dataModel.getData().get(0).get("id"));
+        assertEquals(4, dataModel.getData().get(1).get("id"));
+    }
+
+    //A column mixing numbers and text sorts numbers by value first, then the text, without failing.
+    @Test
+    void testSortMixedValues() {
+        dataModel.updateValue(1, "value", "n/a");
+        dataModel.getData().add(Map.of("id", 4, "value", 5.0, "category", "C"));
+
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("value", true));
+        assertEquals(List.of(4, 1, 3, 2), ids());
+
+        dataModel.undo();
+        dataModel.applyTransformation(TransformationFactory.createTopKTransformation(
+                List.of(new RowSorter.SortKey("value", false)), 2));
+        assertEquals(List.of(2, 3), ids());
+    }
+
+    //Longs beyond 2^53 order exactly in a full sort and in a top-K alike.
+    @Test
+    void testSortLargeLongsExactly() {
+        dataModel.setData(List.of(Map.of("id", 0, "big", (1L << 60) + 1), Map.of("id", 1, "big", 1L << 60)),
+                List.of("id", "big"));
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("big", true));
+        assertEquals(List.of(1, 0), ids());
+
+        dataModel.undo();
+        dataModel.applyTransformation(TransformationFactory.createTopKTransformation(
+                List.of(new RowSorter.SortKey("big", true)), 1));
+        assertEquals(List.of(1), ids());
+    }
+
+    private List<Object> ids() {
+        List<Object> ids = new ArrayList<>();
+        for (Map<String, Object> row : dataModel.getData()) {
+            ids.add(row.get("id"));
+        }
+        return ids;
+    }
+
+    //Indexes follow cell edits and appends, and are rebuilt for the table an undo restores.
+    @Test
+    void testIndexKeptUpToDate() {
+        SortedIndex index = dataModel.getTable().sortedIndex("value");
+        dataModel.updateValue(0, "value", 50.0);
+        dataModel.getData().add(Map.of("id", 4, "value", 5.0, "category", "A"));
+        assertArrayEquals(new int[]{0, 2}, dataModel.findRowsInRange("value", 25.0, false, Double.POSITIVE_INFINITY, true));
+        assertArrayEquals(new int[]{0, 2, 3}, dataModel.findRows("category", "A"));
+
+        dataModel.updateValue(2, "category", "B");
+        assertArrayEquals(new int[]{1, 2}, dataModel.findRows("category", "B"));
+        assertSame(index, dataModel.getTable().sortedIndex("value"));
+
+        dataModel.applyTransformation(TransformationFactory.createEqualsFilterTransformation("category", "B"));
+        assertEquals(2, dataModel.getData().size());
+        dataModel.undo();
+        assertArrayEquals(new int[]{3}, dataModel.findRowsInRange("value", Double.NEGATIVE_INFINITY, true, 10.0, true));
+    }
+
+    //Filters and sorts hand their indexes on to the table they build, remapped to its rows.
+    @Test
+    void testIndexCarriedThroughFilterAndSort() {
+        dataModel.getData().add(Map.of("id", 4, "value", 20.5, "category", "A"));
+        dataModel.getTable().sortedIndex("value");
+        dataModel.getTable().hashIndex("category");
+
+        dataModel.applyTransformation(TransformationFactory.createRangeFilterTransformation(
+                "value", 15.0, true, Double.POSITIVE_INFINITY, true));
+        dataModel.applyTransformation(TransformationFactory.createSortTransformation("id", false));
+        // Rows are now ids 4, 3, 2; the filtered table never built its own indexes
+        assertArrayEquals(new int[]{0, 2}, dataModel.findRowsInRange("value", 20.5, true, 20.5, true));
+        assertArrayEquals(new int[]{0, 1}, dataModel.findRows("category", "A"));
+        assertArrayEquals(new int[]{2}, dataModel.findRows("category", "B"));
+
+        dataModel.updateValue(2, "value", 40.0);
+        assertArrayEquals(new int[]{1, 2}, dataModel.findRowsInRange("value", 20.5, false, 50.0, true));
+    }
+
+    //Typed filters read an existing sorted index, and hash lookups match numbers of any boxed type.
+    @Test
+    void testFiltersUseIndexes() {
+        dataModel.getTable().sortedIndex("value");
+        dataModel.updateValue(0, "value", 25.0);
+        assertArrayEquals(new int[]{0, 2}, RowFilter.compare("value", RowFilter.Comparison.GREATER, 20.5)
+                .selectRows(dataModel.getTable()));
+        assertArrayEquals(new int[]{1}, RowFilter.compare("value", RowFilter.Comparison.LESS, 25.0)
+                .and(RowFilter.compare("value", RowFilter.Comparison.GREATER_OR_EQUAL, 20.5))
+                .selectRows(dataModel.getTable()));
+
+        assertArrayEquals(new int[]{1}, dataModel.findRows("id", 2L));
+        assertArrayEquals(new int[]{1}, dataModel.findRows("id", 2.0));
+        assertArrayEquals(new int[]{0}, dataModel.findRows("value", 25));
+    }
+
+    //The pipeline plan moves filters ahead, fuses them and drops sorts whose order a later sort replaces.
+    @Test
+    void testPipelineOptimizesPlan() {
+        TransformationPipeline pipeline = new TransformationPipeline()
+                .sort("id", false)
+                .filterRange("value", 15.0, true, Double.POSITIVE_INFINITY, true)
+                .aggregate("category", "value", TransformationFactory.AggregationType.SUM)
+                .filterEquals("category", "A")
+                .sort("category", true);
+
+        assertEquals("Scan value, category where value in [15.0, Infinity] and category = A\n"
+                + "Aggregate SUM of value by category\nSort ascending by category",
+                pipeline.explain(dataModel.getColumnNames()));
+        ColumnTable result = pipeline.execute(dataModel.snapshot());
+        assertEquals(List.of("category", "value"), result.getColumnNames());
+        assertEquals(1, result.rowCount());
+        assertEquals(30.5, (Double) result.get(0, "value"), 0.001);
+
+        // Without that sort, the first sort sets the order of the groups
+        TransformationPipeline ordered = new TransformationPipeline()
+                .sort("category", false)
+                .aggregate("category", "value", TransformationFactory.AggregationType.SUM);
+        assertEquals("Scan value, category\nSort descending by category\nAggregate SUM of value by category",
+                ordered.explain(dataModel.getColumnNames()));
+        assertEquals("B", ordered.execute(dataModel.getTable()).get(0, "category"));
+        dataModel.applyTransformation(ordered);
+        assertEquals(List.of("category", "value"), dataModel.getColumnNames());
+        assertEquals(20.5, (Double) dataModel.getTable().get(0, "value"), 0.001);
+        dataModel.undo();
+        assertEquals(List.of("id", "value", "category"), dataModel.getColumnNames());
+    }
+
+    //Applied to a model, the pipeline gives the rows of the eager steps as one undoable change.
+    @Test
+    void testPipelineMatchesEagerSteps() {
+        dataModel.getData().add(Map.of("id", 4, "value", 25.0, "category", "B"));
+        TransformationPipeline pipeline = new TransformationPipeline()
+                .sort("value", false)
+                .filter("category", value -> !"A".equals(value))
+                .filterRange("value", 15.0, false, 30.0, true)
+                .select(List.of("id"));
+
+        ColumnTable selected = pipeline.execute(dataModel.getTable());
+        assertEquals(List.of("id"), selected.getColumnNames());
+        dataModel.applyTransformation(pipeline);
+        assertEquals(2, dataModel.getData().size());
+        assertEquals(4, dataModel.getData().get(0).get("id"));
+        assertEquals(2, dataModel.getData().get(1).get("id"));
+        assertEquals(4, selected.get(0, "id"));
+        assertEquals("B", dataModel.getData().get(0).get("category"));
+
+        dataModel.undo();
+        assertEquals(4, dataModel.getData().size());
+        assertEquals(1, dataModel.getData().get(0).get("id"));
+    }
+
+    //Typed filters on primitive, text and null cells combine as bitmaps into one selection.
+    @Test
+    void testTypedRowFilters() {
+        Map<String, Object> empty = new HashMap<>();
+        empty.put("id", 4);
+        empty.put("value", null);
+        empty.put("category", null);
+        dataModel.getData().add(empty);
+        for (int i = 5; i <= 130; i++) {
+            dataModel.getData().add(Map.of("id", i, "value", i * 1.0, "category", i % 2 == 0 ? "B" : "C"));
+        }
+        ColumnTable table = dataModel.getTable();
+
+        assertArrayEquals(new int[]{1, 2}, RowFilter.compare("value", RowFilter.Comparison.GREATER, 15.0)
+                .and(RowFilter.compare("id", RowFilter.Comparison.LESS_OR_EQUAL, 3)).selectRows(table));
+        assertArrayEquals(new int[]{0, 128, 129}, RowFilter.between("id", 1, true, 1.5, false)
+                .or(RowFilter.compare("id", RowFilter.Comparison.GREATER, 128.5)).selectRows(table));
+        assertArrayEquals(new int[]{0, 2, 3}, RowFilter.in("category", Arrays.asList("A", "Z", null))
+                .selectRows(table));
+        assertArrayEquals(new int[]{1, 4}, RowFilter.in("id", List.of(2L, 5, 6.5)).selectRows(table));
+        assertArrayEquals(new int[]{3}, RowFilter.isNull("value").selectRows(table));
+        assertEquals(129, RowFilter.isNotNull("value").evaluate(table).cardinality());
+        assertEquals(128, RowFilter.compare("value", RowFilter.Comparison.NOT_EQUAL, 10.5)
+                .evaluate(table).cardinality());
+
+        // NaN equals only NaN cells and differs from every other number
+        dataModel.updateValue(5, "value", Double.NaN);
+        assertArrayEquals(new int[]{5}, RowFilter.compare("value", RowFilter.Comparison.EQUAL, Double.NaN)
+                .selectRows(table));
+        assertEquals(128, RowFilter.compare("value", RowFilter.Comparison.NOT_EQUAL, Double.NaN)
+                .evaluate(table).cardinality());
+        assertEquals(0, RowFilter.compare("value", RowFilter.Comparison.GREATER, Double.NaN)
+                .evaluate(table).cardinality());
+        dataModel.undo();
+
+        RowFilter notB = RowFilter.not(RowFilter.in("category", List.of("B")));
+        assertEquals(130 - 64, notB.evaluate(table).cardinality());
+        dataModel.applyTransformation(TransformationFactory.createFilterTransformation(notB));
+        assertEquals(66, dataModel.getData().size());
+        assertNull(dataModel.getData().get(2).get("category"));
+        dataModel.undo();
+        assertEquals(130, dataModel.getData().size());
+    }
+
+    //Radix-sorted keys give the order of the comparators, for every type, direction and null placement.
+    @Test
+    void testMultiKeySort() {
+        Random random = new Random(7);
+        int n = 100_000;
+        List<String> names = List.of("d", "l", "s", "day");
+        ColumnTable table = new ColumnTable(names);
+        for (int row = 0; row < n; row++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("d", random.nextInt(10) == 0 ? null : (random.nextInt(200) - 100) / 4.0);
+            values.put("l", random.nextInt(10) == 0 ? null : random.nextLong() >> random.nextInt(64));
+            values.put("s", random.nextInt(10) == 0 ? null : "k" + random.nextInt(50));
+            values.put("day", java.time.LocalDate.ofEpochDay(random.nextInt(3) - 1));
+            table.appendRow(values);
+        }
+
+        List<RowSorter.SortKey> keys = List.of(new RowSorter.SortKey("s", false),
+                new RowSorter.SortKey("d", true, false), new RowSorter.SortKey("day", false),
+                new RowSorter.SortKey("l", true));
+        int[] order = RowSorter.sort(table, keys);
+
+        RowSorter.RowComparator[] comparators = new RowSorter.RowComparator[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            RowSorter.SortKey key = keys.get(k);
+            Column column = table.column(key.getColumn());
+            RowSorter.RowComparator values = RowSorter.comparing(column, key.isAscending());
+            comparators[k] = (a, b) -> column.isNull(a) || column.isNull(b)
+                    ? Boolean.compare(column.isNull(b), column.isNull(a)) * (key.isNullsFirst() ? 1 : -1)
+                    : values.compare(a, b);
+        }
+        int[] expected = RowSorter.sort(n, (a, b) -> {
+            for (RowSorter.RowComparator comparator : comparators) {
+                int comparison = comparator.compare(a, b);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        });
+        assertArrayEquals(expected, order);
+
+        // A subset comes out in the order it has in the whole
+        Set<Integer> subset = Set.of(5, 3, 1, 99_999);
+        assertArrayEquals(Arrays.stream(order).filter(subset::contains).toArray(),
+                RowSorter.sort(table, new int[]{99_999, 5, 3, 1}, keys));
+    }
+
+    //Top-K keeps the rows a full sort puts first, over the parallel chunks and with ties kept in row order.
+    @Test
+    void testTopKMatchesSortPrefix() {
+        Random random = new Random(11);
+        int n = 200_000;
+        ColumnTable table = new ColumnTable(List.of("v", "s"));
+        for (int row = 0; row < n; row++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("v", random.nextInt(20) == 0 ? null : (double) random.nextInt(1000));
+            values.put("s", "k" + random.nextInt(5));
+            table.appendRow(values);
+        }
+        List<RowSorter.SortKey> keys = List.of(new RowSorter.SortKey("s", true),
+                new RowSorter.SortKey("v", false, true));
+        int[] order = RowSorter.sort(table, keys);
+        for (int limit : new int[]{0, 1, 37, 5_000, n + 1}) {
+            assertArrayEquals(Arrays.copyOf(order, Math.min(limit, n)), RowSorter.topK(table, null, keys, limit));
+        }
+        int[] rows = {9, 4, 150_000, 7, 2};
+        assertArrayEquals(Arrays.copyOf(RowSorter.sort(table, rows, keys), 3), RowSorter.topK(table, rows, keys, 3));
+    }
+
+    //A limit fuses into the sort before it and keeps later filters from moving ahead of it.
+    @Test
+    void testTopKTransformationAndPipelineLimit() {
+        dataModel.applyTransformation(TransformationFactory.createTopKTransformation(
+                List.of(new RowSorter.SortKey("value", false)), 2));
+        assertEquals(2, dataModel.getData().size());
+        assertEquals(3, dataModel.getData().get(0).get("id"));
+        assertEquals(2, dataModel.getData().get(1).get("id"));
+        dataModel.undo();
+        assertEquals(3, dataModel.getData().size());
+
+        TransformationPipeline pipeline = new TransformationPipeline()
+                .sort("value", false)
+                .limit(5)
+                .limit(2)
+                .filterEquals("category", "A");
+        assertEquals("Scan id, value, category\nFirst 2 rows by value descending\nFilter category = A",
+                pipeline.explain(dataModel.getColumnNames()));
+        ColumnTable result = pipeline.execute(dataModel.getTable());
+        assertEquals(1, result.rowCount());
+        assertEquals(3, result.get(0, "id"));
+        assertThrows(IllegalArgumentException.class, () -> new TransformationPipeline().limit(-1));
+    }
+
+    //Hash aggregation by two columns matches a plain per-group computation, across the parallel partials.
+    @Test
+    void testHashAggregationMatchesReference() {
+        Random random = new Random(3);
+        int n = 200_000;
+        ColumnTable table = new ColumnTable(List.of("s", "k", "v", "t"));
+        for (int row = 0; row < n; row++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("s", random.nextInt(20) == 0 ? null : "g" + random.nextInt(30));
+            values.put("k", random.nextInt(20) == 0 ? null : random.nextInt(4));
+            values.put("v", random.nextInt(10) == 0 ? null : random.nextInt(1000) / 8.0);
+            values.put("t", random.nextInt(10) == 0 ? null : "t" + random.nextInt(100));
+            table.appendRow(values);
+        }
+        TransformationFactory.AggregationType[] types = TransformationFactory.AggregationType.values();
+        List<HashAggregator.Measure> measures = new ArrayList<>();
+        for (TransformationFactory.AggregationType type : types) {
+            boolean text = type == TransformationFactory.AggregationType.FIRST
+                    || type == TransformationFactory.AggregationType.LAST
+                    || type == TransformationFactory.AggregationType.COUNT_DISTINCT;
+            measures.add(new HashAggregator.Measure(text ? "t" : "v", type, type.name()));
+        }
+        ColumnTable result = HashAggregator.aggregate(table, null, List.of("s", "k"), measures);
+
+        // Values of each group, in order of first appearance
+        Map<List<Object>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int row = 0; row < n; row++) {
+            groups.computeIfAbsent(Arrays.asList(table.get(row, "s"), table.get(row, "k")),
+                    key -> new ArrayList<>()).add(row);
+        }
+        assertEquals(groups.size(), result.rowCount());
+        int group = 0;
+        for (Map.Entry<List<Object>, List<Integer>> entry : groups.entrySet()) {
+            assertEquals(entry.getKey(), Arrays.asList(result.get(group, "s"), result.get(group, "k")));
+            double[] numbers = entry.getValue().stream().map(row -> table.get(row, "v"))
+                    .filter(Objects::nonNull).mapToDouble(value -> (Double) value).toArray();
+            List<Object> texts = entry.getValue().stream().map(row -> table.get(row, "t"))
+                    .filter(Objects::nonNull).collect(java.util.stream.Collectors.toList());
+            double mean = Arrays.stream(numbers).average().orElse(0);
+            double variance = Arrays.stream(numbers).map(value -> (value - mean) * (value - mean)).sum()
+                    / (numbers.length - 1);
+            assertEquals(Arrays.stream(numbers).sum(), (Double) result.get(group, "SUM"), 1e-6);
+            assertEquals(mean, (Double) result.get(group, "AVERAGE"), 1e-9);
+            assertEquals(numbers.length, (Double) result.get(group, "COUNT"), 0);
+            assertEquals(Arrays.stream(numbers).min().getAsDouble(), result.get(group, "MIN"));
+            assertEquals(Arrays.stream(numbers).max().getAsDouble(), result.get(group, "MAX"));
+            assertEquals(variance, (Double) result.get(group, "VARIANCE"), 1e-6);
+            assertEquals(Math.sqrt(variance), (Double) result.get(group, "STDDEV"), 1e-6);
+            assertEquals(texts.get(0), result.get(group, "FIRST"));
+            assertEquals(texts.get(texts.size() - 1), result.get(group, "LAST"));
+            assertEquals(new HashSet<>(texts).size(), (Double) result.get(group, "COUNT_DISTINCT"), 0);
+            group++;
+        }
+    }
+
+    //Grouping the model by two columns keeps each measure in its column; FIRST keeps the sort before it.
+    @Test
+    void testMultiColumnAggregation() {
+        dataModel.getData().add(Map.of("id", 4, "value", 40.5, "category", "A"));
+        dataModel.applyTransformation(TransformationFactory.createAggregationTransformation(List.of("category"),
+                List.of(new HashAggregator.Measure("value", TransformationFactory.AggregationType.MAX),
+                        new HashAggregator.Measure("id", TransformationFactory.AggregationType.COUNT_DISTINCT))));
+        assertEquals(2, dataModel.getData().size());
+        assertEquals("A", dataModel.getData().get(0).get("category"));
+        assertEquals(40.5, (Double) dataModel.getData().get(0).get("value"), 0);
+        assertEquals(3.0, ((Number) dataModel.getData().get(0).get("id")).doubleValue(), 0);
+        assertEquals(20.5, (Double) dataModel.getData().get(1).get("value"), 0);
+        dataModel.undo();
+
+        TransformationPipeline pipeline = new TransformationPipeline()
+                .sort("value", false)
+                .aggregate(List.of("category"), List.of(
+                        new HashAggregator.Measure("id", TransformationFactory.AggregationType.FIRST, "top"),
+                        new HashAggregator.Measure("value", TransformationFactory.AggregationType.STDDEV)));
+        assertEquals("Scan id, value, category\nSort descending by value\n"
+                + "Aggregate FIRST of id as top, STDDEV of value by category", pipeline.explain(dataModel.getColumnNames()));
+        ColumnTable result = pipeline.execute(dataModel.getTable());
+        assertEquals(List.of("category", "top", "value"), result.getColumnNames());
+        assertEquals(4, ((Number) result.get(0, "top")).intValue());
+        assertEquals(Math.sqrt(700.0 / 3), (Double) result.get(0, "value"), 1e-9);
+        assertNull(result.get(1, "value"));
+    }
+
+    //Measures keep their names as model columns; undo brings the old columns back, and clashing names are refused or avoided.
+    @Test
+    void testAggregationReplacesColumns() {
+        dataModel.applyTransformation(TransformationFactory.createAggregationTransformation(List.of("category"),
+                List.of(new HashAggregator.Measure("value", TransformationFactory.AggregationType.SUM, "total"),
+                        new HashAggregator.Measure("value", TransformationFactory.AggregationType.COUNT, "rows"))));
+        assertEquals(List.of("category", "total", "rows"), dataModel.getColumnNames());
+        assertEquals(Double.class, dataModel.getColumnTypes().get("total"));
+        assertEquals(41.0, (Double) dataModel.getTable().get(0, "total"), 0.001);
+        assertEquals(2.0, (Double) dataModel.getTable().get(0, "rows"), 0);
+        dataModel.undo();
+        assertEquals(List.of("id", "value", "category"), dataModel.getColumnNames());
+        assertEquals(3, dataModel.getData().size());
+
+        // The single-column form names a measure of the group column after its aggregation
+        dataModel.applyTransformation(TransformationFactory.createAggregationTransformation(
+                "category", "category", TransformationFactory.AggregationType.COUNT));
+        assertEquals(List.of("category", "COUNT(category)"), dataModel.getColumnNames());
+        assertEquals(2, dataModel.getData().size());
+        assertEquals(Map.of("category", "A", "COUNT(category)", 2.0), dataModel.getData().get(0));
+        assertEquals(Map.of("category", "B", "COUNT(category)", 1.0), dataModel.getData().get(1));
+        dataModel.undo();
+
+        // COUNT counts text cells too, while the numeric aggregates of text stay empty
+        ColumnTable counted = HashAggregator.aggregate(dataModel.getTable(), null, List.of("id"),
+                List.of(new HashAggregator.Measure("category", TransformationFactory.AggregationType.COUNT, "n"),
+                        new HashAggregator.Measure("category", TransformationFactory.AggregationType.SUM, "sum")));
+        assertEquals(1.0, counted.get(0, "n"));
+        assertNull(counted.get(0, "sum"));
+
+        assertThrows(IllegalArgumentException.class, () -> HashAggregator.aggregate(dataModel.getTable(), null,
+                List.of("category"), List.of(new HashAggregator.Measure("value", TransformationFactory.AggregationType.MIN, "v"),
+                        new HashAggregator.Measure("id", TransformationFactory.AggregationType.MAX, "v"))));
+    }
+}